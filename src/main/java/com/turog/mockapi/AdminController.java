@@ -0,0 +1,109 @@
+package com.turog.mockapi;
+
+import com.turog.mockapi.store.BulkSeeder;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin")
+@CrossOrigin(origins = "*")
+public class AdminController {
+
+    private final BulkSeeder seeder;
+    private final RequestMetrics metrics;
+    private final LatencySimulator latency;
+
+    public AdminController(BulkSeeder seeder, RequestMetrics metrics, LatencySimulator latency) {
+        this.seeder = seeder;
+        this.metrics = metrics;
+        this.latency = latency;
+    }
+
+    // 1. Bulk Seed - POST /admin/seed {"seed": 42, "records": 1000, "counts": {"clients": 1000000}}
+    // records applies to every domain, counts overrides it per domain
+    @PostMapping("/seed")
+    public ResponseEntity<Map<String, Object>> seed(@RequestBody Map<String, Object> request) {
+        Long seed = whole(request.getOrDefault("seed", 42));
+        Long records = whole(request.get("records"));
+        Map<String, Long> counts = new LinkedHashMap<>();
+        if (records != null) {
+            for (String domain : seeder.domains()) counts.put(domain, records);
+        }
+        if (request.get("counts") instanceof Map<?, ?> overrides) {
+            overrides.forEach((domain, count) -> counts.put(String.valueOf(domain), whole(count)));
+        }
+        if (seed == null) {
+            return ResponseEntity.status(400).body(Map.of("status", "error", "message", "seed must be a whole number."));
+        }
+
+        BulkSeeder.Result result = seeder.seed(seed, counts);
+        long total = result.counts().values().stream().mapToLong(Long::longValue).sum();
+        return ResponseEntity.ok(Map.of(
+                "status", "success",
+                "message", "Seeded " + total + " records.",
+                "data", Map.of("seed", result.seed(), "counts", result.counts(), "elapsed_ms", result.elapsedMillis())
+        ));
+    }
+
+    // 2. Seedable Domains - GET /admin/seed
+    @GetMapping("/seed")
+    public ResponseEntity<Map<String, Object>> domains() {
+        return ResponseEntity.ok(Map.of("status", "success", "data", Map.of("domains", seeder.domains())));
+    }
+
+    // 3. Metrics - GET /admin/metrics (per-route latency, counts and sizes; rows per store)
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> metrics() {
+        if (!metrics.enabled()) {
+            return ResponseEntity.status(404).body(Map.of("status", "error", "message", "Metrics are disabled."));
+        }
+        return ResponseEntity.ok(Map.of("status", "success", "data", metrics.toJson()));
+    }
+
+    // 4. Metrics for Prometheus - GET /admin/metrics/prometheus
+    @GetMapping(value = "/metrics/prometheus", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public ResponseEntity<String> prometheus() {
+        if (!metrics.enabled()) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(metrics.toPrometheus());
+    }
+
+    // 5. Latency Profiles - GET /admin/latency
+    @GetMapping("/latency")
+    public ResponseEntity<Map<String, Object>> latencyProfiles() {
+        return ResponseEntity.ok(Map.of("status", "success", "data", Map.of("profiles", latency.profiles(), "delayed_requests", latency.delayed())));
+    }
+
+    // 6. Set Latency Profile - PUT /admin/latency {"route": "POST /loans/application/disburse", "profile": "lognormal(200,0.5)"}
+    // A profile of null or "none" removes it
+    @PutMapping("/latency")
+    public ResponseEntity<Map<String, Object>> setLatencyProfile(@RequestBody Map<String, Object> request) {
+        if (!(request.get("route") instanceof String route) || route.isBlank()) {
+            return ResponseEntity.status(400).body(Map.of("status", "error", "message", "route is required."));
+        }
+        Object profile = request.get("profile");
+        latency.set(route, profile == null ? null : String.valueOf(profile));
+        return ResponseEntity.ok(Map.of("status", "success", "message", "Latency profile updated.", "data", Map.of("profiles", latency.profiles())));
+    }
+
+    // Whole numbers only; anything else is null, which the seeder rejects as a count
+    private static Long whole(Object value) {
+        if (value instanceof Integer || value instanceof Long) return ((Number) value).longValue();
+        if (value instanceof String s) {
+            try {
+                return Long.valueOf(s.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,51 @@
+package com.turog.mockapi;
+
+import com.turog.mockapi.store.Batch;
+import com.turog.mockapi.store.BulkSeeder;
+import com.turog.mockapi.store.Cursor;
+import com.turog.mockapi.store.Exporter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+// Maps errors raised below the controllers onto the usual {"status": "error"} body
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(Cursor.InvalidCursorException.class)
+    public ResponseEntity<Map<String, Object>> invalidCursor(Cursor.InvalidCursorException e) {
+        return ResponseEntity.status(400).body(Map.of("status", "error", "message", "Invalid cursor."));
+    }
+
+    @ExceptionHandler(Cursor.InvalidPageSizeException.class)
+    public ResponseEntity<Map<String, Object>> invalidPageSize(Cursor.InvalidPageSizeException e) {
+        return ResponseEntity.status(400).body(Map.of("status", "error", "message", e.getMessage()));
+    }
+
+    @ExceptionHandler(SyntheticCatalog.InvalidPageException.class)
+    public ResponseEntity<Map<String, Object>> invalidPage(SyntheticCatalog.InvalidPageException e) {
+        return ResponseEntity.status(400).body(Map.of("status", "error", "message", e.getMessage()));
+    }
+
+    @ExceptionHandler(LatencyProfile.InvalidProfileException.class)
+    public ResponseEntity<Map<String, Object>> invalidProfile(LatencyProfile.InvalidProfileException e) {
+        return ResponseEntity.status(400).body(Map.of("status", "error", "message", e.getMessage()));
+    }
+
+    @ExceptionHandler(BulkSeeder.InvalidSeedException.class)
+    public ResponseEntity<Map<String, Object>> invalidSeed(BulkSeeder.InvalidSeedException e) {
+        return ResponseEntity.status(400).body(Map.of("status", "error", "message", e.getMessage()));
+    }
+
+    @ExceptionHandler(Batch.InvalidBatchException.class)
+    public ResponseEntity<Map<String, Object>> invalidBatch(Batch.InvalidBatchException e) {
+        return ResponseEntity.status(400).body(Map.of("status", "error", "message", e.getMessage()));
+    }
+
+    @ExceptionHandler(Exporter.UnknownCollectionException.class)
+    public ResponseEntity<Map<String, Object>> unknownCollection(Exporter.UnknownCollectionException e) {
+        return ResponseEntity.status(404).body(Map.of("status", "error", "message", e.getMessage()));
+    }
+}
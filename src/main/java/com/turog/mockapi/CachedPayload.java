@@ -0,0 +1,110 @@
+package com.turog.mockapi;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A fixed response body serialized once, kept as plain and gzip bytes.
+ * <p>
+ * The strong ETag is a hash of the JSON, so it only changes when the data behind it changes.
+ * Clients revalidate every time ({@code Cache-Control: no-cache}) and get a bodiless 304 while
+ * their copy is current.
+ */
+final class CachedPayload {
+
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+    private final String gzipEtag;
+
+    private CachedPayload(byte[] json) {
+        this.json = json;
+        this.gzip = gzip(json);
+        String hash = sha256(json);
+        this.etag = "\"" + hash + "\"";
+        // Each content coding is its own representation, so it gets its own strong validator
+        this.gzipEtag = "\"" + hash + "-gzip\"";
+    }
+
+    static CachedPayload of(JsonMapper mapper, Object body) {
+        return new CachedPayload(mapper.writeValueAsBytes(body));
+    }
+
+    ResponseEntity<byte[]> respond(String ifNoneMatch, String acceptEncoding) {
+        boolean gzipped = acceptsGzip(acceptEncoding);
+        boolean current = matches(ifNoneMatch);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(current ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .eTag(gzipped ? gzipEtag : etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (current) return response.build();
+
+        response.contentType(MediaType.APPLICATION_JSON);
+        if (gzipped) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").contentLength(gzip.length).body(gzip);
+        }
+        return response.contentLength(json.length).body(json);
+    }
+
+    // If-None-Match uses the weak comparison, so W/ prefixes are ignored
+    private boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag)) return true;
+        }
+        return false;
+    }
+
+    // gzip is used unless the client leaves it out or refuses it with q=0
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) continue;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (!param.startsWith("q=")) continue;
+                try {
+                    return Double.parseDouble(param.substring(2)) > 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, bytes.length / 4));
+        try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+            zip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.turog.mockapi;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request latencies in nanoseconds, bucketed log-linearly the way HdrHistogram does: values below
+ * 128 ns get a bucket each, and every power of two above that is split into 64 buckets, so any
+ * recorded value is known to within 1/64 (about 1.6%) from 128 ns up to 2^40 ns (about 18 minutes;
+ * longer requests count as that). Recording is one atomic increment and never allocates.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        counts.incrementAndGet(index(value));
+        total.add(value);
+        if (value > max.get()) max.accumulateAndGet(value, Math::max);
+    }
+
+    // A consistent-enough copy to read percentiles from; writers keep going while it is taken
+    Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, total.sum(), max.get());
+    }
+
+    record Snapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+
+        // The highest value in the bucket holding the quantile's rank, capped at the largest seen
+        long valueAt(double quantile) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(highestIn(i), maxNanos);
+            }
+            return maxNanos;
+        }
+
+        long meanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+    }
+
+    // Exact below 2 * SUB_BUCKETS; above, the top SUB_BITS + 1 bits of the value pick the bucket
+    private static int index(long value) {
+        int exponent = 63 - Long.numberOfLeadingZeros(value | (2 * SUB_BUCKETS - 1));
+        int shift = exponent - SUB_BITS;
+        return (shift << SUB_BITS) + (int) (value >>> shift);
+    }
+
+    private static long highestIn(int index) {
+        if (index < 2 * SUB_BUCKETS) return index;
+        int shift = (index >>> SUB_BITS) - 1;
+        long mantissa = (index & (SUB_BUCKETS - 1)) | SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,147 @@
+package com.turog.mockapi;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.ToLongFunction;
+import java.util.random.RandomGenerator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * How long a simulated backend takes to answer, as a distribution each request's delay is drawn
+ * from. Written the way it is configured, all values in milliseconds:
+ * <ul>
+ *     <li>{@code fixed(250)}</li>
+ *     <li>{@code uniform(100,400)}</li>
+ *     <li>{@code normal(300,50)}: mean and standard deviation, clamped at 0</li>
+ *     <li>{@code lognormal(200,0.5)}: median and the sigma of its log, for a long right tail</li>
+ *     <li>{@code replay(latencies.txt)}: a recorded histogram, one {@code millis [count]} per line</li>
+ * </ul>
+ */
+final class LatencyProfile {
+
+    static final class InvalidProfileException extends RuntimeException {
+        InvalidProfileException(String message) {
+            super(message);
+        }
+    }
+
+    private static final Pattern SPEC = Pattern.compile("\\s*([A-Za-z]+)\\s*\\((.*)\\)\\s*");
+
+    private final String spec;
+    private final ToLongFunction<RandomGenerator> sample;
+
+    private LatencyProfile(String spec, ToLongFunction<RandomGenerator> sample) {
+        this.spec = spec;
+        this.sample = sample;
+    }
+
+    long sampleNanos(RandomGenerator random) {
+        return sample.applyAsLong(random);
+    }
+
+    // The spec this profile was parsed from, tidied
+    String spec() {
+        return spec;
+    }
+
+    static LatencyProfile parse(String spec) {
+        Matcher matcher = SPEC.matcher(spec == null ? "" : spec);
+        if (!matcher.matches()) throw new InvalidProfileException("A latency profile looks like fixed(250), not: " + spec);
+        String kind = matcher.group(1).toLowerCase(Locale.ROOT);
+        String arguments = matcher.group(2).trim();
+        String tidied = kind + "(" + arguments.replace(" ", "") + ")";
+        if (kind.equals("replay")) return replay(kind + "(" + arguments + ")", Path.of(arguments));
+
+        double[] args = numbers(kind, arguments);
+        return switch (kind) {
+            case "fixed" -> {
+                expect(kind, args, 1);
+                long nanos = nanos(args[0]);
+                yield new LatencyProfile(tidied, random -> nanos);
+            }
+            case "uniform" -> {
+                expect(kind, args, 2);
+                if (args[1] < args[0]) throw new InvalidProfileException("uniform(min,max) needs min <= max.");
+                long min = nanos(args[0]);
+                long span = nanos(args[1]) - min;
+                yield new LatencyProfile(tidied, random -> min + (span == 0 ? 0 : random.nextLong(span + 1)));
+            }
+            case "normal" -> {
+                expect(kind, args, 2);
+                double mean = args[0];
+                double deviation = args[1];
+                yield new LatencyProfile(tidied, random -> nanos(Math.max(0, mean + deviation * random.nextGaussian())));
+            }
+            case "lognormal" -> {
+                expect(kind, args, 2);
+                if (args[0] == 0) throw new InvalidProfileException("lognormal(median,sigma) needs a median above 0.");
+                double mu = Math.log(args[0]);
+                double sigma = args[1];
+                yield new LatencyProfile(tidied, random -> nanos(Math.exp(mu + sigma * random.nextGaussian())));
+            }
+            default -> throw new InvalidProfileException("Unknown latency profile: " + kind
+                    + ". Use fixed, uniform, normal, lognormal or replay.");
+        };
+    }
+
+    // Draws the recorded latencies in proportion to their counts
+    private static LatencyProfile replay(String spec, Path file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file);
+        } catch (IOException e) {
+            throw new InvalidProfileException("Cannot read the latency histogram " + file + ".");
+        }
+        List<long[]> buckets = new ArrayList<>();
+        long total = 0;
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+            String[] fields = trimmed.split("[\\s,]+");
+            try {
+                double millis = Double.parseDouble(fields[0]);
+                long count = fields.length > 1 ? Long.parseLong(fields[1]) : 1;
+                if (millis < 0 || count < 0) throw new NumberFormatException();
+                if (count == 0) continue;
+                total += count;
+                buckets.add(new long[]{nanos(millis), total});
+            } catch (NumberFormatException e) {
+                throw new InvalidProfileException("Bad line in the latency histogram " + file + ": " + trimmed);
+            }
+        }
+        if (total == 0) throw new InvalidProfileException("The latency histogram " + file + " has no samples.");
+        long[] nanos = buckets.stream().mapToLong(b -> b[0]).toArray();
+        long[] cumulative = buckets.stream().mapToLong(b -> b[1]).toArray();
+        long samples = total;
+        return new LatencyProfile(spec, random -> {
+            int at = Arrays.binarySearch(cumulative, random.nextLong(samples) + 1);
+            return nanos[at >= 0 ? at : -at - 1];
+        });
+    }
+
+    private static double[] numbers(String kind, String arguments) {
+        if (arguments.isEmpty()) return new double[0];
+        try {
+            return Arrays.stream(arguments.split(",")).mapToDouble(a -> Double.parseDouble(a.trim())).toArray();
+        } catch (NumberFormatException e) {
+            throw new InvalidProfileException(kind + " takes numbers, not: " + arguments);
+        }
+    }
+
+    private static void expect(String kind, double[] args, int count) {
+        if (args.length != count) throw new InvalidProfileException(kind + " takes " + count + (count == 1 ? " number." : " numbers."));
+        for (double arg : args) {
+            if (!(arg >= 0) || Double.isInfinite(arg)) throw new InvalidProfileException(kind + " takes numbers of 0 or more.");
+        }
+    }
+
+    private static long nanos(double millis) {
+        return (long) (millis * 1_000_000);
+    }
+}
@@ -0,0 +1,132 @@
+package com.turog.mockapi;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Makes chosen routes answer as slowly as the backend they stand in for, without holding a thread
+ * while they wait: the latency profile of every route, and the {@link TimerWheel} delayed requests
+ * wait on. The web stack applies the delays, {@code servlet.LatencyInterceptor} on Spring MVC and
+ * {@code reactive.LatencyWebFilter} on WebFlux. Waiting requests hold only their connection, so tens
+ * of thousands can be in flight on a few threads. With {@code mockapi.latency.blocking} a Spring MVC
+ * request thread sleeps out the delay instead, like a handler stuck on a slow call would; that is
+ * only cheap on virtual threads.
+ * <p>
+ * Routes are keyed {@code METHOD pattern} ({@code POST /loans/application/disburse}), by pattern
+ * alone for every method, or {@code *} for every route without a profile of its own.
+ */
+@Component
+public class LatencySimulator {
+
+    public static final String ANY = "*";
+
+    private static final Logger log = LoggerFactory.getLogger(LatencySimulator.class);
+
+    // pattern -> method -> profile; replaced whole on every change, read without locking
+    private volatile Map<String, Map<String, LatencyProfile>> profiles = Map.of();
+    private final ReentrantLock updates = new ReentrantLock();
+    private final TimerWheel wheel;
+    private final boolean blocking;
+
+    public LatencySimulator(
+            @Value("${mockapi.latency.routes:}") String routes,
+            @Value("${mockapi.latency.tick-ms:1}") long tickMs,
+            @Value("${mockapi.latency.blocking:false}") boolean blocking,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (tickMs < 1) throw new IllegalArgumentException("mockapi.latency.tick-ms must be at least 1");
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            log.warn("spring.threads.virtual.enabled is set, but Java {} has no virtual threads; requests run on platform threads",
+                    Runtime.version().feature());
+        } else if (blocking && !virtualThreads) {
+            log.warn("mockapi.latency.blocking holds a platform thread per delayed request; enable virtual threads or leave it off");
+        }
+        this.blocking = blocking;
+        for (String entry : routes.split(";")) {
+            if (entry.isBlank()) continue;
+            int equals = entry.indexOf('=');
+            if (equals < 0) throw new IllegalArgumentException("mockapi.latency.routes entries look like POST /path=fixed(100), not: " + entry.trim());
+            set(entry.substring(0, equals), entry.substring(equals + 1));
+        }
+        this.wheel = new TimerWheel("mockapi-latency-timer", TimeUnit.MILLISECONDS.toNanos(tickMs), 4096);
+    }
+
+    public boolean blocking() {
+        return blocking;
+    }
+
+    public boolean hasProfiles() {
+        return !profiles.isEmpty();
+    }
+
+    // A delay drawn from the profile of the route, or 0 without one; pattern is null for unmatched requests
+    public long sampleNanos(String method, String pattern) {
+        Map<String, Map<String, LatencyProfile>> current = profiles;
+        if (current.isEmpty()) return 0;
+        LatencyProfile profile = profile(current, method, pattern);
+        return profile == null ? 0 : profile.sampleNanos(ThreadLocalRandom.current());
+    }
+
+    // Runs the task on the wheel's thread once the delay is over; it must be quick and must not block
+    public void after(long nanos, Runnable task) {
+        wheel.schedule(nanos, TimeUnit.NANOSECONDS, task);
+    }
+
+    // route is "METHOD pattern", "pattern" or "*"; a null or "none" profile removes the route's profile
+    public void set(String route, String profile) {
+        String key = route.trim();
+        int space = key.indexOf(' ');
+        String method = space < 0 || key.equals(ANY) ? ANY : key.substring(0, space).toUpperCase();
+        String pattern = space < 0 ? key : key.substring(space + 1).trim();
+        if (pattern.isEmpty()) throw new LatencyProfile.InvalidProfileException("A route is a path pattern, optionally after its method.");
+        LatencyProfile parsed = profile == null || profile.isBlank() || profile.trim().equalsIgnoreCase("none") ? null : LatencyProfile.parse(profile);
+
+        updates.lock();
+        try {
+            Map<String, Map<String, LatencyProfile>> next = new HashMap<>();
+            profiles.forEach((p, byMethod) -> next.put(p, new HashMap<>(byMethod)));
+            Map<String, LatencyProfile> byMethod = next.computeIfAbsent(pattern, p -> new HashMap<>());
+            if (parsed == null) byMethod.remove(method);
+            else byMethod.put(method, parsed);
+            if (byMethod.isEmpty()) next.remove(pattern);
+            profiles = next;
+        } finally {
+            updates.unlock();
+        }
+    }
+
+    // Every profile by route, as set
+    public Map<String, String> profiles() {
+        Map<String, String> all = new TreeMap<>();
+        profiles.forEach((pattern, byMethod) -> byMethod.forEach((method, profile) ->
+                all.put(method.equals(ANY) ? pattern : method + " " + pattern, profile.spec())));
+        return all;
+    }
+
+    // Requests waiting out their delay right now
+    public long delayed() {
+        return wheel.pending();
+    }
+
+    @PreDestroy
+    public void close() {
+        wheel.close();
+    }
+
+    private static LatencyProfile profile(Map<String, Map<String, LatencyProfile>> current, String method, String pattern) {
+        Map<String, LatencyProfile> byMethod = pattern == null ? null : current.get(pattern);
+        LatencyProfile profile = byMethod == null ? null : byMethod.getOrDefault(method, byMethod.get(ANY));
+        if (profile != null) return profile;
+        Map<String, LatencyProfile> fallback = current.get(ANY);
+        return fallback == null ? null : fallback.get(ANY);
+    }
+}
@@ -1,19 +1,114 @@
 package com.turog.mockapi;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import tools.jackson.databind.json.JsonMapper;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/api")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = "X-Total-Count")
 public class MockDataController {
 
+    // Each catalog is built and serialized once; its ETag only changes when the definitions below do
+    private final CachedPayload creditAccounts;
+    private final CachedPayload investmentAccounts;
+    private final CachedPayload savingsAccounts;
+    private final CachedPayload merchants;
+    private final CachedPayload merchantGroups;
+
+    // With syntheticRows > 0 (or a rows parameter) the account catalogs are generated page by page instead
+    private final JsonMapper mapper;
+    private final long syntheticRows;
+    private final long syntheticSeed;
+
+    public MockDataController(
+            JsonMapper mapper,
+            @Value("${mockapi.synthetic.rows:0}") long syntheticRows,
+            @Value("${mockapi.synthetic.seed:42}") long syntheticSeed) {
+        this.mapper = mapper;
+        this.syntheticRows = syntheticRows;
+        this.syntheticSeed = syntheticSeed;
+        this.creditAccounts = CachedPayload.of(mapper, creditAccounts());
+        this.investmentAccounts = CachedPayload.of(mapper, investmentAccounts());
+        this.savingsAccounts = CachedPayload.of(mapper, savingsAccounts());
+        this.merchants = CachedPayload.of(mapper, merchants());
+        this.merchantGroups = CachedPayload.of(mapper, merchantGroups());
+    }
+
     @GetMapping("/credit-accounts")
-    public List<CreditAccount> getCreditAccounts() {
+    public ResponseEntity<byte[]> getCreditAccounts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestParam(required = false) Long rows,
+            @RequestParam(required = false) Long seed,
+            @RequestParam(defaultValue = "1") long page,
+            @RequestParam(defaultValue = "10") int page_size) {
+        if (rows == null && syntheticRows <= 0) return creditAccounts.respond(ifNoneMatch, acceptEncoding);
+        return synthetic(SyntheticCatalog.CREDIT_ACCOUNTS, rows, seed, page, page_size);
+    }
+
+    @GetMapping("/investment-accounts")
+    public ResponseEntity<byte[]> getInvestmentAccounts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestParam(required = false) Long rows,
+            @RequestParam(required = false) Long seed,
+            @RequestParam(defaultValue = "1") long page,
+            @RequestParam(defaultValue = "10") int page_size) {
+        if (rows == null && syntheticRows <= 0) return investmentAccounts.respond(ifNoneMatch, acceptEncoding);
+        return synthetic(SyntheticCatalog.INVESTMENT_ACCOUNTS, rows, seed, page, page_size);
+    }
+
+    @GetMapping("/savings-accounts")
+    public ResponseEntity<byte[]> getSavingsAccounts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestParam(required = false) Long rows,
+            @RequestParam(required = false) Long seed,
+            @RequestParam(defaultValue = "1") long page,
+            @RequestParam(defaultValue = "10") int page_size) {
+        if (rows == null && syntheticRows <= 0) return savingsAccounts.respond(ifNoneMatch, acceptEncoding);
+        return synthetic(SyntheticCatalog.SAVINGS_ACCOUNTS, rows, seed, page, page_size);
+    }
+
+    @GetMapping("/merchants")
+    public ResponseEntity<byte[]> getMerchants(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return merchants.respond(ifNoneMatch, acceptEncoding);
+    }
+
+    @GetMapping("/merchant-groups")
+    public ResponseEntity<byte[]> getMerchantGroups(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return merchantGroups.respond(ifNoneMatch, acceptEncoding);
+    }
+
+    // One page of a generated catalog, as a bare array like the fixed catalogs; the size travels in X-Total-Count
+    private ResponseEntity<byte[]> synthetic(SyntheticCatalog<?> catalog, Long rows, Long seed, long page, int pageSize) {
+        long total = rows != null ? rows : syntheticRows;
+        byte[] json = mapper.writeValueAsBytes(catalog.page(seed != null ? seed : syntheticSeed, total, page, pageSize));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Total-Count", Long.toString(total))
+                .contentLength(json.length)
+                .body(json);
+    }
+
+    // Catalog definitions
+
+    static List<CreditAccount> creditAccounts() {
         return List.of(
                 new CreditAccount("1", "Kayode Odole", "KO", "1829012982", "Lagos, Nigeria",
                         "NEW", 45000000.0, "NGN", "Corporate", 45000000.0, "1st July 2025 10:00 AM"),
@@ -22,8 +117,7 @@ public class MockDataController {
         );
     }
 
-    @GetMapping("/investment-accounts")
-    public List<InvestmentAccount> getInvestmentAccounts() {
+    static List<InvestmentAccount> investmentAccounts() {
         return List.of(
                 new InvestmentAccount("1", "Kayode Odole", "KO", "4367383893",
                         "Mutual Funds", "LOW", 215000.0),
@@ -32,8 +126,7 @@ public class MockDataController {
         );
     }
 
-    @GetMapping("/savings-accounts")
-    public List<SavingsAccount> getSavingsAccounts() {
+    static List<SavingsAccount> savingsAccounts() {
         return List.of(
                 new SavingsAccount("1", "Kayode Odole", "KO", "5376457897588995",
                         "3273892992", "INACTIVE", 215000.0),
@@ -42,8 +135,7 @@ public class MockDataController {
         );
     }
 
-    @GetMapping("/merchants")
-    public List<Category> getMerchants() {
+    static List<Category> merchants() {
         // SMS Messaging Category
         Configuration twilioConfig = new Configuration(
                 "Twilio Inc.",
@@ -141,8 +233,7 @@ public class MockDataController {
         );
     }
 
-    @GetMapping("/merchant-groups")
-    public List<MerchantGroup> getMerchantGroups() {
+    static List<MerchantGroup> merchantGroups() {
         return List.of(
                 new MerchantGroup("all", "All Merchants"),
                 new MerchantGroup("messaging", "Messaging"),
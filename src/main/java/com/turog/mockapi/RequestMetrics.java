@@ -0,0 +1,180 @@
+package com.turog.mockapi;
+
+import com.turog.mockapi.store.StoreBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, counts and body sizes for every route of every controller, plus the row count of every
+ * attached store, served by {@code /admin/metrics} as JSON and Prometheus text.
+ * <p>
+ * Requests are grouped by method and matched pattern ({@code GET /clients/details/{client_id}}), so
+ * path variables do not multiply the routes (unknown paths fall to the static-resource route
+ * {@code /**}, requests that never reach a handler mapping count as {@code unmatched}). Errors are responses of 400 and up, and exceptions. Request bytes are the declared
+ * Content-Length; response bytes are counted as they are written. The web stack measures
+ * ({@code servlet.MetricsFilter} on Spring MVC, {@code reactive.MetricsWebFilter} on WebFlux); the
+ * cost per request is two clock reads, two map lookups, a few counter increments and one small
+ * wrapper, with nothing locked.
+ */
+@Component
+public class RequestMetrics {
+
+    static final String UNMATCHED = "unmatched";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final String[] QUANTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    static final class Route {
+
+        final String method;
+        final String pattern;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder requestBytes = new LongAdder();
+        final LongAdder responseBytes = new LongAdder();
+
+        private Route(String method, String pattern) {
+            this.method = method;
+            this.pattern = pattern;
+        }
+
+        void record(long nanos, boolean failed, long requestSize, long responseSize) {
+            latency.record(nanos);
+            requests.increment();
+            if (failed) errors.increment();
+            if (requestSize > 0) requestBytes.add(requestSize);
+            responseBytes.add(responseSize);
+        }
+    }
+
+    // method -> pattern -> route; both keys come from the request as is, so a hit allocates nothing
+    private final Map<String, Map<String, Route>> routes = new ConcurrentHashMap<>();
+    private final StoreBackend backend;
+    private final boolean enabled;
+    private final long started = System.currentTimeMillis();
+
+    public RequestMetrics(StoreBackend backend, @Value("${mockapi.metrics.enabled:true}") boolean enabled) {
+        this.backend = backend;
+        this.enabled = enabled;
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    // pattern is null for requests that never reached a handler mapping
+    public void record(String method, String pattern, long nanos, boolean failed, long requestBytes, long responseBytes) {
+        route(method, pattern == null ? UNMATCHED : pattern).record(nanos, failed, requestBytes, responseBytes);
+    }
+
+    Route route(String method, String pattern) {
+        Map<String, Route> byPattern = routes.get(method);
+        if (byPattern == null) byPattern = routes.computeIfAbsent(method, m -> new ConcurrentHashMap<>());
+        Route route = byPattern.get(pattern);
+        return route != null ? route : byPattern.computeIfAbsent(pattern, p -> new Route(method, p));
+    }
+
+    // Busiest routes first
+    List<Route> routes() {
+        List<Route> all = new ArrayList<>();
+        routes.values().forEach(byPattern -> all.addAll(byPattern.values()));
+        all.sort(Comparator.comparingLong((Route r) -> r.requests.sum()).reversed()
+                .thenComparing(r -> r.pattern).thenComparing(r -> r.method));
+        return all;
+    }
+
+    public Map<String, Object> toJson() {
+        List<Map<String, Object>> routeRows = new ArrayList<>();
+        for (Route route : routes()) {
+            LatencyHistogram.Snapshot latency = route.latency.snapshot();
+            Map<String, Object> millis = new LinkedHashMap<>();
+            for (int q = 0; q < QUANTILES.length; q++) millis.put(QUANTILE_NAMES[q], millis(latency.valueAt(QUANTILES[q])));
+            millis.put("max", millis(latency.maxNanos()));
+            millis.put("mean", millis(latency.meanNanos()));
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("method", route.method);
+            row.put("route", route.pattern);
+            row.put("requests", latency.count());
+            row.put("errors", route.errors.sum());
+            row.put("request_bytes", route.requestBytes.sum());
+            row.put("response_bytes", route.responseBytes.sum());
+            row.put("latency_ms", millis);
+            routeRows.add(row);
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("uptime_seconds", (System.currentTimeMillis() - started) / 1000);
+        json.put("routes", routeRows);
+        json.put("stores", storeSizes());
+        return json;
+    }
+
+    // Prometheus text exposition format 0.0.4
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder(4096);
+        List<Route> all = routes();
+        List<LatencyHistogram.Snapshot> latencies = all.stream().map(r -> r.latency.snapshot()).toList();
+
+        header(out, "mockapi_http_requests_total", "counter", "Requests handled, by method and route.");
+        for (int i = 0; i < all.size(); i++) sample(out, "mockapi_http_requests_total", all.get(i), null, latencies.get(i).count());
+        header(out, "mockapi_http_errors_total", "counter", "Responses with status 400 or above, and requests that threw.");
+        for (Route route : all) sample(out, "mockapi_http_errors_total", route, null, route.errors.sum());
+        header(out, "mockapi_http_request_bytes_total", "counter", "Request body bytes, as declared by Content-Length.");
+        for (Route route : all) sample(out, "mockapi_http_request_bytes_total", route, null, route.requestBytes.sum());
+        header(out, "mockapi_http_response_bytes_total", "counter", "Response body bytes written.");
+        for (Route route : all) sample(out, "mockapi_http_response_bytes_total", route, null, route.responseBytes.sum());
+
+        header(out, "mockapi_http_request_duration_seconds", "summary", "Time from the request arriving to the response being written.");
+        for (int i = 0; i < all.size(); i++) {
+            LatencyHistogram.Snapshot latency = latencies.get(i);
+            for (double quantile : QUANTILES) {
+                sample(out, "mockapi_http_request_duration_seconds", all.get(i), Double.toString(quantile), seconds(latency.valueAt(quantile)));
+            }
+            sample(out, "mockapi_http_request_duration_seconds_sum", all.get(i), null, seconds(latency.totalNanos()));
+            sample(out, "mockapi_http_request_duration_seconds_count", all.get(i), null, latency.count());
+        }
+
+        header(out, "mockapi_store_records", "gauge", "Rows currently held by each in-memory store.");
+        storeSizes().forEach((store, size) -> out.append("mockapi_store_records{store=\"").append(escape(store)).append("\"} ")
+                .append(size).append('\n'));
+        return out.toString();
+    }
+
+    private Map<String, Long> storeSizes() {
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        backend.storeSizes().forEach((name, size) -> sizes.put(name, size.getAsLong()));
+        return sizes;
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, Route route, String quantile, Object value) {
+        out.append(name).append("{method=\"").append(escape(route.method)).append("\",route=\"").append(escape(route.pattern)).append('"');
+        if (quantile != null) out.append(",quantile=\"").append(quantile).append('"');
+        out.append("} ").append(value).append('\n');
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1_000_000_000.0;
+    }
+}
@@ -0,0 +1,90 @@
+package com.turog.mockapi;
+
+import com.turog.mockapi.store.SeedRandom;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A catalog of any size that exists only as a function: row {@code i} is built from a
+ * {@link SeedRandom} started at {@code (seed, i)}, so a page costs the same to serve out of ten
+ * rows or ten million, nothing is kept between requests, and the same seed always gives the same rows.
+ */
+final class SyntheticCatalog<T> {
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    static final class InvalidPageException extends RuntimeException {
+        InvalidPageException(String message) {
+            super(message);
+        }
+    }
+
+    interface RowGenerator<T> {
+        T row(String id, SeedRandom random);
+    }
+
+    private final RowGenerator<T> generator;
+
+    private SyntheticCatalog(RowGenerator<T> generator) {
+        this.generator = generator;
+    }
+
+    T row(long seed, long index) {
+        return generator.row(Long.toString(index + 1), new SeedRandom(seed, index));
+    }
+
+    // Rows of a 1-based page; past the end is an empty page, as with the stored lists
+    List<T> page(long seed, long rows, long page, int pageSize) {
+        if (rows < 0) throw new InvalidPageException("rows must not be negative.");
+        if (page < 1 || pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new InvalidPageException("page must be at least 1 and page_size between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        if (page - 1 > rows / pageSize) return List.of();
+        long start = (page - 1) * pageSize;
+        long end = Math.min(rows, start + pageSize);
+        List<T> items = new ArrayList<>((int) Math.max(0, end - start));
+        for (long i = start; i < end; i++) items.add(row(seed, i));
+        return items;
+    }
+
+    // Catalog definitions, shaped like the fixed rows in MockDataController
+
+    private static final String[] MONTHS = {
+            "January", "February", "March", "April", "May", "June",
+            "July", "August", "September", "October", "November", "December"};
+
+    static final SyntheticCatalog<CreditAccount> CREDIT_ACCOUNTS = new SyntheticCatalog<>((id, random) -> {
+        String name = random.name();
+        return new CreditAccount(id, name, SeedRandom.initials(name), random.digits(10), random.city() + ", Nigeria",
+                random.pick("NEW", "APPROVED", "PENDING", "DECLINED"), random.amount(1_000_000, 100_000_000, 1_000_000),
+                "NGN", random.pick("Corporate", "Individual"), random.amount(500_000, 100_000_000, 500_000),
+                submissionDate(random));
+    });
+
+    static final SyntheticCatalog<InvestmentAccount> INVESTMENT_ACCOUNTS = new SyntheticCatalog<>((id, random) -> {
+        String name = random.name();
+        return new InvestmentAccount(id, name, SeedRandom.initials(name), random.digits(10),
+                random.pick("Mutual Funds", "Treasury Bills", "Fixed Deposit", "Equities", "Eurobonds"),
+                random.pick("LOW", "MEDIUM", "HIGH"), random.amount(10_000, 50_000_000, 1_000));
+    });
+
+    static final SyntheticCatalog<SavingsAccount> SAVINGS_ACCOUNTS = new SyntheticCatalog<>((id, random) -> {
+        String name = random.name();
+        return new SavingsAccount(id, name, SeedRandom.initials(name), random.pick("4", "5") + random.digits(15),
+                random.digits(10), random.pick("ACTIVE", "INACTIVE"), random.amount(10_000, 5_000_000, 1_000));
+    });
+
+    // Formatted like the fixed catalog: "1st July 2025 10:00 AM"
+    private static String submissionDate(SeedRandom random) {
+        int day = 1 + (int) random.nextLong(28);
+        String suffix = day >= 11 && day <= 13 ? "th" : switch (day % 10) {
+            case 1 -> "st";
+            case 2 -> "nd";
+            case 3 -> "rd";
+            default -> "th";
+        };
+        return day + suffix + " " + random.pick(MONTHS) + " " + (2023 + random.nextLong(3)) + " "
+                + (1 + random.nextLong(12)) + ":" + random.pick("00", "15", "30", "45") + " " + random.pick("AM", "PM");
+    }
+}
@@ -0,0 +1,112 @@
+package com.turog.mockapi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timer wheel on one thread: any number of pending timers cost one small object each and
+ * no thread of their own. Timers land in the bucket of the tick they are due on (wrapping around the
+ * wheel for later rounds) and run on the wheel's thread within one tick after their delay, so tasks
+ * must be quick and must not block. With nothing pending the thread sleeps until the next schedule.
+ */
+final class TimerWheel implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TimerWheel.class);
+
+    private record Timeout(long dueTick, Runnable task) {}
+
+    private final long tickNanos;
+    private final long origin = System.nanoTime();
+    private final ArrayDeque<Timeout>[] buckets;
+    private final int mask;
+    // Scheduled from any thread, moved into the buckets by the wheel thread only
+    private final Queue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final Thread worker;
+    private volatile boolean running = true;
+    // Ticks fully processed; wheel thread only
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    TimerWheel(String name, long tickNanos, int wheelSize) {
+        if (tickNanos < 1) throw new IllegalArgumentException("tick must be positive");
+        if (Integer.bitCount(wheelSize) != 1) throw new IllegalArgumentException("wheel size must be a power of two");
+        this.tickNanos = tickNanos;
+        this.buckets = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) buckets[i] = new ArrayDeque<>();
+        this.mask = wheelSize - 1;
+        this.worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    void schedule(long delay, TimeUnit unit, Runnable task) {
+        long due = System.nanoTime() - origin + unit.toNanos(Math.max(delay, 0));
+        // Rounded up, so a timer never fires before its delay is over
+        incoming.add(new Timeout((due + tickNanos - 1) / tickNanos, task));
+        if (pending.getAndIncrement() == 0) LockSupport.unpark(worker);
+    }
+
+    long pending() {
+        return pending.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+    }
+
+    private void run() {
+        while (running) {
+            if (pending.get() == 0) {
+                LockSupport.park(this);
+                // Nothing was due while idle, so the skipped ticks need no processing
+                tick = Math.max(tick, currentTick());
+                continue;
+            }
+            long now = currentTick();
+            if (now <= tick) {
+                LockSupport.parkNanos(this, origin + (tick + 1) * tickNanos - System.nanoTime());
+                continue;
+            }
+            transferIncoming();
+            while (tick < now) expire(++tick);
+        }
+    }
+
+    private void transferIncoming() {
+        for (Timeout timeout; (timeout = incoming.poll()) != null; ) {
+            // Already due timers go into the next tick processed
+            long due = Math.max(timeout.dueTick(), tick + 1);
+            buckets[(int) (due & mask)].add(due == timeout.dueTick() ? timeout : new Timeout(due, timeout.task()));
+        }
+    }
+
+    private void expire(long current) {
+        Iterator<Timeout> timeouts = buckets[(int) (current & mask)].iterator();
+        while (timeouts.hasNext()) {
+            Timeout timeout = timeouts.next();
+            if (timeout.dueTick() > current) continue; // a later round
+            timeouts.remove();
+            pending.decrementAndGet();
+            try {
+                timeout.task().run();
+            } catch (RuntimeException e) {
+                log.warn("Timer task failed", e);
+            }
+        }
+    }
+
+    private long currentTick() {
+        return (System.nanoTime() - origin) / tickNanos;
+    }
+}
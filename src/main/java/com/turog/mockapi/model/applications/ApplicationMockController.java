@@ -1,10 +1,12 @@
 package com.turog.mockapi.model.applications;
 
+import com.turog.mockapi.store.CursorPage;
+import com.turog.mockapi.store.EntityStore;
+import com.turog.mockapi.store.StoreBackend;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.time.ZonedDateTime;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 @RestController
@@ -13,22 +15,39 @@ import java.util.stream.Collectors;
 public class ApplicationMockController {
 
     // 1. Global Application Catalog
-    private final List<Map<String, Object>> globalAppsDb = new CopyOnWriteArrayList<>(Arrays.asList(
+    private final EntityStore<Map<String, Object>> globalAppsDb = EntityStore.keyedBy("application_id", List.of(
             new HashMap<>(Map.of("application_id", "APP001", "name", "CRM Pro", "category", "CRM", "type", "Cloud", "provider", "Provider A", "description", "Customer management tool", "created_at", "2025-07-12T14:00:00Z")),
             new HashMap<>(Map.of("application_id", "APP002", "name", "ERP Lite", "category", "ERP", "type", "Cloud", "provider", "Provider B", "description", "Enterprise resource planning", "created_at", "2025-06-10T10:00:00Z"))
     ));
 
-    // 2. Client-Specific Application Subscriptions
-    private final List<Map<String, Object>> clientAppRegistry = new CopyOnWriteArrayList<>(new ArrayList<>(List.of(
-            new HashMap<>(Map.of("client_id", "CL001", "application_id", "APP001", "status", "Active", "settings", Map.of("theme", "light")))
-    )));
+    // 2. Client-Specific Application Subscriptions (one row per client/application pair)
+    private final EntityStore<Map<String, Object>> clientAppRegistry = new EntityStore<>(
+            reg -> reg.get("client_id") + ":" + reg.get("application_id"),
+            List.of(
+                    new HashMap<>(Map.of("client_id", "CL001", "application_id", "APP001", "status", "Active", "settings", Map.of("theme", "light")))
+            ));
+
+    public ApplicationMockController(StoreBackend backend) {
+        backend.attach("applications", globalAppsDb);
+        backend.attach("applications.registry", clientAppRegistry);
+    }
 
     // 1. List Applications - GET /applications/clients?page=1&page_size=10
     @GetMapping("/clients")
     public ResponseEntity<Map<String, Object>> listApplications(
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int page_size) {
 
+        if (cursor != null) {
+            CursorPage<Map<String, Object>> slice = globalAppsDb.page(cursor, page_size);
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Applications retrieved successfully.",
+                    "data", Map.of("applications", slice.items(), "pagination", slice.pagination())
+            ));
+        }
+
         // 1. Calculate the starting point (offset) based on page number
         int start = (page - 1) * page_size;
 
@@ -81,9 +100,7 @@ public class ApplicationMockController {
     // 4. View Application Details - GET /applications/clients/{application_id}
     @GetMapping("/clients/{application_id}")
     public ResponseEntity<Map<String, Object>> viewApplicationDetails(@PathVariable String application_id) {
-        return globalAppsDb.stream()
-                .filter(app -> app.get("application_id").equals(application_id))
-                .findFirst()
+        return globalAppsDb.find(application_id)
                 .map(app -> ResponseEntity.ok(Map.of("status", "success", "message", "Application details retrieved.", "data", app)))
                 .orElse(ResponseEntity.notFound().build());
     }
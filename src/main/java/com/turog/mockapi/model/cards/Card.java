@@ -0,0 +1,16 @@
+package com.turog.mockapi.model.cards;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+@JsonPropertyOrder({"expiry_date", "limit", "created_at", "currency", "masked_number", "card_type", "card_id", "client_id", "status"})
+public record Card(
+        @JsonProperty("card_id") String cardId, @JsonProperty("client_id") String clientId,
+        @JsonProperty("card_type") String cardType, @JsonProperty("masked_number") String maskedNumber,
+        @JsonProperty("expiry_date") String expiryDate, String status, String currency, Double limit,
+        @JsonProperty("created_at") String createdAt
+) {
+    Card withStatus(String status) {
+        return new Card(cardId, clientId, cardType, maskedNumber, expiryDate, status, currency, limit, createdAt);
+    }
+}
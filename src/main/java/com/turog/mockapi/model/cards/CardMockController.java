@@ -1,42 +1,60 @@
 package com.turog.mockapi.model.cards;
 
+import com.turog.mockapi.store.Batch;
+import com.turog.mockapi.store.CursorPage;
+import com.turog.mockapi.store.EntityStore;
+import com.turog.mockapi.store.Exportable;
+import com.turog.mockapi.store.IdAllocator;
+import com.turog.mockapi.store.SeedRandom;
+import com.turog.mockapi.store.SeedRun;
+import com.turog.mockapi.store.Seedable;
+import com.turog.mockapi.store.StoreBackend;
+import com.turog.mockapi.store.Values;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.time.ZonedDateTime;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/cards")
 @CrossOrigin(origins = "*")
-public class CardMockController {
+public class CardMockController implements Seedable, Exportable {
 
     // In-memory Database for Cards
-    private final List<Map<String, Object>> cardDb = new CopyOnWriteArrayList<>(List.of(
-            new HashMap<>(Map.of(
-                    "card_id", "CD001",
-                    "client_id", "CL001",
-                    "card_type", "Virtual",
-                    "masked_number", "****1234",
-                    "expiry_date", "2027-08",
-                    "status", "Active",
-                    "currency", "NGN",
-                    "limit", 500000.0,
-                    "created_at", "2025-07-01T10:00:00Z"
-            ))
+    private final EntityStore<Card> cardDb = new EntityStore<>(Card::cardId, List.of(
+            new Card("CD001", "CL001", "Virtual", "****1234", "2027-08", "Active", "NGN", 500000.0, "2025-07-01T10:00:00Z")
     ));
 
+    private final IdAllocator.Sequence cardIds;
+
+    public CardMockController(IdAllocator ids, StoreBackend backend) {
+        this.cardIds = ids.sequence("CD", cardDb.size() + 1);
+        backend.attach("cards", cardDb, Card.class);
+    }
+
     // 1. List Client Cards - GET /cards/internal?client_id=CL001&page=1&page_size=10
     @GetMapping("/internal")
     public ResponseEntity<Map<String, Object>> listClientCards(
             @RequestParam(required = false) String client_id,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int page_size) {
 
+        if (cursor != null) {
+            CursorPage<Card> slice = cardDb.page(cursor, page_size, c -> client_id == null || client_id.equals(c.clientId()));
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Cards retrieved successfully.",
+                    "data", Map.of("cards", slice.items(), "pagination", slice.pagination())
+            ));
+        }
+
         // 1. Filter by client_id if provided
-        List<Map<String, Object>> filteredCards = cardDb.stream()
-                .filter(c -> client_id == null || String.valueOf(c.get("client_id")).equals(client_id))
+        List<Card> filteredCards = cardDb.stream()
+                .filter(c -> client_id == null || client_id.equals(c.clientId()))
                 .toList();
 
         int totalRecords = filteredCards.size();
@@ -46,7 +64,7 @@ public class CardMockController {
         int start = (page - 1) * page_size;
 
         // 3. Apply Pagination (Skip/Limit based on page)
-        List<Map<String, Object>> pagedCards = filteredCards.stream()
+        List<Card> pagedCards = filteredCards.stream()
                 .skip(start)
                 .limit(page_size)
                 .toList();
@@ -70,42 +88,49 @@ public class CardMockController {
     // 2. Create Card - POST /cards/internal
     @PostMapping("/internal")
     public ResponseEntity<Map<String, Object>> createCard(@RequestBody Map<String, Object> request) {
-        String newId = "CD" + String.format("%03d", cardDb.size() + 1);
+        String newId = cardIds.next();
         String maskedNum = "****" + (1000 + new Random().nextInt(9000));
 
-        Map<String, Object> newCard = new HashMap<>();
-        newCard.put("card_id", newId);
-        newCard.put("client_id", request.get("client_id"));
-        newCard.put("card_type", request.get("card_type"));
-        newCard.put("currency", request.get("currency"));
-        newCard.put("limit", request.get("limit"));
-        newCard.put("masked_number", maskedNum);
-        newCard.put("expiry_date", "2028-01");
-        newCard.put("status", "Active");
-        newCard.put("created_at", ZonedDateTime.now().toString());
-
-        cardDb.add(newCard);
+        cardDb.add(newCard(newId, request, maskedNum, ZonedDateTime.now().toString()));
 
         return ResponseEntity.ok(Map.of(
                 "status", "success",
                 "message", "Card created successfully.",
-                "data", Map.of(
-                        "card_id", newId,
-                        "client_id", request.get("client_id"),
-                        "card_type", request.get("card_type"),
-                        "masked_number", maskedNum,
-                        "expiry_date", "2028-01",
-                        "status", "Active"
-                )
+                "data", created(newId, request, maskedNum)
         ));
     }
 
+    // 2b. Batch Create Cards - POST /cards/internal/batch {"cards": [{...}, ...], "mode": "best_effort" | "atomic"}
+    // client_id and card_type are required; IDs and list positions are reserved for the whole batch at once
+    @PostMapping("/internal/batch")
+    public ResponseEntity<Map<String, Object>> createCards(@RequestBody Map<String, Object> request) {
+        Batch batch = Batch.of(request, "cards");
+        for (Batch.Item item : batch.valid()) {
+            if (item.body().get("client_id") == null || item.body().get("card_type") == null) {
+                batch.fail(item.index(), "client_id and card_type are required.");
+            }
+        }
+        if (batch.rejected()) return ResponseEntity.status(400).body(batch.body());
+
+        List<Batch.Item> items = batch.valid();
+        IdAllocator.Sequence.Block ids = cardIds.reserve(items.size());
+        EntityStore<Card>.Block rows = cardDb.reserve(items.size());
+        String now = ZonedDateTime.now().toString();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < items.size(); i++) {
+            Batch.Item item = items.get(i);
+            String newId = ids.id(i);
+            String maskedNum = "****" + (1000 + random.nextInt(9000));
+            rows.put(i, newCard(newId, item.body(), maskedNum, now));
+            batch.succeed(item.index(), "Card created successfully.", created(newId, item.body(), maskedNum));
+        }
+        return ResponseEntity.ok(batch.body());
+    }
+
     // 3. Card Details - GET /cards/internal/{card_id}
     @GetMapping("/internal/{card_id}")
     public ResponseEntity<Map<String, Object>> cardDetails(@PathVariable String card_id) {
-        return cardDb.stream()
-                .filter(c -> c.get("card_id").equals(card_id))
-                .findFirst()
+        return cardDb.find(card_id)
                 .map(c -> ResponseEntity.ok(Map.of("status", "success", "message", "Card details retrieved successfully.", "data", c)))
                 .orElse(ResponseEntity.status(404).body(Map.of("status", "error", "message", "Card not found")));
     }
@@ -116,15 +141,13 @@ public class CardMockController {
         String cardId = String.valueOf(request.get("card_id"));
         String newStatus = String.valueOf(request.get("status"));
 
-        for (Map<String, Object> card : cardDb) {
-            if (card.get("card_id").equals(cardId)) {
-                card.put("status", newStatus);
-                return ResponseEntity.ok(Map.of(
-                        "status", "success",
-                        "message", "Card status updated successfully.",
-                        "data", Map.of("card_id", cardId, "status", newStatus, "updated_at", ZonedDateTime.now().toString())
-                ));
-            }
+        Card card = cardDb.update(cardId, c -> c.withStatus(newStatus));
+        if (card != null) {
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Card status updated successfully.",
+                    "data", Map.of("card_id", cardId, "status", newStatus, "updated_at", ZonedDateTime.now().toString())
+            ));
         }
         return ResponseEntity.status(404).build();
     }
@@ -149,21 +172,75 @@ public class CardMockController {
         String cardId = String.valueOf(request.get("card_id"));
         String reason = String.valueOf(request.get("reason"));
 
-        for (Map<String, Object> card : cardDb) {
-            if (card.get("card_id").equals(cardId)) {
-                card.put("status", "Blocked");
-                return ResponseEntity.ok(Map.of(
-                        "status", "success",
-                        "message", "Card blocked successfully.",
-                        "data", Map.of(
-                                "card_id", cardId,
-                                "status", "Blocked",
-                                "blocked_at", ZonedDateTime.now().toString(),
-                                "reason", reason
-                        )
-                ));
-            }
+        Card card = cardDb.update(cardId, c -> c.withStatus("Blocked"));
+        if (card != null) {
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Card blocked successfully.",
+                    "data", Map.of(
+                            "card_id", cardId,
+                            "status", "Blocked",
+                            "blocked_at", ZonedDateTime.now().toString(),
+                            "reason", reason
+                    )
+            ));
         }
         return ResponseEntity.status(404).build();
     }
-}
\ No newline at end of file
+
+    private static Card newCard(String cardId, Map<String, Object> request, String maskedNum, String now) {
+        return new Card(cardId, Values.text(request.get("client_id")), Values.text(request.get("card_type")), maskedNum,
+                "2028-01", "Active", Values.text(request.get("currency")), Values.number(request.get("limit")), now);
+    }
+
+    private static Map<String, Object> created(String cardId, Map<String, Object> request, String maskedNum) {
+        return Map.of(
+                "card_id", cardId,
+                "client_id", request.get("client_id"),
+                "card_type", request.get("card_type"),
+                "masked_number", maskedNum,
+                "expiry_date", "2028-01",
+                "status", "Active"
+        );
+    }
+
+    // Export (Exporter): GET /export/cards?client_id=&status=&card_type=
+
+    @Override
+    public String collection() {
+        return "cards";
+    }
+
+    @Override
+    public Stream<Card> export(Map<String, String> filters) {
+        return cardDb.stream().filter(c -> Exportable.matches(filters, "client_id", c.clientId())
+                && Exportable.matches(filters, "status", c.status()) && Exportable.matches(filters, "card_type", c.cardType()));
+    }
+
+    // Bulk seeding (BulkSeeder): each card belongs to a client of the same run
+
+    @Override
+    public String domain() {
+        return "cards";
+    }
+
+    @Override
+    public boolean linksToClients() {
+        return true;
+    }
+
+    @Override
+    public Loader prepare(SeedRun run, long count) {
+        IdAllocator.Sequence.Block ids = cardIds.reserve(count);
+        EntityStore<Card>.Block rows = cardDb.reserve(count);
+        return (from, to) -> {
+            for (long i = from; i < to; i++) {
+                SeedRandom random = run.random("cards", i);
+                String expiry = (2026 + random.nextLong(5)) + "-" + String.format("%02d", 1 + random.nextLong(12));
+                rows.put(i, new Card(ids.id(i), run.clientId(run.client(random)), random.pick("Virtual", "Physical"),
+                        "****" + random.digits(4), expiry, random.pick("Active", "Active", "Active", "Blocked"),
+                        random.pick("NGN", "NGN", "USD"), random.amount(50_000, 5_000_000, 50_000), random.timestamp()));
+            }
+        };
+    }
+}
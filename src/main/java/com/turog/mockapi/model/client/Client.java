@@ -0,0 +1,65 @@
+package com.turog.mockapi.model.client;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.turog.mockapi.store.Values;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Clients are created from whatever the caller posts, so fields it left out stay off the wire
+// and keys this record does not know about are carried along in extras
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"address", "level", "dob", "name", "created_at", "location", "company", "phone_number", "type", "client_id", "email", "status"})
+public record Client(
+        @JsonProperty("client_id") String clientId, String name, String type, String status,
+        String location, String company, String level, String email,
+        @JsonProperty("phone_number") String phoneNumber, @JsonProperty("created_at") String createdAt,
+        String address, String dob, @JsonIgnore @JsonAnySetter Map<String, Object> extras
+) {
+
+    private static final Set<String> FIELDS = Set.of(
+            "client_id", "name", "type", "status", "location", "company", "level", "email",
+            "phone_number", "created_at", "address", "dob");
+
+    // Rows read back from JSON get an empty map when there were no extra keys
+    public Client {
+        if (extras != null && extras.isEmpty()) extras = null;
+    }
+
+    static Client fromRequest(String clientId, Map<String, Object> req, String createdAt) {
+        Map<String, Object> extras = null;
+        for (Map.Entry<String, Object> entry : req.entrySet()) {
+            if (FIELDS.contains(entry.getKey())) continue;
+            if (extras == null) extras = new HashMap<>();
+            extras.put(entry.getKey(), entry.getValue());
+        }
+        return new Client(clientId, Values.text(req.get("name")), Values.text(req.get("type")), "Active",
+                Values.text(req.get("location")), Values.text(req.get("company")), Values.text(req.get("level")),
+                Values.text(req.get("email")), Values.text(req.get("phone_number")), createdAt,
+                Values.text(req.get("address")), Values.text(req.get("dob")),
+                extras == null ? null : Collections.unmodifiableMap(extras));
+    }
+
+    // Profile fields present in the request replace the current ones
+    Client withProfile(Map<String, Object> req) {
+        return new Client(clientId, pick(req, "name", name), type, status, location, pick(req, "company", company),
+                level, pick(req, "email", email), pick(req, "phone_number", phoneNumber), createdAt,
+                pick(req, "address", address), pick(req, "dob", dob), extras);
+    }
+
+    @JsonAnyGetter
+    Map<String, Object> otherFields() {
+        return extras == null ? Map.of() : extras;
+    }
+
+    private static String pick(Map<String, Object> req, String field, String current) {
+        return req.containsKey(field) ? Values.text(req.get(field)) : current;
+    }
+}
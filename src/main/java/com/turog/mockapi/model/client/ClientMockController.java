@@ -1,52 +1,67 @@
 package com.turog.mockapi.model.client;
 
+import com.turog.mockapi.store.Batch;
+import com.turog.mockapi.store.CursorPage;
+import com.turog.mockapi.store.EntityStore;
+import com.turog.mockapi.store.Exportable;
+import com.turog.mockapi.store.IdAllocator;
+import com.turog.mockapi.store.SeedRandom;
+import com.turog.mockapi.store.SeedRun;
+import com.turog.mockapi.store.Seedable;
+import com.turog.mockapi.store.StoreBackend;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.time.ZonedDateTime;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/clients")
 @CrossOrigin(origins = "*")
-public class ClientMockController {
+public class ClientMockController implements Seedable, Exportable {
 
     // In-memory Database for Clients
-    private final List<Map<String, Object>> clientDb = new CopyOnWriteArrayList<>(new ArrayList<>(List.of(
-            new HashMap<>(Map.of(
-                    "client_id", "CL001",
-                    "name", "Seyi Akamo",
-                    "type", "Corporate",
-                    "status", "Active",
-                    "location", "Lagos",
-                    "company", "Kijana International",
-                    "level", "Tier One",
-                    "email", "theemail@example.com",
-                    "phone_number", "08162827322",
-                    "created_at", "2025-07-01T12:00:00Z"
-            ))
-    )));
+    private final EntityStore<Client> clientDb = new EntityStore<>(Client::clientId, List.of(
+            new Client("CL001", "Seyi Akamo", "Corporate", "Active", "Lagos", "Kijana International", "Tier One",
+                    "theemail@example.com", "08162827322", "2025-07-01T12:00:00Z", null, null, null)
+    ));
+
+    private final IdAllocator.Sequence clientIds;
+
+    public ClientMockController(IdAllocator ids, StoreBackend backend) {
+        this.clientIds = ids.sequence("CL", clientDb.size() + 1);
+        backend.attach("clients", clientDb, Client.class);
+    }
 
     // 1. List Clients - GET /clients/details
     @GetMapping("/details")
     public ResponseEntity<Map<String, Object>> listClients(
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String type,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int page_size) {
 
+        if (cursor != null) {
+            CursorPage<Client> slice = clientDb.page(cursor, page_size, c -> matches(c, search, type));
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Clients retrieved successfully.",
+                    "data", Map.of("clients", slice.items(), "pagination", slice.pagination())
+            ));
+        }
+
         // Logic: Filter, then calculate pagination metadata
-        List<Map<String, Object>> filtered = clientDb.stream()
-                .filter(c -> (search == null || c.get("name").toString().toLowerCase().contains(search.toLowerCase())))
-                .filter(c -> (type == null || c.get("type").toString().equalsIgnoreCase(type)))
+        List<Client> filtered = clientDb.stream()
+                .filter(c -> matches(c, search, type))
                 .toList();
 
         int totalRecords = filtered.size();
         int totalPages = (int) Math.ceil((double) totalRecords / page_size);
         int start = (page - 1) * page_size;
 
-        List<Map<String, Object>> pagedClients = filtered.stream()
+        List<Client> pagedClients = filtered.stream()
                 .skip(start)
                 .limit(page_size)
                 .toList();
@@ -69,10 +84,7 @@ public class ClientMockController {
     public ResponseEntity<Map<String, Object>> viewClientDetail(@PathVariable String client_id) {
 
         // 1. Find the basic client info from your database
-        Map<String, Object> client = clientDb.stream()
-                .filter(c -> c.get("client_id").equals(client_id))
-                .findFirst()
-                .orElse(null);
+        Client client = clientDb.get(client_id);
 
         if (client == null) {
             return ResponseEntity.status(404).body(Map.of("status", "error", "message", "Client not found"));
@@ -85,9 +97,9 @@ public class ClientMockController {
                 "data", Map.of(
                         "profile", Map.of(
                                 "client_id", client_id,
-                                "name", client.get("name"), // Dynamic name
-                                "company", client.getOrDefault("company", "N/A"),
-                                "level", client.getOrDefault("level", "Tier One"),
+                                "name", client.name(), // Dynamic name
+                                "company", orDefault(client.company(), "N/A"),
+                                "level", orDefault(client.level(), "Tier One"),
                                 "transaction_limit", 500000.00,
                                 "daily_limit", 50000.00
                         ),
@@ -101,10 +113,10 @@ public class ClientMockController {
                                 "aml_screening_status", "Pending"
                         ),
                         "kyc_compliance", Map.of(
-                                "address", client.getOrDefault("location", "Lagos, Nigeria"),
+                                "address", orDefault(client.location(), "Lagos, Nigeria"),
                                 "dob", "1990-08-29",
-                                "phone_number", client.getOrDefault("phone_number", "0000000000"),
-                                "email", client.getOrDefault("email", "email@example.com"),
+                                "phone_number", orDefault(client.phoneNumber(), "0000000000"),
+                                "email", orDefault(client.email(), "email@example.com"),
                                 "verification_status", "Verified",
                                 "id_types", List.of("NIN", "National ID", "Passport"),
                                 "verification_docs", List.of(
@@ -122,34 +134,39 @@ public class ClientMockController {
     @PostMapping("/setup")
     public ResponseEntity<Map<String, Object>> createClient(@RequestBody Map<String, Object> req) {
         // Generate a new ID based on current list size
-        String newId = "CL" + String.format("%03d", clientDb.size() + 1);
+        String newId = clientIds.next();
         String now = ZonedDateTime.now().toString();
 
-        // Prepare the internal record
-        Map<String, Object> newClient = new HashMap<>(req);
-        newClient.put("client_id", newId);
-        newClient.put("status", "Active");
-        newClient.put("created_at", now);
-
-        // Save to our mock database
-        clientDb.add(newClient);
-
-        // Build the full response data block to match your schema
-        Map<String, Object> responseData = new HashMap<>();
-        responseData.put("client_id", newId);
-        responseData.put("name", req.get("name"));
-        responseData.put("company", req.get("company"));
-        responseData.put("type", req.get("type"));
-        responseData.put("status", "Active");
-        responseData.put("created_at", now);
+        // Prepare the internal record and save it to our mock database
+        clientDb.add(Client.fromRequest(newId, req, now));
 
         return ResponseEntity.ok(Map.of(
                 "status", "success",
                 "message", "Client created successfully.",
-                "data", responseData
+                "data", created(newId, req, now)
         ));
     }
 
+    // 3b. Batch Create Clients - POST /clients/setup/batch {"clients": [{...}, ...], "mode": "best_effort" | "atomic"}
+    // IDs and list positions are reserved for the whole batch at once; each item is reported as POST /setup would
+    @PostMapping("/setup/batch")
+    public ResponseEntity<Map<String, Object>> createClients(@RequestBody Map<String, Object> req) {
+        Batch batch = Batch.of(req, "clients");
+        if (batch.rejected()) return ResponseEntity.status(400).body(batch.body());
+
+        List<Batch.Item> items = batch.valid();
+        IdAllocator.Sequence.Block ids = clientIds.reserve(items.size());
+        EntityStore<Client>.Block rows = clientDb.reserve(items.size());
+        String now = ZonedDateTime.now().toString();
+        for (int i = 0; i < items.size(); i++) {
+            Batch.Item item = items.get(i);
+            String newId = ids.id(i);
+            rows.put(i, Client.fromRequest(newId, item.body(), now));
+            batch.succeed(item.index(), "Client created successfully.", created(newId, item.body(), now));
+        }
+        return ResponseEntity.ok(batch.body());
+    }
+
     // 4. Update Client Profile - PUT /clients/profile
     @PutMapping("/profile")
     public ResponseEntity<Map<String, Object>> updateClientProfile(@RequestBody Map<String, Object> req) {
@@ -157,27 +174,21 @@ public class ClientMockController {
         String updatedAt = ZonedDateTime.now().toString();
 
         // 1. Find the client in our mock DB and update the fields
-        boolean clientFound = false;
         Map<String, Object> updatedFields = new HashMap<>();
 
-        for (Map<String, Object> client : clientDb) {
-            if (client.get("client_id").equals(clientId)) {
-                // List of fields we allow to be updated
-                String[] fieldsToUpdate = {"name", "company", "address", "dob", "phone_number", "email"};
-
-                for (String field : fieldsToUpdate) {
-                    if (req.containsKey(field)) {
-                        Object newValue = req.get(field);
-                        client.put(field, newValue); // Update DB
-                        updatedFields.put(field, newValue); // Track for response
-                    }
+        Client client = clientDb.update(clientId, c -> c.withProfile(req));
+        if (client != null) {
+            // List of fields we allow to be updated
+            String[] fieldsToUpdate = {"name", "company", "address", "dob", "phone_number", "email"};
+
+            for (String field : fieldsToUpdate) {
+                if (req.containsKey(field)) {
+                    updatedFields.put(field, req.get(field)); // Track for response
                 }
-                clientFound = true;
-                break;
             }
         }
 
-        if (!clientFound) {
+        if (client == null) {
             return ResponseEntity.status(404).body(Map.of(
                     "status", "error",
                     "message", "Client not found"
@@ -301,7 +312,7 @@ public class ClientMockController {
     public ResponseEntity<Map<String, Object>> deleteClient(@RequestBody Map<String, Object> req) {
         String id = String.valueOf(req.get("client_Id"));
         // Closure requirement: We soft-delete by setting status to 'Inactive' or hard delete from DB
-        boolean removed = clientDb.removeIf(c -> c.get("client_id").equals(id));
+        boolean removed = clientDb.remove(id);
 
         return ResponseEntity.ok(Map.of(
                 "client_Id", id,
@@ -309,4 +320,66 @@ public class ClientMockController {
                 "message", removed ? "Client successfully removed" : "Client not found"
         ));
     }
-}
\ No newline at end of file
+
+    // Build the full response data block to match your schema
+    private static Map<String, Object> created(String clientId, Map<String, Object> req, String now) {
+        Map<String, Object> responseData = new HashMap<>();
+        responseData.put("client_id", clientId);
+        responseData.put("name", req.get("name"));
+        responseData.put("company", req.get("company"));
+        responseData.put("type", req.get("type"));
+        responseData.put("status", "Active");
+        responseData.put("created_at", now);
+        return responseData;
+    }
+
+    private static boolean matches(Client c, String search, String type) {
+        return (search == null || (c.name() != null && c.name().toLowerCase().contains(search.toLowerCase())))
+                && (type == null || type.equalsIgnoreCase(c.type()));
+    }
+
+    private static Object orDefault(String value, String fallback) {
+        return value != null ? value : fallback;
+    }
+
+    // Export (Exporter): GET /export/clients?search=&type=&status=
+
+    @Override
+    public String collection() {
+        return "clients";
+    }
+
+    @Override
+    public Stream<Client> export(Map<String, String> filters) {
+        return clientDb.stream()
+                .filter(c -> matches(c, filters.get("search"), filters.get("type")) && Exportable.matches(filters, "status", c.status()));
+    }
+
+    // Bulk seeding (BulkSeeder): rows go straight into clientDb, other domains link to them through the run
+
+    @Override
+    public String domain() {
+        return "clients";
+    }
+
+    @Override
+    public Loader prepare(SeedRun run, long count) {
+        IdAllocator.Sequence.Block ids = clientIds.reserve(count);
+        EntityStore<Client>.Block rows = clientDb.reserve(count);
+        run.clients(ids);
+        return (from, to) -> {
+            for (long i = from; i < to; i++) {
+                SeedRandom random = run.random("clients", i);
+                // The name comes first: SeedRun.clientName() draws it again for linked rows
+                String name = random.name();
+                boolean corporate = random.nextLong(3) == 0;
+                rows.put(i, new Client(ids.id(i), name, corporate ? "Corporate" : "Individual",
+                        random.pick("Active", "Active", "Active", "Inactive"), random.city(),
+                        corporate ? random.lastName() + " " + random.pick("Holdings", "Ventures", "Logistics", "Foods", "Technologies") : null,
+                        random.pick("Tier One", "Tier Two", "Tier Three"),
+                        name.toLowerCase().replace(' ', '.') + i + "@example.com",
+                        random.pick("080", "081", "070", "090") + random.digits(8), random.timestamp(), null, null, null));
+            }
+        };
+    }
+}
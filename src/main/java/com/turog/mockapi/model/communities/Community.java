@@ -0,0 +1,35 @@
+package com.turog.mockapi.model.communities;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// members only appears once someone has joined
+@JsonPropertyOrder({"community_id", "members", "name", "description", "created_at", "category", "status"})
+public record Community(
+        @JsonProperty("community_id") String communityId, String name, String description, String category,
+        String status, @JsonProperty("created_at") String createdAt,
+        @JsonInclude(JsonInclude.Include.NON_NULL) List<CommunityMember> members
+) {
+    Community withDetails(String name, String description, String category) {
+        return new Community(communityId, name, description, category, status, createdAt, members);
+    }
+
+    Community withStatus(String status) {
+        return new Community(communityId, name, description, category, status, createdAt, members);
+    }
+
+    Community withMember(CommunityMember member) {
+        List<CommunityMember> joined = new ArrayList<>(members == null ? List.of() : members);
+        joined.add(member);
+        return new Community(communityId, name, description, category, status, createdAt, List.copyOf(joined));
+    }
+
+    Community withoutMember(String memberId) {
+        List<CommunityMember> remaining = members.stream().filter(m -> !m.memberId().equals(memberId)).toList();
+        return new Community(communityId, name, description, category, status, createdAt, remaining);
+    }
+}
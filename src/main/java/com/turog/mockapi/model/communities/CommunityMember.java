@@ -0,0 +1,10 @@
+package com.turog.mockapi.model.communities;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+@JsonPropertyOrder({"member_id", "joined_at", "role", "status"})
+public record CommunityMember(
+        @JsonProperty("member_id") String memberId, String role, String status,
+        @JsonProperty("joined_at") String joinedAt
+) {}
@@ -1,40 +1,39 @@
 package com.turog.mockapi.model.communities;
 
+import com.turog.mockapi.store.Cursor;
+import com.turog.mockapi.store.CursorPage;
+import com.turog.mockapi.store.EntityStore;
+import com.turog.mockapi.store.Exportable;
+import com.turog.mockapi.store.IdAllocator;
+import com.turog.mockapi.store.SeedRandom;
+import com.turog.mockapi.store.SeedRun;
+import com.turog.mockapi.store.Seedable;
+import com.turog.mockapi.store.StoreBackend;
+import com.turog.mockapi.store.TrigramIndex;
+import com.turog.mockapi.store.Values;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.ZonedDateTime;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/communities")
 @CrossOrigin(origins = "*")
-public class CommunityMockController {
+public class CommunityMockController implements Seedable, Exportable {
 
 
     // Dynamic data stores with startup data
-    private final List<Map<String, Object>> communityDatabase = new CopyOnWriteArrayList<>(new ArrayList<>(List.of(
-            new HashMap<>(Map.of(
-                    "community_id", "COM001",
-                    "name", "Tech Innovators",
-                    "description", "A hub for software developers and tech enthusiasts.",
-                    "category", "Technology",
-                    "status", "Active",
-                    "created_at", "2025-01-10T09:00:00Z"
-            )),
-            new HashMap<>(Map.of(
-                    "community_id", "COM002",
-                    "name", "Lagos Startup Network",
-                    "description", "Connecting entrepreneurs across Nigeria.",
-                    "category", "Business",
-                    "status", "Active",
-                    "created_at", "2025-02-15T14:30:00Z"
-            ))
-    )));
-
-    private final List<Map<String, Object>> inviteDatabase = new CopyOnWriteArrayList<>(new ArrayList<>(List.of(
+    private final EntityStore<Community> communityDatabase = new EntityStore<>(Community::communityId, List.of(
+            new Community("COM001", "Tech Innovators", "A hub for software developers and tech enthusiasts.",
+                    "Technology", "Active", "2025-01-10T09:00:00Z", null),
+            new Community("COM002", "Lagos Startup Network", "Connecting entrepreneurs across Nigeria.",
+                    "Business", "Active", "2025-02-15T14:30:00Z", null)
+    ));
+
+    private final EntityStore<Map<String, Object>> inviteDatabase = EntityStore.keyedBy("invite_id", List.of(
             new HashMap<>(Map.of(
                     "invite_id", "INV101",
                     "community_id", "COM001",
@@ -42,22 +41,36 @@ public class CommunityMockController {
                     "status", "Pending",
                     "sent_at", "2025-09-01T10:00:00Z"
             ))
-    )));
+    ));
+
+    // Trigram index over community name and description, kept in step with communityDatabase
+    private final TrigramIndex communitySearch = new TrigramIndex();
+    private static final int EXPORT_PAGE = Cursor.MAX_PAGE_SIZE;
+
+    private final IdAllocator.Sequence communityIds;
+    private final IdAllocator.Sequence inviteIds;
+    private final IdAllocator.Sequence memberIds;
+
+    public CommunityMockController(IdAllocator ids, StoreBackend backend) {
+        this.communityIds = ids.sequence("COM", communityDatabase.size() + 1);
+        this.inviteIds = ids.sequence("INV", inviteDatabase.size() + 1);
+        this.memberIds = ids.sequence("MBR", 1);
+        backend.attach("communities", communityDatabase, Community.class);
+        backend.attach("communities.invites", inviteDatabase);
+        communityDatabase.stream().forEach(this::indexCommunity);
+    }
+
     // 1. Add New Community - POST /communities/account
     @PostMapping("/account")
     public ResponseEntity<Map<String, Object>> addNewCommunity(@RequestBody Map<String, Object> request) {
-        String communityId = "COM" + String.format("%03d", communityDatabase.size() + 1);
+        String communityId = communityIds.next();
 
-        Map<String, Object> newCommunity = new HashMap<>();
-        newCommunity.put("community_id", communityId);
-        newCommunity.put("name", request.get("name"));
-        newCommunity.put("description", request.get("description"));
-        newCommunity.put("category", request.get("category"));
-        newCommunity.put("status", "Active");
-        newCommunity.put("created_at", ZonedDateTime.now().toString());
-       // newCommunity.put("members", new ArrayList<Map<String, String>>()); // Initialize empty member list
+        Community newCommunity = new Community(communityId, Values.text(request.get("name")),
+                Values.text(request.get("description")), Values.text(request.get("category")), "Active",
+                ZonedDateTime.now().toString(), null);
 
         communityDatabase.add(newCommunity);
+        indexCommunity(newCommunity);
 
         return ResponseEntity.ok(Map.of(
                 "status", "success",
@@ -69,12 +82,22 @@ public class CommunityMockController {
     // 2. Communities List - GET /communities/accounts
     @GetMapping("/accounts")
     public ResponseEntity<Map<String, Object>> communitiesList(
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int page_size) {
 
+        if (cursor != null) {
+            CursorPage<Community> slice = communityDatabase.page(cursor, page_size);
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "data", slice.items(),
+                    "pagination", slice.pagination()
+            ));
+        }
+
         return ResponseEntity.ok(Map.of(
                 "status", "success",
-                "data", communityDatabase,
+                "data", communityDatabase.snapshot(),
                 "pagination", Map.of("page", page, "page_size", page_size, "total_records", communityDatabase.size())
         ));
     }
@@ -83,6 +106,7 @@ public class CommunityMockController {
     @GetMapping("/accounts/search")
     public ResponseEntity<Map<String, Object>> searchCommunity(
             @RequestParam String name,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int page_size) {
 
@@ -95,20 +119,24 @@ public class CommunityMockController {
             ));
         }
 
-        // 2. Filter logic
-        List<Map<String, Object>> filteredResults = communityDatabase.stream()
-                .filter(c -> String.valueOf(c.get("name")).toLowerCase().contains(name.toLowerCase()))
-                .toList();
+        if (cursor != null) {
+            CursorPage<String> slice = communitySearch.page(name, cursor, page_size);
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Search results retrieved.",
+                    "data", Map.of("communities", communitiesFor(slice.items()), "pagination", slice.pagination())
+            ));
+        }
 
-        int totalRecords = filteredResults.size();
-        int totalPages = (int) Math.ceil((double) totalRecords / page_size);
+        // 2. Index lookup: counts every match on name or description but only resolves this page
         int start = (page - 1) * page_size;
+        TrigramIndex.Matches matches = communitySearch.search(name, start, page_size);
 
-        // 3. Apply Pagination (Skip/Limit)
-        List<Map<String, Object>> pagedResults = filteredResults.stream()
-                .skip(start)
-                .limit(page_size)
-                .toList();
+        int totalRecords = matches.total();
+        int totalPages = (int) Math.ceil((double) totalRecords / page_size);
+
+        // 3. Resolve the page's IDs to rows
+        List<Community> pagedResults = communitiesFor(matches.keys());
 
         return ResponseEntity.ok(Map.of(
                 "status", "success",
@@ -126,11 +154,9 @@ public class CommunityMockController {
     }
     // 4. View Community Detail - GET /communities/account/{community_id}
     @GetMapping("/account/{community_id}")
-    public ResponseEntity<Map<String, Object>> viewCommunityDetail(@PathVariable String community_id) {
-        return communityDatabase.stream()
-                .filter(c -> c.get("community_id").equals(community_id))
-                .findFirst()
-                .map(ResponseEntity::ok)
+    public ResponseEntity<Object> viewCommunityDetail(@PathVariable String community_id) {
+        return communityDatabase.find(community_id)
+                .<ResponseEntity<Object>>map(ResponseEntity::ok)
                 .orElse(ResponseEntity.status(404).body(Map.of("error", "Community not found")));
     }
 
@@ -139,33 +165,32 @@ public class CommunityMockController {
     public ResponseEntity<Map<String, Object>> updateCommunityDetail(
             @PathVariable String community_id, @RequestBody Map<String, Object> request) {
 
-        for (Map<String, Object> community : communityDatabase) {
-            if (community.get("community_id").equals(community_id)) {
+        Community community = communityDatabase.update(community_id, c -> c.withDetails(
+                pick(request, "name", c.name()), pick(request, "description", c.description()), pick(request, "category", c.category())));
+        if (community != null) {
 
-                // This map will store only the fields that were actually updated
-                Map<String, Object> updatedFields = new HashMap<>();
+            // This map will store only the fields that were actually updated
+            Map<String, Object> updatedFields = new HashMap<>();
 
-                // Logic to update fields and track them for the response
-                String[] fieldsToUpdate = {"name", "description", "category"};
-                for (String field : fieldsToUpdate) {
-                    if (request.containsKey(field)) {
-                        Object newValue = request.get(field);
-                        community.put(field, newValue);
-                        updatedFields.put(field, newValue);
-                    }
+            // Track the updated fields for the response
+            String[] fieldsToUpdate = {"name", "description", "category"};
+            for (String field : fieldsToUpdate) {
+                if (request.containsKey(field)) {
+                    updatedFields.put(field, request.get(field));
                 }
-
-                // Constructing the exact response schema you shared
-                return ResponseEntity.ok(Map.of(
-                        "status", "success",
-                        "message", "Community updated successfully.",
-                        "data", Map.of(
-                                "community_id", community_id,
-                                "updated_fields", updatedFields, // strictly matching {"field": "value"}
-                                "updated_at", "2025-09-03T13:00:00Z" // or ZonedDateTime.now().toString()
-                        )
-                ));
             }
+            indexCommunity(community);
+
+            // Constructing the exact response schema you shared
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Community updated successfully.",
+                    "data", Map.of(
+                            "community_id", community_id,
+                            "updated_fields", updatedFields, // strictly matching {"field": "value"}
+                            "updated_at", "2025-09-03T13:00:00Z" // or ZonedDateTime.now().toString()
+                    )
+            ));
         }
         return ResponseEntity.status(404).body(Map.of("status", "error", "message", "Community not found"));
     }
@@ -173,11 +198,12 @@ public class CommunityMockController {
     // 6. Invite To Community - POST /communities/account/invites
     @PostMapping("/account/invites")
     public ResponseEntity<Map<String, Object>> inviteToCommunity(@RequestBody Map<String, Object> request) {
-        String inviteId = "INV" + String.format("%03d", inviteDatabase.size() + 1);
         List<Map<String, Object>> invites = (List<Map<String, Object>>) request.get("invites");
 
         List<Map<String, Object>> createdInvites = new ArrayList<>();
         for (Map<String, Object> inviteReq : invites) {
+            // Each invite needs its own ID now that the store is keyed by invite_id
+            String inviteId = inviteIds.next();
             Map<String, Object> newInvite = new HashMap<>();
             newInvite.put("invite_id", inviteId);
             newInvite.put("community_id", request.get("community_id"));
@@ -203,34 +229,21 @@ public class CommunityMockController {
         // In a real mock, we assume INV001 belongs to COM001
         String targetCommunityId = "COM001";
 
-        // Find the community and update its member list
-        for (Map<String, Object> community : communityDatabase) {
-            if (community.get("community_id").equals(targetCommunityId)) {
-
-                // Get existing members or create list if it doesn't exist
-                List<Map<String, Object>> members = (List<Map<String, Object>>) community.getOrDefault("members", new ArrayList<Map<String, Object>>());
-
-                Map<String, Object> newMember = new HashMap<>(Map.of(
-                        "member_id", "MBR" + (System.currentTimeMillis() % 1000),
-                        "role", "Member",
-                        "status", "Active",
-                        "joined_at", ZonedDateTime.now().toString()
-                ));
-
-                members.add(newMember);
-                community.put("members", members); // Save it back to the map
+        // Find the community and add to its member list (created on the first join)
+        CommunityMember newMember = new CommunityMember(memberIds.next(), "Member", "Active", ZonedDateTime.now().toString());
+        Community community = communityDatabase.update(targetCommunityId, c -> c.withMember(newMember));
+        if (community != null) {
 
-                return ResponseEntity.ok(Map.of(
-                        "status", "success",
-                        "message", "Invite accepted.",
-                        "data", Map.of(
-                                "community_id", targetCommunityId,
-                                "member_id", newMember.get("member_id"),
-                                "role", newMember.get("role"),
-                                "joined_at", newMember.get("joined_at")
-                        )
-                ));
-            }
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Invite accepted.",
+                    "data", Map.of(
+                            "community_id", targetCommunityId,
+                            "member_id", newMember.memberId(),
+                            "role", newMember.role(),
+                            "joined_at", newMember.joinedAt()
+                    )
+            ));
         }
 
         return ResponseEntity.status(404).body(Map.of("status", "error", "message", "Community not found"));
@@ -239,7 +252,8 @@ public class CommunityMockController {
     // 8. Delete Community - DELETE /communities/profile/remove/{community_id}
     @DeleteMapping("/profile/remove/{community_id}")
     public ResponseEntity<Map<String, Object>> deleteCommunity(@PathVariable String community_id) {
-        boolean removed = communityDatabase.removeIf(c -> c.get("community_id").equals(community_id));
+        boolean removed = communityDatabase.remove(community_id);
+        communitySearch.remove(community_id);
         return ResponseEntity.ok(Map.of(
                 "status", "success",
                 "message", removed ? "Community deleted successfully" : "Community not found"
@@ -249,22 +263,20 @@ public class CommunityMockController {
     // 9. Dissolve Community - PUT /communities/account/update/{community_id}
     @PutMapping("/account/update/{community_id}")
     public ResponseEntity<Map<String, Object>> dissolveCommunity(@PathVariable String community_id) {
-        for (Map<String, Object> community : communityDatabase) {
-            if (community.get("community_id").equals(community_id)) {
+        // Update the state in our "DB"
+        Community community = communityDatabase.update(community_id, c -> c.withStatus("Dissolved"));
+        if (community != null) {
 
-                // Update the state in our "DB"
-                community.put("status", "Dissolved");
-                String dissolvedAt = "2025-09-03T14:00:00Z"; // Static as per your sample or ZonedDateTime.now()
+            String dissolvedAt = "2025-09-03T14:00:00Z"; // Static as per your sample or ZonedDateTime.now()
 
-                return ResponseEntity.ok(Map.of(
-                        "status", "success",
-                        "message", "Community dissolved successfully.",
-                        "data", Map.of(
-                                "community_id", community_id,
-                                "dissolved_at", dissolvedAt
-                        )
-                ));
-            }
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Community dissolved successfully.",
+                    "data", Map.of(
+                            "community_id", community_id,
+                            "dissolved_at", dissolvedAt
+                    )
+            ));
         }
         return ResponseEntity.status(404).body(Map.of("status", "error", "message", "Community not found"));
     }
@@ -275,26 +287,26 @@ public class CommunityMockController {
             @PathVariable String community_id,
             @RequestBody Map<String, Object> request) {
 
-        for (Map<String, Object> community : communityDatabase) {
-            if (community.get("community_id").equals(community_id)) {
-
-                String oldStatus = String.valueOf(community.get("status"));
-                String newStatus = String.valueOf(request.get("status"));
+        String newStatus = String.valueOf(request.get("status"));
+        String[] oldStatus = {null};
 
-                // Update the status in our memory
-                community.put("status", newStatus);
+        // Update the status in our memory
+        Community community = communityDatabase.update(community_id, c -> {
+            oldStatus[0] = String.valueOf(c.status());
+            return c.withStatus(newStatus);
+        });
+        if (community != null) {
 
-                return ResponseEntity.ok(Map.of(
-                        "status", "success",
-                        "message", "Community status updated.",
-                        "data", Map.of(
-                                "community_id", community_id,
-                                "old_status", oldStatus,
-                                "new_status", newStatus,
-                                "updated_at", "2025-09-03T14:30:00Z"
-                        )
-                ));
-            }
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Community status updated.",
+                    "data", Map.of(
+                            "community_id", community_id,
+                            "old_status", oldStatus[0],
+                            "new_status", newStatus,
+                            "updated_at", "2025-09-03T14:30:00Z"
+                    )
+            ));
         }
         return ResponseEntity.status(404).body(Map.of("status", "error", "message", "Community not found"));
     }
@@ -328,7 +340,7 @@ public class CommunityMockController {
             @PathVariable String invite_id,
             @RequestBody Map<String, Object> request) {
 
-        boolean removed = inviteDatabase.removeIf(i -> i.get("invite_id").equals(invite_id));
+        boolean removed = inviteDatabase.remove(invite_id);
 
         return ResponseEntity.ok(Map.of(
                 "community_id", request.get("community_id"),
@@ -343,10 +355,11 @@ public class CommunityMockController {
         String inviteId = String.valueOf(request.get("invite_id"));
 
         // Update status in database
-        inviteDatabase.stream()
-                .filter(i -> i.get("invite_id").equals(inviteId))
-                .findFirst()
-                .ifPresent(i -> i.put("status", "Declined"));
+        inviteDatabase.update(inviteId, current -> {
+            Map<String, Object> i = new HashMap<>(current);
+            i.put("status", "Declined");
+            return i;
+        });
 
         return ResponseEntity.ok(Map.of(
                 "status", "success",
@@ -364,13 +377,9 @@ public class CommunityMockController {
     @GetMapping("/account/members")
     public ResponseEntity<Map<String, Object>> viewMemberList(@RequestParam String community_id) {
 
-        Optional<Map<String, Object>> community = communityDatabase.stream()
-                .filter(c -> c.get("community_id").equals(community_id))
-                .findFirst();
-
-        List<Map<String, Object>> members = community
-                .map(c -> (List<Map<String, Object>>) c.get("members"))
-                .orElse(new ArrayList<>());
+        List<CommunityMember> members = communityDatabase.find(community_id)
+                .map(Community::members)
+                .orElse(List.of());
 
         return ResponseEntity.ok(Map.of(
                 "status", "success",
@@ -403,9 +412,8 @@ public class CommunityMockController {
         String communityId = String.valueOf(request.get("community_id"));
 
         // Attempt to remove the community from our in-memory list
-        boolean removed = communityDatabase.removeIf(c ->
-                String.valueOf(c.get("community_id")).equals(communityId)
-        );
+        boolean removed = communityDatabase.remove(communityId);
+        communitySearch.remove(communityId);
 
         if (removed) {
             return ResponseEntity.ok(Map.of(
@@ -429,34 +437,28 @@ public class CommunityMockController {
         String memberId = String.valueOf(request.get("member_id"));
 
         // 1. Find the community in the database
-        Optional<Map<String, Object>> communityOpt = communityDatabase.stream()
-                .filter(c -> String.valueOf(c.get("community_id")).equals(communityId))
-                .findFirst();
-
-        if (communityOpt.isPresent()) {
-            Map<String, Object> community = communityOpt.get();
-
-            // 2. Get the members list from the community map
-            Object membersObj = community.get("members");
-
-            if (membersObj instanceof List) {
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> members = (List<Map<String, Object>>) membersObj;
-
-                // 3. Remove the member with the matching ID
-                boolean removed = members.removeIf(m -> String.valueOf(m.get("member_id")).equals(memberId));
-
-                if (removed) {
-                    return ResponseEntity.ok(Map.of(
-                            "status", "success",
-                            "message", "Member removed successfully."
-                    ));
-                } else {
-                    return ResponseEntity.status(404).body(Map.of(
-                            "status", "error",
-                            "message", "Member ID not found in this community."
-                    ));
-                }
+        Community community = communityDatabase.get(communityId);
+
+        // 2. Only communities someone has joined have a member list
+        if (community != null && community.members() != null) {
+
+            // 3. Remove the member with the matching ID
+            boolean[] found = {false};
+            communityDatabase.update(communityId, c -> {
+                found[0] = c.members() != null && c.members().stream().anyMatch(m -> m.memberId().equals(memberId));
+                return found[0] ? c.withoutMember(memberId) : c;
+            });
+
+            if (found[0]) {
+                return ResponseEntity.ok(Map.of(
+                        "status", "success",
+                        "message", "Member removed successfully."
+                ));
+            } else {
+                return ResponseEntity.status(404).body(Map.of(
+                        "status", "error",
+                        "message", "Member ID not found in this community."
+                ));
             }
         }
 
@@ -467,4 +469,69 @@ public class CommunityMockController {
         ));
     }
 
+    private void indexCommunity(Community community) {
+        communitySearch.put(community.communityId(),
+                Objects.toString(community.name(), ""), Objects.toString(community.description(), ""));
+    }
+
+    private static String pick(Map<String, Object> request, String field, String current) {
+        return request.containsKey(field) ? Values.text(request.get(field)) : current;
+    }
+
+    private List<Community> communitiesFor(List<String> ids) {
+        return ids.stream().map(communityDatabase::get).filter(Objects::nonNull).toList();
+    }
+
+    // Export (Exporter): GET /export/communities?name=&category=&status=
+    // name searches like /accounts/search, a page of the index at a time
+
+    @Override
+    public String collection() {
+        return "communities";
+    }
+
+    @Override
+    public Stream<Community> export(Map<String, String> filters) {
+        String name = filters.get("name");
+        Stream<Community> rows = name == null || name.isBlank() ? communityDatabase.stream()
+                : Stream.iterate(communitySearch.page(name, null, EXPORT_PAGE), Objects::nonNull,
+                        page -> page.hasMore() ? communitySearch.page(name, page.nextCursor(), EXPORT_PAGE) : null)
+                .flatMap(page -> communitiesFor(page.items()).stream());
+        return rows.filter(c -> Exportable.matches(filters, "category", c.category()) && Exportable.matches(filters, "status", c.status()));
+    }
+
+    // Bulk seeding (BulkSeeder): seeded communities are indexed for search like created ones
+
+    @Override
+    public String domain() {
+        return "communities";
+    }
+
+    @Override
+    public Loader prepare(SeedRun run, long count) {
+        IdAllocator.Sequence.Block ids = communityIds.reserve(count);
+        EntityStore<Community>.Block rows = communityDatabase.reserve(count);
+        Community[] seeded = new Community[Math.toIntExact(count)];
+        return new Loader() {
+            @Override
+            public void load(long from, long to) {
+                for (long i = from; i < to; i++) {
+                    SeedRandom random = run.random("communities", i);
+                    String city = random.city();
+                    String topic = random.pick("Tech", "Startup", "Investors", "Savers", "Creators", "Traders", "Founders");
+                    Community community = new Community(ids.id(i), city + " " + topic + " " + random.pick("Circle", "Network", "Club", "Guild"),
+                            "A community for " + topic.toLowerCase() + " in " + city + ".",
+                            random.pick("Technology", "Business", "Finance", "Lifestyle", "Education"), "Active", random.timestamp(), null);
+                    rows.put(i, community);
+                    seeded[(int) i] = community;
+                }
+            }
+
+            // Search results come out in indexing order, so seeded communities are indexed in index order
+            @Override
+            public void finish() {
+                for (Community community : seeded) indexCommunity(community);
+            }
+        };
+    }
 }
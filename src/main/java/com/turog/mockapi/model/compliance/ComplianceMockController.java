@@ -1,5 +1,8 @@
 package com.turog.mockapi.model.compliance;
 
+import com.turog.mockapi.store.EntityStore;
+import com.turog.mockapi.store.IdAllocator;
+import com.turog.mockapi.store.StoreBackend;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -7,7 +10,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 @RestController
 @RequestMapping("/compliance")
@@ -15,12 +17,21 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public class ComplianceMockController {
 
     // 1. Run AML Check (All) - POST /compliance/checks/run-aml
-    private final List<Map<String, Object>> complianceDatabase = new CopyOnWriteArrayList<>();
+    private final EntityStore<Map<String, Object>> complianceDatabase = EntityStore.keyedBy("check_Id");
+
+    private final IdAllocator.Sequence checkIds;
+    private final IdAllocator.Sequence eligibilityIds;
+
+    public ComplianceMockController(IdAllocator ids, StoreBackend backend) {
+        this.checkIds = ids.sequence("AML", complianceDatabase.size() + 101);
+        this.eligibilityIds = ids.sequence("ELG", 1);
+        backend.attach("compliance.checks", complianceDatabase);
+    }
 
     // 1. Run AML Check (All) - POST /compliance/checks/run-aml
     @PostMapping("/checks/run-aml")
     public ResponseEntity<Map<String, Object>> runAmlCheck(@RequestBody Map<String, Object> request) {
-        String checkId = "AML" + (complianceDatabase.size() + 101);
+        String checkId = checkIds.next();
 
         // Create the record
         Map<String, Object> newCheck = new HashMap<>();
@@ -47,10 +58,7 @@ public class ComplianceMockController {
     @PostMapping("/checks/rerun-aml/{check_id}")
     public ResponseEntity<Map<String, Object>> rerunAmlCheck(@PathVariable String check_id) {
         // Find existing check
-        Map<String, Object> existing = complianceDatabase.stream()
-                .filter(c -> String.valueOf(c.get("check_Id")).equals(check_id))
-                .findFirst()
-                .orElse(null);
+        Map<String, Object> existing = complianceDatabase.get(check_id);
 
         if (existing == null) {
             return ResponseEntity.status(404).body(Map.of("error", "Check ID not found"));
@@ -69,7 +77,7 @@ public class ComplianceMockController {
     public ResponseEntity<Map<String, Object>> runEligibilityChecks(@RequestBody Map<String, Object> request) {
         Map<String, Object> response = new HashMap<>();
 
-        response.put("eligibilityId", "ELG" + (System.currentTimeMillis() % 10000));
+        response.put("eligibilityId", eligibilityIds.next());
         response.put("client_Id", request.getOrDefault("client_Id", "CL123"));
         response.put("status", "eligible");
 
@@ -1,10 +1,13 @@
 package com.turog.mockapi.model.connections;
 
+import com.turog.mockapi.store.CursorPage;
+import com.turog.mockapi.store.EntityStore;
+import com.turog.mockapi.store.IdAllocator;
+import com.turog.mockapi.store.StoreBackend;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.time.ZonedDateTime;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 @RestController
 @RequestMapping("/connections")
@@ -12,7 +15,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public class ConnectionsMockController {
 
     // Dynamic Database for Connections
-    private final List<Map<String, Object>> connectionDb = new CopyOnWriteArrayList<>(Arrays.asList(
+    private final EntityStore<Map<String, Object>> connectionDb = EntityStore.keyedBy("connection_id", List.of(
             new HashMap<>(Map.of(
                     "connection_id", "CON001",
                     "name", "ERP Adapter",
@@ -28,12 +31,29 @@ public class ConnectionsMockController {
             ))
     ));
 
+    private final IdAllocator.Sequence connectionIds;
+
+    public ConnectionsMockController(IdAllocator ids, StoreBackend backend) {
+        this.connectionIds = ids.sequence("CON", connectionDb.size() + 1);
+        backend.attach("connections", connectionDb);
+    }
+
     // 1. List Connections - GET /applications?page=1&page_size=10
     @GetMapping("/applications")
     public ResponseEntity<Map<String, Object>> listConnections(
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int page_size) {
 
+        if (cursor != null) {
+            CursorPage<Map<String, Object>> slice = connectionDb.page(cursor, page_size);
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Connections retrieved successfully.",
+                    "data", Map.of("connections", slice.items(), "pagination", slice.pagination())
+            ));
+        }
+
         // 1. Calculate the starting index
         int start = (page - 1) * page_size;
 
@@ -64,7 +84,7 @@ public class ConnectionsMockController {
     // 2. Create Connection - POST /connections/applications
     @PostMapping("/applications")
     public ResponseEntity<Map<String, Object>> createConnection(@RequestBody Map<String, Object> request) {
-        String newId = "CON" + String.format("%03d", connectionDb.size() + 1);
+        String newId = connectionIds.next();
 
         Map<String, Object> newConn = new HashMap<>(request);
         newConn.put("connection_id", newId);
@@ -83,9 +103,7 @@ public class ConnectionsMockController {
     // 3. View Connection Detail - GET /connections/applications/{connection_id}
     @GetMapping("/applications/{connection_id}")
     public ResponseEntity<Map<String, Object>> viewConnectionDetail(@PathVariable String connection_id) {
-        return connectionDb.stream()
-                .filter(c -> c.get("connection_id").equals(connection_id))
-                .findFirst()
+        return connectionDb.find(connection_id)
                 .map(c -> ResponseEntity.ok(Map.of("status", "success", "message", "Connection details retrieved.", "data", c)))
                 .orElse(ResponseEntity.status(404).body(Map.of("status", "error", "message", "Connection not found")));
     }
@@ -95,21 +113,22 @@ public class ConnectionsMockController {
     public ResponseEntity<Map<String, Object>> editConnection(@RequestBody Map<String, Object> request) {
         String id = String.valueOf(request.get("connection_id"));
 
-        for (Map<String, Object> conn : connectionDb) {
-            if (conn.get("connection_id").equals(id)) {
-                Map<String, Object> updatedFields = new HashMap<>();
-                if (request.containsKey("name")) {
-                    conn.put("name", request.get("name"));
-                    updatedFields.put("name", request.get("name"));
-                }
-                if (request.containsKey("config")) conn.put("config", request.get("config"));
-
-                return ResponseEntity.ok(Map.of(
-                        "status", "success",
-                        "message", "Connection updated successfully.",
-                        "data", Map.of("connection_id", id, "updated_fields", updatedFields, "updated_at", ZonedDateTime.now().toString())
-                ));
+        Map<String, Object> updatedFields = new HashMap<>();
+        Map<String, Object> conn = connectionDb.update(id, current -> {
+            Map<String, Object> c = new HashMap<>(current);
+            if (request.containsKey("name")) {
+                c.put("name", request.get("name"));
+                updatedFields.put("name", request.get("name"));
             }
+            if (request.containsKey("config")) c.put("config", request.get("config"));
+            return c;
+        });
+        if (conn != null) {
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Connection updated successfully.",
+                    "data", Map.of("connection_id", id, "updated_fields", updatedFields, "updated_at", ZonedDateTime.now().toString())
+            ));
         }
         return ResponseEntity.status(404).build();
     }
@@ -118,7 +137,11 @@ public class ConnectionsMockController {
     @PutMapping("/applications/pause")
     public ResponseEntity<Map<String, Object>> pauseConnection(@RequestBody Map<String, Object> request) {
         String id = String.valueOf(request.get("connection_id"));
-        connectionDb.stream().filter(c -> c.get("connection_id").equals(id)).findFirst().ifPresent(c -> c.put("status", "Paused"));
+        connectionDb.update(id, current -> {
+            Map<String, Object> c = new HashMap<>(current);
+            c.put("status", "Paused");
+            return c;
+        });
 
         return ResponseEntity.ok(Map.of("status", "success", "message", "Connection paused successfully.",
                 "data", Map.of("connection_id", id, "status", "Paused", "updated_at", ZonedDateTime.now().toString())));
@@ -128,7 +151,11 @@ public class ConnectionsMockController {
     @PutMapping("/applications/activate")
     public ResponseEntity<Map<String, Object>> startConnection(@RequestBody Map<String, Object> request) {
         String id = String.valueOf(request.get("connection_id"));
-        connectionDb.stream().filter(c -> c.get("connection_id").equals(id)).findFirst().ifPresent(c -> c.put("status", "Active"));
+        connectionDb.update(id, current -> {
+            Map<String, Object> c = new HashMap<>(current);
+            c.put("status", "Active");
+            return c;
+        });
 
         return ResponseEntity.ok(Map.of("status", "success", "message", "Connection started successfully.",
                 "data", Map.of("connection_id", id, "status", "Active", "updated_at", ZonedDateTime.now().toString())));
@@ -144,7 +171,7 @@ public class ConnectionsMockController {
     // 8. Delete Connection - DELETE /connections/applications/{connectionId}
     @DeleteMapping("/applications/{connectionId}")
     public ResponseEntity<Map<String, Object>> deleteConnection(@PathVariable String connectionId) {
-        boolean removed = connectionDb.removeIf(c -> c.get("connection_id").equals(connectionId));
+        boolean removed = connectionDb.remove(connectionId);
         return ResponseEntity.ok(Map.of(
                 "connectionId", connectionId,
                 "deleted", removed,
@@ -1,10 +1,13 @@
 package com.turog.mockapi.model.documents;
 
+import com.turog.mockapi.store.CursorPage;
+import com.turog.mockapi.store.EntityStore;
+import com.turog.mockapi.store.IdAllocator;
+import com.turog.mockapi.store.StoreBackend;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.time.ZonedDateTime;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 @RestController
 @RequestMapping("/documents")
@@ -12,7 +15,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public class DocumentMockController {
 
     // In-memory Document Metadata Database
-    private final List<Map<String, Object>> documentDb = new CopyOnWriteArrayList<>(new ArrayList<>(List.of(
+    private final EntityStore<Map<String, Object>> documentDb = EntityStore.keyedBy("document_id", List.of(
             new HashMap<>(Map.of(
                     "document_id", "DOC001",
                     "name", "ID Card",
@@ -29,14 +32,31 @@ public class DocumentMockController {
                     "status", "Active",
                     "created_at", "2025-09-01T11:00:00Z"
             ))
-    )));
+    ));
+
+    private final IdAllocator.Sequence documentIds;
+
+    public DocumentMockController(IdAllocator ids, StoreBackend backend) {
+        this.documentIds = ids.sequence("DOC", documentDb.size() + 1);
+        backend.attach("documents", documentDb);
+    }
 
     // 1. List Documents - GET /generic?page=1&page_size=10
     @GetMapping("/generic")
     public ResponseEntity<Map<String, Object>> listDocuments(
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int page_size) {
 
+        if (cursor != null) {
+            CursorPage<Map<String, Object>> slice = documentDb.page(cursor, page_size);
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Documents retrieved successfully.",
+                    "data", Map.of("documents", slice.items(), "pagination", slice.pagination())
+            ));
+        }
+
         // 1. Calculate the starting index (offset)
         int start = (page - 1) * page_size;
 
@@ -96,7 +116,7 @@ public class DocumentMockController {
     // 4. Upload Document - POST /documents/generic
     @PostMapping("/generic")
     public ResponseEntity<Map<String, Object>> uploadDocument(@RequestBody Map<String, Object> req) {
-        String newId = "DOC" + String.format("%03d", documentDb.size() + 1);
+        String newId = documentIds.next();
 
         Map<String, Object> newDoc = new HashMap<>();
         newDoc.put("document_id", newId);
@@ -127,20 +147,21 @@ public class DocumentMockController {
     public ResponseEntity<Map<String, Object>> updateDocument(@RequestBody Map<String, Object> req) {
         String docId = String.valueOf(req.get("document_id"));
 
-        for (Map<String, Object> doc : documentDb) {
-            if (doc.get("document_id").equals(docId)) {
-                if (req.containsKey("name")) doc.put("name", req.get("name"));
-
-                return ResponseEntity.ok(Map.of(
-                        "status", "success",
-                        "message", "Document updated successfully.",
-                        "data", Map.of(
-                                "document_id", docId,
-                                "updated_fields", Map.of("name", req.get("name")),
-                                "updated_at", ZonedDateTime.now().toString()
-                        )
-                ));
-            }
+        Map<String, Object> doc = documentDb.update(docId, current -> {
+            Map<String, Object> d = new HashMap<>(current);
+            if (req.containsKey("name")) d.put("name", req.get("name"));
+            return d;
+        });
+        if (doc != null) {
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Document updated successfully.",
+                    "data", Map.of(
+                            "document_id", docId,
+                            "updated_fields", Map.of("name", req.get("name")),
+                            "updated_at", ZonedDateTime.now().toString()
+                    )
+            ));
         }
         return ResponseEntity.status(404).build();
     }
@@ -148,7 +169,7 @@ public class DocumentMockController {
     // 6. Delete Document - DELETE /documents/generic/{document_id}
     @DeleteMapping("/generic/{document_id}")
     public ResponseEntity<Map<String, Object>> deleteDocument(@PathVariable String document_id) {
-        boolean removed = documentDb.removeIf(d -> d.get("document_id").equals(document_id));
+        boolean removed = documentDb.remove(document_id);
 
         if (removed) {
             return ResponseEntity.ok(Map.of(
@@ -0,0 +1,18 @@
+package com.turog.mockapi.model.loans;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+@JsonPropertyOrder({"repaymentTerm", "amount", "balance", "client_Id", "loan_Id", "status"})
+public record Loan(
+        @JsonProperty("loan_Id") String loanId, @JsonProperty("client_Id") String clientId,
+        Double amount, String status, Double balance, String repaymentTerm
+) {
+    Loan withTerms(Double amount, String repaymentTerm) {
+        return new Loan(loanId, clientId, amount, status, balance, repaymentTerm);
+    }
+
+    Loan withStatus(String status) {
+        return new Loan(loanId, clientId, amount, status, balance, repaymentTerm);
+    }
+}
@@ -1,40 +1,62 @@
 package com.turog.mockapi.model.loans;
 
+import com.turog.mockapi.store.EntityStore;
+import com.turog.mockapi.store.IdAllocator;
+import com.turog.mockapi.store.Ledger;
+import com.turog.mockapi.store.SeedRandom;
+import com.turog.mockapi.store.SeedRun;
+import com.turog.mockapi.store.Seedable;
+import com.turog.mockapi.store.StoreBackend;
+import com.turog.mockapi.store.Values;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 @RestController
 @RequestMapping("/loans")
 @CrossOrigin(origins = "*")
-public class LoanMockController {
-
-    private final List<Map<String, Object>> loanApplicationsDb = new CopyOnWriteArrayList<>();
-    private final List<Map<String, Object>> activeLoansDb = new CopyOnWriteArrayList<>(new ArrayList<>(List.of(
-            new HashMap<>(Map.of("loan_Id", "LN001", "client_Id", "CL123", "amount", 10000.0, "status", "active", "balance", 7500.0, "repaymentTerm", "12 months"))
-    )));
-    private final List<Map<String, Object>> guarantorsDb = new CopyOnWriteArrayList<>();
-    private final List<Map<String, Object>> loanTransactionsDb = new CopyOnWriteArrayList<>();
+public class LoanMockController implements Seedable {
+
+    private final EntityStore<Map<String, Object>> loanApplicationsDb = EntityStore.keyedBy("application_Id");
+    private final EntityStore<Loan> activeLoansDb = new EntityStore<>(Loan::loanId, List.of(
+            new Loan("LN001", "CL123", 10000.0, "active", 7500.0, "12 months")
+    ));
+    private final EntityStore<Map<String, Object>> guarantorsDb = new EntityStore<>(g -> g.get("guarantor_Id") + ":" + g.get("loan_Id"));
+    private final Ledger<Map<String, Object>> loanTransactionsDb = new Ledger<>();
+
+    private final IdAllocator.Sequence applicationIds;
+    private final IdAllocator.Sequence loanIds;
+    private final IdAllocator.Sequence chargeIds;
+    private final IdAllocator.Sequence transactionIds;
+
+    public LoanMockController(IdAllocator ids, StoreBackend backend) {
+        this.applicationIds = ids.sequence("APP", loanApplicationsDb.size() + 1);
+        this.loanIds = ids.sequence("LN", activeLoansDb.size() + 101);
+        this.chargeIds = ids.sequence("CH", 1);
+        this.transactionIds = ids.sequence("TXN", 500);
+        backend.attach("loans.applications", loanApplicationsDb);
+        backend.attach("loans.active", activeLoansDb, Loan.class);
+        backend.attach("loans.guarantors", guarantorsDb);
+        backend.attach("loans.transactions", loanTransactionsDb, "transaction_id");
+    }
 
     // 1. Loan Accounts - GET /loans/account
     @GetMapping("/account")
     public ResponseEntity<Map<String, Object>> getLoanAccounts() {
-        return ResponseEntity.ok(Map.of("loans", activeLoansDb));
+        return ResponseEntity.ok(Map.of("loans", activeLoansDb.snapshot()));
     }
 
     // 2. Update Loan Account - PUT /loans/account/{loan_id}
     @PutMapping("/account/{loan_id}")
     public ResponseEntity<Map<String, Object>> updateLoanAccount(@PathVariable String loan_id, @RequestBody Map<String, Object> req) {
-        activeLoansDb.stream().filter(l -> l.get("loan_Id").equals(loan_id)).findFirst()
-                .ifPresent(l -> { l.put("amount", req.get("amount")); l.put("repaymentTerm", req.get("repaymentTerm")); });
+        activeLoansDb.update(loan_id, l -> l.withTerms(Values.number(req.get("amount")), Values.text(req.get("repaymentTerm"))));
         return ResponseEntity.ok(Map.of("loan_Id", loan_id, "updated", true));
     }
 
     // 3. Loan Account Details - GET /loans/account/{loan_id}
     @GetMapping("/account/{loan_id}")
-    public ResponseEntity<Map<String, Object>> getLoanDetails(@PathVariable String loan_id) {
-        return activeLoansDb.stream().filter(l -> l.get("loan_Id").equals(loan_id)).findFirst()
+    public ResponseEntity<Loan> getLoanDetails(@PathVariable String loan_id) {
+        return activeLoansDb.find(loan_id)
                 .map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
@@ -56,7 +78,7 @@ public class LoanMockController {
     // 6. Close Loan Account - DELETE /loans/account/close/{loan_id}
     @DeleteMapping("/account/close/{loan_id}")
     public ResponseEntity<Map<String, Object>> closeLoan(@PathVariable String loan_id) {
-        activeLoansDb.removeIf(l -> l.get("loan_Id").equals(loan_id));
+        activeLoansDb.remove(loan_id);
         return ResponseEntity.ok(Map.of("loan_Id", loan_id, "closed", true));
     }
 
@@ -70,7 +92,7 @@ public class LoanMockController {
     // 8. Remove Loan Guarantor - DELETE /loans/account/guarantors/{guarantor_id}/{loan_id}
     @DeleteMapping("/account/guarantors/{guarantor_id}/{loan_id}")
     public ResponseEntity<Map<String, Object>> removeGuarantor(@PathVariable String guarantor_id, @PathVariable String loan_id) {
-        guarantorsDb.removeIf(g -> g.get("guarantor_Id").equals(guarantor_id) && g.get("loan_Id").equals(loan_id));
+        guarantorsDb.remove(guarantor_id + ":" + loan_id);
         return ResponseEntity.ok(Map.of("loan_Id", loan_id, "guarantor_Id", guarantor_id, "removed", true));
     }
 
@@ -84,20 +106,20 @@ public class LoanMockController {
     // 10. Update Loan Status - PUT /loans/account/status
     @PutMapping("/account/status")
     public ResponseEntity<Map<String, Object>> updateStatus(@RequestBody Map<String, Object> req) {
-        activeLoansDb.stream().filter(l -> l.get("loan_Id").equals(req.get("loan_Id"))).findFirst().ifPresent(l -> l.put("status", req.get("status")));
+        activeLoansDb.update(String.valueOf(req.get("loan_Id")), l -> l.withStatus(Values.text(req.get("status"))));
         return ResponseEntity.ok(Map.of("loan_Id", req.get("loan_Id"), "status", req.get("status"), "updated", true));
     }
 
     // 11. Loan Charges - POST /loans/account/charges
     @PostMapping("/account/charges")
     public ResponseEntity<Map<String, Object>> addCharge(@RequestBody Map<String, Object> req) {
-        return ResponseEntity.ok(Map.of("loan_Id", req.get("loan_Id"), "chargeId", "CH" + System.currentTimeMillis() % 1000, "added", true));
+        return ResponseEntity.ok(Map.of("loan_Id", req.get("loan_Id"), "chargeId", chargeIds.next(), "added", true));
     }
 
     // 12. Submit Loan Application - POST /loans/applications
     @PostMapping("/applications")
     public ResponseEntity<Map<String, Object>> submitApp(@RequestBody Map<String, Object> req) {
-        String appId = "APP" + (loanApplicationsDb.size() + 1);
+        String appId = applicationIds.next();
         Map<String, Object> app = new HashMap<>(req); app.put("application_Id", appId); app.put("status", "pending");
         loanApplicationsDb.add(app);
         return ResponseEntity.ok(Map.of("application_Id", appId, "submitted", true));
@@ -106,7 +128,7 @@ public class LoanMockController {
     // 13. List Loan Applications - GET /loan/applications
     @GetMapping("/applications")
     public ResponseEntity<Map<String, Object>> listApps() {
-        return ResponseEntity.ok(Map.of("applications", loanApplicationsDb));
+        return ResponseEntity.ok(Map.of("applications", loanApplicationsDb.snapshot()));
     }
 
     // 14. Review Loan Application - PUT /loan/applications/review
@@ -118,7 +140,7 @@ public class LoanMockController {
     // 15. Approve Loan - POST /loans/applications/approve
     @PostMapping("/applications/approve")
     public ResponseEntity<Map<String, Object>> approveLoan(@RequestBody Map<String, Object> req) {
-        String loanId = "LN" + (activeLoansDb.size() + 101);
+        String loanId = loanIds.next();
         return ResponseEntity.ok(Map.of("application_Id", req.get("application_Id"), "approved", true, "loan_Id", loanId));
     }
 
@@ -131,6 +153,34 @@ public class LoanMockController {
     // 17. Disburse Loan - POST /loans/application/disburse
     @PostMapping("/application/disburse")
     public ResponseEntity<Map<String, Object>> disburseLoan(@RequestBody Map<String, Object> req) {
-        return ResponseEntity.ok(Map.of("loan_Id", req.get("loan_Id"), "disbursed", true, "transaction_Id", "TXN" + System.currentTimeMillis() % 1000));
+        return ResponseEntity.ok(Map.of("loan_Id", req.get("loan_Id"), "disbursed", true, "transaction_Id", transactionIds.next()));
+    }
+
+    // Bulk seeding (BulkSeeder): active loans, each owed by a client of the same run
+
+    @Override
+    public String domain() {
+        return "loans";
+    }
+
+    @Override
+    public boolean linksToClients() {
+        return true;
+    }
+
+    @Override
+    public Loader prepare(SeedRun run, long count) {
+        IdAllocator.Sequence.Block ids = loanIds.reserve(count);
+        EntityStore<Loan>.Block rows = activeLoansDb.reserve(count);
+        return (from, to) -> {
+            for (long i = from; i < to; i++) {
+                SeedRandom random = run.random("loans", i);
+                double amount = random.amount(50_000, 10_000_000, 10_000);
+                String status = random.pick("active", "active", "active", "closed");
+                double balance = "closed".equals(status) ? 0.0 : Math.round(amount * (1 + random.nextLong(100)) / 100.0);
+                rows.put(i, new Loan(ids.id(i), run.clientId(run.client(random)), amount, status, balance,
+                        random.pick("6 months", "12 months", "24 months", "36 months")));
+            }
+        };
     }
-}
\ No newline at end of file
+}
@@ -1,28 +1,41 @@
 package com.turog.mockapi.model.members;
 
+import com.turog.mockapi.store.CursorPage;
+import com.turog.mockapi.store.EntityStore;
+import com.turog.mockapi.store.IdAllocator;
+import com.turog.mockapi.store.SeedRandom;
+import com.turog.mockapi.store.SeedRun;
+import com.turog.mockapi.store.Seedable;
+import com.turog.mockapi.store.StoreBackend;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.ZonedDateTime;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 @RestController
 @RequestMapping("/members")
 @CrossOrigin(origins = "*")
-public class MemberMockController {
+public class MemberMockController implements Seedable {
 
-    private final List<Map<String, Object>> memberDatabase = new CopyOnWriteArrayList<>(Arrays.asList(
+    private final EntityStore<Map<String, Object>> memberDatabase = EntityStore.keyedBy("member_id", List.of(
             new HashMap<>(Map.of("member_id", "M001", "name", "John Doe", "role", "Admin", "location", "Lagos", "status", "Active")),
             new HashMap<>(Map.of("member_id", "M002", "name", "Jane Smith", "role", "User", "location", "Abuja", "status", "Inactive"))
     ));
+
+    private final IdAllocator.Sequence memberIds;
+
+    public MemberMockController(IdAllocator ids, StoreBackend backend) {
+        this.memberIds = ids.sequence("M", memberDatabase.size() + 1);
+        backend.attach("members", memberDatabase);
+    }
+
     // Create Member - POST /members/profile
     @PostMapping("/profile")
     public ResponseEntity<Map<String, Object>> createMemberProfile(@RequestBody Map<String, Object> request) {
-        String newId = "M00" + (memberDatabase.size() + 1);
+        String newId = memberIds.next();
         String fullName = request.getOrDefault("firstName", "") + " " + request.getOrDefault("lastName", "");
 
         // Add to our "database"
@@ -53,9 +66,19 @@ public class MemberMockController {
     // 2. Member List - GET /members/profile?page=1&page_size=10
     @GetMapping("/profile")
     public ResponseEntity<Map<String, Object>> listMember(
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int page_size) {
 
+        if (cursor != null) {
+            CursorPage<Map<String, Object>> slice = memberDatabase.page(cursor, page_size);
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Members retrieved successfully.",
+                    "data", Map.of("members", slice.items(), "pagination", slice.pagination())
+            ));
+        }
+
         // 1. Calculate the starting index
         int start = (page - 1) * page_size;
 
@@ -87,10 +110,7 @@ public class MemberMockController {
     // 3. View Member - GET /members/profile/{member_id}
     @GetMapping("/profile/{member_id}")
     public ResponseEntity<Map<String, Object>> viewMember(@PathVariable String member_id) {
-        Map<String, Object> member = memberDatabase.stream()
-                .filter(m -> m.get("member_id").equals(member_id))
-                .findFirst()
-                .orElse(null);
+        Map<String, Object> member = memberDatabase.get(member_id);
 
         if (member == null) {
             return ResponseEntity.status(404).body(Map.of("status", "error", "message", "Member not found"));
@@ -106,23 +126,24 @@ public class MemberMockController {
     // 4. Update Member Details - PUT /members/profile/{member_id}
     @PutMapping("/profile/{member_id}")
     public ResponseEntity<Map<String, Object>> updateMemberDetails(@PathVariable String member_id, @RequestBody Map<String, Object> request) {
-        for (Map<String, Object> member : memberDatabase) {
-            if (member.get("member_id").equals(member_id)) {
-                // Update the fields allowed in your schema
-                if (request.containsKey("phone_number")) member.put("phone_number", request.get("phone_number"));
-                if (request.containsKey("email")) member.put("email", request.get("email"));
-
-                return ResponseEntity.ok(Map.of(
-                        "status", "success",
-                        "message", "Member information updated successfully.",
-                        "data", Map.of(
-                                "member_id", member_id,
-                                "phone_number", member.getOrDefault("phone_number", "+2348012345678"),
-                                "email", member.getOrDefault("email", "johndoe@example.com"),
-                                "updated_at", "2025-09-04T10:30:00Z"
-                        )
-                ));
-            }
+        Map<String, Object> member = memberDatabase.update(member_id, current -> {
+            Map<String, Object> m = new HashMap<>(current);
+            // Update the fields allowed in your schema
+            if (request.containsKey("phone_number")) m.put("phone_number", request.get("phone_number"));
+            if (request.containsKey("email")) m.put("email", request.get("email"));
+            return m;
+        });
+        if (member != null) {
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Member information updated successfully.",
+                    "data", Map.of(
+                            "member_id", member_id,
+                            "phone_number", member.getOrDefault("phone_number", "+2348012345678"),
+                            "email", member.getOrDefault("email", "johndoe@example.com"),
+                            "updated_at", "2025-09-04T10:30:00Z"
+                    )
+            ));
         }
         return ResponseEntity.status(404).body(Map.of("status", "error", "message", "Member not found"));
     }
@@ -158,7 +179,7 @@ public class MemberMockController {
     @DeleteMapping("/profile/remove")
     public ResponseEntity<Map<String, Object>> removeMember(@RequestBody Map<String, Object> request) {
         String idToRemove = String.valueOf(request.get("memberId"));
-        boolean removed = memberDatabase.removeIf(m -> m.get("member_id").equals(idToRemove));
+        boolean removed = memberDatabase.remove(idToRemove);
 
         return ResponseEntity.ok(Map.of(
                 "memberId", idToRemove,
@@ -166,4 +187,29 @@ public class MemberMockController {
                 "message", removed ? "Member removed successfully" : "Member not found"
         ));
     }
-}
\ No newline at end of file
+
+    // Bulk seeding (BulkSeeder)
+
+    @Override
+    public String domain() {
+        return "members";
+    }
+
+    @Override
+    public Loader prepare(SeedRun run, long count) {
+        IdAllocator.Sequence.Block ids = memberIds.reserve(count);
+        EntityStore<Map<String, Object>>.Block rows = memberDatabase.reserve(count);
+        return (from, to) -> {
+            for (long i = from; i < to; i++) {
+                SeedRandom random = run.random("members", i);
+                Map<String, Object> member = new HashMap<>();
+                member.put("member_id", ids.id(i));
+                member.put("name", random.name());
+                member.put("role", random.pick("Admin", "User", "User", "User"));
+                member.put("location", random.city());
+                member.put("status", random.pick("Active", "Active", "Inactive"));
+                rows.put(i, member);
+            }
+        };
+    }
+}
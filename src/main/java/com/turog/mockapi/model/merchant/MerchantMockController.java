@@ -1,10 +1,13 @@
 package com.turog.mockapi.model.merchant;
 
+import com.turog.mockapi.store.CursorPage;
+import com.turog.mockapi.store.EntityStore;
+import com.turog.mockapi.store.IdAllocator;
+import com.turog.mockapi.store.StoreBackend;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.time.ZonedDateTime;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 @RestController
 @RequestMapping("/merchants")
@@ -12,17 +15,34 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public class MerchantMockController {
 
     // In-memory "Database" for Merchants
-    private final List<Map<String, Object>> merchantDb = new CopyOnWriteArrayList<>(Arrays.asList(
+    private final EntityStore<Map<String, Object>> merchantDb = EntityStore.keyedBy("merchant_id", List.of(
             new HashMap<>(Map.of("merchant_id", "MC001", "name", "Termii", "type", "SMS", "status", "Active", "created_at", "2025-07-15T10:00:00Z")),
             new HashMap<>(Map.of("merchant_id", "MC002", "name", "ZeptoMail", "type", "Email", "status", "Active", "created_at", "2025-06-20T14:30:00Z"))
     ));
 
+    private final IdAllocator.Sequence merchantIds;
+
+    public MerchantMockController(IdAllocator ids, StoreBackend backend) {
+        this.merchantIds = ids.sequence("MC", merchantDb.size() + 1);
+        backend.attach("merchants", merchantDb);
+    }
+
     // 1. List Merchants - GET /merchants/subscribed/list?page=1&page_size=10
     @GetMapping("/subscribed/list")
     public ResponseEntity<Map<String, Object>> listMerchants(
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int page_size) {
 
+        if (cursor != null) {
+            CursorPage<Map<String, Object>> slice = merchantDb.page(cursor, page_size);
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Merchants retrieved successfully.",
+                    "data", Map.of("merchants", slice.items(), "pagination", slice.pagination())
+            ));
+        }
+
         // 1. Calculate the starting index
         int start = (page - 1) * page_size;
 
@@ -54,9 +74,7 @@ public class MerchantMockController {
     // 2. View Merchant - GET /merchants/subscribed/{merchant_id}
     @GetMapping("/subscribed/{merchant_id}")
     public ResponseEntity<Map<String, Object>> viewMerchant(@PathVariable String merchant_id) {
-        return merchantDb.stream()
-                .filter(m -> m.get("merchant_id").equals(merchant_id))
-                .findFirst()
+        return merchantDb.find(merchant_id)
                 .map(m -> ResponseEntity.ok(Map.of("status", "success", "message", "Merchant retrieved successfully.", "data", m)))
                 .orElse(ResponseEntity.status(404).body(Map.of("status", "error", "message", "Merchant not found")));
     }
@@ -64,7 +82,7 @@ public class MerchantMockController {
     // 3. Add New Merchant - POST /merchants/setup
     @PostMapping("/setup")
     public ResponseEntity<Map<String, Object>> addNewMerchant(@RequestBody Map<String, Object> request) {
-        String newId = "MC" + String.format("%03d", merchantDb.size() + 1);
+        String newId = merchantIds.next();
         String now = ZonedDateTime.now().toString();
 
         Map<String, Object> newMerchant = new HashMap<>(request);
@@ -85,18 +103,19 @@ public class MerchantMockController {
     public ResponseEntity<Map<String, Object>> updateMerchant(@RequestBody Map<String, Object> request) {
         String merchantId = String.valueOf(request.get("merchant_id"));
 
-        for (Map<String, Object> merchant : merchantDb) {
-            if (merchant.get("merchant_id").equals(merchantId)) {
-                // Update specific fields from request
-                merchant.putAll(request);
-                merchant.put("updated_at", ZonedDateTime.now().toString());
-
-                return ResponseEntity.ok(Map.of(
-                        "status", "success",
-                        "message", "Merchant configuration updated successfully.",
-                        "data", merchant
-                ));
-            }
+        Map<String, Object> merchant = merchantDb.update(merchantId, current -> {
+            Map<String, Object> m = new HashMap<>(current);
+            // Update specific fields from request
+            m.putAll(request);
+            m.put("updated_at", ZonedDateTime.now().toString());
+            return m;
+        });
+        if (merchant != null) {
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Merchant configuration updated successfully.",
+                    "data", merchant
+            ));
         }
         return ResponseEntity.status(404).body(Map.of("status", "error", "message", "Merchant not found"));
     }
@@ -105,7 +124,7 @@ public class MerchantMockController {
     @DeleteMapping("/setup")
     public ResponseEntity<Map<String, Object>> removeMerchant(@RequestBody Map<String, Object> request) {
         String merchantId = String.valueOf(request.get("merchant_id"));
-        boolean removed = merchantDb.removeIf(m -> m.get("merchant_id").equals(merchantId));
+        boolean removed = merchantDb.remove(merchantId);
 
         if (removed) {
             return ResponseEntity.ok(Map.of(
@@ -0,0 +1,383 @@
+package com.turog.mockapi.model.messages;
+
+import com.turog.mockapi.store.Cursor;
+import com.turog.mockapi.store.CursorPage;
+import com.turog.mockapi.store.InvertedIndex;
+import com.turog.mockapi.store.Ledger;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The folders messages are listed from, filled when a message is written (fan-out on write) so a
+ * listing never scans {@code messageDb}.
+ * <p>
+ * Every message is filed store-wide under its category, and per user: a "sent" message in its
+ * sender's sent folder and in the inbox of each recipient, a message of any other category in that
+ * folder of each recipient. A filing holds the message's list view: an immutable {@link Summary}
+ * over the stored row (rows are replaced on change, never mutated), made when the message is filed
+ * or its status changes and shared by filings in the same state, so neither reads nor filing copy
+ * the message.
+ * <p>
+ * Folders are {@link Ledger}s in filing order. Removed filings stay in place and their positions are
+ * remembered, so a page costs O(page_size) plus the removals before it, however long the folder is.
+ * Each folder also counts its filings and unread filings as they change, on striped counters, so a
+ * badge count is O(1) and writers to one folder never wait on each other.
+ */
+class Mailboxes {
+
+    static final String INBOX = "inbox";
+    static final String SENT = "sent";
+    static final String UNREAD = "unread";
+
+    private static final class Filing {
+
+        final Folder folder;
+        final String owner;
+        final String messageId;
+        volatile Summary summary;
+        volatile boolean removed;
+        long position;
+
+        Filing(Folder folder, String owner, String messageId, Summary summary) {
+            this.folder = folder;
+            this.owner = owner;
+            this.messageId = messageId;
+            this.summary = summary;
+        }
+    }
+
+    static final class Folder {
+
+        private final Ledger<Filing> filings = new Ledger<>();
+        private final ConcurrentSkipListSet<Long> removedPositions = new ConcurrentSkipListSet<>();
+        private final LongAdder removals = new LongAdder();
+        private final LongAdder unread = new LongAdder();
+
+        long size() {
+            return filings.size() - removals.sum();
+        }
+
+        long unread() {
+            return unread.sum();
+        }
+
+        // The offset-th live filing is found by stepping over the removed positions up to it
+        List<Map<String, Object>> page(long offset, int limit) {
+            if (offset < 0 || limit <= 0) return List.of();
+            long position = offset;
+            for (long removed : removedPositions) {
+                if (removed > position) break;
+                position++;
+            }
+            List<Map<String, Object>> items = new ArrayList<>(Math.min(limit, 256));
+            for (long size = filings.size(); position < size && items.size() < limit; position++) {
+                Filing filing = filings.get(position);
+                if (!filing.removed) items.add(filing.summary);
+            }
+            return items;
+        }
+
+        // Positions never move, so the cursor is the position of the next live filing
+        CursorPage<Map<String, Object>> page(String cursor, int pageSize) {
+            int limit = Cursor.pageSize(pageSize);
+            List<Map<String, Object>> items = new ArrayList<>(Math.min(limit, 256));
+            String nextCursor = null;
+            for (long position = Cursor.decode(cursor), size = filings.size(); position < size; position++) {
+                Filing filing = filings.get(position);
+                if (filing.removed) continue;
+                if (items.size() == limit) {
+                    nextCursor = Cursor.encode(position);
+                    break;
+                }
+                items.add(filing.summary);
+            }
+            return new CursorPage<>(items, cursor, nextCursor, limit);
+        }
+
+        // Message IDs of the live filings, in filing order
+        void forEachMessage(Consumer<String> action) {
+            for (long position = 0, size = filings.size(); position < size; position++) {
+                Filing filing = filings.get(position);
+                if (!filing.removed) action.accept(filing.messageId);
+            }
+        }
+
+        private void add(Filing filing) {
+            filing.position = filings.append(filing);
+            if (filing.summary.unread()) unread.increment();
+        }
+
+        private void remove(Filing filing) {
+            removedPositions.add(filing.position);
+            removals.increment();
+            if (filing.summary.unread()) unread.decrement();
+            filing.removed = true;
+        }
+
+        // Called with the message's filings locked, so the count sees each change once
+        private void restate(Filing filing, Summary summary) {
+            boolean wasUnread = filing.summary.unread();
+            filing.summary = summary;
+            if (wasUnread != summary.unread()) unread.add(wasUnread ? -1 : 1);
+        }
+    }
+
+    private static final Folder EMPTY = new Folder();
+
+    // category -> folder, for the store-wide listing
+    private final Map<String, Folder> byCategory = new ConcurrentHashMap<>();
+    // user -> category -> folder
+    private final Map<String, Map<String, Folder>> byOwner = new ConcurrentHashMap<>();
+    // message ID -> its filings; every change to a message's filings happens in this map's compute
+    private final Map<String, List<Filing>> byMessage = new ConcurrentHashMap<>();
+
+    // Files the message, or refiles it if it was filed before
+    void file(Map<String, Object> message) {
+        byMessage.compute(String.valueOf(message.get("messageId")), (id, previous) -> {
+            if (previous != null) previous.forEach(filing -> filing.folder.remove(filing));
+            Summary summary = new Summary(message, message.get("category"), message.get("status"));
+            String category = folderName(message.get("category"));
+            List<Filing> filings = new ArrayList<>();
+            filings.add(file(byCategory.computeIfAbsent(category, c -> new Folder()), null, id, summary));
+            if (category.equals(SENT)) {
+                Object sender = message.get("sender");
+                if (sender != null) filings.add(file(folder(sender.toString(), SENT), sender.toString(), id, summary));
+                Summary delivered = new Summary(message, INBOX, UNREAD);
+                for (String recipient : recipients(message)) filings.add(file(folder(recipient, INBOX), recipient, id, delivered));
+            } else {
+                for (String recipient : recipients(message)) filings.add(file(folder(recipient, category), recipient, id, summary));
+            }
+            return List.copyOf(filings);
+        });
+    }
+
+    // The message's status changed for everyone: every filing takes it
+    void restatus(String messageId, String status) {
+        byMessage.computeIfPresent(messageId, (id, filings) -> {
+            Map<Summary, Summary> changed = new IdentityHashMap<>();
+            for (Filing filing : filings) filing.folder.restate(filing, changed.computeIfAbsent(filing.summary, s -> s.withStatus(status)));
+            return filings;
+        });
+    }
+
+    // Changes the status in the user's folders only; false if the user has no filing of the message
+    boolean mark(String messageId, String user, String status) {
+        boolean[] found = {false};
+        byMessage.computeIfPresent(messageId, (id, filings) -> {
+            for (Filing filing : filings) {
+                if (!user.equals(filing.owner)) continue;
+                filing.folder.restate(filing, filing.summary.withStatus(status));
+                found[0] = true;
+            }
+            return filings;
+        });
+        return found[0];
+    }
+
+    void remove(String messageId) {
+        byMessage.computeIfPresent(messageId, (id, filings) -> {
+            filings.forEach(filing -> filing.folder.remove(filing));
+            return null;
+        });
+    }
+
+    // Takes the message out of the user's folders only; false if the user has no filing of it
+    boolean remove(String messageId, String user) {
+        boolean[] found = {false};
+        byMessage.computeIfPresent(messageId, (id, filings) -> {
+            List<Filing> kept = new ArrayList<>(filings.size());
+            for (Filing filing : filings) {
+                if (user.equals(filing.owner)) {
+                    filing.folder.remove(filing);
+                    found[0] = true;
+                } else {
+                    kept.add(filing);
+                }
+            }
+            return found[0] ? List.copyOf(kept) : filings;
+        });
+        return found[0];
+    }
+
+    // Users the message is filed for
+    Set<String> owners(String messageId) {
+        Set<String> owners = new LinkedHashSet<>();
+        for (Filing filing : byMessage.getOrDefault(messageId, List.of())) {
+            if (filing.owner != null) owners.add(filing.owner);
+        }
+        return owners;
+    }
+
+    // A user's folder, or the store-wide one for a null user; an empty folder if there is none
+    Folder find(String user, String category) {
+        String name = folderName(category);
+        Map<String, Folder> folders = user == null ? byCategory : byOwner.get(user);
+        Folder folder = folders == null ? null : folders.get(name);
+        return folder == null ? EMPTY : folder;
+    }
+
+    // Looks up a message as listed for the user (store-wide for a null user) in that folder, or in any
+    // for a null category; the lookup answers null where it is not listed
+    Function<String, Map<String, Object>> listing(String user, String category) {
+        Folder folder = category == null ? null : find(user, category);
+        if (folder == EMPTY) return messageId -> null;
+        return messageId -> {
+            for (Filing filing : byMessage.getOrDefault(messageId, List.of())) {
+                if (filing.removed || !Objects.equals(user, filing.owner)) continue;
+                if (folder == null || filing.folder == folder) return filing.summary;
+            }
+            return null;
+        };
+    }
+
+    // The messages listed for the user in that folder, or in any of theirs for a null category, as a search scope
+    InvertedIndex.Scope scope(String user, String category) {
+        Function<String, Map<String, Object>> listing = listing(user, category);
+        List<Folder> folders = category == null ? List.copyOf(folders(user).values()) : List.of(find(user, category));
+        return new InvertedIndex.Scope() {
+            @Override
+            public long size() {
+                long size = 0;
+                for (Folder folder : folders) size += folder.size();
+                return size;
+            }
+
+            @Override
+            public void forEachKey(Consumer<String> action) {
+                for (Folder folder : folders) folder.forEachMessage(action);
+            }
+
+            @Override
+            public boolean contains(String messageId) {
+                return listing.apply(messageId) != null;
+            }
+        };
+    }
+
+    // A user's folders by category, or the store-wide ones for a null user
+    Map<String, Folder> folders(String user) {
+        Map<String, Folder> folders = user == null ? byCategory : byOwner.get(user);
+        return folders == null ? Map.of() : Collections.unmodifiableMap(folders);
+    }
+
+    private Folder folder(String user, String category) {
+        return byOwner.computeIfAbsent(user, u -> new ConcurrentHashMap<>()).computeIfAbsent(category, c -> new Folder());
+    }
+
+    private static Filing file(Folder folder, String owner, String messageId, Summary summary) {
+        Filing filing = new Filing(folder, owner, messageId, summary);
+        folder.add(filing);
+        return filing;
+    }
+
+    private static String folderName(Object category) {
+        return String.valueOf(category).toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> recipients(Map<String, Object> message) {
+        Object recipients = message.get("recipients");
+        Set<String> users = new LinkedHashSet<>();
+        if (recipients instanceof Iterable<?> list) {
+            for (Object recipient : list) {
+                if (recipient != null) users.add(recipient.toString());
+            }
+        } else if (recipients != null) {
+            users.add(recipients.toString());
+        }
+        return users;
+    }
+
+    /**
+     * List-view shape of a message, read through to its row: no body, recipients and attachments
+     * always present as Lists, and the category and status of the folder it is shown in.
+     */
+    static final class Summary extends AbstractMap<String, Object> {
+
+        private final Map<String, Object> row;
+        private final Object category;
+        private final Object status;
+        // Built on first serialization; racing builders make equal sets, so the last one written is as good
+        private Set<Entry<String, Object>> entries;
+
+        Summary(Map<String, Object> row, Object category, Object status) {
+            this.row = row;
+            this.category = category;
+            this.status = status;
+        }
+
+        Summary withStatus(String status) {
+            return status.equals(this.status) ? this : new Summary(row, category, status);
+        }
+
+        boolean unread() {
+            return UNREAD.equals(status);
+        }
+
+        @Override
+        public Object get(Object key) {
+            if ("body".equals(key)) return null;
+            if ("category".equals(key)) return category;
+            if ("status".equals(key)) return status;
+            Object value = row.get(key);
+            if (value == null && ("recipients".equals(key) || "attachments".equals(key))) return List.of();
+            return value;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null || (!"body".equals(key) && row.containsKey(key));
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            Set<Entry<String, Object>> built = entries;
+            if (built == null) {
+                built = buildEntries();
+                entries = built;
+            }
+            return built;
+        }
+
+        private Set<Entry<String, Object>> buildEntries() {
+            List<Entry<String, Object>> built = new ArrayList<>(row.size() + 4);
+            for (Entry<String, Object> entry : row.entrySet()) {
+                String key = entry.getKey();
+                if (key.equals("body")) continue;
+                Object value = key.equals("category") ? category : key.equals("status") ? status : entry.getValue();
+                built.add(new SimpleImmutableEntry<>(key, value));
+            }
+            if (!row.containsKey("recipients")) built.add(new SimpleImmutableEntry<>("recipients", List.of()));
+            if (!row.containsKey("attachments")) built.add(new SimpleImmutableEntry<>("attachments", List.of()));
+            if (!row.containsKey("category") && category != null) built.add(new SimpleImmutableEntry<>("category", category));
+            if (!row.containsKey("status") && status != null) built.add(new SimpleImmutableEntry<>("status", status));
+            List<Entry<String, Object>> fixed = List.copyOf(built);
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return fixed.iterator();
+                }
+
+                @Override
+                public int size() {
+                    return fixed.size();
+                }
+            };
+        }
+    }
+}
@@ -1,19 +1,32 @@
 package com.turog.mockapi.model.messages;
 
+import com.turog.mockapi.store.ChangeFeed;
+import com.turog.mockapi.store.CursorPage;
+import com.turog.mockapi.store.EntityStore;
+import com.turog.mockapi.store.Exportable;
+import com.turog.mockapi.store.IdAllocator;
+import com.turog.mockapi.store.InvertedIndex;
+import com.turog.mockapi.store.SeedRandom;
+import com.turog.mockapi.store.SeedRun;
+import com.turog.mockapi.store.Seedable;
+import com.turog.mockapi.store.StoreBackend;
+import com.turog.mockapi.store.Values;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.time.ZonedDateTime;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/messages/internal")
 @CrossOrigin(origins = "*")
-public class MessageMockController {
+public class MessageMockController implements Seedable, Exportable {
 
     // In-memory Mailbox Database
-    private final List<Map<String, Object>> messageDb = new CopyOnWriteArrayList<>(new ArrayList<>(List.of(
+    private final EntityStore<Map<String, Object>> messageDb = EntityStore.keyedBy("messageId", List.of(
             new HashMap<>(Map.of(
                     "messageId", "MSG001",
                     "subject", "Welcome!",
@@ -25,7 +38,7 @@ public class MessageMockController {
                     "timestamp", "2025-09-03T10:00:00Z",
                     "status", "unread"
             ))
-    )));
+    ));
 
     // 1. List Messages by Category - GET /messages/internal/category?type=inbox&page=1&page_size=10
 //    @GetMapping("/category")
@@ -70,38 +83,66 @@ public class MessageMockController {
 //        ));
 //    }
 
+    // What one user did to a message in their own folders (?user=): {"status": "read" | "unread" | "deleted"}
+    private final EntityStore<Map<String, Object>> receiptDb = EntityStore.keyedBy("receipt_id");
+
+    // Users holding a receipt per message, including those who deleted their copy and so no longer own it
+    private final Map<String, Set<String>> receiptUsers = new ConcurrentHashMap<>();
+
+    // Per-user and store-wide folders, filed on every write to messageDb
+    private final Mailboxes mailboxes = new Mailboxes();
+
+    // Word index over subject, sender and body, weighted in that order; kept in step with messageDb
+    private final InvertedIndex messageSearch = new InvertedIndex(3, 2, 1);
+
+    private final IdAllocator.Sequence messageIds;
+
+    // GET /events/messages?user=user123 pushes new messages, read states and deletions per user
+    private final ChangeFeed.Topic events;
+
+    public MessageMockController(IdAllocator ids, StoreBackend backend, ChangeFeed feed) {
+        this.messageIds = ids.sequence("MSG", messageDb.size() + 1);
+        this.events = feed.declare("messages", "user");
+        backend.attach("messages", messageDb);
+        backend.attach("messages.receipts", receiptDb);
+        messageDb.forEach((id, message) -> {
+            mailboxes.file(message);
+            indexMessage(message);
+        });
+        receiptDb.forEach((id, receipt) -> {
+            applyReceipt(receipt);
+            holdsReceipt(String.valueOf(receipt.get("messageId")), String.valueOf(receipt.get("user")));
+        });
+    }
+
     // 1. List Messages by Category - GET /messages/internal/category?type=inbox&page=1&page_size=10
+    // With ?user=, that user's folder (their inbox holds what was sent to them); without, every message of the category
     @GetMapping("/category")
     public ResponseEntity<Map<String, Object>> listMessages(
             @RequestParam(defaultValue = "inbox") String type,
+            @RequestParam(required = false) String user,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int page_size) {
 
-        // 1. Filter by category & convert to Summary (removing body for list view)
-        List<Map<String, Object>> filtered = messageDb.stream()
-                .filter(m -> String.valueOf(m.get("category")).equalsIgnoreCase(type))
-                .map(m -> {
-                    Map<String, Object> summary = new HashMap<>(m);
-                    summary.remove("body");
-
-                    // Ensure recipients and attachments are consistently Lists even in summary
-                    summary.putIfAbsent("recipients", List.of());
-                    summary.putIfAbsent("attachments", List.of());
+        Mailboxes.Folder folder = mailboxes.find(user, type);
 
-                    return summary;
-                })
-                .toList();
+        if (cursor != null) {
+            CursorPage<Map<String, Object>> slice = folder.page(cursor, page_size);
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Messages retrieved successfully.",
+                    "data", Map.of("messages", slice.items(), "pagination", slice.pagination())
+            ));
+        }
 
-        // 2. Pagination Math
-        int totalRecords = filtered.size();
+        // 1. Pagination Math, on the folder's live count
+        int totalRecords = (int) folder.size();
         int totalPages = (int) Math.ceil((double) totalRecords / page_size);
         int start = (page - 1) * page_size;
 
-        // 3. Slice the list safely
-        List<Map<String, Object>> pagedMessages = filtered.stream()
-                .skip(Math.max(0, start))
-                .limit(page_size)
-                .toList();
+        // 2. Read only the requested page; summaries were built when the messages were filed
+        List<Map<String, Object>> pagedMessages = folder.page(Math.max(0, start), page_size);
 
         return ResponseEntity.ok(Map.of(
                 "status", "success",
@@ -121,9 +162,7 @@ public class MessageMockController {
     // 2. Message Details - GET /messages/internal/{message_id}
     @GetMapping("/{message_id}")
     public ResponseEntity<Map<String, Object>> getMessageDetails(@PathVariable String message_id) {
-        return messageDb.stream()
-                .filter(m -> String.valueOf(m.get("messageId")).equals(message_id))
-                .findFirst()
+        return messageDb.find(message_id)
                 .map(m -> {
                     // Defensive check: Ensure attachments is never null in response
                     Map<String, Object> response = new HashMap<>(m);
@@ -136,7 +175,7 @@ public class MessageMockController {
     // 3. Send Message - POST /messages/internal
     @PostMapping
     public ResponseEntity<Map<String, Object>> sendMessage(@RequestBody Map<String, Object> req) {
-        String newId = "MSG" + String.format("%03d", messageDb.size() + 1);
+        String newId = messageIds.next();
 
         Map<String, Object> newMessage = new HashMap<>(req);
 
@@ -157,35 +196,254 @@ public class MessageMockController {
         newMessage.put("category", "sent");
 
         messageDb.add(newMessage);
+        mailboxes.file(newMessage);
+        indexMessage(newMessage);
+        publishNew(newId);
 
         return ResponseEntity.ok(Map.of("messageId", newId, "sent", true));
     }
     // 4. Mark As Read - PUT /messages/internal/read/{message_id}
+    // With ?user=, only in that user's folders; without, for everyone
     @PutMapping("/read/{message_id}")
-    public ResponseEntity<Map<String, Object>> markAsRead(@PathVariable String message_id) {
-        messageDb.stream()
-                .filter(m -> m.get("messageId").equals(message_id))
-                .findFirst()
-                .ifPresent(m -> m.put("status", "read"));
-
+    public ResponseEntity<Map<String, Object>> markAsRead(@PathVariable String message_id, @RequestParam(required = false) String user) {
+        setStatus(message_id, user, "read");
         return ResponseEntity.ok(Map.of("messageId", message_id, "status", "read"));
     }
 
     // 5. Mark As Unread - PUT /messages/internal/unread/{message_id}
     @PutMapping("/unread/{message_id}")
-    public ResponseEntity<Map<String, Object>> markAsUnread(@PathVariable String message_id) {
-        messageDb.stream()
-                .filter(m -> m.get("messageId").equals(message_id))
-                .findFirst()
-                .ifPresent(m -> m.put("status", "unread"));
-
+    public ResponseEntity<Map<String, Object>> markAsUnread(@PathVariable String message_id, @RequestParam(required = false) String user) {
+        setStatus(message_id, user, "unread");
         return ResponseEntity.ok(Map.of("messageId", message_id, "status", "unread"));
     }
 
     // 6. Delete Message - DELETE /messages/internal/{message_id}
+    // With ?user=, takes it out of that user's folders only
     @DeleteMapping("/{message_id}")
-    public ResponseEntity<Map<String, Object>> deleteMessage(@PathVariable String message_id) {
-        boolean removed = messageDb.removeIf(m -> m.get("messageId").equals(message_id));
+    public ResponseEntity<Map<String, Object>> deleteMessage(@PathVariable String message_id, @RequestParam(required = false) String user) {
+        boolean removed;
+        if (user != null) {
+            removed = mailboxes.remove(message_id, user);
+            if (removed) {
+                addReceipt(message_id, user, "deleted");
+                publishDeleted(message_id, user);
+            }
+        } else {
+            Set<String> owners = mailboxes.owners(message_id);
+            clearReceipts(message_id, receiptUsers.remove(message_id));
+            removed = messageDb.remove(message_id);
+            mailboxes.remove(message_id);
+            messageSearch.remove(message_id);
+            for (String owner : owners) publishDeleted(message_id, owner);
+        }
         return ResponseEntity.ok(Map.of("messageId", message_id, "deleted", removed));
     }
-}
\ No newline at end of file
+
+    // 7. Folder Counts - GET /messages/internal/counts?user=user123
+    // Unread and total per category for badges, kept as messages change; without ?user=, store-wide
+    @GetMapping("/counts")
+    public ResponseEntity<Map<String, Object>> folderCounts(@RequestParam(required = false) String user) {
+        Map<String, Object> folders = new TreeMap<>();
+        long unread = 0;
+        long total = 0;
+        for (Map.Entry<String, Mailboxes.Folder> folder : mailboxes.folders(user).entrySet()) {
+            long folderUnread = folder.getValue().unread();
+            long folderTotal = folder.getValue().size();
+            folders.put(folder.getKey(), Map.of("unread", folderUnread, "total", folderTotal));
+            unread += folderUnread;
+            total += folderTotal;
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("user", user);
+        data.put("unread", unread);
+        data.put("total", total);
+        data.put("folders", folders);
+        return ResponseEntity.ok(Map.of("status", "success", "message", "Counts retrieved successfully.", "data", data));
+    }
+
+    // 8. Search Messages - GET /messages/internal/search?q=loan due&user=user123&type=inbox&page=1&page_size=10
+    // Best matches first: every word must start a word of the subject, sender or body; ?user= and ?type= narrow it to folders
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> searchMessages(
+            @RequestParam String q,
+            @RequestParam(required = false) String user,
+            @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "10") int page_size) {
+
+        int start = Math.max(0, (page - 1) * page_size);
+        Function<String, Map<String, Object>> listing = mailboxes.listing(user, type);
+        // Every indexed message is listed store-wide, so only a folder search needs a scope
+        InvertedIndex.Scope scope = user == null && type == null ? null : mailboxes.scope(user, type);
+        InvertedIndex.Matches matches = messageSearch.search(q, start, page_size, scope);
+        List<Map<String, Object>> found = new ArrayList<>(matches.keys().size());
+        for (String id : matches.keys()) {
+            Map<String, Object> summary = listing.apply(id);
+            if (summary != null) found.add(summary);
+        }
+
+        int totalPages = (int) Math.ceil((double) matches.total() / page_size);
+        return ResponseEntity.ok(Map.of(
+                "status", "success",
+                "message", "Messages retrieved successfully.",
+                "data", Map.of(
+                        "messages", found,
+                        "pagination", Map.of(
+                                "page", page,
+                                "page_size", page_size,
+                                "total_records", matches.total(),
+                                "total_pages", totalPages == 0 ? 1 : totalPages
+                        )
+                )
+        ));
+    }
+
+    private void indexMessage(Map<String, Object> message) {
+        messageSearch.put(String.valueOf(message.get("messageId")), Values.text(message.get("subject")),
+                Values.text(message.get("sender")), Values.text(message.get("body")));
+    }
+
+    private void setStatus(String messageId, String user, String status) {
+        if (user != null) {
+            if (mailboxes.mark(messageId, user, status)) {
+                addReceipt(messageId, user, status);
+                publishStatus(messageId, user);
+            }
+            return;
+        }
+        // A status for everyone replaces what single users chose; their deletions stand
+        clearReceipts(messageId, mailboxes.owners(messageId));
+        messageDb.update(messageId, current -> {
+            Map<String, Object> m = new HashMap<>(current);
+            m.put("status", status);
+            mailboxes.restatus(messageId, status);
+            return m;
+        });
+        for (String owner : mailboxes.owners(messageId)) publishStatus(messageId, owner);
+    }
+
+    // Feed events read the owner's folders when they are sent, so a subscriber behind on events still gets current state
+
+    private void publishNew(String messageId) {
+        for (String owner : mailboxes.owners(messageId)) {
+            events.publish(owner, "message", null, () -> {
+                Map<String, Object> summary = mailboxes.listing(owner, null).apply(messageId);
+                return summary == null ? null : Map.of("user", owner, "message", summary);
+            });
+        }
+    }
+
+    // A read state and a deletion of one message coalesce: only the latest is sent
+    private void publishStatus(String messageId, String owner) {
+        events.publish(owner, "read_state", messageId, () -> {
+            Map<String, Object> summary = mailboxes.listing(owner, null).apply(messageId);
+            return summary == null ? null : Map.of("user", owner, "messageId", messageId, "status", summary.get("status"));
+        });
+    }
+
+    private void publishDeleted(String messageId, String owner) {
+        events.publish(owner, "deleted", messageId, () -> Map.of("user", owner, "messageId", messageId));
+    }
+
+    private void addReceipt(String messageId, String user, String status) {
+        receiptDb.add(receipt(messageId, user, status));
+        holdsReceipt(messageId, user);
+    }
+
+    private void holdsReceipt(String messageId, String user) {
+        receiptUsers.computeIfAbsent(messageId, id -> ConcurrentHashMap.newKeySet()).add(user);
+    }
+
+    private static Map<String, Object> receipt(String messageId, String user, String status) {
+        Map<String, Object> receipt = new HashMap<>();
+        receipt.put("receipt_id", messageId + "/" + user);
+        receipt.put("messageId", messageId);
+        receipt.put("user", user);
+        receipt.put("status", status);
+        return receipt;
+    }
+
+    private void clearReceipts(String messageId, Set<String> users) {
+        if (users == null || receiptDb.isEmpty()) return;
+        Set<String> holders = receiptUsers.get(messageId);
+        for (String user : users) {
+            if (receiptDb.remove(messageId + "/" + user) && holders != null) holders.remove(user);
+        }
+    }
+
+    private void applyReceipt(Map<String, Object> receipt) {
+        String messageId = String.valueOf(receipt.get("messageId"));
+        String user = String.valueOf(receipt.get("user"));
+        String status = String.valueOf(receipt.get("status"));
+        if (status.equals("deleted")) mailboxes.remove(messageId, user);
+        else mailboxes.mark(messageId, user, status);
+    }
+
+    // Export (Exporter): GET /export/messages?category=&status=&sender= (whole messages, bodies included)
+
+    @Override
+    public String collection() {
+        return "messages";
+    }
+
+    @Override
+    public Stream<Map<String, Object>> export(Map<String, String> filters) {
+        return messageDb.stream().filter(m -> Exportable.matches(filters, "category", m.get("category"))
+                && Exportable.matches(filters, "status", m.get("status")) && Exportable.matches(filters, "sender", m.get("sender")));
+    }
+
+    // Bulk seeding (BulkSeeder)
+
+    private static final String[][] SEEDED_MESSAGES = {
+            {"Welcome!", "Thank you for joining our platform."},
+            {"Statement ready", "Your monthly account statement is ready to download."},
+            {"Card delivered", "Your new card has been delivered. Activate it in the app."},
+            {"Loan repayment due", "Your next loan repayment is due in 3 days."},
+            {"Security alert", "A new device signed in to your account."},
+            {"Transfer received", "You have received a transfer into your savings account."}
+    };
+
+    @Override
+    public String domain() {
+        return "messages";
+    }
+
+    @Override
+    public Loader prepare(SeedRun run, long count) {
+        IdAllocator.Sequence.Block ids = messageIds.reserve(count);
+        EntityStore<Map<String, Object>>.Block rows = messageDb.reserve(count);
+        @SuppressWarnings("unchecked")
+        Map<String, Object>[] seeded = new Map[Math.toIntExact(count)];
+        return new Loader() {
+            @Override
+            public void load(long from, long to) {
+                for (long i = from; i < to; i++) {
+                    SeedRandom random = run.random("messages", i);
+                    String[] text = random.pick(SEEDED_MESSAGES);
+                    Map<String, Object> message = new HashMap<>();
+                    message.put("messageId", ids.id(i));
+                    message.put("subject", text[0]);
+                    message.put("body", text[1]);
+                    message.put("sender", "system");
+                    message.put("recipients", List.of("user" + random.digits(3)));
+                    message.put("attachments", List.of());
+                    message.put("category", random.pick("inbox", "inbox", "inbox", "sent"));
+                    message.put("timestamp", random.timestamp());
+                    message.put("status", random.pick("unread", "read"));
+                    rows.put(i, message);
+                    seeded[(int) i] = message;
+                }
+            }
+
+            // Folders list messages in filing order and equal search scores rank in indexing order,
+            // so both happen in index order once all are stored
+            @Override
+            public void finish() {
+                for (Map<String, Object> message : seeded) {
+                    mailboxes.file(message);
+                    indexMessage(message);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package com.turog.mockapi.model.walletsavings;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+// balance is the live AccountBalance from the BalanceEngine, so postings show up without replacing the row.
+// The archive fields stay off the wire until the account has been archived once; client_id is only set on seeded accounts
+@JsonPropertyOrder({"account_number", "opened_at", "account_id", "balance", "is_archived", "archived_at", "currency", "customer_name", "status", "client_id"})
+public record Account(
+        @JsonProperty("account_id") String accountId, @JsonProperty("account_number") String accountNumber,
+        @JsonProperty("customer_name") String customerName, AccountBalance balance, String status, String currency,
+        @JsonProperty("opened_at") String openedAt,
+        @JsonProperty("is_archived") @JsonInclude(JsonInclude.Include.NON_NULL) Boolean isArchived,
+        @JsonProperty("archived_at") @JsonInclude(JsonInclude.Include.NON_NULL) String archivedAt,
+        @JsonProperty("client_id") @JsonInclude(JsonInclude.Include.NON_NULL) String clientId
+) {
+    Account withStatus(String status) {
+        return new Account(accountId, accountNumber, customerName, balance, status, currency, openedAt, isArchived, archivedAt, clientId);
+    }
+
+    Account archived(String archivedAt) {
+        return new Account(accountId, accountNumber, customerName, balance, status, currency, openedAt, true, archivedAt, clientId);
+    }
+
+    Account unarchived() {
+        return new Account(accountId, accountNumber, customerName, balance, status, currency, openedAt, false, null, clientId);
+    }
+}
@@ -0,0 +1,66 @@
+package com.turog.mockapi.model.walletsavings;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live balance of one savings account, held as minor units (kobo/cents) so postings never lose
+ * precision. Each {@link Account} keeps a reference to it as its {@code balance}; it serializes as
+ * the same decimal the rows used to carry.
+ */
+public final class AccountBalance {
+
+    private final AtomicLong minor;
+
+    AccountBalance(long openingMinor) {
+        this.minor = new AtomicLong(openingMinor);
+    }
+
+    public long minorUnits() {
+        return minor.get();
+    }
+
+    @JsonValue
+    public double amount() {
+        return toAmount(minor.get());
+    }
+
+    // Returns the balance straight after this posting
+    long credit(long amountMinor) {
+        return minor.addAndGet(amountMinor);
+    }
+
+    long debit(long amountMinor) {
+        return minor.addAndGet(-amountMinor);
+    }
+
+    // CAS loop: the debit only lands if it keeps the balance at or above the floor
+    long tryDebit(long amountMinor, long floorMinor) {
+        long current = minor.get();
+        while (true) {
+            long next = current - amountMinor;
+            if (next < floorMinor) return Long.MIN_VALUE;
+            long witnessed = minor.compareAndExchange(current, next);
+            if (witnessed == current) return next;
+            current = witnessed;
+        }
+    }
+
+    long drain() {
+        return minor.getAndSet(0);
+    }
+
+    static long toMinor(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    static double toAmount(long minorUnits) {
+        return minorUnits / 100.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(amount());
+    }
+}
@@ -0,0 +1,57 @@
+package com.turog.mockapi.model.walletsavings;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Owns every savings balance. Each account is updated with its own atomic operations, so
+ * concurrent postings to one account never lose an update and postings to different accounts
+ * never contend.
+ * <p>
+ * With the overdraft guard on, a debit that would take the balance below zero is rejected instead
+ * of applied; with it off (the historical behaviour) balances may go negative.
+ */
+class BalanceEngine {
+
+    static final long REJECTED = Long.MIN_VALUE;
+
+    private final Map<String, AccountBalance> balances = new ConcurrentHashMap<>();
+    private final boolean overdraftGuard;
+
+    BalanceEngine(boolean overdraftGuard) {
+        this.overdraftGuard = overdraftGuard;
+    }
+
+    AccountBalance open(String accountId, double openingAmount) {
+        return balances.computeIfAbsent(accountId, id -> new AccountBalance(AccountBalance.toMinor(openingAmount)));
+    }
+
+    // Replaces the account's balance outright; only used when restoring persisted accounts
+    AccountBalance restore(String accountId, double amount) {
+        AccountBalance balance = new AccountBalance(AccountBalance.toMinor(amount));
+        balances.put(accountId, balance);
+        return balance;
+    }
+
+    AccountBalance get(String accountId) {
+        return balances.get(accountId);
+    }
+
+    // Applies one posting and returns the exact balance it produced, or REJECTED
+    long post(String accountId, long amountMinor, boolean isCredit) {
+        AccountBalance balance = balances.get(accountId);
+        if (balance == null) return REJECTED;
+        if (isCredit) return balance.credit(amountMinor);
+        return overdraftGuard ? balance.tryDebit(amountMinor, 0) : balance.debit(amountMinor);
+    }
+
+    // Empties the account and returns what it held
+    long drain(String accountId) {
+        AccountBalance balance = balances.get(accountId);
+        return balance == null ? 0 : balance.drain();
+    }
+
+    boolean overdraftGuard() {
+        return overdraftGuard;
+    }
+}
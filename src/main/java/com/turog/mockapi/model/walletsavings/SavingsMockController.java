@@ -1,36 +1,91 @@
 package com.turog.mockapi.model.walletsavings;
 
+import com.turog.mockapi.store.Batch;
+import com.turog.mockapi.store.ChangeFeed;
+import com.turog.mockapi.store.CursorPage;
+import com.turog.mockapi.store.EntityStore;
+import com.turog.mockapi.store.Exportable;
+import com.turog.mockapi.store.IdAllocator;
+import com.turog.mockapi.store.Ledger;
+import com.turog.mockapi.store.SeedRandom;
+import com.turog.mockapi.store.SeedRun;
+import com.turog.mockapi.store.Seedable;
+import com.turog.mockapi.store.StoreBackend;
+import com.turog.mockapi.store.Values;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.ZonedDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/savings")
 @CrossOrigin(origins = "*")
-public class SavingsMockController {
+public class SavingsMockController implements Seedable, Exportable {
 
-    // In-memory Database for Accounts
-    private final List<Map<String, Object>> accountsDb = new CopyOnWriteArrayList<>(Arrays.asList(
-            new HashMap<>(Map.of("account_id", "SAV001", "account_number", "1234567890", "customer_name", "John Doe", "balance", 5000.75, "status", "Active", "currency", "NGN", "opened_at", "2025-01-15T10:00:00Z"))
-    ));
+    // Balances live here; each Account holds its live AccountBalance
+    private final BalanceEngine balances;
 
-    // In-memory Database for Transactions
-    private final List<Map<String, Object>> transactionsDb = new CopyOnWriteArrayList<>();
+    // Two-account moves (transfers, closures) go through here so both legs land together
+    private final TransferEngine transfers;
+
+    // In-memory Database for Accounts
+    private final EntityStore<Account> accountsDb = new EntityStore<>(Account::accountId);
+
+    // In-memory Database for Transactions (append-only)
+    private final Ledger<Map<String, Object>> transactionsDb = new Ledger<>();
+
+    // Secondary index over transactionsDb by account, maintained on every write below
+    private final TransactionIndex transactionsByAccount = new TransactionIndex();
+
+    private final IdAllocator.Sequence transactionIds;
+    private final IdAllocator.Sequence closureIds;
+    private final IdAllocator.Sequence accountIds;
+
+    // GET /events/accounts?account_id=SAV001 pushes the account's overview whenever its balance moves
+    private final ChangeFeed.Topic events;
+
+    public SavingsMockController(IdAllocator ids, StoreBackend backend, ChangeFeed feed,
+                                 @Value("${mockapi.savings.overdraft-guard:false}") boolean overdraftGuard) {
+        this.events = feed.declare("accounts", "account_id");
+        this.transactionIds = ids.sequence("TXN", 500);
+        this.closureIds = ids.sequence("TXN-CLOSE-", 1);
+        this.accountIds = ids.sequence("SAV", 2);
+        this.balances = new BalanceEngine(overdraftGuard);
+        this.transfers = new TransferEngine(balances);
+        accountsDb.add(new Account("SAV001", "1234567890", "John Doe", balances.open("SAV001", 5000.75), "Active", "NGN", "2025-01-15T10:00:00Z", null, null, null));
+
+        // Restored accounts get a fresh live balance; the per-account index is rebuilt from the restored log
+        backend.attach("savings.accounts", accountsDb, this::restoreAccount);
+        backend.attach("savings.transactions", transactionsDb, "transaction_id");
+        transactionsDb.forEach(this::indexTransaction);
+    }
 
     // 1. Get Savings Accounts - GET /accounts?page=1&page_size=10
     @GetMapping("/accounts")
     public ResponseEntity<Map<String, Object>> getSavingsAccounts(
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int page_size) {
+
+        if (cursor != null) {
+            CursorPage<Account> slice = accountsDb.page(cursor, page_size);
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "data", Map.of("accounts", slice.items(), "pagination", slice.pagination())
+            ));
+        }
+
         int start = (page - 1) * page_size;
-        List<Map<String, Object>> paged = accountsDb.stream().skip(start).limit(page_size).toList();
+        List<Account> paged = accountsDb.stream().skip(start).limit(page_size).toList();
         int totalRecords = accountsDb.size();
         int totalPages = (int) Math.ceil((double) totalRecords / page_size);
 
@@ -43,8 +98,8 @@ public class SavingsMockController {
     // 2. Search Saving Accounts
     @GetMapping("/accounts/search")
     public ResponseEntity<Map<String, Object>> searchSavingAccounts(@RequestParam String query) {
-        List<Map<String, Object>> results = accountsDb.stream()
-                .filter(a -> a.get("customer_name").toString().contains(query) || a.get("account_number").toString().contains(query))
+        List<Account> results = accountsDb.stream()
+                .filter(a -> a.customerName().contains(query) || a.accountNumber().contains(query))
                 .toList();
         return ResponseEntity.ok(Map.of("status", "success", "message", "Search completed.", "data", Map.of("accounts", results)));
     }
@@ -52,7 +107,7 @@ public class SavingsMockController {
     // 3. Get Details
     @GetMapping("/accounts/{account_id}")
     public ResponseEntity<Map<String, Object>> getDetails(@PathVariable String account_id) {
-        return accountsDb.stream().filter(a -> a.get("account_id").equals(account_id)).findFirst()
+        return accountsDb.find(account_id)
                 .map(a -> ResponseEntity.ok(Map.of("status", "success", "message", "Account details retrieved.", "data", a)))
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -60,9 +115,9 @@ public class SavingsMockController {
     // 4. Get Performance - Linked to actual Balance
     @GetMapping("/accounts/performance/{account_id}")
     public ResponseEntity<Map<String, Object>> getPerformance(@PathVariable String account_id) {
-        return accountsDb.stream().filter(a -> a.get("account_id").equals(account_id)).findFirst()
+        return accountsDb.find(account_id)
                 .map(a -> {
-                    double balance = (double) a.get("balance");
+                    double balance = balances.get(account_id).amount();
                     return ResponseEntity.ok(Map.of("status", "success", "data", Map.of(
                             "account_id", account_id,
                             "interest_accrued", balance * 0.02, // 2% mock interest
@@ -75,39 +130,46 @@ public class SavingsMockController {
     // 5. Get Overview - Fetches real balance and real last transaction
     @GetMapping("/accounts/overview/{account_id}")
     public ResponseEntity<Map<String, Object>> getOverview(@PathVariable String account_id) {
-        return accountsDb.stream().filter(a -> a.get("account_id").equals(account_id)).findFirst()
-                .map(a -> {
-                    // Find actual last transaction for this account
-                    Map<String, Object> lastTxn = transactionsDb.stream()
-                            .filter(t -> t.get("account_id").equals(account_id))
-                            .reduce((first, second) -> second) // Get the last one
-                            .orElse(Map.of("message", "No transactions yet"));
+        return accountsDb.find(account_id)
+                .map(a -> ResponseEntity.ok(Map.<String, Object>of("status", "success", "data", overview(a))))
+                .orElse(ResponseEntity.notFound().build());
+    }
 
-                    return ResponseEntity.ok(Map.of("status", "success", "data", Map.of(
-                            "account_id", account_id,
-                            "balance", a.get("balance"),
-                            "status", a.get("status"),
-                            "last_transaction", lastTxn
-                    )));
-                }).orElse(ResponseEntity.notFound().build());
+    private Map<String, Object> overview(Account a) {
+        // Find actual last transaction for this account
+        Map<String, Object> lastTxn = transactionsByAccount.latest(a.accountId());
+        if (lastTxn == null) lastTxn = Map.of("message", "No transactions yet");
+
+        return Map.of(
+                "account_id", a.accountId(),
+                "balance", a.balance(),
+                "status", a.status(),
+                "last_transaction", lastTxn
+        );
     }
     // 6. Get Transactions (Paginated)
     @GetMapping("/accounts/transactions/{account_id}")
     public ResponseEntity<Map<String, Object>> getTransactions(
             @PathVariable String account_id,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "5") int page_size) {
 
-        List<Map<String, Object>> filtered = transactionsDb.stream()
-                .filter(t -> t.get("account_id").equals(account_id))
-                .toList();
+        if (cursor != null) {
+            CursorPage<Map<String, Object>> slice = transactionsByAccount.page(account_id, cursor, page_size);
+            return ResponseEntity.ok(Map.of("status", "success", "data", Map.of(
+                    "transactions", slice.items(),
+                    "pagination", slice.pagination()
+            )));
+        }
 
         int start = (page - 1) * page_size;
-        List<Map<String, Object>> paged = filtered.stream().skip(start).limit(page_size).toList();
+        List<Map<String, Object>> paged = transactionsByAccount.page(account_id, start, page_size);
+        int totalRecords = transactionsByAccount.count(account_id);
 
         return ResponseEntity.ok(Map.of("status", "success", "data", Map.of(
                 "transactions", paged,
-                "pagination", Map.of("page", page, "page_size", page_size, "total_records", filtered.size(), "total_pages", (int) Math.ceil((double) filtered.size() / page_size))
+                "pagination", Map.of("page", page, "page_size", page_size, "total_records", totalRecords, "total_pages", (int) Math.ceil((double) totalRecords / page_size))
         )));
     }
 
@@ -117,6 +179,44 @@ public class SavingsMockController {
         return processFinancial(req, "Deposit", true);
     }
 
+    // 7b. Batch Deposit - POST /accounts/deposit/batch {"deposits": [{account_id, amount}, ...], "mode": "best_effort" | "atomic"}
+    // Credits cannot fail once checked, so the whole batch posts in one pass: transaction IDs reserved together,
+    // one ledger append, and each account's row republished once however many deposits it took
+    @PostMapping("/accounts/deposit/batch")
+    public ResponseEntity<Map<String, Object>> depositBatch(@RequestBody Map<String, Object> req) {
+        Batch batch = Batch.of(req, "deposits");
+        for (Batch.Item item : batch.valid()) {
+            if (positiveAmount(item.body().get("amount")) == null) {
+                batch.fail(item.index(), "Invalid amount.");
+            } else if (!accountsDb.contains(String.valueOf(item.body().get("account_id")))) {
+                batch.fail(item.index(), "Account not found.");
+            }
+        }
+        if (batch.rejected()) return ResponseEntity.status(400).body(batch.body());
+
+        List<Batch.Item> items = batch.valid();
+        IdAllocator.Sequence.Block ids = transactionIds.reserve(items.size());
+        List<Map<String, Object>> txns = new ArrayList<>(items.size());
+        Set<String> touched = new LinkedHashSet<>();
+        String timestamp = ZonedDateTime.now().toString();
+        for (int i = 0; i < items.size(); i++) {
+            Batch.Item item = items.get(i);
+            String accId = String.valueOf(item.body().get("account_id"));
+            double amount = Values.number(item.body().get("amount"));
+            double newBal = AccountBalance.toAmount(balances.post(accId, AccountBalance.toMinor(amount), true));
+            String tid = ids.id(i);
+            txns.add(new HashMap<>(Map.of("transaction_id", tid, "account_id", accId, "type", "Deposit", "amount", amount, "string", timestamp, "status", "Success")));
+            touched.add(accId);
+            batch.succeed(item.index(), "Deposit successful.",
+                    Map.of("transaction_id", tid, "account_id", accId, "amount", amount, "new_balance", newBal, "string", timestamp));
+        }
+        transactionsDb.appendAll(txns);
+        for (Map<String, Object> txn : txns) transactionsByAccount.add(String.valueOf(txn.get("account_id")), txn);
+        touched.forEach(accountsDb::republish);
+        touched.forEach(this::publishBalance);
+        return ResponseEntity.ok(batch.body());
+    }
+
     // 8. Withdraw
     @PostMapping("/accounts/withdraw")
     public ResponseEntity<Map<String, Object>> withdraw(@RequestBody Map<String, Object> req) {
@@ -133,13 +233,14 @@ public class SavingsMockController {
     // 10. Change Status - Updates the actual DB
     @PutMapping("/accounts/status/{account_id}")
     public ResponseEntity<Map<String, Object>> changeStatus(@PathVariable String account_id, @RequestBody Map<String, Object> req) {
-        for (Map<String, Object> acc : accountsDb) {
-            if (acc.get("account_id").equals(account_id)) {
-                String oldStatus = String.valueOf(acc.get("status"));
-                acc.put("status", req.get("status"));
-                return ResponseEntity.ok(Map.of("status", "success", "message", "Status updated.",
-                        "data", Map.of("account_id", account_id, "old_status", oldStatus, "new_status", acc.get("status"))));
-            }
+        String[] oldStatus = {null};
+        Account acc = accountsDb.update(account_id, a -> {
+            oldStatus[0] = String.valueOf(a.status());
+            return a.withStatus(Values.text(req.get("status")));
+        });
+        if (acc != null) {
+            return ResponseEntity.ok(Map.of("status", "success", "message", "Status updated.",
+                    "data", Map.of("account_id", account_id, "old_status", oldStatus[0], "new_status", acc.status())));
         }
         return ResponseEntity.notFound().build();
     }
@@ -151,14 +252,9 @@ public class SavingsMockController {
         String sourceId = String.valueOf(req.get("account_id"));
         String destinationId = String.valueOf(req.get("destination_account"));
 
-        Map<String, Object> sourceAcc = null;
-        Map<String, Object> destAcc = null;
-
         // 1. Locate both accounts in the DB
-        for (Map<String, Object> acc : accountsDb) {
-            if (acc.get("account_id").equals(sourceId)) sourceAcc = acc;
-            if (acc.get("account_id").equals(destinationId)) destAcc = acc;
-        }
+        Account sourceAcc = accountsDb.get(sourceId);
+        Account destAcc = accountsDb.get(destinationId);
 
         // 2. Validation
         if (sourceAcc == null) {
@@ -169,26 +265,30 @@ public class SavingsMockController {
         }
 
         // 3. Perform the Transfer
-        double transferAmount = (double) sourceAcc.get("balance");
-        double currentDestBalance = (double) destAcc.get("balance");
+        TransferEngine.Result moved = transfers.closeInto(sourceId, destinationId);
+        if (!moved.ok()) {
+            return ResponseEntity.status(400).body(Map.of("status", "error", "message", moved.error()));
+        }
+        double transferAmount = AccountBalance.toAmount(moved.amount());
 
         // Update Source
-        sourceAcc.put("balance", 0.0);
-        sourceAcc.put("status", "Closed");
-
-        // Update Destination
-        destAcc.put("balance", currentDestBalance + transferAmount);
+        accountsDb.update(sourceId, a -> a.withStatus("Closed"));
+        accountsDb.republish(destinationId);
 
         // 4. Log the transaction
         Map<String, Object> closeTxn = new HashMap<>(Map.of(
-                "transaction_id", "TXN-CLOSE-" + System.currentTimeMillis(),
+                "transaction_id", closureIds.next(),
                 "source_account", sourceId,
                 "destination_account", destinationId,
                 "amount", transferAmount,
                 "type", "Closure Transfer",
                 "timestamp", ZonedDateTime.now().toString()
         ));
-        transactionsDb.add(closeTxn);
+        transactionsDb.append(closeTxn);
+        transactionsByAccount.add(sourceId, closeTxn);
+        transactionsByAccount.add(destinationId, closeTxn);
+        publishBalance(sourceId);
+        publishBalance(destinationId);
 
         return ResponseEntity.ok(Map.of(
                 "status", "success",
@@ -197,7 +297,7 @@ public class SavingsMockController {
                         "closed_account", sourceId,
                         "received_account", destinationId,
                         "transferred_amount", transferAmount,
-                        "new_destination_balance", destAcc.get("balance"),
+                        "new_destination_balance", AccountBalance.toAmount(moved.toBalance()),
                         "closed_at", ZonedDateTime.now().toString()
                 )
         ));
@@ -209,10 +309,41 @@ public class SavingsMockController {
         return processFinancial(req, String.valueOf(req.get("charge_type")), false);
     }
 
-    // 13. Transfer Funds
+    // 13. Transfer Funds - between two savings accounts when destination_account is given, otherwise an outbound debit
     @PostMapping("/accounts/transfer")
     public ResponseEntity<Map<String, Object>> transfer(@RequestBody Map<String, Object> req) {
-        return processFinancial(req, "Transfer", false);
+        if (req.get("destination_account") == null) {
+            return processFinancial(req, "Transfer", false);
+        }
+        return internalTransfer(req);
+    }
+
+    // 13b. Batch Transfer - POST /accounts/transfer/batch {"transfers": [{account_id, destination_account, amount}, ...]}
+    // Each item is applied on its own; one failed item does not undo the others
+    @PostMapping("/accounts/transfer/batch")
+    public ResponseEntity<Map<String, Object>> transferBatch(@RequestBody Map<String, Object> req) {
+        if (!(req.get("transfers") instanceof List<?> items)) {
+            return ResponseEntity.status(400).body(Map.of("status", "error", "message", "transfers must be a list."));
+        }
+        List<Map<String, Object>> results = new ArrayList<>(items.size());
+        int succeeded = 0;
+        for (int i = 0; i < items.size(); i++) {
+            Map<String, Object> result = new HashMap<>(Map.of("index", i));
+            if (items.get(i) instanceof Map<?, ?> item) {
+                @SuppressWarnings("unchecked")
+                ResponseEntity<Map<String, Object>> outcome = internalTransfer((Map<String, Object>) item);
+                result.putAll(outcome.getBody());
+                if (outcome.getStatusCode().is2xxSuccessful()) succeeded++;
+            } else {
+                result.putAll(Map.of("status", "error", "message", "Transfer must be an object."));
+            }
+            results.add(result);
+        }
+        return ResponseEntity.ok(Map.of("status", "success", "message", "Batch processed.", "data", Map.of(
+                "results", results,
+                "succeeded", succeeded,
+                "failed", items.size() - succeeded
+        )));
     }
 
     // 14. Archive Account - PUT /savings/accounts/archive
@@ -220,21 +351,19 @@ public class SavingsMockController {
     public ResponseEntity<Map<String, Object>> archive(@RequestBody Map<String, Object> req) {
         String accId = String.valueOf(req.get("account_id"));
 
-        for (Map<String, Object> acc : accountsDb) {
-            if (acc.get("account_id").equals(accId)) {
-                acc.put("is_archived", true);
-                acc.put("archived_at", ZonedDateTime.now().toString());
-
-                return ResponseEntity.ok(Map.of(
-                        "status", "success",
-                        "message", "Account archived successfully.",
-                        "data", Map.of(
-                                "account_id", accId,
-                                "is_archived", true,
-                                "archived_at", acc.get("archived_at")
-                        )
-                ));
-            }
+        String archivedAt = ZonedDateTime.now().toString();
+        Account acc = accountsDb.update(accId, a -> a.archived(archivedAt));
+        if (acc != null) {
+
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Account archived successfully.",
+                    "data", Map.of(
+                            "account_id", accId,
+                            "is_archived", true,
+                            "archived_at", acc.archivedAt()
+                    )
+            ));
         }
         return ResponseEntity.status(404).body(Map.of("status", "error", "message", "Account not found."));
     }
@@ -244,40 +373,154 @@ public class SavingsMockController {
     public ResponseEntity<Map<String, Object>> unarchive(@RequestBody Map<String, Object> req) {
         String accId = String.valueOf(req.get("account_id"));
 
-        for (Map<String, Object> acc : accountsDb) {
-            if (acc.get("account_id").equals(accId)) {
-                acc.put("is_archived", false);
-                acc.remove("archived_at"); // Clean up the timestamp
-
-                return ResponseEntity.ok(Map.of(
-                        "status", "success",
-                        "message", "Account unarchived successfully.",
-                        "data", Map.of(
-                                "account_id", accId,
-                                "is_archived", false,
-                                "unarchived_at", ZonedDateTime.now().toString()
-                        )
-                ));
-            }
+        // Clears the archive timestamp as well
+        Account acc = accountsDb.update(accId, Account::unarchived);
+        if (acc != null) {
+
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Account unarchived successfully.",
+                    "data", Map.of(
+                            "account_id", accId,
+                            "is_archived", false,
+                            "unarchived_at", ZonedDateTime.now().toString()
+                    )
+            ));
         }
         return ResponseEntity.status(404).body(Map.of("status", "error", "message", "Account not found."));
     }
 
+    // Helper for account-to-account transfers: both legs under the transfer engine, one txn logged on both sides
+    private ResponseEntity<Map<String, Object>> internalTransfer(Map<String, Object> req) {
+        String sourceId = String.valueOf(req.get("account_id"));
+        String destinationId = String.valueOf(req.get("destination_account"));
+        Double amount = positiveAmount(req.get("amount"));
+        if (amount == null) {
+            return ResponseEntity.status(400).body(Map.of("status", "error", "message", "Invalid amount."));
+        }
+        if (!accountsDb.contains(sourceId)) {
+            return ResponseEntity.status(404).body(Map.of("status", "error", "message", "Source account not found."));
+        }
+        if (!accountsDb.contains(destinationId)) {
+            return ResponseEntity.status(400).body(Map.of("status", "error", "message", "Destination account not found."));
+        }
+
+        TransferEngine.Result moved = transfers.transfer(sourceId, destinationId, AccountBalance.toMinor(amount));
+        if (!moved.ok()) {
+            return ResponseEntity.status(400).body(Map.of("status", "error", "message", moved.error()));
+        }
+        accountsDb.republish(sourceId);
+        accountsDb.republish(destinationId);
+
+        String tid = transactionIds.next();
+        String timestamp = ZonedDateTime.now().toString();
+        Map<String, Object> txn = new HashMap<>(Map.of("transaction_id", tid, "account_id", sourceId, "destination_account", destinationId, "type", "Transfer", "amount", amount, "string", timestamp, "status", "Success"));
+        transactionsDb.append(txn);
+        transactionsByAccount.add(sourceId, txn);
+        transactionsByAccount.add(destinationId, txn);
+        publishBalance(sourceId);
+        publishBalance(destinationId);
+        return ResponseEntity.ok(Map.of("status", "success", "message", "Transfer successful.",
+                "data", Map.of("transaction_id", tid, "account_id", sourceId, "destination_account", destinationId, "amount", amount,
+                        "new_balance", AccountBalance.toAmount(moved.fromBalance()),
+                        "destination_balance", AccountBalance.toAmount(moved.toBalance()),
+                        "string", timestamp)));
+    }
+
     // Helper to handle balance math and txn logs
     private ResponseEntity<Map<String, Object>> processFinancial(Map<String, Object> req, String type, boolean isCredit) {
         String accId = String.valueOf(req.get("account_id"));
-        double amount = Double.parseDouble(req.get("amount").toString());
-        for (Map<String, Object> acc : accountsDb) {
-            if (acc.get("account_id").equals(accId)) {
-                double newBal = (double) acc.get("balance") + (isCredit ? amount : -amount);
-                acc.put("balance", newBal);
-                String tid = "TXN" + (transactionsDb.size() + 500);
-                Map<String, Object> txn = new HashMap<>(Map.of("transaction_id", tid, "account_id", accId, "type", type, "amount", amount, "string", ZonedDateTime.now().toString(), "status", "Success"));
-                transactionsDb.add(txn);
-                return ResponseEntity.ok(Map.of("status", "success", "message", type + " successful.",
-                        "data", Map.of("transaction_id", tid, "account_id", accId, "amount", amount, "new_balance", newBal, "string", ZonedDateTime.now().toString())));
+        Double amount = positiveAmount(req.get("amount"));
+        if (amount == null) {
+            return ResponseEntity.status(400).body(Map.of("status", "error", "message", "Invalid amount."));
+        }
+        Account acc = accountsDb.get(accId);
+        if (acc != null) {
+            long newBalMinor = balances.post(accId, AccountBalance.toMinor(amount), isCredit);
+            if (newBalMinor == BalanceEngine.REJECTED) {
+                return ResponseEntity.status(400).body(Map.of("status", "error", "message", "Insufficient funds."));
             }
+            accountsDb.republish(accId);
+            double newBal = AccountBalance.toAmount(newBalMinor);
+            String tid = transactionIds.next();
+            Map<String, Object> txn = new HashMap<>(Map.of("transaction_id", tid, "account_id", accId, "type", type, "amount", amount, "string", ZonedDateTime.now().toString(), "status", "Success"));
+            transactionsDb.append(txn);
+            transactionsByAccount.add(accId, txn);
+            publishBalance(accId);
+            return ResponseEntity.ok(Map.of("status", "success", "message", type + " successful.",
+                    "data", Map.of("transaction_id", tid, "account_id", accId, "amount", amount, "new_balance", newBal, "string", ZonedDateTime.now().toString())));
         }
         return ResponseEntity.notFound().build();
     }
-}
\ No newline at end of file
+
+    // Postings only move money one way, so a negative amount would post the other way past the overdraft guard;
+    // an amount that rounds to no minor units would be recorded without moving any money
+    private static Double positiveAmount(Object value) {
+        Double amount = Values.number(value);
+        return amount != null && Double.isFinite(amount) && AccountBalance.toMinor(amount) > 0 ? amount : null;
+    }
+
+    // Published once the transaction is indexed; pending balances of one account coalesce to the latest overview
+    private void publishBalance(String accountId) {
+        events.publish(accountId, "balance", "balance", () -> accountsDb.find(accountId).map(this::overview).orElse(null));
+    }
+
+    private Account restoreAccount(Map<String, Object> row) {
+        String id = Values.text(row.get("account_id"));
+        Double amount = Values.number(row.get("balance"));
+        AccountBalance balance = balances.restore(id, amount == null ? 0 : amount);
+        return new Account(id, Values.text(row.get("account_number")), Values.text(row.get("customer_name")), balance,
+                Values.text(row.get("status")), Values.text(row.get("currency")), Values.text(row.get("opened_at")),
+                (Boolean) row.get("is_archived"), Values.text(row.get("archived_at")), Values.text(row.get("client_id")));
+    }
+
+    private void indexTransaction(Map<String, Object> txn) {
+        Object source = txn.containsKey("source_account") ? txn.get("source_account") : txn.get("account_id");
+        if (source != null) transactionsByAccount.add(String.valueOf(source), txn);
+        Object destination = txn.get("destination_account");
+        if (destination != null) transactionsByAccount.add(String.valueOf(destination), txn);
+    }
+
+    // Export (Exporter): GET /export/savings.transactions?account_id=&type=&status=
+    // One account's history comes from its index, in posting order, without scanning the whole log
+
+    @Override
+    public String collection() {
+        return "savings.transactions";
+    }
+
+    @Override
+    public Stream<Map<String, Object>> export(Map<String, String> filters) {
+        String accountId = filters.get("account_id");
+        Stream<Map<String, Object>> rows = accountId == null ? transactionsDb.stream() : transactionsByAccount.stream(accountId);
+        return rows.filter(t -> Exportable.matches(filters, "type", t.get("type")) && Exportable.matches(filters, "status", t.get("status")));
+    }
+
+    // Bulk seeding (BulkSeeder): each account belongs to a client of the same run and opens with a live balance
+
+    @Override
+    public String domain() {
+        return "savings";
+    }
+
+    @Override
+    public boolean linksToClients() {
+        return true;
+    }
+
+    @Override
+    public Loader prepare(SeedRun run, long count) {
+        IdAllocator.Sequence.Block ids = accountIds.reserve(count);
+        EntityStore<Account>.Block rows = accountsDb.reserve(count);
+        return (from, to) -> {
+            for (long i = from; i < to; i++) {
+                SeedRandom random = run.random("savings", i);
+                String id = ids.id(i);
+                long client = run.client(random);
+                rows.put(i, new Account(id, random.digits(10), run.clientName(client),
+                        balances.open(id, random.amount(1_000, 5_000_000, 50)), random.pick("Active", "Active", "Inactive"),
+                        "NGN", random.timestamp(), null, null, run.clientId(client)));
+            }
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.turog.mockapi.model.walletsavings;
+
+import com.turog.mockapi.store.Cursor;
+import com.turog.mockapi.store.CursorPage;
+import com.turog.mockapi.store.Ledger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Per-account view of the savings transaction log, kept in posting order.
+ * <p>
+ * Written alongside every append to {@code transactionsDb} so the overview and history
+ * endpoints never scan the global log: the latest entry is O(1) and a page is O(page_size).
+ */
+class TransactionIndex {
+
+    private final Map<String, Ledger<Map<String, Object>>> byAccount = new ConcurrentHashMap<>();
+
+    void add(String accountId, Map<String, Object> txn) {
+        byAccount.computeIfAbsent(accountId, id -> new Ledger<>()).append(txn);
+    }
+
+    Map<String, Object> latest(String accountId) {
+        Ledger<Map<String, Object>> history = byAccount.get(accountId);
+        return history == null ? null : history.last();
+    }
+
+    List<Map<String, Object>> page(String accountId, int offset, int limit) {
+        Ledger<Map<String, Object>> history = byAccount.get(accountId);
+        if (history == null || offset < 0 || limit <= 0) return List.of();
+        return history.slice(offset, (long) offset + limit);
+    }
+
+    // Ledger positions never move, so the cursor is simply the index of the next entry
+    CursorPage<Map<String, Object>> page(String accountId, String cursor, int pageSize) {
+        int limit = Cursor.pageSize(pageSize);
+        long from = Cursor.decode(cursor);
+        Ledger<Map<String, Object>> history = byAccount.get(accountId);
+        long size = history == null ? 0 : history.size();
+        if (history == null || from >= size) return new CursorPage<>(List.of(), cursor, null, limit);
+        long to = Math.min(size, from + limit);
+        return new CursorPage<>(history.slice(from, to), cursor, to < size ? Cursor.encode(to) : null, limit);
+    }
+
+    Stream<Map<String, Object>> stream(String accountId) {
+        Ledger<Map<String, Object>> history = byAccount.get(accountId);
+        return history == null ? Stream.empty() : history.stream();
+    }
+
+    int count(String accountId) {
+        Ledger<Map<String, Object>> history = byAccount.get(accountId);
+        return history == null ? 0 : (int) history.size();
+    }
+}
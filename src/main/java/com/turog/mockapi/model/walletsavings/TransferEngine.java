@@ -0,0 +1,85 @@
+package com.turog.mockapi.model.walletsavings;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves money between two savings accounts as one step.
+ * <p>
+ * Accounts hash onto a fixed set of lock stripes and a transfer always takes its two stripes in
+ * ascending stripe order, so any mix of concurrent transfers between arbitrary pairs can never
+ * deadlock. Both legs are applied through the account's {@link AccountBalance} while the locks are
+ * held: the debit only happens if the credit will, so money is never created or destroyed.
+ * Single-account postings from {@link BalanceEngine} stay lock-free and commute with transfers.
+ */
+class TransferEngine {
+
+    record Result(long fromBalance, long toBalance, long amount, String error) {
+        boolean ok() {
+            return error == null;
+        }
+
+        static Result rejected(String error) {
+            return new Result(0, 0, 0, error);
+        }
+    }
+
+    private static final int STRIPES = 1024;
+
+    private final BalanceEngine balances;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    TransferEngine(BalanceEngine balances) {
+        this.balances = balances;
+        for (int i = 0; i < STRIPES; i++) locks[i] = new ReentrantLock();
+    }
+
+    Result transfer(String fromId, String toId, long amountMinor) {
+        if (amountMinor <= 0) return Result.rejected("Amount must be greater than zero.");
+        return locked(fromId, toId, (from, to) -> {
+            long fromBalance = balances.overdraftGuard() ? from.tryDebit(amountMinor, 0) : from.debit(amountMinor);
+            if (fromBalance == BalanceEngine.REJECTED) return Result.rejected("Insufficient funds.");
+            return new Result(fromBalance, to.credit(amountMinor), amountMinor, null);
+        });
+    }
+
+    // Moves the whole balance of the source into the destination
+    Result closeInto(String fromId, String toId) {
+        return locked(fromId, toId, (from, to) -> {
+            long moved = from.drain();
+            return new Result(0, to.credit(moved), moved, null);
+        });
+    }
+
+    private interface Leg {
+        Result apply(AccountBalance from, AccountBalance to);
+    }
+
+    private Result locked(String fromId, String toId, Leg leg) {
+        if (fromId.equals(toId)) return Result.rejected("Source and destination accounts must differ.");
+        AccountBalance from = balances.get(fromId);
+        if (from == null) return Result.rejected("Source account not found.");
+        AccountBalance to = balances.get(toId);
+        if (to == null) return Result.rejected("Destination account not found.");
+
+        int a = stripeOf(fromId);
+        int b = stripeOf(toId);
+        ReentrantLock first = locks[Math.min(a, b)];
+        ReentrantLock second = locks[Math.max(a, b)];
+        first.lock();
+        try {
+            if (second != first) second.lock();
+            try {
+                return leg.apply(from, to);
+            } finally {
+                if (second != first) second.unlock();
+            }
+        } finally {
+            first.unlock();
+        }
+    }
+
+    private static int stripeOf(String accountId) {
+        int h = accountId.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+}
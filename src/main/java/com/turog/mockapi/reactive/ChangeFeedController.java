@@ -0,0 +1,71 @@
+package com.turog.mockapi.reactive;
+
+import com.turog.mockapi.store.ChangeFeed;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.Map;
+
+// Events are only emitted against the client's demand, so a slow client leaves them in the feed's buffer to coalesce or drop
+@RestController
+@RequestMapping("/events")
+@CrossOrigin(origins = "*")
+public class ChangeFeedController {
+
+    private final ChangeFeed feed;
+
+    public ChangeFeedController(ChangeFeed feed) {
+        this.feed = feed;
+    }
+
+    // 1. Topics - GET /events
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> topics() {
+        return ResponseEntity.ok(Map.of("status", "success", "data", Map.of("topics", feed.topics())));
+    }
+
+    // 2. Subscribe - GET /events/{topic}?<key>=<value>, as Server-Sent Events
+    @GetMapping(value = "/{topic}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<Object>>> subscribe(@PathVariable String topic, @RequestParam Map<String, String> params) {
+        return feed.topic(topic)
+                .map(source -> ResponseEntity.ok(stream(source, params)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private static Flux<ServerSentEvent<Object>> stream(ChangeFeed.Topic source, Map<String, String> params) {
+        return Flux.create(sink -> {
+            ChangeFeed.Subscription subscription = source.subscribe(params, new ChangeFeed.Sink() {
+                @Override
+                public boolean ready() {
+                    return sink.requestedFromDownstream() > 0 && !sink.isCancelled();
+                }
+
+                @Override
+                public void send(ChangeFeed.Event event) {
+                    sink.next(ServerSentEvent.builder(event.data()).event(event.type()).build());
+                }
+
+                @Override
+                public void heartbeat() {
+                    sink.next(ServerSentEvent.builder().comment("heartbeat").build());
+                }
+
+                @Override
+                public void complete() {
+                    sink.complete();
+                }
+            });
+            sink.onRequest(n -> subscription.signal());
+            sink.onDispose(subscription::close);
+        }, FluxSink.OverflowStrategy.ERROR);
+    }
+}
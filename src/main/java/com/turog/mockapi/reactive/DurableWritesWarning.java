@@ -0,0 +1,19 @@
+package com.turog.mockapi.reactive;
+
+import com.turog.mockapi.store.StoreBackend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+// Waiting for a request's writes to be stored would block the event loop, so WebFlux answers without
+@Component
+public class DurableWritesWarning {
+
+    private static final Logger log = LoggerFactory.getLogger(DurableWritesWarning.class);
+
+    public DurableWritesWarning(StoreBackend backend) {
+        if (backend.durableResponses()) {
+            log.warn("mockapi.persistence.durable-responses is not supported on WebFlux; responses are sent before their writes are on disk");
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.turog.mockapi.reactive;
+
+import com.turog.mockapi.LatencySimulator;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Mono;
+
+/**
+ * Applies the {@link LatencySimulator} profiles on WebFlux. Web filters run before the handler is
+ * mapped, so the route is only known once the handler has answered: the answer is held back on the
+ * timer wheel until the delay is over, then written. For the client that is the same wait; the
+ * difference is that a write is already visible to other requests while its response waits. No
+ * thread waits either way, and mockapi.latency.blocking does not apply on the event loop.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class LatencyWebFilter implements WebFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(LatencyWebFilter.class);
+
+    private final LatencySimulator latency;
+
+    public LatencyWebFilter(LatencySimulator latency) {
+        this.latency = latency;
+        if (latency.blocking()) log.warn("mockapi.latency.blocking would stall the event loop; delays wait on the timer wheel instead");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!latency.hasProfiles()) return chain.filter(exchange);
+        return chain.filter(exchange.mutate().response(new DelayedResponse(exchange)).build());
+    }
+
+    private final class DelayedResponse extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+        private boolean delayed;
+
+        DelayedResponse(ServerWebExchange exchange) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return delay().then(Mono.defer(() -> super.writeWith(body)));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return delay().then(Mono.defer(() -> super.writeAndFlushWith(body)));
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return delay().then(Mono.defer(super::setComplete));
+        }
+
+        // Only the first write waits; the route is known by then
+        private Mono<Void> delay() {
+            if (delayed) return Mono.empty();
+            delayed = true;
+            Object pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            long nanos = latency.sampleNanos(exchange.getRequest().getMethod().name(),
+                    pattern instanceof PathPattern matched ? matched.getPatternString() : null);
+            if (nanos <= 0) return Mono.empty();
+            return Mono.create(sink -> latency.after(nanos, sink::success));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.turog.mockapi.reactive;
+
+import com.turog.mockapi.RequestMetrics;
+import org.reactivestreams.Publisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Feeds every WebFlux request into the RequestMetrics once its response is written. Runs ahead of
+ * every other filter so simulated latency is part of what it measures; a request that errors out or
+ * is cancelled by its client counts as an error.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MetricsWebFilter implements WebFilter {
+
+    private final RequestMetrics metrics;
+
+    public MetricsWebFilter(RequestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!metrics.enabled()) return chain.filter(exchange);
+        long begin = System.nanoTime();
+        CountingResponse counted = new CountingResponse(exchange.getResponse());
+        return chain.filter(exchange.mutate().response(counted).build())
+                .doFinally(signal -> record(exchange, counted, begin, signal != SignalType.ON_COMPLETE));
+    }
+
+    private void record(ServerWebExchange exchange, CountingResponse counted, long begin, boolean failed) {
+        long elapsed = System.nanoTime() - begin;
+        // WebFlux matches paths with PathPatterns, not pattern strings
+        Object pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        HttpStatusCode status = counted.getStatusCode();
+        metrics.record(exchange.getRequest().getMethod().name(), pattern instanceof PathPattern matched ? matched.getPatternString() : null,
+                elapsed, failed || (status != null && status.value() >= 400),
+                exchange.getRequest().getHeaders().getContentLength(), counted.written);
+    }
+
+    // Counts body bytes as the buffers go out
+    private static final class CountingResponse extends ServerHttpResponseDecorator {
+
+        private long written;
+
+        CountingResponse(ServerHttpResponse response) {
+            super(response);
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return super.writeWith(Flux.from(body).doOnNext(this::count));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return super.writeAndFlushWith(Flux.from(body).map(chunk -> Flux.from(chunk).doOnNext(this::count)));
+        }
+
+        private void count(DataBuffer buffer) {
+            written += buffer.readableByteCount();
+        }
+    }
+}
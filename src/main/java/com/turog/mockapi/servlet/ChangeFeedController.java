@@ -0,0 +1,156 @@
+package com.turog.mockapi.servlet;
+
+import com.turog.mockapi.store.ChangeFeed;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+
+// Written with Servlet non-blocking IO: a client that stops reading parks its subscription, not a delivery thread
+@RestController
+@RequestMapping("/events")
+@CrossOrigin(origins = "*")
+public class ChangeFeedController {
+
+    private static final byte[] HEARTBEAT = ":heartbeat\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final ChangeFeed feed;
+    private final JsonMapper mapper;
+
+    public ChangeFeedController(ChangeFeed feed, JsonMapper mapper) {
+        this.feed = feed;
+        this.mapper = mapper;
+    }
+
+    // 1. Topics - GET /events
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> topics() {
+        return ResponseEntity.ok(Map.of("status", "success", "data", Map.of("topics", feed.topics())));
+    }
+
+    // 2. Subscribe - GET /events/{topic}?<key>=<value>, as Server-Sent Events
+    @GetMapping(value = "/{topic}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public void subscribe(@PathVariable String topic, @RequestParam Map<String, String> params,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<ChangeFeed.Topic> source = feed.topic(topic);
+        if (source.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        AsyncContext async = request.startAsync();
+        async.setTimeout(0);
+        EventStream stream = new EventStream(async, response.getOutputStream());
+        async.addListener(stream);
+        stream.out.setWriteListener(stream);
+        stream.subscription = source.get().subscribe(params, stream);
+    }
+
+    private final class EventStream implements ChangeFeed.Sink, WriteListener, AsyncListener {
+
+        private final AsyncContext async;
+        private final ServletOutputStream out;
+        private volatile ChangeFeed.Subscription subscription;
+        // Bytes written but not flushed yet, because the socket was busy; only touched while draining
+        private boolean unflushed;
+
+        EventStream(AsyncContext async, ServletOutputStream out) {
+            this.async = async;
+            this.out = out;
+        }
+
+        @Override
+        public boolean ready() throws IOException {
+            if (!out.isReady()) return false;
+            if (unflushed) {
+                unflushed = false;
+                out.flush();
+                return out.isReady();
+            }
+            return true;
+        }
+
+        // One write per event: a non-blocking stream refuses a second write until it is ready again
+        @Override
+        public void send(ChangeFeed.Event event) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            bytes.write(("event:" + event.type() + "\ndata:").getBytes(StandardCharsets.UTF_8));
+            mapper.writeValue(bytes, event.data());
+            bytes.write('\n');
+            bytes.write('\n');
+            write(bytes.toByteArray());
+        }
+
+        @Override
+        public void heartbeat() throws IOException {
+            write(HEARTBEAT);
+        }
+
+        private void write(byte[] bytes) throws IOException {
+            out.write(bytes);
+            unflushed = true;
+        }
+
+        @Override
+        public void complete() {
+            async.complete();
+        }
+
+        @Override
+        public void onWritePossible() {
+            ChangeFeed.Subscription current = subscription;
+            if (current != null) current.signal();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            close();
+            async.complete();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private void close() {
+            ChangeFeed.Subscription current = subscription;
+            if (current != null) current.close();
+        }
+    }
+}
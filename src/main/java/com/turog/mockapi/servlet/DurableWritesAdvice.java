@@ -0,0 +1,34 @@
+package com.turog.mockapi.servlet;
+
+import com.turog.mockapi.store.StoreBackend;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+// With a durable backend, holds each response back until the writes its request made are stored
+@RestControllerAdvice
+public class DurableWritesAdvice implements ResponseBodyAdvice<Object> {
+
+    private final StoreBackend backend;
+
+    public DurableWritesAdvice(StoreBackend backend) {
+        this.backend = backend;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return backend.durableResponses();
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        backend.awaitOwnWrites();
+        return body;
+    }
+}
@@ -0,0 +1,41 @@
+package com.turog.mockapi.servlet;
+
+import com.turog.mockapi.store.Exporter;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Rows are written on an MVC async thread as they are read, so the request thread is free at once
+@RestController
+@RequestMapping("/export")
+@CrossOrigin(origins = "*")
+public class ExportController {
+
+    private final Exporter exporter;
+
+    public ExportController(Exporter exporter) {
+        this.exporter = exporter;
+    }
+
+    // 1. Exportable Collections - GET /export
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> collections() {
+        return ResponseEntity.ok(Map.of("status", "success", "data", Map.of("collections", exporter.collections())));
+    }
+
+    // 2. Export Collection - GET /export/{collection}?<filter>=<value>, one JSON row per line
+    @GetMapping("/{collection}")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable String collection, @RequestParam Map<String, String> filters) {
+        Stream<?> rows = exporter.rows(collection, filters);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(Exporter.NDJSON)).body(out -> exporter.write(rows, out));
+    }
+}
@@ -0,0 +1,64 @@
+package com.turog.mockapi.servlet;
+
+import com.turog.mockapi.LatencySimulator;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Applies the {@link LatencySimulator} profiles on Spring MVC. A delayed request is put into async
+ * mode before its handler runs and parked on the timer wheel; when its delay is drawn out the wheel
+ * dispatches it again and it is handled as usual, so waiting requests need no worker thread
+ * (server.tomcat.max-connections is the ceiling). In blocking mode the request thread sleeps instead.
+ */
+@Component
+public class LatencyInterceptor implements HandlerInterceptor, WebMvcConfigurer {
+
+    private static final String DELAYED = LatencyInterceptor.class.getName() + ".delayed";
+    // How long past its delay a request may wait for the wheel before the container times it out
+    private static final long TIMEOUT_GRACE_MS = 30_000;
+
+    private final LatencySimulator latency;
+
+    public LatencyInterceptor(LatencySimulator latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!latency.hasProfiles() || request.getAttribute(DELAYED) != null) return true;
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        long delay = latency.sampleNanos(request.getMethod(), pattern instanceof String matched ? matched : null);
+        if (delay <= 0) return true;
+        if (latency.blocking()) {
+            sleep(delay);
+            return true;
+        }
+
+        request.setAttribute(DELAYED, delay);
+        AsyncContext async = request.startAsync(request, response);
+        async.setTimeout(TimeUnit.NANOSECONDS.toMillis(delay) + TIMEOUT_GRACE_MS);
+        latency.after(delay, async::dispatch);
+        return false;
+    }
+
+    private static void sleep(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        for (long left = nanos; left > 0; left = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(left);
+        }
+    }
+}
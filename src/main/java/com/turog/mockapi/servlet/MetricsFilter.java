@@ -0,0 +1,152 @@
+package com.turog.mockapi.servlet;
+
+import com.turog.mockapi.RequestMetrics;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+// Feeds every Spring MVC request into the RequestMetrics, once it is over
+@Component
+public class MetricsFilter extends OncePerRequestFilter {
+
+    private final RequestMetrics metrics;
+
+    public MetricsFilter(RequestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !metrics.enabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long begin = System.nanoTime();
+        CountingResponse counted = new CountingResponse(response);
+        boolean failed = true;
+        try {
+            chain.doFilter(request, counted);
+            failed = counted.getStatus() >= 400;
+        } finally {
+            // Async requests (delayed, streamed) are only over once their async context completes
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new Completion(request, counted, begin));
+            } else {
+                record(request, counted, begin, failed);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, CountingResponse counted, long begin, boolean failed) {
+        long elapsed = System.nanoTime() - begin;
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        metrics.record(request.getMethod(), pattern instanceof String matched ? matched : null,
+                elapsed, failed, request.getContentLengthLong(), counted.written);
+    }
+
+    private final class Completion implements AsyncListener {
+
+        private final HttpServletRequest request;
+        private final CountingResponse counted;
+        private final long begin;
+        private boolean failed;
+
+        Completion(HttpServletRequest request, CountingResponse counted, long begin) {
+            this.request = request;
+            this.counted = counted;
+            this.begin = begin;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            record(request, counted, begin, failed || counted.getStatus() >= 400);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            failed = true;
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            failed = true;
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Listeners are dropped when async restarts, so follow the new context too
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    // Counts body bytes on their way out; Spring writes every body through the output stream
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+
+        private long written;
+        private ServletOutputStream stream;
+
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (stream == null) stream = new CountingStream(super.getOutputStream());
+            return stream;
+        }
+
+        private final class CountingStream extends ServletOutputStream {
+
+            private final ServletOutputStream delegate;
+
+            CountingStream(ServletOutputStream delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                delegate.write(b);
+                written++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                delegate.write(b, off, len);
+                written += len;
+            }
+
+            @Override
+            public void flush() throws IOException {
+                delegate.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                delegate.close();
+            }
+
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+                delegate.setWriteListener(listener);
+            }
+        }
+    }
+}
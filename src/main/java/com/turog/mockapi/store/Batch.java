@@ -0,0 +1,113 @@
+package com.turog.mockapi.store;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A batch endpoint's request and per-item report: {@code {"<field>": [{...}, ...], "mode": "atomic"}}.
+ * <p>
+ * The controller checks every item first ({@link #fail}), then writes the {@link #valid} ones in one
+ * pass, reserving their IDs and store positions together, and reports each with {@link #succeed}.
+ * In {@code best_effort} mode (the default) bad items are reported and the rest are written; in
+ * {@code atomic} mode one bad item rejects the batch and nothing is written. That is all or nothing
+ * against bad input only: concurrent requests may see an atomic batch partly written.
+ */
+public final class Batch {
+
+    public enum Mode { BEST_EFFORT, ATOMIC }
+
+    public static final class InvalidBatchException extends RuntimeException {
+        InvalidBatchException(String message) {
+            super(message);
+        }
+    }
+
+    public record Item(int index, Map<String, Object> body) {}
+
+    private final String field;
+    private final Mode mode;
+    private final List<Item> items = new ArrayList<>();
+    private final Map<String, Object>[] results;
+    private int failed;
+    private int succeeded;
+
+    @SuppressWarnings("unchecked")
+    private Batch(String field, Mode mode, List<?> raw) {
+        this.field = field;
+        this.mode = mode;
+        this.results = new Map[raw.size()];
+        for (int i = 0; i < raw.size(); i++) {
+            if (raw.get(i) instanceof Map<?, ?> body) items.add(new Item(i, (Map<String, Object>) body));
+            else fail(i, "Each item must be an object.");
+        }
+    }
+
+    public static Batch of(Map<String, Object> request, String field) {
+        if (!(request.get(field) instanceof List<?> raw)) throw new InvalidBatchException(field + " must be a list.");
+        Object mode = request.getOrDefault("mode", "best_effort");
+        return switch (String.valueOf(mode).toLowerCase(Locale.ROOT)) {
+            case "best_effort" -> new Batch(field, Mode.BEST_EFFORT, raw);
+            case "atomic" -> new Batch(field, Mode.ATOMIC, raw);
+            default -> throw new InvalidBatchException("mode must be best_effort or atomic, not: " + mode);
+        };
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public void fail(int index, String message) {
+        if (results[index] != null) return;
+        results[index] = result(index, "error", message, null);
+        failed++;
+    }
+
+    public void succeed(int index, String message, Map<String, Object> data) {
+        results[index] = result(index, "success", message, data);
+        succeeded++;
+    }
+
+    // The object items nothing has failed yet, in request order
+    public List<Item> valid() {
+        List<Item> valid = new ArrayList<>(items.size());
+        for (Item item : items) {
+            if (results[item.index()] == null) valid.add(item);
+        }
+        return valid;
+    }
+
+    // An atomic batch with a bad item; write nothing and answer with body() as a 400
+    public boolean rejected() {
+        return mode == Mode.ATOMIC && failed > 0;
+    }
+
+    public Map<String, Object> body() {
+        boolean rejected = rejected();
+        List<Map<String, Object>> report = new ArrayList<>(results.length);
+        for (int i = 0; i < results.length; i++) {
+            report.add(results[i] != null ? results[i] : result(i, "skipped", "Not applied: the batch has invalid items.", null));
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("mode", mode.name().toLowerCase(Locale.ROOT));
+        data.put("results", report);
+        data.put("succeeded", succeeded);
+        data.put("failed", failed);
+        if (rejected) {
+            return Map.of("status", "error", "message", "Batch rejected: " + failed + " of " + results.length + " "
+                    + field + " are invalid, so none were applied.", "data", data);
+        }
+        return Map.of("status", "success", "message", "Batch processed.", "data", data);
+    }
+
+    private static Map<String, Object> result(int index, String status, String message, Map<String, Object> data) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("index", index);
+        result.put("status", status);
+        result.put("message", message);
+        if (data != null) result.put("data", data);
+        return result;
+    }
+}
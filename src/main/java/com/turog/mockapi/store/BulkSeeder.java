@@ -0,0 +1,145 @@
+package com.turog.mockapi.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fills the domain stores with generated rows for load tests, straight into the stores instead of
+ * through one API call per row.
+ * <p>
+ * Every {@link Seedable} domain first reserves its IDs and store positions, clients first so the
+ * linked domains can point at them; then all rows of all domains are generated in chunks across
+ * {@code mockapi.seed.parallelism} threads. Rows are a function of the seed and their index only,
+ * so the same request always produces the same data in the same order.
+ */
+@Component
+public class BulkSeeder {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkSeeder.class);
+
+    private static final long CHUNK = 8192;
+
+    public static final class InvalidSeedException extends RuntimeException {
+        InvalidSeedException(String message) {
+            super(message);
+        }
+    }
+
+    public record Result(long seed, Map<String, Long> counts, long elapsedMillis) {}
+
+    private final Map<String, Seedable> domains = new LinkedHashMap<>();
+    private final int parallelism;
+    private final long startupRecords;
+    private final long startupSeed;
+    // One seed at a time; a second request waits rather than competing for the same cores
+    private final ReentrantLock seeding = new ReentrantLock();
+
+    public BulkSeeder(
+            List<Seedable> seedables,
+            @Value("${mockapi.seed.records:0}") long startupRecords,
+            @Value("${mockapi.seed.seed:42}") long startupSeed,
+            @Value("${mockapi.seed.parallelism:0}") int parallelism) {
+        List<Seedable> ordered = new ArrayList<>(seedables);
+        ordered.sort(Comparator.comparing(Seedable::linksToClients));
+        for (Seedable seedable : ordered) {
+            if (domains.putIfAbsent(seedable.domain(), seedable) != null) {
+                throw new IllegalStateException("Two seedable domains are called " + seedable.domain());
+            }
+        }
+        this.startupRecords = startupRecords;
+        this.startupSeed = startupSeed;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    public List<String> domains() {
+        return List.copyOf(domains.keySet());
+    }
+
+    // Generates counts.get(domain) rows for each domain named; domains left out get none
+    public Result seed(long seed, Map<String, Long> counts) {
+        for (Map.Entry<String, Long> count : counts.entrySet()) {
+            if (!domains.containsKey(count.getKey())) throw new InvalidSeedException("Unknown domain: " + count.getKey() + ".");
+            if (count.getValue() == null || count.getValue() < 0) throw new InvalidSeedException("Counts must be whole numbers, zero or more.");
+        }
+        boolean clients = counts.getOrDefault("clients", 0L) > 0;
+        for (Seedable domain : domains.values()) {
+            if (domain.linksToClients() && counts.getOrDefault(domain.domain(), 0L) > 0 && !clients) {
+                throw new InvalidSeedException(domain.domain() + " link to clients, so clients must be seeded in the same run.");
+            }
+        }
+
+        seeding.lock();
+        try {
+            long started = System.nanoTime();
+            SeedRun run = new SeedRun(seed);
+            List<Callable<Void>> chunks = new ArrayList<>();
+            List<Seedable.Loader> loaders = new ArrayList<>();
+            Map<String, Long> seeded = new LinkedHashMap<>();
+            for (Seedable domain : domains.values()) {
+                long count = counts.getOrDefault(domain.domain(), 0L);
+                if (count == 0) continue;
+                Seedable.Loader loader = domain.prepare(run, count);
+                loaders.add(loader);
+                for (long from = 0; from < count; from += CHUNK) {
+                    long start = from;
+                    long end = Math.min(count, from + CHUNK);
+                    chunks.add(() -> {
+                        loader.load(start, end);
+                        return null;
+                    });
+                }
+                seeded.put(domain.domain(), count);
+            }
+            runAll(chunks);
+            loaders.forEach(Seedable.Loader::finish);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            log.info("Seeded {} with seed {} in {} ms on {} threads", seeded, seed, elapsed, parallelism);
+            return new Result(seed, seeded, elapsed);
+        } finally {
+            seeding.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedOnStartup() {
+        if (startupRecords <= 0) return;
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (String domain : domains.keySet()) counts.put(domain, startupRecords);
+        seed(startupSeed, counts);
+    }
+
+    private void runAll(List<Callable<Void>> chunks) {
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "mockapi-seeder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (Future<Void> chunk : pool.invokeAll(chunks)) chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while seeding", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Seeding failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
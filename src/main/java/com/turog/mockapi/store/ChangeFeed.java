@@ -0,0 +1,310 @@
+package com.turog.mockapi.store;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Pushes changes to subscribers as they happen, so clients stop polling for them. Controllers
+ * declare a {@link Topic} ({@code messages} by user, {@code accounts} by account ID) and publish to
+ * one key of it; a subscriber follows one key, or every key when it names none.
+ * <p>
+ * Publishing never waits on a subscriber. Each subscriber has a buffer of at most
+ * {@code mockapi.feed.buffer} events: an event with a coalesce key (a balance, a read state)
+ * replaces the pending one with the same key in place instead of queueing behind it, and when the
+ * buffer is full the oldest event is dropped and the subscriber is sent a {@value #DROPPED} event
+ * with the count, so it knows to refetch. Event data is read when the event is sent, not when it is
+ * published, so a subscriber that fell behind gets current state.
+ * <p>
+ * A few delivery threads write to the subscribers that have something to send. An idle subscriber
+ * holds no thread, only its connection and a few small objects, and gets a heartbeat comment once
+ * every {@code mockapi.feed.heartbeat-seconds} it has been quiet, which finds dead connections and
+ * keeps proxies from closing live ones. The web stack adapts subscriptions to Server-Sent Events
+ * ({@code servlet.ChangeFeedController} on Spring MVC, {@code reactive.ChangeFeedController} on
+ * WebFlux).
+ */
+@Component
+public class ChangeFeed {
+
+    public static final String DROPPED = "dropped";
+
+    // An event as sent: its name and data
+    public record Event(String type, Object data) {}
+
+    // Where a subscription's events go; implemented by the web stack
+    public interface Sink {
+        // Whether another event can be sent now; if not, sending resumes on the next Subscription.signal()
+        boolean ready() throws IOException;
+
+        void send(Event event) throws IOException;
+
+        void heartbeat() throws IOException;
+
+        void complete();
+    }
+
+    // Compared by identity: an event without a coalesce slot is its own buffer key
+    private static final class Pending {
+        final String type;
+        final Object slot;
+        final Supplier<?> data;
+
+        Pending(String type, Object slot, Supplier<?> data) {
+            this.type = type;
+            this.slot = slot;
+            this.data = data;
+        }
+    }
+
+    private record Slot(String key, Object coalesce) {}
+
+    // Subscribers to every key of a topic are filed under this one
+    private static final String ALL = "";
+
+    private final Map<String, Topic> topics = new ConcurrentHashMap<>();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final int bufferSize;
+    private final ExecutorService delivery;
+    private final ScheduledExecutorService heartbeats;
+
+    public ChangeFeed(
+            @Value("${mockapi.feed.buffer:256}") int bufferSize,
+            @Value("${mockapi.feed.threads:4}") int threads,
+            @Value("${mockapi.feed.heartbeat-seconds:15}") long heartbeatSeconds) {
+        if (bufferSize < 1) throw new IllegalArgumentException("mockapi.feed.buffer must be at least 1");
+        if (threads < 1) throw new IllegalArgumentException("mockapi.feed.threads must be at least 1");
+        if (heartbeatSeconds < 1) throw new IllegalArgumentException("mockapi.feed.heartbeat-seconds must be at least 1");
+        this.bufferSize = bufferSize;
+        this.delivery = Executors.newFixedThreadPool(threads, daemon("mockapi-feed-"));
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(daemon("mockapi-feed-heartbeat-"));
+        heartbeats.scheduleWithFixedDelay(this::sweep, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    // keyParam names the request parameter a subscriber picks its key with
+    public Topic declare(String name, String keyParam) {
+        return topics.computeIfAbsent(name, n -> new Topic(n, keyParam));
+    }
+
+    public Optional<Topic> topic(String name) {
+        return Optional.ofNullable(topics.get(name));
+    }
+
+    // name -> key parameter and subscriber count
+    public Map<String, Map<String, Object>> topics() {
+        Map<String, Map<String, Object>> all = new TreeMap<>();
+        topics.forEach((name, topic) -> all.put(name, Map.of("key", topic.keyParam, "subscribers", topic.subscribers())));
+        return all;
+    }
+
+    public int subscribers() {
+        return subscriptions.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        heartbeats.shutdownNow();
+        for (Subscription subscription : new ArrayList<>(subscriptions)) subscription.end();
+        delivery.shutdown();
+    }
+
+    // Heartbeats go to subscribers that sent nothing since the last sweep
+    private void sweep() {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.quiet) {
+                subscription.heartbeatDue = true;
+                subscription.signal();
+            }
+            subscription.quiet = true;
+        }
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public final class Topic {
+
+        private final String name;
+        private final String keyParam;
+        private final Map<String, Set<Subscription>> byKey = new ConcurrentHashMap<>();
+
+        private Topic(String name, String keyParam) {
+            this.name = name;
+            this.keyParam = keyParam;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Queues an event for the key's subscribers. Data is read when the event is sent; a null then
+         * (the change was undone since) skips it. Events of one key with the same non-null coalesce
+         * key replace each other while they wait. With no subscribers this is two map lookups.
+         */
+        public void publish(String key, String type, Object coalesce, Supplier<?> data) {
+            Set<Subscription> keyed = byKey.get(key);
+            Set<Subscription> all = byKey.get(ALL);
+            if (keyed == null && all == null) return;
+            Pending event = new Pending(type, coalesce == null ? null : new Slot(key, coalesce), data);
+            if (keyed != null) keyed.forEach(subscription -> subscription.offer(event));
+            if (all != null) all.forEach(subscription -> subscription.offer(event));
+        }
+
+        // The key is the request's keyParam value; without one, every key
+        public Subscription subscribe(Map<String, String> params, Sink sink) {
+            String key = params.get(keyParam);
+            Subscription subscription = new Subscription(this, key == null || key.isEmpty() ? ALL : key, sink);
+            byKey.computeIfAbsent(subscription.key, k -> ConcurrentHashMap.newKeySet()).add(subscription);
+            subscriptions.add(subscription);
+            subscription.signal();
+            return subscription;
+        }
+
+        private int subscribers() {
+            int count = 0;
+            for (Set<Subscription> keyed : byKey.values()) count += keyed.size();
+            return count;
+        }
+
+        private void remove(Subscription subscription) {
+            byKey.computeIfPresent(subscription.key, (k, keyed) -> {
+                keyed.remove(subscription);
+                return keyed.isEmpty() ? null : keyed;
+            });
+        }
+    }
+
+    public final class Subscription {
+
+        private final Topic topic;
+        private final String key;
+        private final Sink sink;
+        private final ReentrantLock lock = new ReentrantLock();
+        // Pending events by coalesce slot, oldest first; made on first use
+        private LinkedHashMap<Object, Pending> buffer;
+        private long dropped;
+        // Signals not yet seen by a delivery thread; only the thread that takes it from 0 drains
+        private final AtomicInteger work = new AtomicInteger();
+        // The first heartbeat goes out at once, so the response starts before any event
+        private volatile boolean heartbeatDue = true;
+        private volatile boolean quiet;
+        private volatile boolean closed;
+
+        private Subscription(Topic topic, String key, Sink sink) {
+            this.topic = topic;
+            this.key = key;
+            this.sink = sink;
+        }
+
+        // Sends what is pending, on a delivery thread; the web stack calls it when the sink is ready again
+        public void signal() {
+            if (!closed && work.getAndIncrement() == 0) delivery.execute(this::drain);
+        }
+
+        // Stops delivery; the web stack calls it when the connection ends
+        public void close() {
+            if (closed) return;
+            closed = true;
+            topic.remove(this);
+            subscriptions.remove(this);
+        }
+
+        private void end() {
+            close();
+            try {
+                sink.complete();
+            } catch (RuntimeException e) {
+                // The connection failed first and cannot be completed; it is gone either way
+            }
+        }
+
+        private void offer(Pending event) {
+            if (closed) return;
+            lock.lock();
+            try {
+                if (buffer == null) buffer = new LinkedHashMap<>();
+                // A replaced event keeps its place in line
+                boolean added = buffer.put(event.slot != null ? event.slot : event, event) == null;
+                if (added && buffer.size() > bufferSize) {
+                    Iterator<Pending> oldest = buffer.values().iterator();
+                    oldest.next();
+                    oldest.remove();
+                    dropped++;
+                }
+            } finally {
+                lock.unlock();
+            }
+            signal();
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                try {
+                    while (!closed && sink.ready()) {
+                        Event next = next();
+                        if (next != null) {
+                            sink.send(next);
+                        } else if (heartbeatDue) {
+                            sink.heartbeat();
+                        } else {
+                            break;
+                        }
+                        heartbeatDue = false;
+                        quiet = false;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    end();
+                }
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        // The dropped count first if events were lost, then the oldest pending event with data
+        private Event next() {
+            while (true) {
+                Pending pending;
+                lock.lock();
+                try {
+                    if (dropped > 0) {
+                        long lost = dropped;
+                        dropped = 0;
+                        return new Event(DROPPED, Map.of("dropped", lost));
+                    }
+                    if (buffer == null || buffer.isEmpty()) return null;
+                    Iterator<Pending> oldest = buffer.values().iterator();
+                    pending = oldest.next();
+                    oldest.remove();
+                } finally {
+                    lock.unlock();
+                }
+                Object data = pending.data.get();
+                if (data != null) return new Event(pending.type, data);
+            }
+        }
+    }
+}
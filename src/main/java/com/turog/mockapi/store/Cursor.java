@@ -0,0 +1,61 @@
+package com.turog.mockapi.store;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for the list endpoints.
+ * <p>
+ * A cursor names the first position the next page reads from: an {@link EntityStore} insertion
+ * sequence or a {@link Ledger} index. Positions only ever grow and are never reused, so a cursor
+ * keeps pointing at the same place however many rows are added or removed in between. An empty
+ * cursor starts from the beginning. Cursor pages hold 1 to {@value #MAX_PAGE_SIZE} rows.
+ * <p>
+ * A list endpoint switches to cursor mode whenever the request carries {@code ?cursor=}, empty for
+ * the first page; each reply's pagination holds the cursor for the next page, null on the last one.
+ * Without the parameter the endpoint keeps its page-number paging, which shifts as rows come and go.
+ */
+public final class Cursor {
+
+    private static final String VERSION = "v1:";
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private Cursor() {}
+
+    // A page of 0 never moves the cursor on and a negative one never stops; past the cap it is clamped
+    public static int pageSize(int limit) {
+        if (limit < 1) throw new InvalidPageSizeException(limit);
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    public static String encode(long position) {
+        byte[] raw = (VERSION + Long.toString(position, 36)).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return 0;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.US_ASCII);
+            if (!raw.startsWith(VERSION)) throw new InvalidCursorException(cursor);
+            long position = Long.parseLong(raw.substring(VERSION.length()), 36);
+            if (position < 0) throw new InvalidCursorException(cursor);
+            return position;
+        } catch (IllegalArgumentException e) {
+            // Covers malformed Base64 and NumberFormatException alike
+            throw e instanceof InvalidCursorException invalid ? invalid : new InvalidCursorException(cursor);
+        }
+    }
+
+    public static class InvalidCursorException extends IllegalArgumentException {
+        public InvalidCursorException(String cursor) {
+            super("Invalid cursor: " + cursor);
+        }
+    }
+
+    public static class InvalidPageSizeException extends IllegalArgumentException {
+        public InvalidPageSizeException(int pageSize) {
+            super("page_size must be at least 1, not " + pageSize + ".");
+        }
+    }
+}
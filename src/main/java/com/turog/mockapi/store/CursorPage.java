@@ -0,0 +1,26 @@
+package com.turog.mockapi.store;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page read by cursor: the rows plus the cursor to resume from, or {@code null} once there is
+ * nothing left to read.
+ */
+public record CursorPage<T>(List<T> items, String cursor, String nextCursor, int pageSize) {
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    // Pagination block for cursor-mode responses; next_cursor serializes as null on the last page
+    public Map<String, Object> pagination() {
+        Map<String, Object> pagination = new LinkedHashMap<>();
+        pagination.put("page_size", pageSize);
+        pagination.put("cursor", cursor == null ? "" : cursor);
+        pagination.put("next_cursor", nextCursor);
+        pagination.put("has_more", hasMore());
+        return pagination;
+    }
+}
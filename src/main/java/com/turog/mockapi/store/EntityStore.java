@@ -0,0 +1,481 @@
+package com.turog.mockapi.store;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * In-memory table keyed by primary ID.
+ * <p>
+ * Lookups, inserts and deletes by ID are O(1) through a {@link ConcurrentHashMap}; a second
+ * {@link ConcurrentSkipListMap} keyed by insertion sequence keeps rows in the order they were
+ * first added, so list endpoints page the same way the old {@code CopyOnWriteArrayList} stores did
+ * without copying the backing array on every write.
+ * <p>
+ * An optional {@link Listener} hears about every write while the row's bin is still locked, so
+ * the changes it sees for one ID arrive in the order they were applied.
+ * <p>
+ * A store moved onto a {@link Tier} ({@link SqlBackend}) holds at most {@code capacity} rows in
+ * memory and the tier holds them all. A lookup that misses reads the row through from the tier and
+ * keeps it, evicting the oldest rows the tier has stored; rows with writes the tier has not stored
+ * yet stay. Pages, streams and scans merge the rows in memory with the tier's, in sequence order.
+ */
+public class EntityStore<T> {
+
+    private record Slot<T>(long seq, T value) {}
+
+    public interface Listener<T> {
+        void put(String id, T value);
+
+        void removed(String id);
+    }
+
+    public record Row<T>(String id, long seq, T value) {}
+
+    // Where a bounded store keeps every row, including the ones it does not hold in memory
+    public interface Tier<T> {
+        // Rows held and the highest sequence handed out when the store moved onto the tier
+        long rows();
+
+        long lastSeq();
+
+        // Hears every write while the row's bin is still locked, like Listener
+        void put(String id, long seq, T value);
+
+        void removed(String id);
+
+        // The row with its latest write, or null if there is none; called with the row's bin locked
+        Row<T> load(String id);
+
+        // Up to limit rows from seq on, in sequence order, without the ones removed since; fewer only at the end
+        List<Row<T>> scan(long from, int limit);
+
+        // Whether the row's latest write is stored, so memory can let go of it
+        boolean stored(String id);
+    }
+
+    // Rows read from the tier at a time by a scan
+    private static final int SCAN_BATCH = 256;
+    // A scan starts with a page's worth and doubles up to SCAN_BATCH, so a short page decodes few rows it skips
+    private static final int FIRST_SCAN_BATCH = 32;
+    // Eviction attempts per row read in, so rows with unstored writes cannot make a write scan the cache
+    private static final int EVICTION_TRIES = 4;
+
+    private final Function<T, String> idOf;
+    private final ConcurrentHashMap<String, Slot<T>> byId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Slot<T>> byOrder = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile Listener<T> listener;
+    private volatile Tier<T> tier;
+    private int capacity = Integer.MAX_VALUE;
+    // With a tier: every row, in memory or not
+    private final AtomicLong rows = new AtomicLong();
+    // With a tier: IDs in the order they came into memory, oldest first (with stale ones left by evictions and removes)
+    private final ConcurrentLinkedQueue<String> cached = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    public EntityStore(Function<T, String> idOf) {
+        this.idOf = idOf;
+    }
+
+    public EntityStore(Function<T, String> idOf, Collection<? extends T> initial) {
+        this(idOf);
+        initial.forEach(this::add);
+    }
+
+    // Convenience for the Map<String, Object> rows used by the controllers
+    public static EntityStore<Map<String, Object>> keyedBy(String idField, Collection<? extends Map<String, Object>> initial) {
+        return new EntityStore<>(row -> String.valueOf(row.get(idField)), initial);
+    }
+
+    public static EntityStore<Map<String, Object>> keyedBy(String idField) {
+        return keyedBy(idField, List.of());
+    }
+
+    public void listen(Listener<T> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Moves the store onto a tier, keeping at most {@code capacity} rows in memory from then on. Rows
+     * already in the store are handed to the tier, so either the store or the tier must be empty.
+     */
+    public void tier(Tier<T> tier, int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        if (tier.rows() > 0 && !byId.isEmpty()) throw new IllegalStateException("Either the store or its tier must be empty");
+        sequence.accumulateAndGet(tier.lastSeq(), Math::max);
+        rows.set(tier.rows() + byId.size());
+        this.capacity = capacity;
+        for (Slot<T> slot : byOrder.values()) {
+            String id = idOf.apply(slot.value());
+            tier.put(id, slot.seq(), slot.value());
+            cached.add(id);
+            queued.incrementAndGet();
+        }
+        this.tier = tier;
+    }
+
+    // Keeps a row the tier already holds in memory, as written; for stores warmed up in full
+    void hold(Row<T> row) {
+        Slot<T> slot = new Slot<>(row.seq(), row.value());
+        byId.put(row.id(), slot);
+        byOrder.put(slot.seq(), slot);
+        sequence.accumulateAndGet(row.seq(), Math::max);
+    }
+
+    // Rows held in memory; for tests of the bounded cache
+    int cachedRows() {
+        return byId.size();
+    }
+
+    // Inserts the row, or replaces the existing row with the same ID in place (keeping its position)
+    public T add(T value) {
+        return put(idOf.apply(value), value);
+    }
+
+    public T put(String id, T value) {
+        return put(id, value, 0);
+    }
+
+    // position > 0 places a new row there (a reserved bulk position) instead of at the end
+    private T put(String id, T value, long position) {
+        boolean[] readIn = new boolean[1];
+        byId.compute(id, (key, resident) -> {
+            Slot<T> existing = resident != null ? resident : load(key);
+            long seq = existing != null ? existing.seq() : position > 0 ? position : sequence.incrementAndGet();
+            Slot<T> slot = new Slot<>(seq, value);
+            byOrder.put(slot.seq(), slot);
+            published(key, slot);
+            if (existing == null && tier != null) rows.incrementAndGet();
+            readIn[0] = resident == null;
+            return slot;
+        });
+        if (readIn[0]) cached(id);
+        return value;
+    }
+
+    /**
+     * Reserves {@code count} positions at the end of the insertion order for a bulk load. A row put
+     * through the returned block takes the position of its index, so a load split across threads
+     * still ends up in index order, after everything added before the reservation.
+     */
+    public Block reserve(long count) {
+        if (count < 0) throw new IllegalArgumentException("count must not be negative");
+        return new Block(sequence.getAndAdd(count) + 1, count);
+    }
+
+    public final class Block {
+
+        private final long first;
+        private final long size;
+
+        private Block(long first, long size) {
+            this.first = first;
+            this.size = size;
+        }
+
+        // Adds the index-th row of the load (0-based); a row whose ID already exists is replaced in place
+        public T put(long index, T value) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+            return EntityStore.this.put(idOf.apply(value), value, first + index);
+        }
+    }
+
+    // Swaps the row for change(row) as one step, keeping its position; null if there is no such row
+    public T update(String id, UnaryOperator<T> change) {
+        if (id == null) return null;
+        boolean[] readIn = new boolean[1];
+        Slot<T> updated = byId.compute(id, (key, resident) -> {
+            Slot<T> existing = resident != null ? resident : load(key);
+            if (existing == null) return null;
+            Slot<T> slot = new Slot<>(existing.seq(), change.apply(existing.value()));
+            byOrder.put(slot.seq(), slot);
+            published(key, slot);
+            readIn[0] = resident == null;
+            return slot;
+        });
+        if (readIn[0]) cached(id);
+        return updated == null ? null : updated.value();
+    }
+
+    // For rows that change through a live field (savings balances): tells the listener about the current value
+    public void republish(String id) {
+        if ((listener == null && tier == null) || id == null) return;
+        byId.computeIfPresent(id, (key, existing) -> {
+            published(key, existing);
+            return existing;
+        });
+    }
+
+    public T get(String id) {
+        if (id == null) return null;
+        Slot<T> slot = byId.get(id);
+        if (slot == null && tier != null) slot = readThrough(id);
+        return slot == null ? null : slot.value();
+    }
+
+    public Optional<T> find(String id) {
+        return Optional.ofNullable(get(id));
+    }
+
+    public boolean contains(String id) {
+        return id != null && (byId.containsKey(id) || tier != null && get(id) != null);
+    }
+
+    public boolean remove(String id) {
+        if (id == null) return false;
+        Slot<T> removed = listener == null && tier == null ? byId.remove(id) : removeAndNotify(id);
+        if (removed == null) return false;
+        byOrder.remove(removed.seq(), removed);
+        return true;
+    }
+
+    private Slot<T> removeAndNotify(String id) {
+        @SuppressWarnings("unchecked")
+        Slot<T>[] removed = new Slot[1];
+        byId.compute(id, (key, resident) -> {
+            // A row only the tier holds is removed from the tier all the same
+            Slot<T> existing = resident != null ? resident : load(key);
+            if (existing == null) return null;
+            removed[0] = existing;
+            // Out of the ordered view before the listener hears of it, as put() does the other way round
+            byOrder.remove(existing.seq(), existing);
+            Listener<T> l = listener;
+            if (l != null) l.removed(key);
+            Tier<T> t = tier;
+            if (t != null) t.removed(key);
+            return null;
+        });
+        // Counted down only once the row has left memory, so rows never drops below the rows in memory
+        if (removed[0] != null && tier != null) rows.decrementAndGet();
+        return removed[0];
+    }
+
+    // Non-key deletes still have to scan, but only the matching rows are touched
+    public boolean removeIf(Predicate<? super T> filter) {
+        boolean removed = false;
+        for (Iterator<Slot<T>> slots = ordered(0); slots.hasNext(); ) {
+            Slot<T> slot = slots.next();
+            if (filter.test(slot.value())) {
+                removed |= remove(idOf.apply(slot.value()));
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        return tier == null ? byId.size() : (int) rows.get();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // Rows in insertion order; weakly consistent, never throws on concurrent writes
+    public Stream<T> stream() {
+        if (tier == null) return byOrder.values().stream().map(Slot::value);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(ordered(0),
+                Spliterator.ORDERED | Spliterator.NONNULL), false).map(Slot::value);
+    }
+
+    // Rows with their IDs, in insertion order
+    public void forEach(BiConsumer<String, ? super T> action) {
+        for (Iterator<Slot<T>> slots = ordered(0); slots.hasNext(); ) {
+            Slot<T> slot = slots.next();
+            action.accept(idOf.apply(slot.value()), slot.value());
+        }
+    }
+
+    /**
+     * Keyset page: up to {@code limit} matching rows starting at the cursor's sequence. Cost depends on
+     * the page (and how many rows the filter skips), never on how deep the cursor is, and rows added
+     * or removed elsewhere do not shift later pages. A null or empty cursor reads from the first row;
+     * see {@link Cursor} for how list endpoints expose this.
+     */
+    public CursorPage<T> page(String cursor, int pageSize, Predicate<? super T> filter) {
+        int limit = Cursor.pageSize(pageSize);
+        List<T> items = new ArrayList<>(Math.min(limit, 256));
+        String nextCursor = null;
+        for (Iterator<Slot<T>> slots = ordered(Cursor.decode(cursor)); slots.hasNext(); ) {
+            Slot<T> slot = slots.next();
+            if (!filter.test(slot.value())) continue;
+            if (items.size() == limit) {
+                nextCursor = Cursor.encode(slot.seq());
+                break;
+            }
+            items.add(slot.value());
+        }
+        return new CursorPage<>(items, cursor, nextCursor, limit);
+    }
+
+    public CursorPage<T> page(String cursor, int limit) {
+        return page(cursor, limit, row -> true);
+    }
+
+    // Immutable point-in-time copy, used where the whole table goes out in a response
+    public List<T> snapshot() {
+        return stream().toList();
+    }
+
+    private void published(String id, Slot<T> slot) {
+        Listener<T> l = listener;
+        if (l != null) l.put(id, slot.value());
+        Tier<T> t = tier;
+        if (t != null) t.put(id, slot.seq(), slot.value());
+    }
+
+    // The row as the tier holds it, for a row not in memory; called with its bin locked
+    private Slot<T> load(String id) {
+        Tier<T> t = tier;
+        if (t == null || allInMemory()) return null;
+        Row<T> row = t.load(id);
+        return row == null ? null : new Slot<>(row.seq(), row.value());
+    }
+
+    private Slot<T> readThrough(String id) {
+        boolean[] readIn = new boolean[1];
+        Slot<T> slot = byId.compute(id, (key, resident) -> {
+            if (resident != null) return resident;
+            Slot<T> loaded = load(key);
+            if (loaded != null) {
+                byOrder.put(loaded.seq(), loaded);
+                readIn[0] = true;
+            }
+            return loaded;
+        });
+        if (readIn[0]) cached(id);
+        return slot;
+    }
+
+    // Notes a row that came into memory, then evicts the oldest rows while the store is over capacity
+    private void cached(String id) {
+        if (tier == null) return;
+        cached.add(id);
+        queued.incrementAndGet();
+        for (int tries = 0; tries < EVICTION_TRIES && (byId.size() > capacity || queued.get() > 2L * capacity); tries++) {
+            if (!evictOldest()) return;
+        }
+    }
+
+    // Evicts down to capacity once rows have been stored; the tier calls it after a write burst
+    void trim() {
+        for (int tries = queued.get(); tries > 0 && byId.size() > capacity; tries--) {
+            if (!evictOldest()) return;
+        }
+    }
+
+    // Evicts the row longest in memory if the tier has stored it, else sends it to the back of the line
+    private boolean evictOldest() {
+        Tier<T> t = tier;
+        String oldest = cached.poll();
+        if (t == null || oldest == null) return false;
+        queued.decrementAndGet();
+        boolean over = byId.size() > capacity;
+        Slot<T> kept = byId.computeIfPresent(oldest, (key, slot) -> {
+            if (!over || !t.stored(key)) return slot;
+            byOrder.remove(slot.seq(), slot);
+            return null;
+        });
+        // Still in memory: not stored yet, or only the stale entries were being cleared out
+        if (kept != null) {
+            cached.add(oldest);
+            queued.incrementAndGet();
+        }
+        return true;
+    }
+
+    // Rows from the sequence on, in order; with a tier, the rows in memory merged with the ones only the tier holds
+    private Iterator<Slot<T>> ordered(long from) {
+        Iterator<Slot<T>> inMemory = byOrder.tailMap(from, true).values().iterator();
+        Tier<T> t = tier;
+        return t == null || allInMemory() ? inMemory : new Merged(t, from, inMemory);
+    }
+
+    // No row is only in the tier; rows is counted up before a row comes into memory and down after it leaves
+    private boolean allInMemory() {
+        return byId.size() >= rows.get();
+    }
+
+    private final class Merged implements Iterator<Slot<T>> {
+
+        private final Tier<T> tier;
+        private final Iterator<Slot<T>> inMemory;
+        private Slot<T> nextInMemory;
+        private List<Row<T>> stored = List.of();
+        private int storedAt;
+        private long storedFrom;
+        private int batch = FIRST_SCAN_BATCH;
+        private boolean storedDone;
+        // Sequences only go up, so a row evicted or read in while this runs is not returned twice
+        private long last;
+        private Slot<T> next;
+
+        Merged(Tier<T> tier, long from, Iterator<Slot<T>> inMemory) {
+            this.tier = tier;
+            this.inMemory = inMemory;
+            this.storedFrom = from;
+            this.last = from - 1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (nextInMemory == null && inMemory.hasNext()) nextInMemory = inMemory.next();
+                Row<T> row = nextStored();
+                if (nextInMemory == null && row == null) return false;
+                Slot<T> candidate;
+                if (row == null || nextInMemory != null && nextInMemory.seq() <= row.seq()) {
+                    candidate = nextInMemory;
+                    nextInMemory = null;
+                } else {
+                    storedAt++;
+                    // A row in memory is newer than the tier's copy and comes up at its own sequence
+                    if (byId.containsKey(row.id())) continue;
+                    candidate = new Slot<>(row.seq(), row.value());
+                }
+                if (candidate.seq() <= last) continue;
+                last = candidate.seq();
+                next = candidate;
+            }
+            return true;
+        }
+
+        @Override
+        public Slot<T> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Slot<T> slot = next;
+            next = null;
+            return slot;
+        }
+
+        private Row<T> nextStored() {
+            if (storedAt == stored.size()) {
+                if (storedDone) return null;
+                stored = tier.scan(storedFrom, batch);
+                storedAt = 0;
+                if (stored.size() < batch) storedDone = true;
+                batch = Math.min(batch * 2, SCAN_BATCH);
+                if (stored.isEmpty()) return null;
+                storedFrom = stored.get(stored.size() - 1).seq() + 1;
+            }
+            return stored.get(storedAt);
+        }
+    }
+}
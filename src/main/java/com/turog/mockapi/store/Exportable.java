@@ -0,0 +1,26 @@
+package com.turog.mockapi.store;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * A collection {@link Exporter} can stream whole, e.g. every client or every savings transaction.
+ */
+public interface Exportable {
+
+    // Name the collection goes by in export requests, e.g. "clients"
+    String collection();
+
+    /**
+     * The rows matching the filters, in list order. The stream must be lazy, reading the store as it
+     * is consumed, so an export never holds more than the rows being written. Filters are the request
+     * parameters; ones the collection does not know are ignored.
+     */
+    Stream<?> export(Map<String, String> filters);
+
+    // A filter left out matches everything; given, it matches the value case-insensitively
+    static boolean matches(Map<String, String> filters, String name, Object value) {
+        String wanted = filters.get(name);
+        return wanted == null || (value != null && wanted.equalsIgnoreCase(value.toString()));
+    }
+}
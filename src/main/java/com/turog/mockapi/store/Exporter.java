@@ -0,0 +1,76 @@
+package com.turog.mockapi.store;
+
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Streams whole collections as newline-delimited JSON, one row per line in list order.
+ * <p>
+ * Rows are read lazily from the store and written through one generator that is flushed every
+ * {@value #FLUSH_EVERY} rows, so the client sees rows as they are produced and an export holds a
+ * few kilobytes of buffer however many rows it covers. Like the list endpoints, an export is
+ * weakly consistent: rows written while it runs may or may not be in it.
+ */
+@Component
+public class Exporter {
+
+    public static final class UnknownCollectionException extends RuntimeException {
+        UnknownCollectionException(String message) {
+            super(message);
+        }
+    }
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    static final int FLUSH_EVERY = 1024;
+
+    private final Map<String, Exportable> collections = new TreeMap<>();
+    private final ObjectWriter writer;
+
+    public Exporter(List<Exportable> exportables, JsonMapper mapper) {
+        for (Exportable exportable : exportables) {
+            if (collections.putIfAbsent(exportable.collection(), exportable) != null) {
+                throw new IllegalStateException("Two exportable collections are called " + exportable.collection());
+            }
+        }
+        // Rows are separated by the newlines written below, and flushed in groups rather than one by one
+        this.writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE).withRootValueSeparator("");
+    }
+
+    public Set<String> collections() {
+        return Collections.unmodifiableSet(collections.keySet());
+    }
+
+    public Stream<?> rows(String collection, Map<String, String> filters) {
+        Exportable exportable = collections.get(collection);
+        if (exportable == null) {
+            throw new UnknownCollectionException("Unknown collection: " + collection + ". Use one of " + collections.keySet() + ".");
+        }
+        return exportable.export(filters);
+    }
+
+    // Writes every row as one line, then closes the stream and the output; returns the rows written
+    public long write(Stream<?> rows, OutputStream out) {
+        long written = 0;
+        try (rows; JsonGenerator generator = writer.createGenerator(out)) {
+            for (Iterator<?> it = rows.iterator(); it.hasNext(); ) {
+                writer.writeValue(generator, it.next());
+                generator.writeRaw('\n');
+                if (++written % FLUSH_EVERY == 0) generator.flush();
+            }
+        }
+        return written;
+    }
+}
@@ -0,0 +1,178 @@
+package com.turog.mockapi.store;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out the IDs for every entity the mock API creates.
+ * <p>
+ * Each prefix ("COM", "CL", "TXN", ...) owns one lock-free sequence shared by every caller, so two
+ * controllers minting the same prefix can never issue the same ID, racing POSTs never collide and
+ * deletes never cause an ID to be reused.
+ * <p>
+ * Every ID a controller generates must come from one of these sequences, never from the size of a
+ * store: a size shrinks on delete and is stale the moment two requests read it together.
+ * <p>
+ * In {@code sequential} mode (the default) an ID is the prefix plus a counter zero-padded to
+ * {@code mockapi.ids.width} digits, e.g. {@code COM003}. In {@code time-ordered} mode the number is
+ * snowflake-style: milliseconds since {@link #EPOCH}, the node id and a per-millisecond counter, so
+ * IDs sort by creation time and stay unique across instances configured with different node ids.
+ * <p>
+ * With persistence on, sequential counters are saved in snapshots and pushed past every ID found
+ * on restore ({@link #advance}, {@link #observe}), so a restarted instance carries on where it
+ * stopped instead of reissuing IDs.
+ */
+@Component
+public class IdAllocator {
+
+    public enum Mode { SEQUENTIAL, TIME_ORDERED }
+
+    // 2025-01-01T00:00:00Z
+    static final long EPOCH = 1_735_689_600_000L;
+    private static final int NODE_BITS = 10;
+    private static final int COUNTER_BITS = 12;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+    private final Map<String, Sequence> sequences = new ConcurrentHashMap<>();
+    private final Mode mode;
+    private final int width;
+    private final long node;
+
+    public IdAllocator(
+            @Value("${mockapi.ids.mode:sequential}") String mode,
+            @Value("${mockapi.ids.width:3}") int width,
+            @Value("${mockapi.ids.node:0}") long node) {
+        if (width < 1) throw new IllegalArgumentException("mockapi.ids.width must be at least 1");
+        if (node < 0 || node >= 1L << NODE_BITS) throw new IllegalArgumentException("mockapi.ids.node must be in [0, 1023]");
+        this.mode = Mode.valueOf(mode.trim().toUpperCase().replace('-', '_'));
+        this.width = width;
+        this.node = node;
+    }
+
+    /**
+     * Returns the sequence for {@code prefix}, creating it on first use. The first caller decides
+     * where a sequential counter starts (controllers pass the first number after their seed rows);
+     * later callers share that counter.
+     */
+    public Sequence sequence(String prefix, long first) {
+        return sequences.computeIfAbsent(prefix, p -> new Sequence(p, mode == Mode.TIME_ORDERED ? 0 : first));
+    }
+
+    public String next(String prefix) {
+        return sequence(prefix, 1).next();
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    // Next value of every sequential counter; time-ordered IDs need nothing saved
+    public Map<String, Long> positions() {
+        Map<String, Long> positions = new HashMap<>();
+        if (mode == Mode.SEQUENTIAL) sequences.forEach((prefix, sequence) -> positions.put(prefix, sequence.state.get()));
+        return positions;
+    }
+
+    // Makes sure the counter for prefix never hands out anything below position
+    public void advance(String prefix, long position) {
+        if (mode == Mode.SEQUENTIAL) sequence(prefix, position).advanceTo(position);
+    }
+
+    // Moves the counter that minted id past it; IDs from other sources are ignored
+    public void observe(String id) {
+        if (mode != Mode.SEQUENTIAL || id == null) return;
+        for (Sequence sequence : sequences.values()) {
+            long value = sequence.valueOf(id);
+            if (value >= 0) sequence.advanceTo(value + 1);
+        }
+    }
+
+    public final class Sequence {
+
+        private final String prefix;
+        private final AtomicLong state;
+
+        private Sequence(String prefix, long first) {
+            this.prefix = prefix;
+            this.state = new AtomicLong(first);
+        }
+
+        public String next() {
+            return format(mode == Mode.TIME_ORDERED ? stampValue(reserveStamps(1)) : state.getAndIncrement());
+        }
+
+        // Takes count consecutive IDs in one step, for bulk loads; the block formats any of them on demand
+        public Block reserve(long count) {
+            if (count < 0) throw new IllegalArgumentException("count must not be negative");
+            return new Block(mode == Mode.TIME_ORDERED ? reserveStamps(count) : state.getAndAdd(count), count);
+        }
+
+        // State is (millis << COUNTER_BITS | counter); a burst past 4096/ms borrows from the next millisecond
+        private long reserveStamps(long count) {
+            long floor = (System.currentTimeMillis() - EPOCH) << COUNTER_BITS;
+            long current = state.get();
+            while (true) {
+                long next = Math.max(current + 1, floor);
+                long witnessed = state.compareAndExchange(current, next + Math.max(count, 1) - 1);
+                if (witnessed == current) return next;
+                current = witnessed;
+            }
+        }
+
+        private long stampValue(long stamp) {
+            return (stamp >>> COUNTER_BITS) << (NODE_BITS + COUNTER_BITS) | node << COUNTER_BITS | (stamp & COUNTER_MASK);
+        }
+
+        private void advanceTo(long position) {
+            state.accumulateAndGet(position, Math::max);
+        }
+
+        // The number in an ID this sequence could have minted, or -1
+        private long valueOf(String id) {
+            int length = id.length();
+            if (length == prefix.length() || !id.startsWith(prefix) || length - prefix.length() > 18) return -1;
+            long value = 0;
+            for (int i = prefix.length(); i < length; i++) {
+                char c = id.charAt(i);
+                if (c < '0' || c > '9') return -1;
+                value = value * 10 + (c - '0');
+            }
+            return value;
+        }
+
+        private String format(long value) {
+            String digits = Long.toString(value);
+            int pad = width - digits.length();
+            if (pad <= 0) return prefix.concat(digits);
+            StringBuilder id = new StringBuilder(prefix.length() + width).append(prefix);
+            for (int i = 0; i < pad; i++) id.append('0');
+            return id.append(digits).toString();
+        }
+
+        public final class Block {
+
+            private final long first;
+            private final long size;
+
+            private Block(long first, long size) {
+                this.first = first;
+                this.size = size;
+            }
+
+            public long size() {
+                return size;
+            }
+
+            // The index-th ID of the block (0-based)
+            public String id(long index) {
+                if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+                return format(mode == Mode.TIME_ORDERED ? stampValue(first + index) : first + index);
+            }
+        }
+    }
+}
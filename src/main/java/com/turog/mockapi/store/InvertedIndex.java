@@ -0,0 +1,460 @@
+package com.turog.mockapi.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Ranked word search over a few weighted text fields per row, backed by an inverted index.
+ * <p>
+ * Text is split into lowercase words at anything that is not a letter or digit. Each word maps to
+ * a posting list of the docs holding it, with the doc's field-weighted count of it. Every query word
+ * matches as a prefix ({@code "stat"} finds "statement") and a row must match all of them. Rows are
+ * ranked BM25-style: rarer query words count for more, repeats count for less each time, and a
+ * whole-word match beats a prefix one; equal scores come back in insertion order. A prefix expands
+ * to at most {@value #MAX_EXPANSIONS} words, the most common first, so a one-letter query stays cheap.
+ * <p>
+ * Writes are serialized by one lock; reads never block and are weakly consistent, like
+ * {@link TrigramIndex}. A put of an existing key re-adds the row under a new doc number. A delete
+ * leaves a tombstone that queries skip (word statistics still count it until then); once stale
+ * entries or dead doc numbers outnumber live ones, the live rows are renumbered from 0 into new
+ * posting lists, so churn does not grow the index. A search keeps to the numbering it started with.
+ */
+public class InvertedIndex {
+
+    public record Matches(List<String> keys, int total) {}
+
+    /**
+     * The rows a search is narrowed to, e.g. one user's folder. The search walks the smaller side:
+     * every match, asking {@link #contains}, or every key of the scope, looking it up in the matches.
+     */
+    public interface Scope {
+        long size();
+
+        // May repeat a key
+        void forEachKey(Consumer<String> action);
+
+        boolean contains(String key);
+    }
+
+    static final int MAX_EXPANSIONS = 64;
+
+    private static final float K1 = 1.2f;
+    private static final float PREFIX_FACTOR = 0.6f;
+
+    // ids and weights always go together, so a reader never pairs a doc with another doc's weight
+    private record Block(int[] ids, float[] weights) {}
+
+    private static final class Postings {
+        volatile Block block = new Block(new int[4], new float[4]);
+        volatile int size;
+    }
+
+    // One numbering of the docs; compaction replaces it whole, so a doc number only means something within it
+    private static final class Docs {
+        final Map<String, Integer> docOf;
+        final ConcurrentSkipListMap<String, Postings> postings;
+        volatile String[] keys;
+        volatile int count;
+
+        Docs(Map<String, Integer> docOf, ConcurrentSkipListMap<String, Postings> postings, String[] keys, int count) {
+            this.docOf = docOf;
+            this.postings = postings;
+            this.keys = keys;
+            this.count = count;
+        }
+    }
+
+    private final float[] fieldWeights;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Docs docs = new Docs(new ConcurrentHashMap<>(), new ConcurrentSkipListMap<>(), new String[16], 0);
+    // distinct words per doc, so a delete knows how many entries went stale
+    private int[] wordCounts = new int[16];
+    private long liveEntries;
+    private long staleEntries;
+
+    // One weight per field, in the order put passes the fields
+    public InvertedIndex(float... fieldWeights) {
+        if (fieldWeights.length == 0) throw new IllegalArgumentException("Give every field a weight");
+        this.fieldWeights = fieldWeights.clone();
+    }
+
+    public void put(String key, String... fields) {
+        Map<String, Float> words = words(fields);
+        writeLock.lock();
+        try {
+            Integer existing = docs.docOf.get(key);
+            if (existing != null) tombstone(existing);
+            insert(key, words);
+            compactIfStale();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(String key) {
+        writeLock.lock();
+        try {
+            Integer doc = docs.docOf.remove(key);
+            if (doc == null) return;
+            tombstone(doc);
+            compactIfStale();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public int size() {
+        return docs.docOf.size();
+    }
+
+    // Doc numbers the current numbering has room for, live or dead
+    int docSlots() {
+        return docs.keys.length;
+    }
+
+    public Matches search(String query, int offset, int limit) {
+        return search(query, offset, limit, null);
+    }
+
+    // Best matches first, among the rows of the scope (all rows for a null scope)
+    public Matches search(String query, int offset, int limit, Scope scope) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty() || offset < 0 || limit <= 0) return new Matches(List.of(), 0);
+        Docs numbering = docs;
+        // Count before keys: insert() publishes the grown keys before the count, so they always cover it
+        int count = numbering.count;
+        String[] current = numbering.keys;
+        NavigableMap<String, Postings> index = numbering.postings;
+        Map<String, Integer> docOf = numbering.docOf;
+        int live = Math.max(1, docOf.size());
+
+        // Rarest word first, so the candidates only shrink from there
+        List<List<Expansion>> expanded = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            List<Expansion> expansions = expand(index, term, live);
+            if (expansions.isEmpty()) return new Matches(List.of(), 0);
+            expanded.add(expansions);
+        }
+        expanded.sort((a, b) -> Long.compare(postingCount(a), postingCount(b)));
+
+        Scores scores = null;
+        for (List<Expansion> expansions : expanded) {
+            Scores next = new Scores(scores == null ? (int) Math.min(postingCount(expansions), 1 << 16) : scores.size);
+            for (Expansion expansion : expansions) {
+                int size = expansion.postings.size;
+                Block block = expansion.postings.block;
+                for (int i = 0; i < size; i++) {
+                    int doc = block.ids()[i];
+                    if (doc >= count || (scores != null && !scores.contains(doc))) continue;
+                    float w = block.weights()[i];
+                    next.max(doc, expansion.factor * w * (K1 + 1) / (w + K1));
+                }
+            }
+            if (scores != null) next.addFrom(scores);
+            scores = next;
+            if (scores.size == 0) return new Matches(List.of(), 0);
+        }
+
+        TopDocs top = new TopDocs((int) Math.min((long) offset + limit, scores.size));
+        if (scope != null && scope.size() < scores.size) {
+            Scores matched = scores;
+            scope.forEachKey(key -> {
+                Integer doc = docOf.get(key);
+                if (doc == null || doc >= count || current[doc] == null) return;
+                int slot = Scores.slot(matched.docs, doc);
+                // A key seen before has had its score taken out
+                if (matched.docs[slot] == 0 || Float.isNaN(matched.values[slot])) return;
+                top.offer(doc, matched.values[slot]);
+                matched.values[slot] = Float.NaN;
+            });
+        } else {
+            for (int slot = 0; slot < scores.docs.length; slot++) {
+                int doc = scores.docs[slot] - 1;
+                if (doc < 0) continue;
+                String key = current[doc];
+                if (key == null || (scope != null && !scope.contains(key))) continue;
+                top.offer(doc, scores.values[slot]);
+            }
+        }
+        int total = top.offered;
+        int[] ranked = top.ranked();
+        List<String> page = new ArrayList<>(Math.max(0, Math.min(limit, ranked.length - offset)));
+        for (int i = offset; i < ranked.length; i++) page.add(current[ranked[i]]);
+        return new Matches(page, total);
+    }
+
+    private record Expansion(Postings postings, float factor) {}
+
+    // The words starting with term, all weighted by how rare the term is; the whole word itself first
+    private static List<Expansion> expand(NavigableMap<String, Postings> index, String term, int live) {
+        List<Map.Entry<String, Postings>> words = new ArrayList<>(index.subMap(term, true, term + Character.MAX_VALUE, false).entrySet());
+        if (words.size() > MAX_EXPANSIONS) {
+            words.sort((a, b) -> a.getKey().equals(term) ? -1 : b.getKey().equals(term) ? 1 : Integer.compare(b.getValue().size, a.getValue().size));
+            words = words.subList(0, MAX_EXPANSIONS);
+        }
+        long df = 0;
+        for (Map.Entry<String, Postings> word : words) df += word.getValue().size;
+        double rare = Math.max(0, live - df);
+        float idf = Math.max(0.01f, (float) Math.log(1 + (rare + 0.5) / (Math.min(df, live) + 0.5)));
+        List<Expansion> expansions = new ArrayList<>(words.size());
+        for (Map.Entry<String, Postings> word : words) {
+            if (word.getValue().size > 0) expansions.add(new Expansion(word.getValue(), idf * (word.getKey().equals(term) ? 1 : PREFIX_FACTOR)));
+        }
+        return expansions;
+    }
+
+    private static long postingCount(List<Expansion> expansions) {
+        long total = 0;
+        for (Expansion expansion : expansions) total += expansion.postings.size;
+        return total;
+    }
+
+    private void insert(String key, Map<String, Float> words) {
+        Docs numbering = docs;
+        int doc = numbering.count;
+        String[] current = numbering.keys;
+        if (doc == current.length) {
+            current = Arrays.copyOf(current, doc * 2);
+            wordCounts = Arrays.copyOf(wordCounts, doc * 2);
+        }
+        current[doc] = key;
+        numbering.keys = current;
+        wordCounts[doc] = words.size();
+        NavigableMap<String, Postings> index = numbering.postings;
+        words.forEach((word, weight) -> append(index.computeIfAbsent(word, w -> new Postings()), doc, weight));
+        liveEntries += words.size();
+        numbering.docOf.put(key, doc);
+        numbering.count = doc + 1;
+    }
+
+    private void tombstone(int doc) {
+        Docs numbering = docs;
+        String[] current = numbering.keys;
+        current[doc] = null;
+        numbering.keys = current; // republish so readers see the tombstone
+        liveEntries -= wordCounts[doc];
+        staleEntries += wordCounts[doc];
+    }
+
+    // Renumbers the live docs from 0 in their current order, with posting lists that only list them
+    private void compactIfStale() {
+        Docs numbering = docs;
+        int count = numbering.count;
+        int live = numbering.docOf.size();
+        if (staleEntries <= liveEntries && count - live <= live) return;
+        String[] current = numbering.keys;
+        int[] renumbered = new int[count];
+        String[] keys = new String[Math.max(16, Integer.highestOneBit(Math.max(1, live)) << 1)];
+        int[] counts = new int[keys.length];
+        Map<String, Integer> docOf = new ConcurrentHashMap<>();
+        int next = 0;
+        for (int doc = 0; doc < count; doc++) {
+            if (current[doc] == null) {
+                renumbered[doc] = -1;
+                continue;
+            }
+            renumbered[doc] = next;
+            keys[next] = current[doc];
+            counts[next] = wordCounts[doc];
+            docOf.put(current[doc], next);
+            next++;
+        }
+        // The new numbers keep the old order, so every list stays in ascending doc order
+        ConcurrentSkipListMap<String, Postings> rebuilt = new ConcurrentSkipListMap<>();
+        numbering.postings.forEach((word, list) -> {
+            int size = list.size;
+            Block block = list.block;
+            Postings kept = null;
+            for (int i = 0; i < size; i++) {
+                int doc = renumbered[block.ids()[i]];
+                if (doc < 0) continue;
+                if (kept == null) kept = rebuilt.computeIfAbsent(word, w -> new Postings());
+                append(kept, doc, block.weights()[i]);
+            }
+        });
+        wordCounts = counts;
+        docs = new Docs(docOf, rebuilt, keys, next);
+        staleEntries = 0;
+    }
+
+    // Writer only. Readers read size before the block, so the block they get always covers their size
+    private static void append(Postings p, int doc, float weight) {
+        int size = p.size;
+        Block block = p.block;
+        if (size == block.ids().length) {
+            block = new Block(Arrays.copyOf(block.ids(), size * 2), Arrays.copyOf(block.weights(), size * 2));
+            p.block = block;
+        }
+        block.ids()[size] = doc;
+        block.weights()[size] = weight;
+        p.size = size + 1;
+    }
+
+    // Word -> summed weight of the fields it appears in, once per appearance
+    private Map<String, Float> words(String... fields) {
+        if (fields.length > fieldWeights.length) throw new IllegalArgumentException("Only " + fieldWeights.length + " fields are weighted");
+        Map<String, Float> words = new HashMap<>();
+        for (int f = 0; f < fields.length; f++) {
+            float weight = fieldWeights[f];
+            for (String word : tokenize(fields[f])) words.merge(word, weight, Float::sum);
+        }
+        return words;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) return words;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    // Open-addressing doc -> score table; slots hold doc + 1 so 0 means empty
+    private static final class Scores {
+
+        int[] docs;
+        float[] values;
+        int size;
+
+        Scores(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+            docs = new int[capacity];
+            values = new float[capacity];
+        }
+
+        boolean contains(int doc) {
+            return docs[slot(docs, doc)] != 0;
+        }
+
+        void max(int doc, float score) {
+            int slot = slot(docs, doc);
+            if (docs[slot] == 0) {
+                docs[slot] = doc + 1;
+                values[slot] = score;
+                if (++size * 2 > docs.length) grow();
+            } else if (score > values[slot]) {
+                values[slot] = score;
+            }
+        }
+
+        // Adds what each doc scored for the earlier words
+        void addFrom(Scores earlier) {
+            for (int slot = 0; slot < docs.length; slot++) {
+                if (docs[slot] != 0) values[slot] += earlier.values[slot(earlier.docs, docs[slot] - 1)];
+            }
+        }
+
+        private void grow() {
+            int[] oldDocs = docs;
+            float[] oldValues = values;
+            docs = new int[oldDocs.length * 2];
+            values = new float[oldDocs.length * 2];
+            for (int i = 0; i < oldDocs.length; i++) {
+                if (oldDocs[i] == 0) continue;
+                int slot = slot(docs, oldDocs[i] - 1);
+                docs[slot] = oldDocs[i];
+                values[slot] = oldValues[i];
+            }
+        }
+
+        private static int slot(int[] docs, int doc) {
+            int mask = docs.length - 1;
+            int slot = (doc * 0x9E3779B9) >>> 7 & mask;
+            while (docs[slot] != 0 && docs[slot] != doc + 1) slot = (slot + 1) & mask;
+            return slot;
+        }
+    }
+
+    // The best k docs seen, in a min-heap ordered by score, then by later doc
+    private static final class TopDocs {
+
+        private final int[] docs;
+        private final float[] scores;
+        private int size;
+        int offered;
+
+        TopDocs(int k) {
+            docs = new int[k];
+            scores = new float[k];
+        }
+
+        void offer(int doc, float score) {
+            offered++;
+            if (docs.length == 0) return;
+            if (size < docs.length) {
+                docs[size] = doc;
+                scores[size] = score;
+                up(size++);
+            } else if (worse(docs[0], scores[0], doc, score)) {
+                docs[0] = doc;
+                scores[0] = score;
+                down(0);
+            }
+        }
+
+        // Best first
+        int[] ranked() {
+            int[] ranked = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                ranked[i] = docs[0];
+                docs[0] = docs[--size];
+                scores[0] = scores[size];
+                down(0);
+            }
+            return ranked;
+        }
+
+        private static boolean worse(int docA, float scoreA, int docB, float scoreB) {
+            return scoreA < scoreB || (scoreA == scoreB && docA > docB);
+        }
+
+        private void up(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!worse(docs[i], scores[i], docs[parent], scores[parent])) return;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void down(int i) {
+            while (true) {
+                int worst = i;
+                for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                    if (worse(docs[child], scores[child], docs[worst], scores[worst])) worst = child;
+                }
+                if (worst == i) return;
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int doc = docs[a];
+            docs[a] = docs[b];
+            docs[b] = doc;
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.turog.mockapi.store;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log for transaction histories.
+ * <p>
+ * Entries live in segments that double in size (16, 32, 64, ...), so a log never copies what it
+ * already holds and a small per-account log stays small. Appends are lock-free: a writer reserves
+ * a slot with one atomic increment, writes it, then helps advance the committed length over every
+ * slot that has been filled. Readers only look below the committed length, where segments are
+ * never written again, so they can page or iterate without locking or copying.
+ * <p>
+ * An optional {@link Listener} hears about every append together with its position, once and in
+ * position order, and only after the position is committed, so {@link #size()} already covers it.
+ * One writer at a time reports: a writer that finds another one reporting hands its positions over
+ * and returns, so appends still never wait on each other. An append can therefore return before it
+ * is reported; {@link #awaitAnnounced} waits for that where it matters.
+ */
+public class Ledger<T> {
+
+    public interface Listener<T> {
+        // Called in position order, on whichever writer is reporting
+        void appended(long position, T value);
+
+        // Called on the appending thread once its entries up to last are committed; they may not be reported yet
+        default void committed(long last) {
+        }
+    }
+
+    private static final int FIRST_SEGMENT_BITS = 4;
+    private static final int FIRST_SEGMENT_SIZE = 1 << FIRST_SEGMENT_BITS;
+    private static final int MAX_SEGMENTS = Long.SIZE - FIRST_SEGMENT_BITS;
+
+    private final AtomicReferenceArray<AtomicReferenceArray<T>> segments = new AtomicReferenceArray<>(MAX_SEGMENTS);
+    private final AtomicLong reserved = new AtomicLong();
+    private final AtomicLong committed = new AtomicLong();
+    // Positions below this have been reported to the listener
+    private final AtomicLong announced = new AtomicLong();
+    // Appends not yet seen by the reporting writer; only the writer that takes it from 0 reports
+    private final AtomicInteger announcing = new AtomicInteger();
+    // Threads in awaitAnnounced, so reporting only takes the lock when someone waits
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final ReentrantLock waitLock = new ReentrantLock();
+    private final Condition reported = waitLock.newCondition();
+    private volatile Listener<T> listener;
+
+    // Call before appends start (entries already appended are not reported)
+    public void listen(Listener<T> listener) {
+        announced.set(reserved.get());
+        this.listener = listener;
+    }
+
+    // Returns the position the entry was written at
+    public long append(T value) {
+        if (value == null) throw new IllegalArgumentException("Ledger entries cannot be null");
+        long index = reserved.getAndIncrement();
+        segmentFor(index, true).set(offsetOf(index), value);
+        advanceCommitted();
+        Listener<T> l = listener;
+        if (l != null) {
+            announce();
+            l.committed(index);
+        }
+        return index;
+    }
+
+    // Appends the entries at consecutive positions with one reservation; returns the first position
+    public long appendAll(List<? extends T> values) {
+        for (T value : values) {
+            if (value == null) throw new IllegalArgumentException("Ledger entries cannot be null");
+        }
+        long first = reserved.getAndAdd(values.size());
+        for (int i = 0; i < values.size(); i++) segmentFor(first + i, true).set(offsetOf(first + i), values.get(i));
+        advanceCommitted();
+        Listener<T> l = listener;
+        if (l != null && !values.isEmpty()) {
+            announce();
+            l.committed(first + values.size() - 1);
+        }
+        return first;
+    }
+
+    public long size() {
+        return committed.get();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public T get(long index) {
+        if (index < 0 || index >= size()) throw new IndexOutOfBoundsException(index);
+        return segmentFor(index, false).get(offsetOf(index));
+    }
+
+    public T last() {
+        long size = size();
+        return size == 0 ? null : get(size - 1);
+    }
+
+    // Read-only view over [from, to) of the committed entries; nothing is copied
+    public List<T> slice(long from, long to) {
+        long end = Math.min(to, size());
+        long start = Math.max(0, Math.min(from, end));
+        return new Slice(start, (int) (end - start));
+    }
+
+    public Stream<T> stream() {
+        return LongStream.range(0, size()).mapToObj(this::get);
+    }
+
+    public void forEach(Consumer<? super T> action) {
+        long size = size();
+        for (long i = 0; i < size; i++) action.accept(get(i));
+    }
+
+    private void advanceCommitted() {
+        long c = committed.get();
+        while (c < reserved.get()) {
+            AtomicReferenceArray<T> segment = segmentFor(c, false);
+            if (segment == null || segment.get(offsetOf(c)) == null) return; // the writer of slot c will carry on
+            committed.compareAndSet(c, c + 1);
+            c = committed.get();
+        }
+    }
+
+    // Blocks until the listener has heard of the position
+    public void awaitAnnounced(long position) {
+        if (announced.get() > position) return;
+        waiting.incrementAndGet();
+        waitLock.lock();
+        try {
+            while (announced.get() <= position) reported.awaitUninterruptibly();
+        } finally {
+            waitLock.unlock();
+            waiting.decrementAndGet();
+        }
+    }
+
+    // Reports every committed position not reported yet. Called after each commit: either this writer
+    // reports, or the one reporting sees the call and makes another pass before it stops
+    private void announce() {
+        if (announcing.getAndIncrement() != 0) return;
+        RuntimeException failure = null;
+        int missed = 1;
+        do {
+            Listener<T> l = listener;
+            long end = committed.get();
+            for (long position = announced.get(); position < end; position++) {
+                try {
+                    l.appended(position, get(position));
+                } catch (RuntimeException e) {
+                    // Later positions are still reported, so one failed entry cannot stall the ledger
+                    if (failure == null) failure = e;
+                }
+                announced.set(position + 1);
+            }
+            if (waiting.get() > 0) {
+                waitLock.lock();
+                try {
+                    reported.signalAll();
+                } finally {
+                    waitLock.unlock();
+                }
+            }
+            missed = announcing.addAndGet(-missed);
+        } while (missed != 0);
+        if (failure != null) throw failure;
+    }
+
+    private AtomicReferenceArray<T> segmentFor(long index, boolean create) {
+        int k = segmentOf(index);
+        AtomicReferenceArray<T> segment = segments.get(k);
+        if (segment == null && create) {
+            segments.compareAndSet(k, null, new AtomicReferenceArray<>(FIRST_SEGMENT_SIZE << k));
+            segment = segments.get(k);
+        }
+        return segment;
+    }
+
+    // Segment k covers [16 * (2^k - 1), 16 * (2^(k+1) - 1))
+    private static int segmentOf(long index) {
+        return (Long.SIZE - 1 - Long.numberOfLeadingZeros(index + FIRST_SEGMENT_SIZE)) - FIRST_SEGMENT_BITS;
+    }
+
+    private static int offsetOf(long index) {
+        long shifted = index + FIRST_SEGMENT_SIZE;
+        return (int) (shifted - Long.highestOneBit(shifted));
+    }
+
+    private final class Slice extends AbstractList<T> implements RandomAccess {
+        private final long from;
+        private final int length;
+
+        Slice(long from, int length) {
+            this.from = from;
+            this.length = length;
+        }
+
+        @Override
+        public T get(int i) {
+            if (i < 0 || i >= length) throw new IndexOutOfBoundsException(i);
+            return Ledger.this.get(from + i);
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
+    }
+}
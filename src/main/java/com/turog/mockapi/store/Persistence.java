@@ -0,0 +1,587 @@
+package com.turog.mockapi.store;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JsonParser;
+import tools.jackson.databind.DeserializationContext;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.deser.jdk.StringDeserializer;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.module.SimpleModule;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Optional snapshot + write-ahead-log persistence for the controller stores
+ * ({@code mockapi.persistence.enabled}); the default {@link StoreBackend}.
+ * <p>
+ * Controllers attach each {@link EntityStore} and {@link Ledger} under a stable name once their
+ * seed rows are in place. From then on every put, remove and append is encoded as JSON and
+ * appended to the {@link WriteAheadLog}, which group-commits it. Every
+ * {@code snapshot-interval-seconds}, and on shutdown, the log is rotated and every attached store
+ * is written to a {@link SnapshotFile}; the segments that snapshot covers are then deleted.
+ * <p>
+ * On startup the newest complete snapshot is read first. Attaching a store replaces its seed rows
+ * with the snapshot's, decoding them in parallel, and then replays that store's part of the log
+ * tail. The snapshot is fuzzy (written while requests keep running), which is safe because
+ * replaying a put or remove twice gives the same row and ledger appends carry their position.
+ * Restored IDs are fed back to the {@link IdAllocator}, so new IDs carry on from the old ones.
+ */
+@Component
+@Profile("!sql")
+public class Persistence implements StoreBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(Persistence.class);
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte APPEND = 3;
+
+    // Ledgers a thread may track before it waits for their appends to be logged (seeding threads never wait otherwise)
+    private static final int OWN_LEDGERS = 64;
+
+    // What a thread wrote since it last waited: its newest log ticket, and ledger appends another writer may still be logging
+    private static final class OwnWrites {
+        long ticket;
+        final Map<Ledger<?>, Long> ledgers = new HashMap<>();
+    }
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final int RESTORE_CHUNK = 64 * 1024;
+    // Rows decoded by one parser, and one parallel task
+    private static final int RESTORE_SLICE = 4 * 1024;
+
+    private record LogEntry(byte op, String id, long position, byte[] body) {}
+
+    private interface Attached {
+        void writeTo(SnapshotFile.Writer out) throws IOException;
+    }
+
+    // Decodes JSON bodies out of a larger buffer, so restoring does not copy every row out first
+    private record Decoder<T>(ObjectReader reader, Function<Object, T> convert) {
+
+        T decode(byte[] bytes) {
+            return convert.apply(reader.readValue(bytes));
+        }
+
+        // Reads count bodies stored back to back with one parser, which costs about as much to set up as a row to read
+        void decodeAll(byte[] bytes, int offset, int length, Object[] into, int from, int count) {
+            try (MappingIterator<Object> values = reader.readValues(bytes, offset, length)) {
+                for (int i = 0; i < count; i++) into[from + i] = convert.apply(values.next());
+            }
+        }
+    }
+
+    /**
+     * Restored rows repeat the same short values (statuses, currencies, types, shared client IDs) over
+     * and over. Decoding each to one shared String roughly halves the heap a large restore fills, and
+     * with it the time the collector spends copying the new rows, which is most of a restore on few
+     * cores. Values seen once the table is full (by then mostly unique IDs) are not shared.
+     */
+    private static final class SharedStrings extends StringDeserializer {
+
+        private static final int MAX_LENGTH = 32;
+        private static final int MAX_ENTRIES = 1 << 16;
+
+        private final Map<String, String> shared = new ConcurrentHashMap<>();
+
+        @Override
+        public String deserialize(JsonParser p, DeserializationContext ctxt) {
+            String value = super.deserialize(p, ctxt);
+            if (value == null || value.length() > MAX_LENGTH) return value;
+            String existing = shared.get(value);
+            if (existing != null || shared.size() >= MAX_ENTRIES) return existing != null ? existing : value;
+            existing = shared.putIfAbsent(value, value);
+            return existing != null ? existing : value;
+        }
+    }
+
+    private final boolean enabled;
+    private final Path dir;
+    private final boolean durableResponses;
+    private final long snapshotIntervalSeconds;
+    private final JsonMapper mapper;
+    // Rows are only read back on restore, through a mapper that shares repeated strings
+    private final JsonMapper restoreMapper;
+    private final SharedStrings sharedStrings = new SharedStrings();
+    private final ObjectReader rowReader;
+    private final Decoder<Map<String, Object>> rows;
+    private final IdAllocator ids;
+
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private final Map<String, Attached> attached = new LinkedHashMap<>();
+    // Every store attached, also with persistence off
+    private final Map<String, LongSupplier> sizes = new ConcurrentSkipListMap<>();
+    private final ThreadLocal<OwnWrites> ownWrites = ThreadLocal.withInitial(OwnWrites::new);
+
+    // Restore state, only used until the application is ready
+    private Path restoreFrom;
+    private Map<String, SnapshotFile.Section> sections = new HashMap<>();
+    private Map<String, List<LogEntry>> tail = new HashMap<>();
+    private long restoredRows;
+    private long replayedEntries;
+    private long restoreNanos;
+
+    private WriteAheadLog wal;
+    private ScheduledExecutorService snapshots;
+
+    public Persistence(
+            @Value("${mockapi.persistence.enabled:false}") boolean enabled,
+            @Value("${mockapi.persistence.dir:data}") String dir,
+            @Value("${mockapi.persistence.group-commit-window-ms:2}") long groupCommitWindowMs,
+            @Value("${mockapi.persistence.durable-responses:true}") boolean durableResponses,
+            @Value("${mockapi.persistence.snapshot-interval-seconds:300}") long snapshotIntervalSeconds,
+            JsonMapper mapper, IdAllocator ids) throws IOException {
+        if (snapshotIntervalSeconds < 1) throw new IllegalArgumentException("mockapi.persistence.snapshot-interval-seconds must be at least 1");
+        this.enabled = enabled;
+        this.dir = Path.of(dir);
+        this.durableResponses = durableResponses;
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+        this.mapper = mapper;
+        this.restoreMapper = mapper.rebuild().addModule(new SimpleModule("mockapi-restore").addDeserializer(String.class, sharedStrings)).build();
+        this.rowReader = restoreMapper.readerFor(HashMap.class);
+        this.rows = new Decoder<>(rowReader, Persistence::asRow);
+        this.ids = ids;
+        if (!enabled) return;
+
+        long started = System.nanoTime();
+        Files.createDirectories(this.dir);
+        long nextSegment = load();
+        wal = new WriteAheadLog(this.dir, nextSegment, groupCommitWindowMs);
+        restoreNanos += System.nanoTime() - started;
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    @Override
+    public <T> void attach(String name, EntityStore<T> store, Class<T> type) {
+        register(name, store, new Decoder<>(restoreMapper.readerFor(type), type::cast));
+    }
+
+    @Override
+    public <T> void attach(String name, EntityStore<T> store, Function<Map<String, Object>, T> fromRow) {
+        register(name, store, new Decoder<>(rowReader, value -> fromRow.apply(asRow(value))));
+    }
+
+    @Override
+    public void attach(String name, EntityStore<Map<String, Object>> store) {
+        register(name, store, rows);
+    }
+
+    @Override
+    public void attach(String name, Ledger<Map<String, Object>> ledger, String idField) {
+        sizes.put(name, ledger::size);
+        if (!enabled) return;
+        snapshotLock.lock();
+        try {
+            byte[] nameBytes = claim(name);
+            long started = System.nanoTime();
+            SnapshotFile.Section section = sections.remove(name);
+            // Ledgers cannot drop entries, so anything already appended (seed entries) is kept and not re-read
+            long present = ledger.size();
+            long persisted = section == null ? present : Math.max(present, section.count());
+            if (section != null) {
+                long[] index = {0};
+                restore(section, rows, (id, entry) -> {
+                    if (index[0]++ >= present) append(ledger, entry, idField);
+                });
+            }
+            List<LogEntry> entries = tail.remove(name);
+            if (entries != null) {
+                // Each entry goes back at the position it was logged at; ones the snapshot already holds are skipped
+                List<LogEntry> appends = new ArrayList<>(entries.stream().filter(e -> e.position() >= persisted).toList());
+                appends.sort(Comparator.comparingLong(LogEntry::position));
+                for (LogEntry entry : appends) {
+                    long next = ledger.size();
+                    if (entry.position() < next) continue;
+                    if (entry.position() > next) {
+                        throw new IllegalStateException("The write-ahead log of " + name + " is missing entries "
+                                + next + " to " + (entry.position() - 1) + "; refusing to renumber the entries after them");
+                    }
+                    append(ledger, rows.decode(entry.body()), idField);
+                    replayedEntries++;
+                }
+            }
+            restoreNanos += System.nanoTime() - started;
+
+            // The ledger reports only committed positions, in order, so any entry logged to a segment before a
+            // rotation is below size() when the snapshot after that rotation reads it, and is in the snapshot
+            ledger.listen(new Ledger.Listener<>() {
+                @Override
+                public void appended(long position, Map<String, Object> value) {
+                    log(payload(APPEND, nameBytes, null, position, encode(value)));
+                }
+
+                @Override
+                public void committed(long last) {
+                    if (durableResponses) ownAppend(ledger, last);
+                }
+            });
+            attached.put(name, out -> {
+                out.beginSection(SnapshotFile.LEDGER, name);
+                long size = ledger.size();
+                for (long i = 0; i < size; i++) out.entry(encode(ledger.get(i)));
+                out.endSection();
+            });
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @Override
+    public Map<String, LongSupplier> storeSizes() {
+        return Collections.unmodifiableMap(sizes);
+    }
+
+    @Override
+    public boolean durableResponses() {
+        return enabled && durableResponses;
+    }
+
+    @Override
+    public void awaitOwnWrites() {
+        if (!durableResponses()) return;
+        OwnWrites own = ownWrites.get();
+        if (!own.ledgers.isEmpty()) loggedLedgers(own);
+        if (own.ticket == 0) return;
+        wal.awaitDurable(own.ticket);
+        own.ticket = 0;
+    }
+
+    // The ledger's reporting writer logs the append, which may not be this thread
+    private void ownAppend(Ledger<?> ledger, long position) {
+        OwnWrites own = ownWrites.get();
+        own.ledgers.put(ledger, position);
+        if (own.ledgers.size() > OWN_LEDGERS) loggedLedgers(own);
+    }
+
+    // Waits until the thread's ledger appends are logged; every frame logged by then covers them
+    private void loggedLedgers(OwnWrites own) {
+        own.ledgers.forEach(Ledger::awaitAnnounced);
+        own.ledgers.clear();
+        own.ticket = Math.max(own.ticket, wal.appended());
+    }
+
+    /**
+     * Writes a snapshot of every attached store and drops the log segments and older snapshots it
+     * makes redundant. Requests keep running while it is written.
+     */
+    public void snapshot() throws IOException {
+        if (!enabled) return;
+        snapshotLock.lock();
+        try {
+            long started = System.nanoTime();
+            long segment = wal.rotate();
+            Path partial = dir.resolve(SNAPSHOT_PREFIX + "partial" + SNAPSHOT_SUFFIX + ".tmp");
+            try (SnapshotFile.Writer out = new SnapshotFile.Writer(partial, segment)) {
+                out.beginSection(SnapshotFile.SEQUENCES, "ids");
+                for (Map.Entry<String, Long> position : ids.positions().entrySet()) {
+                    out.entry(position.getKey(), position.getValue());
+                }
+                out.endSection();
+                for (Attached store : attached.values()) store.writeTo(out);
+                out.finish();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            Path complete = dir.resolve(snapshotName(segment));
+            Files.move(partial, complete, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            for (Path older : snapshots()) {
+                if (!older.equals(complete)) Files.deleteIfExists(older);
+            }
+            for (Path covered : WriteAheadLog.segments(dir)) {
+                if (WriteAheadLog.segmentNumber(covered) < segment) Files.deleteIfExists(covered);
+            }
+            log.debug("Snapshot {} written in {} ms", complete.getFileName(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startSnapshots() {
+        if (!enabled) return;
+        snapshotLock.lock();
+        try {
+            log.info("Restored {} rows and replayed {} log entries from {} in {} ms", restoredRows, replayedEntries,
+                    dir.toAbsolutePath(), TimeUnit.NANOSECONDS.toMillis(restoreNanos));
+            List<String> unclaimed = Stream.concat(sections.keySet().stream(), tail.keySet().stream()).distinct().toList();
+            if (!unclaimed.isEmpty()) log.warn("Persisted data for {} has no store attached and will be dropped", unclaimed);
+            sections = Map.of();
+            tail = Map.of();
+            restoreFrom = null;
+            sharedStrings.shared.clear();
+        } finally {
+            snapshotLock.unlock();
+        }
+        snapshots = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "mockapi-snapshots");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshots.scheduleWithFixedDelay(this::snapshotQuietly, snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (!enabled) return;
+        // Only snapshot once every store has been attached, or the stores that were not would be lost
+        if (snapshots != null) {
+            snapshots.shutdown();
+            try {
+                snapshots.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            snapshot();
+        }
+        wal.close();
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Snapshot failed; the write-ahead log keeps growing until one succeeds", e);
+        }
+    }
+
+    private <T> void register(String name, EntityStore<T> store, Decoder<T> decode) {
+        sizes.put(name, store::size);
+        if (!enabled) return;
+        snapshotLock.lock();
+        try {
+            byte[] nameBytes = claim(name);
+            long started = System.nanoTime();
+            SnapshotFile.Section section = sections.remove(name);
+            if (section != null) {
+                // The snapshot holds the whole table, seed rows included (or deliberately deleted)
+                store.removeIf(row -> true);
+                restore(section, decode, (id, row) -> {
+                    store.put(id, row);
+                    ids.observe(id);
+                });
+            }
+            List<LogEntry> entries = tail.remove(name);
+            if (entries != null) {
+                for (LogEntry entry : entries) {
+                    if (entry.op() == PUT) {
+                        store.put(entry.id(), decode.decode(entry.body()));
+                    } else {
+                        store.remove(entry.id());
+                    }
+                    ids.observe(entry.id());
+                }
+                replayedEntries += entries.size();
+            }
+            restoreNanos += System.nanoTime() - started;
+
+            store.listen(new EntityStore.Listener<>() {
+                @Override
+                public void put(String id, T value) {
+                    log(payload(PUT, nameBytes, id, 0, encode(value)));
+                }
+
+                @Override
+                public void removed(String id) {
+                    log(payload(REMOVE, nameBytes, id, 0, null));
+                }
+            });
+            attached.put(name, out -> {
+                out.beginSection(SnapshotFile.STORE, name);
+                store.forEach((id, row) -> {
+                    try {
+                        out.entry(id, encode(row));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                out.endSection();
+            });
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    // Reads a section in chunks, decoding slices of each chunk in parallel, and applies the rows in file order
+    private <T> void restore(SnapshotFile.Section section, Decoder<T> decode, BiConsumer<String, T> apply) {
+        boolean keyed = section.kind() == SnapshotFile.STORE;
+        byte[] bodies = new byte[1 << 20];
+        int[] offsets = new int[RESTORE_CHUNK + 1];
+        String[] keys = new String[RESTORE_CHUNK];
+        Object[] decoded = new Object[RESTORE_CHUNK];
+        try (SnapshotFile.Reader in = SnapshotFile.Reader.section(restoreFrom, section)) {
+            int remaining = section.count();
+            while (remaining > 0) {
+                int n = Math.min(remaining, RESTORE_CHUNK);
+                for (int i = 0; i < n; i++) {
+                    if (keyed) keys[i] = in.getString();
+                    int length = in.getInt();
+                    if (bodies.length - offsets[i] < length) bodies = Arrays.copyOf(bodies, Math.max(bodies.length * 2, offsets[i] + length));
+                    in.get(bodies, offsets[i], length);
+                    offsets[i + 1] = offsets[i] + length;
+                }
+                byte[] chunk = bodies;
+                int chunkRows = n;
+                IntStream.range(0, (n + RESTORE_SLICE - 1) / RESTORE_SLICE).parallel().forEach(slice -> {
+                    int from = slice * RESTORE_SLICE;
+                    int to = Math.min(chunkRows, from + RESTORE_SLICE);
+                    decode.decodeAll(chunk, offsets[from], offsets[to] - offsets[from], decoded, from, to - from);
+                });
+                for (int i = 0; i < n; i++) {
+                    @SuppressWarnings("unchecked")
+                    T row = (T) decoded[i];
+                    decoded[i] = null;
+                    apply.accept(keys[i], row);
+                }
+                remaining -= n;
+                restoredRows += n;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read snapshot " + restoreFrom, e);
+        }
+    }
+
+    private void append(Ledger<Map<String, Object>> ledger, Map<String, Object> entry, String idField) {
+        ledger.append(entry);
+        Object id = entry.get(idField);
+        if (id != null) ids.observe(id.toString());
+    }
+
+    private void log(byte[] payload) {
+        long ticket = wal.append(payload);
+        if (durableResponses) ownWrites.get().ticket = ticket;
+    }
+
+    // Finds the newest complete snapshot and buffers the log tail after it; returns the next segment number
+    private long load() throws IOException {
+        long replayFrom = 0;
+        List<Path> newestFirst = new ArrayList<>(snapshots());
+        newestFirst.sort(Comparator.reverseOrder());
+        for (Path candidate : newestFirst) {
+            long walSegment = SnapshotFile.walSegment(candidate);
+            if (walSegment < 0) continue;
+            restoreFrom = candidate;
+            replayFrom = walSegment;
+            sections = SnapshotFile.sections(candidate);
+            SnapshotFile.Section positions = sections.remove("ids");
+            if (positions != null) {
+                try (SnapshotFile.Reader in = SnapshotFile.Reader.section(candidate, positions)) {
+                    for (int i = 0; i < positions.count(); i++) ids.advance(in.getString(), in.getLong());
+                }
+            }
+            break;
+        }
+
+        long next = replayFrom;
+        List<Path> segments = WriteAheadLog.segments(dir);
+        for (Path segment : segments) {
+            long number = WriteAheadLog.segmentNumber(segment);
+            next = Math.max(next, number + 1);
+            if (number < replayFrom) continue;
+            boolean intact = WriteAheadLog.read(segment, payload -> {
+                byte op = payload.get();
+                String name = string(payload);
+                LogEntry entry = switch (op) {
+                    case PUT -> new LogEntry(op, string(payload), 0, rest(payload));
+                    case REMOVE -> new LogEntry(op, string(payload), 0, null);
+                    case APPEND -> new LogEntry(op, null, payload.getLong(), rest(payload));
+                    default -> throw new IllegalStateException("Unknown log entry type " + op + " in " + segment);
+                };
+                tail.computeIfAbsent(name, n -> new ArrayList<>()).add(entry);
+            });
+            if (!intact) log.warn("Ignoring the torn end of {}", segment.getFileName());
+        }
+        return next;
+    }
+
+    private byte[] claim(String name) {
+        if (attached.containsKey(name)) throw new IllegalStateException("A store is already attached as " + name);
+        return name.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] encode(Object value) {
+        return mapper.writeValueAsBytes(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asRow(Object value) {
+        return (Map<String, Object>) value;
+    }
+
+    private static byte[] payload(byte op, byte[] name, String id, long position, byte[] body) {
+        byte[] key = id == null ? null : id.getBytes(StandardCharsets.UTF_8);
+        int size = 1 + Short.BYTES + name.length
+                + (key == null ? Long.BYTES : Short.BYTES + key.length)
+                + (body == null ? 0 : body.length);
+        ByteBuffer out = ByteBuffer.allocate(size).put(op).putShort((short) name.length).put(name);
+        if (key == null) {
+            out.putLong(position);
+        } else {
+            out.putShort((short) key.length).put(key);
+        }
+        if (body != null) out.put(body);
+        return out.array();
+    }
+
+    private static String string(ByteBuffer in) {
+        byte[] bytes = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] rest(ByteBuffer in) {
+        byte[] bytes = new byte[in.remaining()];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private List<Path> snapshots() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> {
+                String name = f.getFileName().toString();
+                return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    private static String snapshotName(long walSegment) {
+        return SNAPSHOT_PREFIX + String.format("%016d", walSegment) + SNAPSHOT_SUFFIX;
+    }
+}
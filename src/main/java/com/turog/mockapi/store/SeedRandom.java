@@ -0,0 +1,95 @@
+package com.turog.mockapi.store;
+
+import java.time.Instant;
+
+/**
+ * Generator for one synthetic row: SplitMix64 started from {@code (seed, index)}. Starting
+ * anywhere costs nothing and each row's stream is independent of its neighbours, so rows can be
+ * generated in any order, on any thread, and the same seed always gives the same rows.
+ */
+public final class SeedRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private static final String[] FIRST_NAMES = {
+            "Kayode", "Seyi", "Adaeze", "Chinedu", "Funmilayo", "Ibrahim", "Ngozi", "Tunde", "Amaka", "Emeka",
+            "Halima", "Olumide", "Zainab", "Obinna", "Folake", "Musa", "Chiamaka", "Babatunde", "Aisha", "Ifeanyi",
+            "Yetunde", "Segun", "Nneka", "Usman", "Bisola", "Kelechi", "Temitope", "Sani", "Uchechi", "Damilola"};
+    private static final String[] LAST_NAMES = {
+            "Odole", "Akamo", "Okafor", "Adeyemi", "Bello", "Eze", "Ogunleye", "Abubakar", "Nwosu", "Balogun",
+            "Okonkwo", "Lawal", "Ibekwe", "Adebayo", "Mohammed", "Onyeka", "Afolabi", "Danjuma", "Chukwu", "Oyelaran"};
+    private static final String[] CITIES = {
+            "Lagos", "Abuja", "Port Harcourt", "Ibadan", "Kano", "Enugu", "Benin City", "Kaduna", "Abeokuta", "Owerri"};
+
+    // 2023-01-01T00:00:00Z to 2025-12-31T23:59:59Z
+    private static final long FIRST_SECOND = 1_672_531_200L;
+    private static final long SECONDS = 1_767_225_600L - FIRST_SECOND;
+
+    private long state;
+
+    public SeedRandom(long seed, long index) {
+        this.state = mix(seed ^ mix(index + GOLDEN_GAMMA));
+    }
+
+    // An independent seed per name, so two domains seeded with the same seed do not mirror each other
+    public static long stream(long seed, String name) {
+        return mix(seed + name.hashCode() * GOLDEN_GAMMA);
+    }
+
+    public long next() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    // Uniform enough for mock data: the modulo bias over 63 bits is negligible
+    public long nextLong(long bound) {
+        return (next() >>> 1) % bound;
+    }
+
+    @SafeVarargs
+    public final <V> V pick(V... values) {
+        return values[(int) nextLong(values.length)];
+    }
+
+    public String name() {
+        return pick(FIRST_NAMES) + " " + pick(LAST_NAMES);
+    }
+
+    public String lastName() {
+        return pick(LAST_NAMES);
+    }
+
+    public String city() {
+        return pick(CITIES);
+    }
+
+    // A number of exactly this many digits, never starting with 0
+    public String digits(int count) {
+        StringBuilder digits = new StringBuilder(count);
+        digits.append(1 + nextLong(9));
+        while (digits.length() < count) digits.append(nextLong(10));
+        return digits.toString();
+    }
+
+    // A round amount in [min, max] in steps of step
+    public double amount(long min, long max, long step) {
+        return min + nextLong((max - min) / step + 1) * step;
+    }
+
+    // An ISO-8601 instant between 2023 and the end of 2025, like the seed rows' created_at
+    public String timestamp() {
+        return Instant.ofEpochSecond(FIRST_SECOND + nextLong(SECONDS)).toString();
+    }
+
+    // First letters of the first two words: "Kayode Odole" is "KO"
+    public static String initials(String name) {
+        int space = name.indexOf(' ');
+        return "" + name.charAt(0) + name.charAt(space + 1);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,48 @@
+package com.turog.mockapi.store;
+
+/**
+ * One bulk seed: the seed every domain generates from, and the client rows the other domains link
+ * their cards, loans and accounts to.
+ */
+public final class SeedRun {
+
+    private final long seed;
+    private IdAllocator.Sequence.Block clients;
+
+    SeedRun(long seed) {
+        this.seed = seed;
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    // Generator for row index of a domain; each domain draws from its own stream
+    public SeedRandom random(String domain, long index) {
+        return new SeedRandom(SeedRandom.stream(seed, domain), index);
+    }
+
+    // Called by the clients domain while preparing, before any linked domain is prepared
+    public void clients(IdAllocator.Sequence.Block block) {
+        this.clients = block;
+    }
+
+    public boolean hasClients() {
+        return clients != null && clients.size() > 0;
+    }
+
+    // A client of this run chosen with random, by index
+    public long client(SeedRandom random) {
+        if (!hasClients()) throw new IllegalStateException("No clients are seeded in this run");
+        return random.nextLong(clients.size());
+    }
+
+    public String clientId(long client) {
+        return clients.id(client);
+    }
+
+    // Clients draw their name first, so it can be worked out again without reading the client back
+    public String clientName(long client) {
+        return random("clients", client).name();
+    }
+}
@@ -0,0 +1,32 @@
+package com.turog.mockapi.store;
+
+/**
+ * A domain whose stores {@link BulkSeeder} can fill with generated rows, bypassing the API.
+ */
+public interface Seedable {
+
+    // Name the domain goes by in seed requests, e.g. "clients"
+    String domain();
+
+    // Whether rows point at clients of the same run (cards, loans, ...); such domains are prepared after "clients"
+    default boolean linksToClients() {
+        return false;
+    }
+
+    /**
+     * Reserves IDs and store positions for {@code count} rows and returns what generates them. The
+     * loader is then called for disjoint index ranges from several threads at once; row {@code i}
+     * must depend only on {@code run} and {@code i}.
+     */
+    Loader prepare(SeedRun run, long count);
+
+    @FunctionalInterface
+    interface Loader {
+        // Generates and stores rows [from, to)
+        void load(long from, long to);
+
+        // Runs on one thread once every range is loaded, for work that has to follow index order
+        default void finish() {
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.turog.mockapi.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact binary snapshot of every persisted store, written and read through memory-mapped windows.
+ * <p>
+ * Layout: a header (magic, version, first WAL segment to replay), then one section per store or
+ * ledger ({@code kind, name, body length, count, body}) and a trailer repeating the magic. A file
+ * without the trailer was cut short and is ignored. Section bodies carry their length so a reader
+ * can find every section without decoding the rows in between.
+ */
+final class SnapshotFile {
+
+    static final byte STORE = 1;
+    static final byte LEDGER = 2;
+    static final byte SEQUENCES = 3;
+    private static final byte END = 0;
+
+    private static final long MAGIC = 0x4d4f434b534e4150L; // "MOCKSNAP"
+    private static final int VERSION = 1;
+    private static final int TRAILER = 1 + Long.BYTES;
+
+    record Section(byte kind, String name, long offset, long length, int count) {}
+
+    private SnapshotFile() {}
+
+    /**
+     * Writes through a heap staging buffer that is copied into a freshly mapped region each time it
+     * fills, so the file only ever grows by what was actually written and never needs truncating.
+     */
+    static final class Writer implements Closeable {
+
+        private static final int CHUNK = 8 << 20;
+
+        private final FileChannel channel;
+        private final ByteBuffer staging = ByteBuffer.allocate(CHUNK);
+        private long flushedBytes;
+        private long sectionStart = -1;
+        private int sectionCount;
+
+        Writer(Path file, long walSegment) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            staging.putLong(MAGIC).putInt(VERSION).putLong(walSegment);
+        }
+
+        void beginSection(byte kind, String name) throws IOException {
+            putByte(kind);
+            putString(name);
+            putLong(0); // body length, patched in endSection
+            putInt(0);  // entry count, patched in endSection
+            sectionStart = position();
+            sectionCount = 0;
+        }
+
+        void endSection() throws IOException {
+            long end = position();
+            drain();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, sectionStart - Long.BYTES - Integer.BYTES,
+                    Long.BYTES + Integer.BYTES);
+            header.putLong(end - sectionStart).putInt(sectionCount);
+            header.force();
+            sectionStart = -1;
+        }
+
+        void entry(String id, byte[] body) throws IOException {
+            putString(id);
+            putBytes(body);
+            sectionCount++;
+        }
+
+        void entry(byte[] body) throws IOException {
+            putBytes(body);
+            sectionCount++;
+        }
+
+        void entry(String key, long value) throws IOException {
+            putString(key);
+            putLong(value);
+            sectionCount++;
+        }
+
+        // Writes the trailer and forces everything to disk
+        void finish() throws IOException {
+            putByte(END);
+            putLong(MAGIC);
+            drain();
+            channel.force(true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private long position() {
+            return flushedBytes + staging.position();
+        }
+
+        private void putByte(byte value) throws IOException {
+            room(1);
+            staging.put(value);
+        }
+
+        private void putInt(int value) throws IOException {
+            room(Integer.BYTES);
+            staging.putInt(value);
+        }
+
+        private void putLong(long value) throws IOException {
+            room(Long.BYTES);
+            staging.putLong(value);
+        }
+
+        private void putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > Short.MAX_VALUE) throw new IllegalArgumentException("Key too long for a snapshot: " + value.length());
+            room(Short.BYTES + bytes.length);
+            staging.putShort((short) bytes.length).put(bytes);
+        }
+
+        private void putBytes(byte[] bytes) throws IOException {
+            putInt(bytes.length);
+            if (bytes.length > staging.remaining()) drain();
+            if (bytes.length > staging.capacity()) {
+                map(ByteBuffer.wrap(bytes));
+            } else {
+                staging.put(bytes);
+            }
+        }
+
+        private void room(int bytes) throws IOException {
+            if (staging.remaining() < bytes) drain();
+        }
+
+        private void drain() throws IOException {
+            staging.flip();
+            map(staging);
+            staging.clear();
+        }
+
+        private void map(ByteBuffer bytes) throws IOException {
+            int length = bytes.remaining();
+            if (length == 0) return;
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, flushedBytes, length);
+            region.put(bytes);
+            region.force();
+            flushedBytes += length;
+        }
+    }
+
+    /**
+     * Reads a mapped window of the file and slides it forward whenever a read would run past its end,
+     * so files larger than one mapping can be read the same way.
+     */
+    static final class Reader implements Closeable {
+
+        private static final long WINDOW = 256L << 20;
+
+        private final FileChannel channel;
+        private final long end;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        Reader(Path file) throws IOException {
+            this(FileChannel.open(file, StandardOpenOption.READ), 0, -1);
+        }
+
+        private Reader(FileChannel channel, long from, long to) throws IOException {
+            this.channel = channel;
+            this.end = to < 0 ? channel.size() : to;
+            slide(from, 0);
+        }
+
+        // A reader over one section body; shares (and closes) a channel of its own
+        static Reader section(Path file, Section section) throws IOException {
+            return new Reader(FileChannel.open(file, StandardOpenOption.READ), section.offset(), section.offset() + section.length());
+        }
+
+        long position() {
+            return windowStart + window.position();
+        }
+
+        byte getByte() throws IOException {
+            need(1);
+            return window.get();
+        }
+
+        int getInt() throws IOException {
+            need(Integer.BYTES);
+            return window.getInt();
+        }
+
+        long getLong() throws IOException {
+            need(Long.BYTES);
+            return window.getLong();
+        }
+
+        String getString() throws IOException {
+            int length = Short.toUnsignedInt(shortValue());
+            need(length);
+            byte[] bytes = new byte[length];
+            window.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // A length-prefixed body
+        byte[] getBytes() throws IOException {
+            byte[] bytes = new byte[getInt()];
+            get(bytes, 0, bytes.length);
+            return bytes;
+        }
+
+        void get(byte[] target, int offset, int length) throws IOException {
+            if (length > WINDOW) {
+                ByteBuffer into = ByteBuffer.wrap(target, offset, length);
+                long at = position();
+                while (into.hasRemaining()) at += channel.read(into, at);
+                slide(at, 0);
+            } else {
+                need(length);
+                window.get(target, offset, length);
+            }
+        }
+
+        void skip(long bytes) throws IOException {
+            slide(position() + bytes, 0);
+        }
+
+        private short shortValue() throws IOException {
+            need(Short.BYTES);
+            return window.getShort();
+        }
+
+        private void need(int bytes) throws IOException {
+            if (window.remaining() >= bytes) return;
+            if (position() + bytes > end) throw new IOException("Snapshot ends in the middle of an entry");
+            slide(position(), bytes);
+        }
+
+        private void slide(long from, int atLeast) throws IOException {
+            long length = Math.min(Math.max(WINDOW, atLeast), end - from);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.max(0, length));
+            windowStart = from;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // The WAL segment recorded in the header, or -1 if the file is not a complete snapshot
+    static long walSegment(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < Long.BYTES + Integer.BYTES + Long.BYTES + TRAILER) return -1;
+            ByteBuffer header = ByteBuffer.allocate(Long.BYTES + Integer.BYTES + Long.BYTES);
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER);
+            channel.read(header, 0);
+            channel.read(trailer, size - TRAILER);
+            header.flip();
+            trailer.flip();
+            if (header.getLong() != MAGIC || header.getInt() != VERSION) return -1;
+            long walSegment = header.getLong();
+            if (trailer.get() != END || trailer.getLong() != MAGIC) return -1;
+            return walSegment;
+        }
+    }
+
+    // Section directory of a complete snapshot, found by hopping from header to header
+    static Map<String, Section> sections(Path file) throws IOException {
+        Map<String, Section> sections = new LinkedHashMap<>();
+        try (Reader in = new Reader(file)) {
+            in.skip(Long.BYTES + Integer.BYTES + Long.BYTES);
+            while (true) {
+                byte kind = in.getByte();
+                if (kind == END) return sections;
+                String name = in.getString();
+                long length = in.getLong();
+                int count = in.getInt();
+                sections.put(name, new Section(kind, name, in.position(), length, count));
+                in.skip(length);
+            }
+        }
+    }
+}
@@ -0,0 +1,623 @@
+package com.turog.mockapi.store;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link StoreBackend} that keeps the controller stores in an embedded SQL database (H2 or SQLite
+ * in file mode, Spring profile {@code sql}), so soak-test state can outgrow the heap and be queried
+ * with SQL.
+ * <p>
+ * Each store becomes a bounded hot cache in front of its table ({@link EntityStore#tier}): it holds
+ * at most {@code cache-rows} rows, a lookup that misses reads the row from the database, and pages,
+ * streams and scans read the rows not in memory from the database in order. A restart reads
+ * nothing up front. Stores whose rows are built by their owner ({@code fromRow}, which re-links
+ * live state such as savings balances) and ledgers are loaded in full and never evicted.
+ * <p>
+ * Writes only mark a row dirty; a dirty row stays in memory until it is stored. A flusher thread
+ * drains the dirty rows every {@code flush-interval-ms}, or as soon as {@code batch-size} of them
+ * are waiting, and writes them in one batched transaction. Several writes to the same row between
+ * two flushes coalesce into one. Each table holds {@code (id, seq, body)} with the row as JSON;
+ * {@code seq} is the store's insertion order. Reads use their own connections, so they do not
+ * wait for a flush.
+ * <p>
+ * Only standard SQL is used (update, then insert the rows that were not there), so any JDBC driver
+ * that reports batch update counts works; the driver itself is a runtime dependency.
+ */
+@Component
+@Profile("sql")
+public class SqlBackend implements StoreBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlBackend.class);
+
+    private static final Object REMOVED = new Object();
+    private static final String BODY = "VARCHAR(1000000) NOT NULL";
+
+    // A dirty row: the latest value (or REMOVED), its position in the store, and whether it was removed
+    // and added back (and so moved to the end) since it was last stored
+    private record Pending(long seq, Object value, boolean readded) {}
+
+    private interface Table {
+        // Writes what is dirty in the current transaction
+        int flush(Connection connection) throws SQLException;
+
+        // After the transaction: forgets what it wrote, or puts it back to be retried if it rolled back
+        void settle(boolean committed);
+    }
+
+    private final int batchSize;
+    private final int cacheRows;
+    private final long flushIntervalNanos;
+    private final JsonMapper mapper;
+    private final ObjectReader rowReader;
+    private final IdAllocator ids;
+
+    // Used by attach() during startup and by the flusher afterwards, never both at once
+    private final ReentrantLock connectionLock = new ReentrantLock();
+    private final Connection connection;
+    // Connections for reading rows that are not in memory, one per concurrent read
+    private final BlockingQueue<Connection> readers;
+    private final List<Table> tables = new CopyOnWriteArrayList<>();
+    private final Map<String, LongSupplier> attached = new ConcurrentSkipListMap<>();
+    private final AtomicInteger dirty = new AtomicInteger();
+    private long restoredRows;
+
+    private volatile boolean running = true;
+    private final Thread flusher;
+
+    public SqlBackend(
+            @Value("${mockapi.sql.url}") String url,
+            @Value("${mockapi.sql.username:}") String username,
+            @Value("${mockapi.sql.password:}") String password,
+            @Value("${mockapi.sql.batch-size:1000}") int batchSize,
+            @Value("${mockapi.sql.flush-interval-ms:100}") long flushIntervalMs,
+            @Value("${mockapi.sql.cache-rows:10000}") int cacheRows,
+            @Value("${mockapi.sql.read-connections:4}") int readConnections,
+            JsonMapper mapper, IdAllocator ids) throws SQLException {
+        if (batchSize < 1) throw new IllegalArgumentException("mockapi.sql.batch-size must be at least 1");
+        if (cacheRows < 1) throw new IllegalArgumentException("mockapi.sql.cache-rows must be at least 1");
+        if (readConnections < 1) throw new IllegalArgumentException("mockapi.sql.read-connections must be at least 1");
+        this.batchSize = batchSize;
+        this.cacheRows = cacheRows;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.mapper = mapper;
+        this.rowReader = mapper.readerFor(HashMap.class);
+        this.ids = ids;
+        this.connection = DriverManager.getConnection(url, username, password);
+        connection.setAutoCommit(false);
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("CREATE TABLE IF NOT EXISTS mockapi_tables (name VARCHAR(255) PRIMARY KEY)");
+            ddl.execute("CREATE TABLE IF NOT EXISTS mockapi_sequences (prefix VARCHAR(255) PRIMARY KEY, position BIGINT NOT NULL)");
+            try (ResultSet rows = ddl.executeQuery("SELECT prefix, position FROM mockapi_sequences")) {
+                while (rows.next()) ids.advance(rows.getString(1), rows.getLong(2));
+            }
+        }
+        connection.commit();
+        this.readers = new ArrayBlockingQueue<>(readConnections);
+        for (int i = 0; i < readConnections; i++) readers.add(DriverManager.getConnection(url, username, password));
+        this.flusher = new Thread(this::flushLoop, "mockapi-sql-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @Override
+    public <T> void attach(String name, EntityStore<T> store, Class<T> type) {
+        ObjectReader reader = mapper.readerFor(type);
+        register(name, store, reader::readValue, cacheRows);
+    }
+
+    // Rebuilding a row can re-link live state, so these stay in memory in full
+    @Override
+    public <T> void attach(String name, EntityStore<T> store, Function<Map<String, Object>, T> fromRow) {
+        register(name, store, body -> fromRow.apply(row(body)), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void attach(String name, EntityStore<Map<String, Object>> store) {
+        register(name, store, this::row, cacheRows);
+    }
+
+    @Override
+    public void attach(String name, Ledger<Map<String, Object>> ledger, String idField) {
+        String table = tableName(name);
+        LedgerTable entries = new LedgerTable(table);
+        connectionLock.lock();
+        try {
+            claim(name, ledger::size);
+            try (Statement ddl = connection.createStatement()) {
+                ddl.execute("CREATE TABLE IF NOT EXISTS " + table + " (position BIGINT PRIMARY KEY, body " + BODY + ")");
+            }
+            // Entries already appended (seed entries) stay; only what lies beyond them is loaded
+            long present = ledger.size();
+            if (known(name)) {
+                try (PreparedStatement select = connection.prepareStatement(
+                        "SELECT body FROM " + table + " WHERE position >= ? ORDER BY position")) {
+                    select.setLong(1, present);
+                    try (ResultSet rows = select.executeQuery()) {
+                        while (rows.next()) {
+                            Map<String, Object> entry = row(rows.getString(1));
+                            ledger.append(entry);
+                            Object id = entry.get(idField);
+                            if (id != null) ids.observe(id.toString());
+                            restoredRows++;
+                        }
+                    }
+                }
+            } else {
+                remember(name);
+                for (long i = 0; i < present; i++) entries.appended(i, ledger.get(i));
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not load " + name + " from the database", e);
+        } finally {
+            connectionLock.unlock();
+        }
+        ledger.listen(entries::appended);
+        tables.add(entries);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportRestore() {
+        log.info("Found {} rows in the store database for {} stores; each store holds up to {} of them in memory",
+                restoredRows, tables.size(), cacheRows);
+    }
+
+    @Override
+    public Map<String, LongSupplier> storeSizes() {
+        return Collections.unmodifiableMap(attached);
+    }
+
+    // Writes everything that is dirty right now; for tests and benchmarks that need the database caught up
+    void flushNow() {
+        connectionLock.lock();
+        try {
+            flushAll();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not write to the database", e);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws SQLException {
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        connectionLock.lock();
+        try {
+            flushAll();
+            connection.close();
+        } finally {
+            connectionLock.unlock();
+        }
+        for (Connection reader : readers) reader.close();
+        log.info("Closed the store database after writing back every pending row");
+    }
+
+    private <T> void register(String name, EntityStore<T> store, Function<String, T> decode, int capacity) {
+        String table = tableName(name);
+        StoreTable<T> rows = new StoreTable<>(table, store, decode);
+        connectionLock.lock();
+        try {
+            claim(name, store::size);
+            try (Statement ddl = connection.createStatement()) {
+                ddl.execute("CREATE TABLE IF NOT EXISTS " + table + " (id VARCHAR(255) PRIMARY KEY, seq BIGINT NOT NULL, body " + BODY + ")");
+                ddl.execute("CREATE INDEX IF NOT EXISTS " + table + "_seq ON " + table + " (seq)");
+            }
+            if (known(name)) {
+                // The table holds the whole store, seed rows included (or deliberately deleted)
+                store.removeIf(row -> true);
+                try (Statement select = connection.createStatement();
+                     ResultSet result = select.executeQuery("SELECT id, seq FROM " + table)) {
+                    while (result.next()) {
+                        ids.observe(result.getString(1));
+                        rows.lastSeq = Math.max(rows.lastSeq, result.getLong(2));
+                        rows.rows++;
+                    }
+                }
+                restoredRows += rows.rows;
+            } else {
+                remember(name);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not load " + name + " from the database", e);
+        } finally {
+            connectionLock.unlock();
+        }
+        // Seed rows of a new table go to the tier here, and stay in memory until they are stored
+        store.tier(rows, capacity);
+        if (capacity == Integer.MAX_VALUE) {
+            for (List<EntityStore.Row<T>> batch = rows.scan(0, batchSize); !batch.isEmpty();
+                 batch = rows.scan(batch.get(batch.size() - 1).seq() + 1, batchSize)) {
+                batch.forEach(store::hold);
+            }
+        }
+        tables.add(rows);
+    }
+
+    private final class StoreTable<T> implements Table, EntityStore.Tier<T> {
+
+        private final String table;
+        private final EntityStore<T> store;
+        private final Function<String, T> decode;
+        private final ConcurrentHashMap<String, Pending> pending = new ConcurrentHashMap<>();
+        // Rows taken by the flush in progress; not stored until its transaction commits
+        private final ConcurrentHashMap<String, Pending> flushing = new ConcurrentHashMap<>();
+        // What the table held when it was attached
+        private long rows;
+        private long lastSeq;
+
+        StoreTable(String table, EntityStore<T> store, Function<String, T> decode) {
+            this.table = table;
+            this.store = store;
+            this.decode = decode;
+        }
+
+        @Override
+        public long rows() {
+            return rows;
+        }
+
+        @Override
+        public long lastSeq() {
+            return lastSeq;
+        }
+
+        @Override
+        public void put(String id, long seq, T value) {
+            mark(id, seq, value);
+        }
+
+        @Override
+        public void removed(String id) {
+            mark(id, 0, REMOVED);
+        }
+
+        private void mark(String id, long seq, Object value) {
+            boolean[] fresh = new boolean[1];
+            pending.compute(id, (key, old) -> {
+                fresh[0] = old == null;
+                if (old == null) return new Pending(seq, value, false);
+                if (old.value() == REMOVED && value != REMOVED) return new Pending(seq, value, true);
+                return new Pending(value == REMOVED ? old.seq() : seq, value, old.readded());
+            });
+            if (fresh[0]) dirtied();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public EntityStore.Row<T> load(String id) {
+            Pending row = pending.get(id);
+            if (row == null) row = flushing.get(id);
+            if (row != null) return row.value() == REMOVED ? null : new EntityStore.Row<>(id, row.seq(), (T) row.value());
+            return read(connection -> {
+                try (PreparedStatement select = connection.prepareStatement("SELECT seq, body FROM " + table + " WHERE id = ?")) {
+                    select.setString(1, id);
+                    try (ResultSet result = select.executeQuery()) {
+                        return result.next() ? new EntityStore.Row<>(id, result.getLong(1), decode.apply(result.getString(2))) : null;
+                    }
+                }
+            });
+        }
+
+        @Override
+        public List<EntityStore.Row<T>> scan(long from, int limit) {
+            return read(connection -> {
+                List<EntityStore.Row<T>> batch = new ArrayList<>(limit);
+                try (PreparedStatement select = connection.prepareStatement("SELECT id, seq, body FROM " + table + " WHERE seq >= ? ORDER BY seq")) {
+                    select.setMaxRows(limit);
+                    long next = from;
+                    // Removed rows stay in the table until the next flush, so skipping them can take another query
+                    while (batch.size() < limit) {
+                        select.setLong(1, next);
+                        int read = 0;
+                        try (ResultSet result = select.executeQuery()) {
+                            while (result.next()) {
+                                read++;
+                                next = result.getLong(2) + 1;
+                                String id = result.getString(1);
+                                if (batch.size() < limit && !isRemoved(id)) {
+                                    batch.add(new EntityStore.Row<>(id, next - 1, decode.apply(result.getString(3))));
+                                }
+                            }
+                        }
+                        if (read < limit) break;
+                    }
+                }
+                return batch;
+            });
+        }
+
+        private boolean isRemoved(String id) {
+            Pending row = pending.get(id);
+            if (row == null) row = flushing.get(id);
+            return row != null && row.value() == REMOVED;
+        }
+
+        @Override
+        public boolean stored(String id) {
+            return !pending.containsKey(id) && !flushing.containsKey(id);
+        }
+
+        @Override
+        public int flush(Connection connection) throws SQLException {
+            if (pending.isEmpty()) return 0;
+            int taken = 0;
+            for (String id : pending.keySet()) {
+                boolean[] moved = new boolean[1];
+                // Into flushing before out of pending, so a lookup always finds the row in one of them
+                pending.computeIfPresent(id, (key, row) -> {
+                    flushing.put(key, row);
+                    moved[0] = true;
+                    return null;
+                });
+                if (moved[0]) taken++;
+            }
+            dirty.addAndGet(-taken);
+            write(connection, flushing);
+            return taken;
+        }
+
+        @Override
+        public void settle(boolean committed) {
+            if (flushing.isEmpty()) return;
+            for (Map.Entry<String, Pending> row : flushing.entrySet()) {
+                if (!committed) requeue(row.getKey(), row.getValue());
+                flushing.remove(row.getKey());
+            }
+            // Rows written in a burst could not be evicted while they were dirty
+            if (committed) store.trim();
+        }
+
+        // Newer writes made while the batch was out win over it, but still move the row if it had
+        private void requeue(String id, Pending failed) {
+            boolean[] fresh = new boolean[1];
+            pending.compute(id, (key, newer) -> {
+                fresh[0] = newer == null;
+                if (newer == null) return failed;
+                boolean moved = failed.value() == REMOVED || failed.readded();
+                return moved && newer.value() != REMOVED ? new Pending(newer.seq(), newer.value(), true) : newer;
+            });
+            if (fresh[0]) dirty.incrementAndGet();
+        }
+
+        private void write(Connection connection, Map<String, Pending> batch) throws SQLException {
+            List<String> updated = new ArrayList<>();
+            List<Pending> values = new ArrayList<>();
+            List<String> bodies = new ArrayList<>();
+            try (PreparedStatement update = connection.prepareStatement("UPDATE " + table + " SET body = ? WHERE id = ?");
+                 PreparedStatement delete = connection.prepareStatement("DELETE FROM " + table + " WHERE id = ?")) {
+                for (Map.Entry<String, Pending> row : batch.entrySet()) {
+                    if (row.getValue().value() == REMOVED || row.getValue().readded()) {
+                        delete.setString(1, row.getKey());
+                        delete.addBatch();
+                    }
+                    if (row.getValue().value() != REMOVED) {
+                        String body = encode(row.getValue().value());
+                        update.setString(1, body);
+                        update.setString(2, row.getKey());
+                        update.addBatch();
+                        updated.add(row.getKey());
+                        values.add(row.getValue());
+                        bodies.add(body);
+                    }
+                }
+                delete.executeBatch();
+                int[] counts = update.executeBatch();
+                // Rows the update did not find are new: insert them at their position in the store
+                try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + table + " (id, seq, body) VALUES (?, ?, ?)")) {
+                    int inserts = 0;
+                    for (int i = 0; i < counts.length; i++) {
+                        if (counts[i] != 0) continue;
+                        insert.setString(1, updated.get(i));
+                        insert.setLong(2, values.get(i).seq());
+                        insert.setString(3, bodies.get(i));
+                        insert.addBatch();
+                        if (++inserts % batchSize == 0) insert.executeBatch();
+                    }
+                    insert.executeBatch();
+                }
+            }
+        }
+    }
+
+    private final class LedgerTable implements Table {
+
+        private record Entry(long position, Map<String, Object> value) {}
+
+        private final String table;
+        private final ConcurrentLinkedQueue<Entry> pending = new ConcurrentLinkedQueue<>();
+        // Entries taken by the flush in progress; only touched by the thread holding connectionLock
+        private final List<Entry> flushing = new ArrayList<>();
+
+        LedgerTable(String table) {
+            this.table = table;
+        }
+
+        void appended(long position, Map<String, Object> value) {
+            pending.add(new Entry(position, value));
+            dirtied();
+        }
+
+        @Override
+        public int flush(Connection connection) throws SQLException {
+            if (pending.isEmpty()) return 0;
+            for (Entry entry; (entry = pending.poll()) != null; ) flushing.add(entry);
+            dirty.addAndGet(-flushing.size());
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + table + " (position, body) VALUES (?, ?)")) {
+                for (int i = 0; i < flushing.size(); i++) {
+                    insert.setLong(1, flushing.get(i).position());
+                    insert.setString(2, encode(flushing.get(i).value()));
+                    insert.addBatch();
+                    if ((i + 1) % batchSize == 0) insert.executeBatch();
+                }
+                insert.executeBatch();
+                return flushing.size();
+            }
+        }
+
+        @Override
+        public void settle(boolean committed) {
+            if (!committed && !flushing.isEmpty()) {
+                // Ledger positions are fixed, so the order the retry writes them in does not matter
+                pending.addAll(flushing);
+                dirty.addAndGet(flushing.size());
+            }
+            flushing.clear();
+        }
+    }
+
+    private void dirtied() {
+        if (dirty.incrementAndGet() == batchSize) LockSupport.unpark(flusher);
+    }
+
+    private void flushLoop() {
+        while (running) {
+            LockSupport.parkNanos(flushIntervalNanos);
+            if (dirty.get() == 0 || !connectionLock.tryLock()) continue;
+            try {
+                flushAll();
+            } catch (SQLException | RuntimeException e) {
+                log.error("Writing to the store database failed; the rows stay pending and are retried", e);
+            } finally {
+                connectionLock.unlock();
+            }
+        }
+    }
+
+    // Caller holds connectionLock; one transaction for every table plus the ID counters
+    private void flushAll() throws SQLException {
+        boolean committed = false;
+        try {
+            int written = 0;
+            for (Table table : tables) written += table.flush(connection);
+            if (written > 0) writeSequences();
+            connection.commit();
+            committed = true;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            // Every table's rows go back on a rollback, not only the one that failed
+            for (Table table : tables) table.settle(committed);
+        }
+    }
+
+    private interface Read<R> {
+        R from(Connection connection) throws SQLException;
+    }
+
+    // Runs a read on a free reader connection, waiting for one if they are all busy
+    private <R> R read(Read<R> read) {
+        Connection reader;
+        try {
+            reader = readers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a database connection", e);
+        }
+        try {
+            return read.from(reader);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read from the store database", e);
+        } finally {
+            readers.add(reader);
+        }
+    }
+
+    private void writeSequences() throws SQLException {
+        Map<String, Long> positions = ids.positions();
+        if (positions.isEmpty()) return;
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(positions.entrySet());
+        try (PreparedStatement update = connection.prepareStatement("UPDATE mockapi_sequences SET position = ? WHERE prefix = ?");
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO mockapi_sequences (prefix, position) VALUES (?, ?)")) {
+            for (Map.Entry<String, Long> entry : entries) {
+                update.setLong(1, entry.getValue());
+                update.setString(2, entry.getKey());
+                update.addBatch();
+            }
+            int[] counts = update.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) continue;
+                insert.setString(1, entries.get(i).getKey());
+                insert.setLong(2, entries.get(i).getValue());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private void claim(String name, LongSupplier size) {
+        if (attached.putIfAbsent(name, size) != null) throw new IllegalStateException("A store is already attached as " + name);
+    }
+
+    // Whether the database has held this store before (and so is the truth for it, even if empty)
+    private boolean known(String name) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement("SELECT 1 FROM mockapi_tables WHERE name = ?")) {
+            select.setString(1, name);
+            try (ResultSet result = select.executeQuery()) {
+                return result.next();
+            }
+        }
+    }
+
+    private void remember(String name) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO mockapi_tables (name) VALUES (?)")) {
+            insert.setString(1, name);
+            insert.executeUpdate();
+        }
+    }
+
+    private String encode(Object value) {
+        return mapper.writeValueAsString(value);
+    }
+
+    private Map<String, Object> row(String body) {
+        return rowReader.readValue(body);
+    }
+
+    // Store names are dotted ("loans.active"); table names use underscores
+    private static String tableName(String name) {
+        if (!name.matches("[a-z][a-z0-9_.]*")) throw new IllegalArgumentException("Store names must be lower-case identifiers: " + name);
+        return name.replace('.', '_');
+    }
+}
@@ -0,0 +1,41 @@
+package com.turog.mockapi.store;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Where the controller stores keep their data outside the heap. Controllers attach every
+ * {@link EntityStore} and {@link Ledger} under a stable name once their seed rows are in place; the
+ * backend loads whatever it already holds for that name into the store and then follows its writes.
+ * <p>
+ * {@link Persistence} (the default) keeps the stores in memory and logs their writes to a local WAL
+ * with snapshots; {@link SqlBackend} (Spring profile {@code sql}) keeps the rows in an embedded
+ * database, with each store a bounded cache in front of its table.
+ */
+public interface StoreBackend {
+
+    // Rows whose JSON maps straight back onto a type (the typed records)
+    <T> void attach(String name, EntityStore<T> store, Class<T> type);
+
+    // Rows built from their JSON fields by the owner, e.g. to re-link live state
+    <T> void attach(String name, EntityStore<T> store, Function<Map<String, Object>, T> fromRow);
+
+    // Plain map rows
+    void attach(String name, EntityStore<Map<String, Object>> store);
+
+    // Ledgers of map entries; idField names the generated ID inside each entry
+    void attach(String name, Ledger<Map<String, Object>> ledger, String idField);
+
+    // Live row count of every attached store, by name
+    Map<String, LongSupplier> storeSizes();
+
+    // Whether responses should wait for the writes they made to be stored
+    default boolean durableResponses() {
+        return false;
+    }
+
+    // Blocks until every write the calling thread has made so far is stored
+    default void awaitOwnWrites() {
+    }
+}
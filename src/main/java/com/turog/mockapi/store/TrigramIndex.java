@@ -0,0 +1,307 @@
+package com.turog.mockapi.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Case-insensitive substring search over a few text fields per row, backed by a trigram index.
+ * <p>
+ * Every row gets a doc number in insertion order and each trigram of its lowercased text maps to
+ * an ascending posting list of doc numbers. A query intersects the posting lists of its trigrams,
+ * smallest first and galloping through the others, then confirms each candidate with a plain
+ * {@code contains} on the stored text, so matches are exact and come back in insertion order.
+ * Queries shorter than three characters fall back to scanning the stored texts.
+ * <p>
+ * Writes are serialized by one lock; reads never block and are weakly consistent, like
+ * {@link EntityStore#stream()}. New rows append to their posting lists. An update keeps the row's
+ * doc number, adds it to the trigrams it gained and leaves the ones it lost behind for the confirm
+ * step to filter out. A delete leaves a tombstone. Once stale entries outnumber live ones the
+ * posting lists are rebuilt.
+ */
+public class TrigramIndex {
+
+    public record Matches(List<String> keys, int total) {}
+
+    private interface Visitor {
+        // Returns false to stop the scan
+        boolean visit(int doc, String key);
+    }
+
+    private static final class Postings {
+        volatile int[] ids = new int[4];
+        volatile int size;
+    }
+
+    private record Docs(String[] keys, String[] texts) {}
+
+    // Keeps fields apart so a match can never straddle the name and the description
+    private static final char SEPARATOR = '\u0000';
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Map<String, Integer> docOf = new ConcurrentHashMap<>();
+    private volatile Docs docs = new Docs(new String[16], new String[16]);
+    private volatile int docCount;
+    private volatile Map<Long, Postings> postings = new ConcurrentHashMap<>();
+    private long liveEntries;
+    private long staleEntries;
+
+    public void put(String key, String... fields) {
+        String text = normalize(fields);
+        writeLock.lock();
+        try {
+            Integer existing = docOf.get(key);
+            if (existing == null) {
+                insert(key, text);
+            } else {
+                update(existing, text);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(String key) {
+        writeLock.lock();
+        try {
+            Integer doc = docOf.remove(key);
+            if (doc == null) return;
+            Docs current = docs;
+            int entries = trigrams(current.texts()[doc]).length;
+            current.texts()[doc] = null;
+            current.keys()[doc] = null;
+            docs = current; // republish so readers see the tombstone
+            liveEntries -= entries;
+            staleEntries += entries;
+            compactIfStale();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public int size() {
+        return docOf.size();
+    }
+
+    // One pass that counts every match but only keeps the keys for the requested window
+    public Matches search(String query, int offset, int limit) {
+        List<String> keys = new ArrayList<>(Math.max(0, Math.min(limit, 256)));
+        int[] total = {0};
+        scan(query, 0, (doc, key) -> {
+            if (total[0]++ >= offset && keys.size() < limit) keys.add(key);
+            return true;
+        });
+        return new Matches(keys, total[0]);
+    }
+
+    // Keyset page; the cursor is a doc number, which an update never changes
+    public CursorPage<String> page(String query, String cursor, int pageSize) {
+        int limit = Cursor.pageSize(pageSize);
+        List<String> keys = new ArrayList<>(Math.min(limit, 256));
+        String[] next = {null};
+        scan(query, (int) Math.min(Cursor.decode(cursor), Integer.MAX_VALUE), (doc, key) -> {
+            if (keys.size() == limit) {
+                next[0] = Cursor.encode(doc);
+                return false;
+            }
+            keys.add(key);
+            return true;
+        });
+        return new CursorPage<>(keys, cursor, next[0], limit);
+    }
+
+    private void scan(String query, int fromDoc, Visitor visitor) {
+        int count = docCount;
+        Docs current = docs;
+        String needle = query.toLowerCase(Locale.ROOT);
+
+        long[] grams = trigrams(needle);
+        if (grams.length == 0) {
+            for (int doc = fromDoc; doc < count; doc++) {
+                String text = current.texts()[doc];
+                if (text != null && text.contains(needle) && !visitor.visit(doc, current.keys()[doc])) return;
+            }
+            return;
+        }
+
+        Map<Long, Postings> index = postings;
+        int n = grams.length;
+        int[][] lists = new int[n][];
+        int[] sizes = new int[n];
+        int i = 0;
+        for (long gram : grams) {
+            Postings p = index.get(gram);
+            if (p == null) return;
+            sizes[i] = p.size;
+            lists[i] = p.ids;
+            i++;
+        }
+        sortBySize(lists, sizes);
+
+        int[] positions = new int[n];
+        int[] driver = lists[0];
+        candidates:
+        for (int at = gallop(driver, 0, sizes[0], fromDoc); at < sizes[0]; at++) {
+            int doc = driver[at];
+            for (int k = 1; k < n; k++) {
+                positions[k] = gallop(lists[k], positions[k], sizes[k], doc);
+                if (positions[k] == sizes[k]) return;
+                if (lists[k][positions[k]] != doc) continue candidates;
+            }
+            if (doc >= count) return;
+            String text = current.texts()[doc];
+            if (text != null && text.contains(needle) && !visitor.visit(doc, current.keys()[doc])) return;
+        }
+    }
+
+    private void insert(String key, String text) {
+        int doc = docCount;
+        Docs current = docs;
+        if (doc == current.keys().length) {
+            int capacity = doc * 2;
+            current = new Docs(Arrays.copyOf(current.keys(), capacity), Arrays.copyOf(current.texts(), capacity));
+            docs = current;
+        }
+        current.keys()[doc] = key;
+        current.texts()[doc] = text;
+        Map<Long, Postings> index = postings;
+        for (long gram : trigrams(text)) {
+            append(index.computeIfAbsent(gram, g -> new Postings()), doc);
+            liveEntries++;
+        }
+        docOf.put(key, doc);
+        docCount = doc + 1;
+    }
+
+    private void update(int doc, String text) {
+        Docs current = docs;
+        long[] before = trigrams(current.texts()[doc]);
+        long[] after = trigrams(text);
+        current.texts()[doc] = text;
+        docs = current; // republish so readers see the new text
+        Map<Long, Postings> index = postings;
+        for (long gram : after) {
+            if (Arrays.binarySearch(before, gram) >= 0) continue;
+            // The doc may still be listed from an older version of its text
+            if (insertSorted(index.computeIfAbsent(gram, g -> new Postings()), doc)) {
+                liveEntries++;
+            } else {
+                staleEntries--;
+                liveEntries++;
+            }
+        }
+        for (long gram : before) {
+            if (Arrays.binarySearch(after, gram) >= 0) continue;
+            liveEntries--;
+            staleEntries++;
+        }
+        compactIfStale();
+    }
+
+    private void compactIfStale() {
+        if (staleEntries <= liveEntries) return;
+        Docs current = docs;
+        int count = docCount;
+        Map<Long, Postings> rebuilt = new ConcurrentHashMap<>();
+        long live = 0;
+        for (int doc = 0; doc < count; doc++) {
+            String text = current.texts()[doc];
+            if (text == null) continue;
+            for (long gram : trigrams(text)) {
+                append(rebuilt.computeIfAbsent(gram, g -> new Postings()), doc);
+                live++;
+            }
+        }
+        postings = rebuilt;
+        liveEntries = live;
+        staleEntries = 0;
+    }
+
+    // Writer only. Readers read size before ids, so the array they get always covers their size
+    private static void append(Postings p, int doc) {
+        int size = p.size;
+        int[] ids = p.ids;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            p.ids = ids;
+        }
+        ids[size] = doc;
+        p.size = size + 1;
+    }
+
+    private static boolean insertSorted(Postings p, int doc) {
+        int size = p.size;
+        int[] ids = p.ids;
+        int at = Arrays.binarySearch(ids, 0, size, doc);
+        if (at >= 0) return false;
+        at = -at - 1;
+        if (at == size) {
+            append(p, doc);
+            return true;
+        }
+        int[] copy = new int[Math.max(ids.length, size + 1)];
+        System.arraycopy(ids, 0, copy, 0, at);
+        copy[at] = doc;
+        System.arraycopy(ids, at, copy, at + 1, size - at);
+        p.ids = copy;
+        p.size = size + 1;
+        return true;
+    }
+
+    // First index at or after from whose value is >= target
+    private static int gallop(int[] ids, int from, int size, int target) {
+        int step = 1;
+        int hi = from;
+        while (hi < size && ids[hi] < target) {
+            from = hi + 1;
+            hi += step;
+            step <<= 1;
+        }
+        int at = Arrays.binarySearch(ids, from, Math.min(hi + 1, size), target);
+        return at >= 0 ? at : -at - 1;
+    }
+
+    private static void sortBySize(int[][] lists, int[] sizes) {
+        for (int i = 1; i < sizes.length; i++) {
+            for (int j = i; j > 0 && sizes[j] < sizes[j - 1]; j--) {
+                int size = sizes[j];
+                sizes[j] = sizes[j - 1];
+                sizes[j - 1] = size;
+                int[] list = lists[j];
+                lists[j] = lists[j - 1];
+                lists[j - 1] = list;
+            }
+        }
+    }
+
+    private static String normalize(String... fields) {
+        StringBuilder text = new StringBuilder();
+        for (String field : fields) {
+            if (!text.isEmpty()) text.append(SEPARATOR);
+            if (field != null) text.append(field.toLowerCase(Locale.ROOT));
+        }
+        return text.toString();
+    }
+
+    // Distinct trigrams of the text, each packed into a long, in ascending order
+    private static long[] trigrams(String text) {
+        if (text == null || text.length() < 3) return new long[0];
+        long[] grams = new long[text.length() - 2];
+        int n = 0;
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            char a = text.charAt(i), b = text.charAt(i + 1), c = text.charAt(i + 2);
+            if (a == SEPARATOR || b == SEPARATOR || c == SEPARATOR) continue;
+            grams[n++] = (long) a << 32 | (long) b << 16 | c;
+        }
+        Arrays.sort(grams, 0, n);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || grams[i] != grams[distinct - 1]) grams[distinct++] = grams[i];
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+}
@@ -0,0 +1,26 @@
+package com.turog.mockapi.store;
+
+/**
+ * Coerces loosely typed request values into the field types of the typed entities.
+ */
+public final class Values {
+
+    private Values() {}
+
+    public static String text(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    // Numbers keep their value, numeric strings are parsed, anything else becomes null
+    public static Double number(Object value) {
+        if (value instanceof Number n) return n.doubleValue();
+        if (value instanceof String s) {
+            try {
+                return Double.valueOf(s.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
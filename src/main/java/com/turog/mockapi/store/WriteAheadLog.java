@@ -0,0 +1,274 @@
+package com.turog.mockapi.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of checksummed frames ({@code [length][crc32c][payload]}) split across numbered
+ * segment files.
+ * <p>
+ * Appends only copy the frame into a memory buffer. One flusher thread writes whatever has piled
+ * up since its last pass and fsyncs it once, so concurrent writers share each fsync (group commit);
+ * the window lets a group form before the flusher starts. Every append returns a ticket that
+ * {@link #awaitDurable} blocks on until the frame is on disk.
+ * <p>
+ * {@link #rotate} starts a new segment after everything before it has been flushed, which is what
+ * lets a snapshot name the first segment that still has to be replayed.
+ */
+final class WriteAheadLog implements Closeable {
+
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+    private static final int FRAME_HEADER = 8;
+    // Segments are read back through a single mapping, so keep them well below 2 GB
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private static final class Buffer {
+        byte[] bytes = new byte[64 * 1024];
+        int size;
+
+        void frame(byte[] payload, int crc) {
+            int needed = size + FRAME_HEADER + payload.length;
+            if (needed > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(needed, bytes.length * 2));
+            ByteBuffer.wrap(bytes, size, FRAME_HEADER).putInt(payload.length).putInt(crc);
+            System.arraycopy(payload, 0, bytes, size + FRAME_HEADER, payload.length);
+            size = needed;
+        }
+    }
+
+    private final Path dir;
+    private final long windowNanos;
+
+    // Writers only hold this long enough to copy their frame in
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Condition hasPending = appendLock.newCondition();
+    private Buffer pending = new Buffer();
+    private Buffer spare = new Buffer();
+    private long appended;
+
+    // Held for a whole write + fsync (or rotation), so segments never interleave
+    private final ReentrantLock ioLock = new ReentrantLock();
+    private FileChannel channel;
+    private volatile long segment;
+
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition flushed = durableLock.newCondition();
+    private volatile long durable;
+    private volatile IOException failure;
+
+    private volatile boolean running = true;
+    private final Thread flusher;
+
+    WriteAheadLog(Path dir, long firstSegment, long groupCommitWindowMillis) throws IOException {
+        this.dir = dir;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(groupCommitWindowMillis);
+        this.segment = firstSegment;
+        this.channel = open(firstSegment);
+        this.flusher = new Thread(this::flushLoop, "mockapi-wal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    long segment() {
+        return segment;
+    }
+
+    // Returns the ticket to wait on for this frame to be durable
+    long append(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        int sum = (int) crc.getValue();
+        appendLock.lock();
+        try {
+            pending.frame(payload, sum);
+            appended += FRAME_HEADER + payload.length;
+            hasPending.signal();
+            return appended;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // The ticket of the newest frame appended, by any writer
+    long appended() {
+        appendLock.lock();
+        try {
+            return appended;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    void awaitDurable(long ticket) {
+        if (durable >= ticket) return;
+        durableLock.lock();
+        try {
+            while (durable < ticket && running && failure == null) flushed.awaitUninterruptibly();
+        } finally {
+            durableLock.unlock();
+        }
+        if (failure != null) throw new UncheckedIOException("Write-ahead log is not writable", failure);
+    }
+
+    // Flushes everything appended so far, then starts the next segment; returns its number
+    long rotate() throws IOException {
+        ioLock.lock();
+        try {
+            flush();
+            return roll();
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        appendLock.lock();
+        try {
+            hasPending.signal();
+        } finally {
+            appendLock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ioLock.lock();
+        try {
+            flush();
+            channel.close();
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            appendLock.lock();
+            try {
+                while (pending.size == 0 && running) hasPending.awaitUninterruptibly();
+                if (pending.size == 0) return;
+            } finally {
+                appendLock.unlock();
+            }
+            if (windowNanos > 0) LockSupport.parkNanos(windowNanos);
+            ioLock.lock();
+            try {
+                flush();
+                if (channel.position() >= MAX_SEGMENT_BYTES) roll();
+            } catch (IOException e) {
+                failure = e;
+                markDurable(durable);
+                return;
+            } finally {
+                ioLock.unlock();
+            }
+        }
+    }
+
+    // Caller holds ioLock
+    private void flush() throws IOException {
+        Buffer batch;
+        long upTo;
+        appendLock.lock();
+        try {
+            batch = pending;
+            pending = spare;
+            spare = batch;
+            upTo = appended;
+        } finally {
+            appendLock.unlock();
+        }
+        if (batch.size > 0) {
+            ByteBuffer out = ByteBuffer.wrap(batch.bytes, 0, batch.size);
+            while (out.hasRemaining()) channel.write(out);
+            channel.force(false);
+            batch.size = 0;
+        }
+        markDurable(upTo);
+    }
+
+    // Caller holds ioLock and has flushed
+    private long roll() throws IOException {
+        channel.close();
+        segment++;
+        channel = open(segment);
+        return segment;
+    }
+
+    private void markDurable(long upTo) {
+        durableLock.lock();
+        try {
+            durable = upTo;
+            flushed.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    private FileChannel open(long number) throws IOException {
+        return FileChannel.open(dir.resolve(PREFIX + String.format("%016d", number) + SUFFIX),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    // Segment files in the directory, oldest first
+    static List<Path> segments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> segmentNumber(f) >= 0).sorted().toList();
+        }
+    }
+
+    static long segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) return -1;
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Hands every intact frame payload of a segment to the sink, in order. Reading stops at the first
+     * frame that is cut short or fails its checksum, which is where a crash interrupted the last write.
+     * Returns false if it had to stop early.
+     */
+    static boolean read(Path file, Consumer<ByteBuffer> sink) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size == 0) return true;
+            MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32C crc = new CRC32C();
+            while (map.remaining() >= FRAME_HEADER) {
+                int length = map.getInt();
+                int sum = map.getInt();
+                if (length < 0 || length > map.remaining()) return false;
+                ByteBuffer payload = map.slice(map.position(), length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != sum) return false;
+                sink.accept(payload);
+                map.position(map.position() + length);
+            }
+            return !map.hasRemaining();
+        }
+    }
+}
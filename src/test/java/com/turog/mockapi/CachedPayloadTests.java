@@ -0,0 +1,52 @@
+package com.turog.mockapi;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachedPayloadTests {
+
+	private final JsonMapper mapper = JsonMapper.builder().build();
+
+	@Test
+	void servesTheSameBytesJacksonWould() {
+		CachedPayload payload = CachedPayload.of(mapper, MockDataController.merchantGroups());
+
+		ResponseEntity<byte[]> response = payload.respond(null, null);
+
+		assertThat(response.getStatusCode().value()).isEqualTo(200);
+		assertThat(new String(response.getBody())).isEqualTo(mapper.writeValueAsString(MockDataController.merchantGroups()));
+	}
+
+	@Test
+	void gzipVariantInflatesToTheSameJson() throws Exception {
+		CachedPayload payload = CachedPayload.of(mapper, MockDataController.merchants());
+
+		byte[] plain = payload.respond(null, null).getBody();
+		ResponseEntity<byte[]> gzipped = payload.respond(null, "br, gzip;q=0.8");
+
+		assertThat(gzipped.getHeaders().getFirst("Content-Encoding")).isEqualTo("gzip");
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getBody()))) {
+			assertThat(new String(in.readAllBytes())).isEqualTo(new String(plain));
+		}
+		assertThat(payload.respond(null, "gzip;q=0").getHeaders().getFirst("Content-Encoding")).isNull();
+	}
+
+	@Test
+	void etagIsStableAndHonoursIfNoneMatch() {
+		String etag = CachedPayload.of(mapper, MockDataController.creditAccounts()).respond(null, null).getHeaders().getETag();
+		CachedPayload rebuilt = CachedPayload.of(mapper, MockDataController.creditAccounts());
+
+		assertThat(rebuilt.respond(null, null).getHeaders().getETag()).isEqualTo(etag);
+		assertThat(rebuilt.respond(etag, null).getStatusCode().value()).isEqualTo(304);
+		assertThat(rebuilt.respond(etag, null).getBody()).isNull();
+		assertThat(rebuilt.respond("\"stale\"", null).getStatusCode().value()).isEqualTo(200);
+		assertThat(CachedPayload.of(mapper, List.of()).respond(etag, null).getStatusCode().value()).isEqualTo(200);
+	}
+}
@@ -0,0 +1,114 @@
+package com.turog.mockapi;
+
+import com.turog.mockapi.model.client.ClientMockController;
+import com.turog.mockapi.model.communities.CommunityMockController;
+import com.turog.mockapi.model.messages.MessageMockController;
+import com.turog.mockapi.model.walletsavings.SavingsMockController;
+import com.turog.mockapi.store.BulkSeeder;
+import com.turog.mockapi.store.ChangeFeed;
+import com.turog.mockapi.store.IdAllocator;
+import com.turog.mockapi.store.Persistence;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * The request paths the API tests hit hardest, at 1k, 100k and 1M seeded rows: community search,
+ * a mid-list page of clients, a deposit (processFinancial), the message list with its summary
+ * mapping, and the /api/merchants catalog. {@code handler} calls the controller method directly;
+ * {@code dispatch} sends the same request through MockMvc, so the difference is routing, argument
+ * binding and JSON writing. Rows come from {@link BulkSeeder}, only for the domains the path reads.
+ * <p>
+ * Throughput and sampled latency (p50 to p99.99) come from the two benchmark modes; run the profile
+ * with its default {@code -prof gc} for the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class ControllerBenchmark {
+
+	@Param({"1000", "100000", "1000000"})
+	long rows;
+
+	@Param({"search", "pagination", "deposit", "messages", "merchants"})
+	String path;
+
+	private final JsonMapper mapper = JsonMapper.builder().build();
+	private ClientMockController clients;
+	private CommunityMockController communities;
+	private MessageMockController messages;
+	private SavingsMockController savings;
+	private MockDataController catalogs;
+	private MockMvc mvc;
+	private int middlePage;
+
+	@Setup(Level.Trial)
+	public void seed() throws IOException {
+		IdAllocator ids = new IdAllocator("sequential", 3, 0);
+		Persistence memory = new Persistence(false, "data", 2, false, 300, mapper, ids);
+		clients = new ClientMockController(ids, memory);
+		communities = new CommunityMockController(ids, memory);
+		ChangeFeed feed = new ChangeFeed(256, 1, 15);
+		messages = new MessageMockController(ids, memory, feed);
+		savings = new SavingsMockController(ids, memory, feed, false);
+		catalogs = new MockDataController(mapper, 0, 42);
+
+		Map<String, Long> counts = switch (path) {
+			case "search" -> Map.of("communities", rows);
+			case "pagination" -> Map.of("clients", rows);
+			case "deposit" -> Map.of("clients", rows, "savings", rows);
+			case "messages" -> Map.of("messages", rows);
+			default -> Map.of();
+		};
+		new BulkSeeder(List.of(clients, communities, messages, savings), 0, 42, 0).seed(42, counts);
+		middlePage = (int) Math.max(1, rows / 20);
+
+		mvc = MockMvcBuilders.standaloneSetup(clients, communities, messages, savings, catalogs)
+				.setControllerAdvice(new ApiExceptionHandler())
+				.build();
+	}
+
+	@Benchmark
+	public Object handler() {
+		return switch (path) {
+			case "search" -> communities.searchCommunity("tech", null, 1, 10);
+			case "pagination" -> clients.listClients(null, null, null, middlePage, 10);
+			case "deposit" -> savings.deposit(Map.of("account_id", account(), "amount", 2500));
+			case "messages" -> messages.listMessages("inbox", null, null, 1, 10);
+			default -> catalogs.getMerchants(null, null);
+		};
+	}
+
+	@Benchmark
+	public byte[] dispatch() throws Exception {
+		MockHttpServletRequestBuilder request = switch (path) {
+			case "search" -> get("/communities/accounts/search").param("name", "tech");
+			case "pagination" -> get("/clients/details").param("page", Integer.toString(middlePage));
+			case "deposit" -> post("/savings/accounts/deposit").contentType(MediaType.APPLICATION_JSON)
+					.content("{\"account_id\":\"" + account() + "\",\"amount\":2500}");
+			case "messages" -> get("/messages/internal/category").param("type", "inbox");
+			default -> get("/api/merchants");
+		};
+		return mvc.perform(request).andReturn().getResponse().getContentAsByteArray();
+	}
+
+	// Seeded accounts run from SAV002
+	private String account() {
+		return String.format("SAV%03d", 2 + ThreadLocalRandom.current().nextLong(rows));
+	}
+}
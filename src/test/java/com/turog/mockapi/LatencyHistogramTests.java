@@ -0,0 +1,48 @@
+package com.turog.mockapi;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyHistogramTests {
+
+	@Test
+	void percentilesStayWithinTheBucketPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		// 1..100,000 microseconds, once each
+		for (long micros = 1; micros <= 100_000; micros++) histogram.record(micros * 1_000);
+
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertThat(snapshot.count()).isEqualTo(100_000);
+		assertThat(snapshot.maxNanos()).isEqualTo(100_000_000L);
+		assertWithin(snapshot.valueAt(0.5), 50_000_000L);
+		assertWithin(snapshot.valueAt(0.99), 99_000_000L);
+		assertWithin(snapshot.valueAt(0.999), 99_900_000L);
+		assertThat(snapshot.valueAt(1.0)).isEqualTo(100_000_000L);
+		assertThat(snapshot.meanNanos()).isEqualTo(50_000_500L);
+	}
+
+	@Test
+	void smallValuesAreExactAndHugeOnesAreClamped() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long nanos = 0; nanos < 128; nanos++) histogram.record(nanos);
+		assertThat(histogram.snapshot().valueAt(0.5)).isEqualTo(63L);
+
+		histogram.record(Long.MAX_VALUE);
+		assertThat(histogram.snapshot().maxNanos()).isEqualTo((1L << 40) - 1);
+		assertThat(histogram.snapshot().valueAt(1.0)).isEqualTo((1L << 40) - 1);
+	}
+
+	@Test
+	void emptyHistogramReadsAsZero() {
+		LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+		assertThat(snapshot.valueAt(0.99)).isEqualTo(0L);
+		assertThat(snapshot.meanNanos()).isEqualTo(0L);
+	}
+
+	// A reported value is never below the true one and at most 1/64 above it
+	private static void assertWithin(long reported, long actual) {
+		assertThat(reported).isGreaterThanOrEqualTo(actual);
+		assertThat(reported).isLessThanOrEqualTo(actual + actual / 64);
+	}
+}
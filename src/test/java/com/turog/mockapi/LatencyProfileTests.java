@@ -0,0 +1,74 @@
+package com.turog.mockapi;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LatencyProfileTests {
+
+	private static final long MS = 1_000_000;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void distributionsLandWhereTheirParametersSay() {
+		assertThat(median(LatencyProfile.parse("fixed(250)"))).isEqualTo(250 * MS);
+
+		long[] uniform = samples(LatencyProfile.parse("uniform(100, 400)"));
+		assertThat(uniform[0]).isGreaterThanOrEqualTo(100 * MS);
+		assertThat(uniform[uniform.length - 1]).isLessThanOrEqualTo(400 * MS);
+
+		assertThat(median(LatencyProfile.parse("normal(300,50)"))).isBetween(290 * MS, 310 * MS);
+		assertThat(samples(LatencyProfile.parse("normal(10,50)"))[0]).isEqualTo(0L);
+
+		long[] lognormal = samples(LatencyProfile.parse("LogNormal(200,0.5)"));
+		assertThat(lognormal[lognormal.length / 2]).isBetween(190 * MS, 210 * MS);
+		// exp(2.326 * 0.5) ~ 3.2 times the median at p99
+		assertThat(lognormal[lognormal.length * 99 / 100]).isBetween(600 * MS, 680 * MS);
+	}
+
+	@Test
+	void replayDrawsRecordedLatenciesByTheirCounts() throws IOException {
+		Path file = dir.resolve("latencies.txt");
+		Files.writeString(file, "# millis count\n10 90\n1000 10\n\n");
+
+		long[] replayed = samples(LatencyProfile.parse("replay(" + file + ")"));
+		long slow = Arrays.stream(replayed).filter(n -> n == 1000 * MS).count();
+		assertThat(Arrays.stream(replayed).allMatch(n -> n == 10 * MS || n == 1000 * MS)).isTrue();
+		assertThat(slow).isBetween(800L, 1200L);
+	}
+
+	@Test
+	void specsAreTidiedAndBadOnesRejected() {
+		assertThat(LatencyProfile.parse(" Uniform( 1, 2 ) ").spec()).isEqualTo("uniform(1,2)");
+
+		assertThatThrownBy(() -> LatencyProfile.parse("gamma(1,2)")).isInstanceOf(LatencyProfile.InvalidProfileException.class);
+		assertThatThrownBy(() -> LatencyProfile.parse("fixed(1,2)")).isInstanceOf(LatencyProfile.InvalidProfileException.class);
+		assertThatThrownBy(() -> LatencyProfile.parse("uniform(5,1)")).isInstanceOf(LatencyProfile.InvalidProfileException.class);
+		assertThatThrownBy(() -> LatencyProfile.parse("fixed(-1)")).isInstanceOf(LatencyProfile.InvalidProfileException.class);
+		assertThatThrownBy(() -> LatencyProfile.parse("250")).isInstanceOf(LatencyProfile.InvalidProfileException.class);
+		assertThatThrownBy(() -> LatencyProfile.parse("replay(/no/such/file)")).isInstanceOf(LatencyProfile.InvalidProfileException.class);
+	}
+
+	private static long median(LatencyProfile profile) {
+		long[] sorted = samples(profile);
+		return sorted[sorted.length / 2];
+	}
+
+	private static long[] samples(LatencyProfile profile) {
+		SplittableRandom random = new SplittableRandom(42);
+		long[] samples = new long[10_000];
+		for (int i = 0; i < samples.length; i++) samples[i] = profile.sampleNanos(random);
+		Arrays.sort(samples);
+		return samples;
+	}
+}
@@ -0,0 +1,51 @@
+package com.turog.mockapi;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SyntheticCatalogTests {
+
+	@Test
+	void sameSeedGivesTheSameRowsOnAnyPage() {
+		List<CreditAccount> page = SyntheticCatalog.CREDIT_ACCOUNTS.page(42, 10_000_000, 9_000, 50);
+
+		assertThat(SyntheticCatalog.CREDIT_ACCOUNTS.page(42, 10_000_000, 9_000, 50)).isEqualTo(page);
+		// Row 449,960 is the 11th row of page 9,000, whichever page size fetched it
+		assertThat(SyntheticCatalog.CREDIT_ACCOUNTS.page(42, 10_000_000, 44_997, 10).get(0)).isEqualTo(page.get(10));
+		assertThat(page.get(10).id()).isEqualTo("449961");
+		assertThat(SyntheticCatalog.CREDIT_ACCOUNTS.page(7, 10_000_000, 9_000, 50)).isNotEqualTo(page);
+	}
+
+	@Test
+	void lastPageIsShortAndPagesPastTheEndAreEmpty() {
+		assertThat(SyntheticCatalog.SAVINGS_ACCOUNTS.page(1, 25, 3, 10)).hasSize(5);
+		assertThat(SyntheticCatalog.SAVINGS_ACCOUNTS.page(1, 25, 4, 10)).isEmpty();
+		assertThat(SyntheticCatalog.SAVINGS_ACCOUNTS.page(1, 25, Long.MAX_VALUE, 10)).isEmpty();
+	}
+
+	@Test
+	void rowsLookLikeTheFixedCatalog() {
+		for (SavingsAccount account : SyntheticCatalog.SAVINGS_ACCOUNTS.page(3, 1_000, 1, 1_000)) {
+			assertThat(account.accountNumber()).matches("[1-9][0-9]{9}");
+			assertThat(account.externalReference()).matches("[45][0-9]{15}");
+			assertThat(account.status()).isIn("ACTIVE", "INACTIVE");
+			assertThat(account.initials()).isEqualTo("" + account.name().charAt(0) + account.name().charAt(account.name().indexOf(' ') + 1));
+		}
+		for (CreditAccount account : SyntheticCatalog.CREDIT_ACCOUNTS.page(3, 1_000, 1, 1_000)) {
+			assertThat(account.submissionDate()).matches("\\d{1,2}(st|nd|rd|th) [A-Z][a-z]+ 20\\d\\d \\d{1,2}:\\d\\d [AP]M");
+			assertThat(account.dailyLimit()).isBetween(1_000_000.0, 100_000_000.0);
+		}
+	}
+
+	@Test
+	void rejectsPagesOutsideTheLimits() {
+		assertThatThrownBy(() -> SyntheticCatalog.INVESTMENT_ACCOUNTS.page(1, 100, 0, 10))
+				.isInstanceOf(SyntheticCatalog.InvalidPageException.class);
+		assertThatThrownBy(() -> SyntheticCatalog.INVESTMENT_ACCOUNTS.page(1, 100, 1, SyntheticCatalog.MAX_PAGE_SIZE + 1))
+				.isInstanceOf(SyntheticCatalog.InvalidPageException.class);
+	}
+}
@@ -0,0 +1,84 @@
+package com.turog.mockapi;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 10k concurrent connections against a route that takes 100 ms, served on Tomcat's platform thread
+ * pool and on virtual threads. Each operation opens every connection at once and ends when the last
+ * response is in. "async" delays on the timer wheel, "blocking" sleeps on the request thread like a
+ * handler waiting on I/O, which is where the 200-thread pool runs out and virtual threads do not.
+ * The virtual runs need the build from -Pvirtual-threads on Java 21+, and an open-files limit well
+ * above the connection count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ThreadingBenchmark {
+
+	@Param({"platform", "virtual"})
+	String threads;
+
+	@Param({"async", "blocking"})
+	String latency;
+
+	@Param({"10000"})
+	int connections;
+
+	private ConfigurableApplicationContext app;
+	private ExecutorService clientThreads;
+	private HttpClient client;
+	private HttpRequest request;
+
+	@Setup(Level.Trial)
+	public void start() {
+		boolean virtual = "virtual".equals(threads);
+		if (virtual && Runtime.version().feature() < 21) {
+			throw new IllegalStateException("Virtual threads need Java 21+; build with -Pvirtual-threads");
+		}
+		app = new SpringApplicationBuilder(MockapiApplication.class).run(
+				"--server.port=0",
+				"--spring.threads.virtual.enabled=" + virtual,
+				"--mockapi.latency.routes=GET /clients/details/{client_id}=fixed(100)",
+				"--mockapi.latency.blocking=" + "blocking".equals(latency),
+				"--logging.level.root=warn");
+		String port = app.getEnvironment().getProperty("local.server.port");
+		clientThreads = Executors.newFixedThreadPool(4);
+		client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clientThreads).build();
+		request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/clients/details/CL001")).build();
+	}
+
+	@Benchmark
+	public int wave() {
+		List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(connections);
+		for (int i = 0; i < connections; i++) responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+		CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).join();
+		int ok = 0;
+		for (CompletableFuture<HttpResponse<Void>> response : responses) {
+			if (response.join().statusCode() == 200) ok++;
+		}
+		if (ok != connections) throw new IllegalStateException((connections - ok) + " of " + connections + " requests failed");
+		return ok;
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		app.close();
+		clientThreads.shutdownNow();
+	}
+}
@@ -0,0 +1,60 @@
+package com.turog.mockapi;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimerWheelTests {
+
+	@Test
+	void timersNeverFireBeforeTheirDelay() throws InterruptedException {
+		try (TimerWheel wheel = new TimerWheel("test-wheel", TimeUnit.MILLISECONDS.toNanos(1), 64)) {
+			int timers = 2_000;
+			CountDownLatch fired = new CountDownLatch(timers);
+			AtomicLong early = new AtomicLong();
+			for (int i = 0; i < timers; i++) {
+				// Up to 150 ms, so some wrap around the 64-tick wheel more than once
+				long delay = TimeUnit.MILLISECONDS.toNanos(i % 150);
+				long due = System.nanoTime() + delay;
+				wheel.schedule(delay, TimeUnit.NANOSECONDS, () -> {
+					if (System.nanoTime() < due) early.incrementAndGet();
+					fired.countDown();
+				});
+			}
+
+			assertThat(fired.await(10, TimeUnit.SECONDS)).isTrue();
+			assertThat(early.get()).isEqualTo(0L);
+			assertThat(wheel.pending()).isEqualTo(0L);
+		}
+	}
+
+	@Test
+	void idleWheelWakesForTheNextTimer() throws InterruptedException {
+		try (TimerWheel wheel = new TimerWheel("test-wheel", TimeUnit.MILLISECONDS.toNanos(1), 64)) {
+			Thread.sleep(50);
+			CountDownLatch fired = new CountDownLatch(1);
+			long scheduled = System.nanoTime();
+			wheel.schedule(20, TimeUnit.MILLISECONDS, fired::countDown);
+
+			assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(System.nanoTime() - scheduled).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+		}
+	}
+
+	@Test
+	void aFailingTaskDoesNotStopTheWheel() throws InterruptedException {
+		try (TimerWheel wheel = new TimerWheel("test-wheel", TimeUnit.MILLISECONDS.toNanos(1), 64)) {
+			CountDownLatch fired = new CountDownLatch(1);
+			wheel.schedule(1, TimeUnit.MILLISECONDS, () -> {
+				throw new IllegalStateException("boom");
+			});
+			wheel.schedule(5, TimeUnit.MILLISECONDS, fired::countDown);
+
+			assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+		}
+	}
+}
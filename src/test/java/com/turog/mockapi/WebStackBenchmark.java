@@ -0,0 +1,94 @@
+package com.turog.mockapi;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.ClassUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same routes from the same seeded stores over real HTTP, served by Spring MVC on Tomcat
+ * ("servlet") and by WebFlux on Netty ("reactive"), with 16 clients sending back to back. Paths are
+ * the ones {@link ControllerBenchmark} measures in process, so the difference is the web stack and
+ * the network round trip. Throughput and sampled latency come from the two benchmark modes.
+ * <p>
+ * Each build has one stack on its classpath, so the benchmark serves with that one: ./mvnw -Pbenchmarks
+ * -DskipTests verify -Djmh.includes=WebStack measures Spring MVC, and the same with -Dwebflux measures
+ * WebFlux. Metrics are off in both, so the runs compare the stacks rather than their adapters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class WebStackBenchmark {
+
+	@Param({"search", "pagination", "deposit", "messages", "merchants"})
+	String path;
+
+	@Param({"100000"})
+	long rows;
+
+	private ConfigurableApplicationContext app;
+	private ExecutorService clientThreads;
+	private HttpClient client;
+	private String base;
+	private HttpRequest read;
+
+	@Setup(Level.Trial)
+	public void start() {
+		String stack = ClassUtils.isPresent("org.springframework.web.reactive.DispatcherHandler", null) ? "reactive" : "servlet";
+		app = new SpringApplicationBuilder(MockapiApplication.class).run(
+				"--server.port=0",
+				"--spring.main.web-application-type=" + stack,
+				"--mockapi.seed.records=" + rows,
+				"--mockapi.metrics.enabled=false",
+				"--logging.level.root=warn");
+		base = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+		clientThreads = Executors.newFixedThreadPool(4);
+		client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clientThreads).build();
+		read = switch (path) {
+			case "search" -> get("/communities/accounts/search?name=tech");
+			case "pagination" -> get("/clients/details?page=" + Math.max(1, rows / 20));
+			case "messages" -> get("/messages/internal/category?type=inbox");
+			case "merchants" -> get("/api/merchants");
+			default -> null;
+		};
+	}
+
+	@Benchmark
+	public int request() throws Exception {
+		HttpRequest request = read != null ? read : HttpRequest.newBuilder(URI.create(base + "/savings/accounts/deposit"))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString("{\"account_id\":\"" + account() + "\",\"amount\":2500}"))
+				.build();
+		HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+		if (response.statusCode() != 200) throw new IllegalStateException(path + " answered " + response.statusCode());
+		return response.body().length;
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		app.close();
+		clientThreads.shutdownNow();
+	}
+
+	private HttpRequest get(String pathAndQuery) {
+		return HttpRequest.newBuilder(URI.create(base + pathAndQuery)).build();
+	}
+
+	// Seeded accounts run from SAV002
+	private String account() {
+		return String.format("SAV%03d", 2 + ThreadLocalRandom.current().nextLong(rows));
+	}
+}
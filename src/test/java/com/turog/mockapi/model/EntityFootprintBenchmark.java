@@ -0,0 +1,166 @@
+package com.turog.mockapi.model;
+
+import com.turog.mockapi.model.cards.Card;
+import com.turog.mockapi.model.client.Client;
+import com.turog.mockapi.model.communities.Community;
+import com.turog.mockapi.model.loans.Loan;
+import com.turog.mockapi.model.walletsavings.Account;
+import com.turog.mockapi.store.EntityStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Heap held by 1M rows of each entity as the {@code HashMap} rows the controllers used to store
+ * against the typed records that replaced them. The score is the time to load the store; the
+ * retained heap (after a full GC, with the store still reachable) is printed per iteration as
+ * bytes per row. Field values are shared across rows so only the row shape is measured, and the
+ * savings balance is left out of both shapes because it is the same object either way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class EntityFootprintBenchmark {
+
+	private static final String NOW = "2025-07-01T10:00:00Z";
+
+	@Param({"1000000"})
+	int rows;
+
+	@Param({"client", "card", "loan", "community", "savings"})
+	String entity;
+
+	@Param({"map", "record"})
+	String shape;
+
+	private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+	private String[] ids;
+	private EntityStore<?> store;
+	private long baseline;
+
+	@Setup(Level.Trial)
+	public void ids() {
+		ids = new String[rows];
+		for (int i = 0; i < rows; i++) ids[i] = "ID" + i;
+	}
+
+	@Setup(Level.Iteration)
+	public void settle() {
+		store = null;
+		baseline = retainedHeap();
+	}
+
+	@Benchmark
+	public EntityStore<?> load() {
+		store = "map".equals(shape) ? loadMaps() : loadRecords();
+		return store;
+	}
+
+	@TearDown(Level.Iteration)
+	public void report() {
+		long bytes = retainedHeap() - baseline;
+		System.out.printf("%n%s/%s: %d rows retain %.1f MB, %d bytes per row%n",
+				entity, shape, store.size(), bytes / 1048576.0, bytes / store.size());
+		store = null;
+	}
+
+	private EntityStore<Map<String, Object>> loadMaps() {
+		return switch (entity) {
+			case "client" -> fill(EntityStore.keyedBy("client_id"), id -> {
+				Map<String, Object> row = new HashMap<>();
+				row.put("client_id", id);
+				row.put("name", "Seyi Akamo");
+				row.put("type", "Corporate");
+				row.put("status", "Active");
+				row.put("location", "Lagos");
+				row.put("company", "Kijana International");
+				row.put("level", "Tier One");
+				row.put("email", "theemail@example.com");
+				row.put("phone_number", "08162827322");
+				row.put("created_at", NOW);
+				return row;
+			});
+			case "card" -> fill(EntityStore.keyedBy("card_id"), id -> {
+				Map<String, Object> row = new HashMap<>();
+				row.put("card_id", id);
+				row.put("client_id", "CL001");
+				row.put("card_type", "Virtual");
+				row.put("masked_number", "****1234");
+				row.put("expiry_date", "2027-08");
+				row.put("status", "Active");
+				row.put("currency", "NGN");
+				row.put("limit", amount(id, 500000.0));
+				row.put("created_at", NOW);
+				return row;
+			});
+			case "loan" -> fill(EntityStore.keyedBy("loan_Id"), id -> {
+				Map<String, Object> row = new HashMap<>();
+				row.put("loan_Id", id);
+				row.put("client_Id", "CL123");
+				row.put("amount", amount(id, 10000.0));
+				row.put("status", "active");
+				row.put("balance", amount(id, 7500.0));
+				row.put("repaymentTerm", "12 months");
+				return row;
+			});
+			case "community" -> fill(EntityStore.keyedBy("community_id"), id -> {
+				Map<String, Object> row = new HashMap<>();
+				row.put("community_id", id);
+				row.put("name", "Tech Innovators");
+				row.put("description", "A hub for software developers and tech enthusiasts.");
+				row.put("category", "Technology");
+				row.put("status", "Active");
+				row.put("created_at", NOW);
+				return row;
+			});
+			default -> fill(EntityStore.keyedBy("account_id"), id -> {
+				Map<String, Object> row = new HashMap<>();
+				row.put("account_id", id);
+				row.put("account_number", "1234567890");
+				row.put("customer_name", "John Doe");
+				row.put("status", "Active");
+				row.put("currency", "NGN");
+				row.put("opened_at", NOW);
+				return row;
+			});
+		};
+	}
+
+	private EntityStore<?> loadRecords() {
+		return switch (entity) {
+			case "client" -> fill(new EntityStore<>(Client::clientId), id -> new Client(id, "Seyi Akamo", "Corporate",
+					"Active", "Lagos", "Kijana International", "Tier One", "theemail@example.com", "08162827322", NOW, null, null, null));
+			case "card" -> fill(new EntityStore<>(Card::cardId), id -> new Card(id, "CL001", "Virtual", "****1234",
+					"2027-08", "Active", "NGN", amount(id, 500000.0), NOW));
+			case "loan" -> fill(new EntityStore<>(Loan::loanId), id -> new Loan(id, "CL123", amount(id, 10000.0),
+					"active", amount(id, 7500.0), "12 months"));
+			case "community" -> fill(new EntityStore<>(Community::communityId), id -> new Community(id, "Tech Innovators",
+					"A hub for software developers and tech enthusiasts.", "Technology", "Active", NOW, null));
+			default -> fill(new EntityStore<>(Account::accountId), id -> new Account(id, "1234567890", "John Doe", null,
+					"Active", "NGN", NOW, null, null, null));
+		};
+	}
+
+	private <T> EntityStore<T> fill(EntityStore<T> target, Function<String, T> row) {
+		for (String id : ids) target.add(row.apply(id));
+		return target;
+	}
+
+	// A distinct boxed amount per row, as parsed request values would be
+	private static Double amount(String id, double base) {
+		return base + (id.hashCode() & 1023);
+	}
+
+	private long retainedHeap() {
+		for (int i = 0; i < 3; i++) System.gc();
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+}
@@ -0,0 +1,138 @@
+package com.turog.mockapi.model.messages;
+
+import com.turog.mockapi.store.Cursor;
+import com.turog.mockapi.store.CursorPage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MailboxesTests {
+
+	@Test
+	void sentMessagesReachEveryRecipientsInbox() {
+		Mailboxes mailboxes = new Mailboxes();
+		mailboxes.file(message("MSG1", "sent", "ada", List.of("bo", "cy")));
+
+		Map<String, Object> delivered = mailboxes.find("bo", "inbox").page(0, 10).get(0);
+		assertThat(delivered.get("messageId")).isEqualTo("MSG1");
+		assertThat(delivered.get("category")).isEqualTo("inbox");
+		assertThat(delivered.get("status")).isEqualTo("unread");
+		assertThat(delivered.containsKey("body")).isFalse();
+		assertThat(mailboxes.find("cy", "INBOX").size()).isEqualTo(1L);
+		assertThat(mailboxes.find("ada", "sent").page(0, 10).get(0).get("category")).isEqualTo("sent");
+		assertThat(mailboxes.find(null, "sent").size()).isEqualTo(1L);
+		assertThat(mailboxes.find(null, "inbox").size()).isEqualTo(0L);
+		assertThat(mailboxes.owners("MSG1")).containsExactly("ada", "bo", "cy");
+	}
+
+	@Test
+	void oneUsersChangesStayInTheirFolders() {
+		Mailboxes mailboxes = new Mailboxes();
+		mailboxes.file(message("MSG1", "sent", "ada", List.of("bo", "cy")));
+
+		assertThat(mailboxes.mark("MSG1", "bo", "read")).isTrue();
+		assertThat(mailboxes.mark("MSG1", "dan", "read")).isFalse();
+		assertThat(status(mailboxes, "bo")).isEqualTo("read");
+		assertThat(status(mailboxes, "cy")).isEqualTo("unread");
+
+		assertThat(mailboxes.remove("MSG1", "cy")).isTrue();
+		assertThat(mailboxes.find("cy", "inbox").size()).isEqualTo(0L);
+		assertThat(mailboxes.find("bo", "inbox").size()).isEqualTo(1L);
+
+		mailboxes.restatus("MSG1", "unread");
+		assertThat(status(mailboxes, "bo")).isEqualTo("unread");
+		mailboxes.remove("MSG1");
+		assertThat(mailboxes.find("bo", "inbox").size()).isEqualTo(0L);
+		assertThat(mailboxes.find(null, "sent").size()).isEqualTo(0L);
+	}
+
+	@Test
+	void pagesStepOverRemovedMessages() {
+		Mailboxes mailboxes = new Mailboxes();
+		List<String> live = new ArrayList<>();
+		for (int i = 0; i < 100; i++) mailboxes.file(message("MSG" + i, "inbox", "system", List.of("big")));
+		for (int i = 0; i < 100; i++) {
+			if (i % 3 == 0) mailboxes.remove("MSG" + i);
+			else live.add("MSG" + i);
+		}
+		Mailboxes.Folder inbox = mailboxes.find("big", "inbox");
+		assertThat(inbox.size()).isEqualTo((long) live.size());
+
+		for (int offset = 0; offset < live.size(); offset += 7) {
+			assertThat(ids(inbox.page(offset, 7))).isEqualTo(live.subList(offset, Math.min(live.size(), offset + 7)));
+		}
+
+		List<String> walked = new ArrayList<>();
+		String cursor = "";
+		do {
+			CursorPage<Map<String, Object>> page = inbox.page(cursor, 10);
+			walked.addAll(ids(page.items()));
+			cursor = page.nextCursor();
+		} while (cursor != null);
+		assertThat(walked).isEqualTo(live);
+
+		assertThatThrownBy(() -> inbox.page("", 0)).isInstanceOf(Cursor.InvalidPageSizeException.class);
+		assertThatThrownBy(() -> inbox.page("", -10)).isInstanceOf(Cursor.InvalidPageSizeException.class);
+	}
+
+	@Test
+	void countsFollowEveryChange() {
+		Mailboxes mailboxes = new Mailboxes();
+		mailboxes.file(message("MSG1", "sent", "ada", List.of("bo", "cy")));
+		mailboxes.file(message("MSG2", "sent", "cy", List.of("bo")));
+		Mailboxes.Folder inbox = mailboxes.find("bo", "inbox");
+		assertThat(inbox.unread()).isEqualTo(2L);
+
+		mailboxes.mark("MSG1", "bo", "read");
+		mailboxes.mark("MSG1", "bo", "read");
+		assertThat(inbox.unread()).isEqualTo(1L);
+		assertThat(mailboxes.find("cy", "inbox").unread()).isEqualTo(1L);
+
+		mailboxes.restatus("MSG1", "read");
+		assertThat(mailboxes.find("cy", "inbox").unread()).isEqualTo(0L);
+		assertThat(mailboxes.find("ada", "sent").unread()).isEqualTo(0L);
+
+		mailboxes.remove("MSG2", "bo");
+		assertThat(inbox.unread()).isEqualTo(0L);
+		assertThat(inbox.size()).isEqualTo(1L);
+		assertThat(mailboxes.folders("cy").keySet()).containsExactlyInAnyOrder("inbox", "sent");
+		assertThat(mailboxes.folders("nobody")).isEmpty();
+	}
+
+	@Test
+	void aSummaryBuildsItsListViewOnce() {
+		Mailboxes mailboxes = new Mailboxes();
+		mailboxes.file(message("MSG1", "sent", "ada", List.of("bo")));
+
+		Map<String, Object> delivered = mailboxes.find("bo", "inbox").page(0, 10).get(0);
+		assertThat(delivered.entrySet()).isSameAs(delivered.entrySet());
+		assertThat(new HashMap<>(delivered)).isEqualTo(Map.of("messageId", "MSG1", "subject", "Hello", "sender", "ada",
+				"recipients", List.of("bo"), "attachments", List.of(), "category", "inbox", "status", "unread"));
+	}
+
+	private static Map<String, Object> message(String id, String category, String sender, List<String> recipients) {
+		Map<String, Object> message = new HashMap<>();
+		message.put("messageId", id);
+		message.put("subject", "Hello");
+		message.put("body", "Hidden in lists.");
+		message.put("sender", sender);
+		message.put("recipients", recipients);
+		message.put("category", category);
+		message.put("status", "unread");
+		return message;
+	}
+
+	private static Object status(Mailboxes mailboxes, String user) {
+		return mailboxes.find(user, "inbox").page(0, 1).get(0).get("status");
+	}
+
+	private static List<String> ids(List<Map<String, Object>> summaries) {
+		return summaries.stream().map(m -> (String) m.get("messageId")).toList();
+	}
+}
@@ -0,0 +1,78 @@
+package com.turog.mockapi.model.messages;
+
+import com.turog.mockapi.store.ChangeFeed;
+import com.turog.mockapi.store.EntityStore;
+import com.turog.mockapi.store.IdAllocator;
+import com.turog.mockapi.store.Persistence;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageMockControllerTests {
+
+	@TempDir
+	Path dir;
+
+	private final ChangeFeed feed = new ChangeFeed(16, 1, 60);
+
+	@AfterEach
+	void closeFeed() {
+		feed.close();
+	}
+
+	@Test
+	void deletingAMessageForEveryoneDropsTheReceiptsOfUsersWhoAlreadyDeletedTheirCopy() throws IOException {
+		Persistence first = open();
+		MessageMockController messages = new MessageMockController(new IdAllocator("sequential", 3, 0), first, feed);
+		String gone = send(messages);
+		String kept = send(messages);
+		messages.markAsRead(gone, "alice");
+		messages.deleteMessage(gone, "bob");
+		messages.deleteMessage(kept, "bob");
+
+		// bob no longer owns either message, yet his receipt for the deleted one must go with it
+		messages.deleteMessage(gone, null);
+		first.close();
+
+		Persistence second = open();
+		EntityStore<Map<String, Object>> receipts = EntityStore.keyedBy("receipt_id");
+		second.attach("messages.receipts", receipts);
+		assertThat(receipts.snapshot()).extracting(receipt -> receipt.get("receipt_id")).containsExactly(kept + "/bob");
+		second.close();
+	}
+
+	@Test
+	void aStatusForEveryoneLeavesDeletedCopiesDeleted() throws IOException {
+		Persistence first = open();
+		MessageMockController messages = new MessageMockController(new IdAllocator("sequential", 3, 0), first, feed);
+		String id = send(messages);
+		messages.markAsRead(id, "alice");
+		messages.deleteMessage(id, "bob");
+		messages.markAsUnread(id, null);
+		first.close();
+
+		Persistence second = open();
+		EntityStore<Map<String, Object>> receipts = EntityStore.keyedBy("receipt_id");
+		second.attach("messages.receipts", receipts);
+		assertThat(receipts.snapshot()).extracting(receipt -> receipt.get("receipt_id")).containsExactly(id + "/bob");
+		second.close();
+	}
+
+	private Persistence open() throws IOException {
+		return new Persistence(true, dir.toString(), 0, false, 300, JsonMapper.builder().build(), new IdAllocator("sequential", 3, 0));
+	}
+
+	private static String send(MessageMockController messages) {
+		Map<String, Object> sent = messages.sendMessage(Map.of("subject", "Hello", "body", "Hi", "sender", "carol",
+				"recipients", List.of("alice", "bob"))).getBody();
+		return String.valueOf(sent.get("messageId"));
+	}
+}
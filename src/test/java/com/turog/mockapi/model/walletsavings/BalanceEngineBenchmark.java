@@ -0,0 +1,46 @@
+package com.turog.mockapi.model.walletsavings;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deposit/withdraw throughput of {@link BalanceEngine} on one hot account and spread across many
+ * cold ones. Run with {@code -t 1,8,64} to see how each case scales with thread count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(64)
+public class BalanceEngineBenchmark {
+
+	private static final int COLD_ACCOUNTS = 10_000;
+
+	@Param({"false", "true"})
+	boolean overdraftGuard;
+
+	private BalanceEngine engine;
+
+	@Setup(Level.Trial)
+	public void open() {
+		engine = new BalanceEngine(overdraftGuard);
+		engine.open("HOT", 1_000_000);
+		for (int i = 0; i < COLD_ACCOUNTS; i++) engine.open("COLD" + i, 1_000_000);
+	}
+
+	@Benchmark
+	public long hotAccount() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		return engine.post("HOT", 100, random.nextBoolean());
+	}
+
+	@Benchmark
+	public long coldAccounts() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		return engine.post("COLD" + random.nextInt(COLD_ACCOUNTS), 100, random.nextBoolean());
+	}
+}
@@ -0,0 +1,94 @@
+package com.turog.mockapi.model.walletsavings;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BalanceEngineTests {
+
+	private static final int THREADS = 64;
+	private static final int OPS_PER_THREAD = 10_000;
+
+	@Test
+	void hotAccountKeepsEveryPosting() throws Exception {
+		BalanceEngine engine = new BalanceEngine(false);
+		engine.open("HOT", 0);
+
+		runConcurrently(thread -> {
+			for (int i = 0; i < OPS_PER_THREAD; i++) {
+				engine.post("HOT", 3, true);
+				engine.post("HOT", 1, false);
+			}
+		});
+
+		assertThat(engine.get("HOT").minorUnits()).isEqualTo((long) THREADS * OPS_PER_THREAD * 2);
+	}
+
+	@Test
+	void coldAccountsStayIndependent() throws Exception {
+		BalanceEngine engine = new BalanceEngine(false);
+		for (int t = 0; t < THREADS; t++) engine.open("COLD" + t, 10.00);
+
+		runConcurrently(thread -> {
+			for (int i = 0; i < OPS_PER_THREAD; i++) {
+				engine.post("COLD" + thread, 5, true);
+			}
+		});
+
+		for (int t = 0; t < THREADS; t++) {
+			assertThat(engine.get("COLD" + t).minorUnits()).isEqualTo(1_000 + 5L * OPS_PER_THREAD);
+		}
+	}
+
+	@Test
+	void overdraftGuardRejectsDebitsPastZero() throws Exception {
+		BalanceEngine engine = new BalanceEngine(true);
+		engine.open("SAV", 10.00);
+		AtomicInteger accepted = new AtomicInteger();
+
+		runConcurrently(thread -> {
+			for (int i = 0; i < 100; i++) {
+				if (engine.post("SAV", 1, false) != BalanceEngine.REJECTED) accepted.incrementAndGet();
+			}
+		});
+
+		assertThat(accepted.get()).isEqualTo(1_000);
+		assertThat(engine.get("SAV").minorUnits()).isZero();
+	}
+
+	@Test
+	void amountsRoundTripThroughMinorUnits() {
+		assertThat(AccountBalance.toMinor(5000.75)).isEqualTo(500_075);
+		assertThat(AccountBalance.toMinor(0.1 + 0.2)).isEqualTo(30);
+		assertThat(AccountBalance.toAmount(500_075)).isEqualTo(5000.75);
+	}
+
+	private static void runConcurrently(IntConsumer work) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		try {
+			for (int t = 0; t < THREADS; t++) {
+				int thread = t;
+				futures.add(pool.submit(() -> {
+					start.await();
+					work.accept(thread);
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) future.get();
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
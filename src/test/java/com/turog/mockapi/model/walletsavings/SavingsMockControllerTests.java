@@ -0,0 +1,102 @@
+package com.turog.mockapi.model.walletsavings;
+
+import com.turog.mockapi.store.ChangeFeed;
+import com.turog.mockapi.store.IdAllocator;
+import com.turog.mockapi.store.Persistence;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SavingsMockControllerTests {
+
+	private final ChangeFeed feed = new ChangeFeed(16, 1, 60);
+
+	@AfterEach
+	void closeFeed() {
+		feed.close();
+	}
+
+	@Test
+	void depositsAndWithdrawalsRejectAmountsThatAreNotPositive() throws IOException {
+		SavingsMockController savings = controller(true);
+
+		for (Object amount : List.of(-100, 0, "-0.5", "NaN", "Infinity", "ten", 0.001)) {
+			assertThat(savings.deposit(request(amount)).getStatusCode().value()).as("deposit of %s", amount).isEqualTo(400);
+			assertThat(savings.withdraw(request(amount)).getStatusCode().value()).as("withdrawal of %s", amount).isEqualTo(400);
+		}
+		assertThat(savings.deposit(request(null)).getStatusCode().value()).isEqualTo(400);
+		assertThat(balance(savings)).isEqualTo(5000.75);
+
+		// A withdrawal past the balance is still refused by the guard rather than slipping through as a negative deposit
+		assertThat(savings.withdraw(request(6000)).getStatusCode().value()).isEqualTo(400);
+		assertThat(savings.deposit(request("99.25")).getStatusCode().value()).isEqualTo(200);
+		assertThat(savings.withdraw(request(100)).getStatusCode().value()).isEqualTo(200);
+		assertThat(balance(savings)).isEqualTo(5000.00);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void batchDepositsFailItemsThatAreNotPositive() throws IOException {
+		SavingsMockController savings = controller(true);
+		List<Object> deposits = List.of(request(250), request(-6000), request(0), request("NaN"), request(0.004), request("50.50"));
+
+		ResponseEntity<Map<String, Object>> response = savings.depositBatch(Map.of("deposits", deposits));
+
+		assertThat(response.getStatusCode().value()).isEqualTo(200);
+		List<Map<String, Object>> results = (List<Map<String, Object>>) ((Map<String, Object>) response.getBody().get("data")).get("results");
+		assertThat(results).extracting(result -> result.get("status")).containsExactly("success", "error", "error", "error", "error", "success");
+		assertThat(balance(savings)).isEqualTo(5301.25);
+
+		ResponseEntity<Map<String, Object>> atomic = savings.depositBatch(Map.of("deposits", List.of(request(250), request(-1)), "mode", "atomic"));
+		assertThat(atomic.getStatusCode().value()).isEqualTo(400);
+		assertThat(balance(savings)).isEqualTo(5301.25);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void transfersRejectAmountsThatAreNotPositiveBeforeTheyReachTheEngine() throws IOException {
+		SavingsMockController savings = controller(false);
+
+		for (Object amount : List.of(-100, 0, "NaN", "Infinity", "-Infinity", "ten", 0.001)) {
+			ResponseEntity<Map<String, Object>> response = savings.transfer(transfer(amount));
+			assertThat(response.getStatusCode().value()).as("transfer of %s", amount).isEqualTo(400);
+			assertThat(response.getBody()).as("transfer of %s", amount).containsEntry("message", "Invalid amount.");
+		}
+
+		ResponseEntity<Map<String, Object>> batch = savings.transferBatch(Map.of("transfers", List.of(transfer("Infinity"), transfer(0))));
+		List<Map<String, Object>> results = (List<Map<String, Object>>) ((Map<String, Object>) batch.getBody().get("data")).get("results");
+		assertThat(results).extracting(result -> result.get("message")).containsOnly("Invalid amount.");
+		assertThat(balance(savings)).isEqualTo(5000.75);
+	}
+
+	private SavingsMockController controller(boolean overdraftGuard) throws IOException {
+		IdAllocator ids = new IdAllocator("sequential", 3, 0);
+		Persistence memory = new Persistence(false, "data", 2, false, 300, JsonMapper.builder().build(), ids);
+		return new SavingsMockController(ids, memory, feed, overdraftGuard);
+	}
+
+	private static Map<String, Object> request(Object amount) {
+		Map<String, Object> req = new HashMap<>(Map.of("account_id", "SAV001"));
+		req.put("amount", amount);
+		return req;
+	}
+
+	private static Map<String, Object> transfer(Object amount) {
+		Map<String, Object> req = request(amount);
+		req.put("destination_account", "SAV900");
+		return req;
+	}
+
+	private static double balance(SavingsMockController savings) {
+		ResponseEntity<Map<String, Object>> details = savings.getDetails("SAV001");
+		return ((Account) details.getBody().get("data")).balance().amount();
+	}
+}
@@ -0,0 +1,48 @@
+package com.turog.mockapi.model.walletsavings;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link TransferEngine} moving money between random account pairs. Run with
+ * {@code -t 1,8,64} to see how transfers scale as more threads contend for the lock stripes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(64)
+public class TransferEngineBenchmark {
+
+	@Param({"10000"})
+	int accounts;
+
+	@Param({"false", "true"})
+	boolean overdraftGuard;
+
+	private TransferEngine transfers;
+	private String[] ids;
+
+	@Setup(Level.Trial)
+	public void open() {
+		BalanceEngine balances = new BalanceEngine(overdraftGuard);
+		transfers = new TransferEngine(balances);
+		ids = new String[accounts];
+		for (int i = 0; i < accounts; i++) {
+			ids[i] = "SAV" + i;
+			balances.open(ids[i], 1_000_000);
+		}
+	}
+
+	@Benchmark
+	public TransferEngine.Result randomPairs() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int from = random.nextInt(accounts);
+		int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+		return transfers.transfer(ids[from], ids[to], 100);
+	}
+}
@@ -0,0 +1,120 @@
+package com.turog.mockapi.model.walletsavings;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransferEngineTests {
+
+	private static final int THREADS = 64;
+	private static final int OPS_PER_THREAD = 20_000;
+
+	@Test
+	void randomPairTransfersConserveMoney() throws Exception {
+		int accounts = 16;
+		BalanceEngine balances = new BalanceEngine(false);
+		TransferEngine transfers = new TransferEngine(balances);
+		for (int i = 0; i < accounts; i++) balances.open("SAV" + i, 100.00);
+
+		runConcurrently(thread -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			for (int i = 0; i < OPS_PER_THREAD; i++) {
+				int from = random.nextInt(accounts);
+				int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+				transfers.transfer("SAV" + from, "SAV" + to, 1 + random.nextInt(500));
+			}
+		});
+
+		assertThat(total(balances, accounts)).isEqualTo(accounts * 10_000L);
+	}
+
+	@Test
+	void overdraftGuardHoldsAcrossTransfers() throws Exception {
+		BalanceEngine balances = new BalanceEngine(true);
+		TransferEngine transfers = new TransferEngine(balances);
+		balances.open("A", 1.00);
+		balances.open("B", 1.00);
+
+		runConcurrently(thread -> {
+			for (int i = 0; i < OPS_PER_THREAD; i++) {
+				if (thread % 2 == 0) transfers.transfer("A", "B", 7);
+				else transfers.transfer("B", "A", 7);
+			}
+		});
+
+		assertThat(balances.get("A").minorUnits()).isGreaterThanOrEqualTo(0L);
+		assertThat(balances.get("B").minorUnits()).isGreaterThanOrEqualTo(0L);
+		assertThat(total(balances, "A", "B")).isEqualTo(200L);
+	}
+
+	@Test
+	void closeMovesWholeBalance() {
+		BalanceEngine balances = new BalanceEngine(false);
+		TransferEngine transfers = new TransferEngine(balances);
+		balances.open("OLD", 12.34);
+		balances.open("NEW", 1.00);
+
+		TransferEngine.Result result = transfers.closeInto("OLD", "NEW");
+
+		assertThat(result.ok()).isTrue();
+		assertThat(result.amount()).isEqualTo(1_234L);
+		assertThat(balances.get("OLD").minorUnits()).isZero();
+		assertThat(balances.get("NEW").minorUnits()).isEqualTo(1_334L);
+	}
+
+	@Test
+	void rejectsUnknownOrSameAccount() {
+		BalanceEngine balances = new BalanceEngine(false);
+		TransferEngine transfers = new TransferEngine(balances);
+		balances.open("A", 1.00);
+
+		assertThat(transfers.transfer("A", "A", 10).ok()).isFalse();
+		assertThat(transfers.transfer("A", "MISSING", 10).ok()).isFalse();
+		assertThat(transfers.transfer("MISSING", "A", 10).ok()).isFalse();
+		assertThat(transfers.transfer("A", "A", 0).ok()).isFalse();
+		assertThat(balances.get("A").minorUnits()).isEqualTo(100L);
+	}
+
+	private static long total(BalanceEngine balances, int accounts) {
+		long total = 0;
+		for (int i = 0; i < accounts; i++) total += balances.get("SAV" + i).minorUnits();
+		return total;
+	}
+
+	private static long total(BalanceEngine balances, String... ids) {
+		long total = 0;
+		for (String id : ids) total += balances.get(id).minorUnits();
+		return total;
+	}
+
+	// A deadlock would surface here as a timeout rather than a hung build
+	private static void runConcurrently(IntConsumer work) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		try {
+			for (int t = 0; t < THREADS; t++) {
+				int thread = t;
+				futures.add(pool.submit(() -> {
+					start.await();
+					work.accept(thread);
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) future.get(60, TimeUnit.SECONDS);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
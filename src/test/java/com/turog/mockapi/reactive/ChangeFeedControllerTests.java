@@ -0,0 +1,118 @@
+package com.turog.mockapi.reactive;
+
+import com.turog.mockapi.store.ChangeFeed;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webtestclient.autoconfigure.AutoConfigureWebTestClient;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "mockapi.feed.buffer=4")
+@AutoConfigureWebTestClient
+class ChangeFeedControllerTests {
+
+	private static final ParameterizedTypeReference<ServerSentEvent<String>> EVENT = new ParameterizedTypeReference<>() {};
+
+	@Autowired
+	private WebTestClient client;
+
+	@Autowired
+	private ChangeFeed feed;
+
+	@Test
+	void aSubscriberThatFellBehindGetsCoalescedStateAndACountOfWhatWasDropped() throws InterruptedException {
+		ChangeFeed.Topic accounts = feed.topic("accounts").orElseThrow();
+		BlockingQueue<String> received = new LinkedBlockingQueue<>();
+		Disposable subscription = subscribe("/events/accounts?account_id=SAV900", received);
+		try {
+			assertThat(take(received, 1)).containsExactly("heartbeat");
+
+			// Holds the delivery thread inside the first send, so everything after it waits in the buffer
+			CountDownLatch sending = new CountDownLatch(1);
+			CountDownLatch release = new CountDownLatch(1);
+			accounts.publish("SAV900", "transaction", null, () -> {
+				sending.countDown();
+				hold(release);
+				return "TXN1";
+			});
+			assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+
+			// Four places: TXN2 is pushed out by the balance, and the balances take one place between them
+			AtomicInteger balance = new AtomicInteger();
+			for (int i = 2; i <= 5; i++) {
+				int n = i;
+				accounts.publish("SAV900", "transaction", null, () -> "TXN" + n);
+			}
+			for (int i = 1; i <= 3; i++) {
+				balance.set(i * 100);
+				accounts.publish("SAV900", "balance", "balance", balance::get);
+			}
+			accounts.publish("SAV901", "balance", "balance", () -> 1);
+			release.countDown();
+
+			assertThat(take(received, 6)).containsExactly("transaction=TXN1", "dropped={\"dropped\":1}",
+					"transaction=TXN3", "transaction=TXN4", "transaction=TXN5", "balance=300");
+			assertThat(received.poll(200, TimeUnit.MILLISECONDS)).isNull();
+		} finally {
+			subscription.dispose();
+		}
+
+		// A closed connection ends the subscription
+		await().atMost(Duration.ofSeconds(5)).until(() -> feed.subscribers() == 0);
+	}
+
+	@Test
+	void topicsAreListedAndAnUnknownOneIsNotFound() {
+		client.get().uri("/events").exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.data.topics.accounts.key").isEqualTo("account_id")
+				.jsonPath("$.data.topics.messages.key").isEqualTo("user");
+
+		client.get().uri("/events/nothing").accept(MediaType.TEXT_EVENT_STREAM).exchange().expectStatus().isNotFound();
+	}
+
+	// Events as type=data, heartbeats as "heartbeat"
+	private Disposable subscribe(String uri, BlockingQueue<String> received) {
+		return client.get().uri(uri).accept(MediaType.TEXT_EVENT_STREAM).exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+				.returnResult(EVENT).getResponseBody()
+				.subscribe(event -> received.add(event.event() == null ? event.comment() : event.event() + "=" + event.data()));
+	}
+
+	// The next n deliveries, or fewer if they are slow to come
+	private static List<String> take(BlockingQueue<String> received, int n) throws InterruptedException {
+		List<String> taken = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			String next = received.poll(5, TimeUnit.SECONDS);
+			if (next == null) break;
+			taken.add(next);
+		}
+		return taken;
+	}
+
+	private static void hold(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package com.turog.mockapi.reactive;
+
+import com.turog.mockapi.store.IdAllocator;
+import com.turog.mockapi.store.Persistence;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(OutputCaptureExtension.class)
+class DurableWritesWarningTests {
+
+	private static final String WARNING = "mockapi.persistence.durable-responses is not supported on WebFlux";
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void warnsOnlyWhenResponsesWereMeantToWaitForTheirWrites(CapturedOutput output) throws IOException {
+		Persistence memory = open(false, true);
+		try {
+			new DurableWritesWarning(memory);
+			assertThat(output).doesNotContain(WARNING);
+		} finally {
+			memory.close();
+		}
+
+		Persistence eager = open(true, false);
+		try {
+			new DurableWritesWarning(eager);
+			assertThat(output).doesNotContain(WARNING);
+		} finally {
+			eager.close();
+		}
+
+		Persistence durable = open(true, true);
+		try {
+			new DurableWritesWarning(durable);
+			assertThat(output).contains(WARNING);
+		} finally {
+			durable.close();
+		}
+	}
+
+	private Persistence open(boolean enabled, boolean durableResponses) throws IOException {
+		return new Persistence(enabled, dir.toString(), 0, durableResponses, 300, JsonMapper.builder().build(), new IdAllocator("sequential", 3, 0));
+	}
+}
@@ -0,0 +1,61 @@
+package com.turog.mockapi.reactive;
+
+import com.turog.mockapi.store.Exporter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webtestclient.autoconfigure.AutoConfigureWebTestClient;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItems;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "mockapi.seed.records=2000")
+@AutoConfigureWebTestClient
+class ExportControllerTests {
+
+	private static final ParameterizedTypeReference<Map<String, Object>> ROW = new ParameterizedTypeReference<>() {};
+
+	@Autowired
+	private WebTestClient client;
+
+	@Test
+	void aCollectionStreamsOneJsonRowPerLine() {
+		List<Map<String, Object>> rows = export("/export/clients");
+		assertThat(rows).hasSizeGreaterThan(1000);
+		assertThat(rows.get(0)).containsEntry("client_id", "CL001").containsEntry("status", "Active");
+		assertThat(rows).extracting(row -> row.get("client_id")).doesNotHaveDuplicates();
+
+		List<Map<String, Object>> active = export("/export/clients?status=Active");
+		assertThat(active).isNotEmpty().hasSizeLessThan(rows.size()).allSatisfy(row -> assertThat(row).containsEntry("status", "Active"));
+		assertThat(active).containsExactlyElementsOf(rows.stream().filter(row -> "Active".equals(row.get("status"))).toList());
+	}
+
+	@Test
+	void collectionsAreListedAndAnUnknownOneIsNotFound() {
+		client.get().uri("/export").exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.data.collections").value(hasItems("clients", "cards"));
+
+		client.get().uri("/export/nothing").exchange()
+				.expectStatus().isNotFound()
+				.expectBody()
+				.jsonPath("$.status").isEqualTo("error");
+	}
+
+	// Decoded as the stream arrives, a row at a time, rather than buffered whole
+	private List<Map<String, Object>> export(String uri) {
+		return client.get().uri(uri).exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(MediaType.parseMediaType(Exporter.NDJSON))
+				.returnResult(ROW).getResponseBody()
+				.collectList().block(Duration.ofSeconds(30));
+	}
+}
@@ -0,0 +1,41 @@
+package com.turog.mockapi.reactive;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webtestclient.autoconfigure.AutoConfigureWebTestClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "mockapi.latency.routes=GET /export/{collection}=fixed(500)")
+@AutoConfigureWebTestClient
+class LatencyWebFilterTests {
+
+	@Autowired
+	private WebTestClient client;
+
+	@Test
+	void onlyTheProfiledRouteIsHeldBackAndItsAnswerStillArrivesWhole() {
+		long begin = System.nanoTime();
+		String body = client.get().uri("/export/clients").exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class).returnResult().getResponseBody();
+		assertThat(millisSince(begin)).isGreaterThanOrEqualTo(500);
+		assertThat(body).contains("\"client_id\":\"CL001\"");
+
+		// Errors wait too: the route is matched before the handler fails
+		begin = System.nanoTime();
+		client.get().uri("/export/nothing").exchange().expectStatus().isNotFound().expectBody(String.class);
+		assertThat(millisSince(begin)).isGreaterThanOrEqualTo(500);
+
+		begin = System.nanoTime();
+		client.get().uri("/export").exchange().expectStatus().isOk().expectBody(String.class);
+		assertThat(millisSince(begin)).isLessThan(500);
+	}
+
+	private static long millisSince(long begin) {
+		return (System.nanoTime() - begin) / 1_000_000;
+	}
+}
@@ -0,0 +1,39 @@
+package com.turog.mockapi.reactive;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webtestclient.autoconfigure.AutoConfigureWebTestClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThan;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+class MetricsWebFilterTests {
+
+	private static final String EXPORT = "$.data.routes[?(@.method == 'GET' && @.route == '/export/{collection}')]";
+
+	@Autowired
+	private WebTestClient client;
+
+	@Test
+	void requestsAreCountedUnderTheirRouteWithErrorsAndBytes() {
+		client.get().uri("/export/clients").exchange().expectStatus().isOk().expectBody(String.class);
+		client.get().uri("/export/clients?status=Active").exchange().expectStatus().isOk().expectBody(String.class);
+		client.get().uri("/export/nothing").exchange().expectStatus().isNotFound().expectBody(String.class);
+
+		// A request is recorded once its response is written, which the client can see a moment earlier
+		await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> client.get().uri("/admin/metrics").exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath(EXPORT + ".requests").value(contains(3))
+				.jsonPath(EXPORT + ".errors").value(contains(1))
+				.jsonPath(EXPORT + ".response_bytes").value(everyItem(greaterThan(0))));
+	}
+}
@@ -0,0 +1,60 @@
+package com.turog.mockapi.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchTests {
+
+	@Test
+	void bestEffortReportsBadItemsAndKeepsTheRest() {
+		Batch batch = Batch.of(Map.of("clients", List.of(Map.of("name", "A"), "not an object", Map.of("name", "B"))), "clients");
+		assertThat(batch.mode()).isEqualTo(Batch.Mode.BEST_EFFORT);
+		assertThat(batch.valid().stream().map(Batch.Item::index).toList()).containsExactly(0, 2);
+
+		batch.fail(2, "name is taken.");
+		assertThat(batch.rejected()).isFalse();
+		for (Batch.Item item : batch.valid()) batch.succeed(item.index(), "Created.", Map.of("id", "CL" + item.index()));
+
+		Map<String, Object> data = data(batch);
+		assertThat(batch.body().get("status")).isEqualTo("success");
+		assertThat(data.get("succeeded")).isEqualTo(1);
+		assertThat(data.get("failed")).isEqualTo(2);
+		assertThat(statuses(data)).containsExactly("success", "error", "error");
+	}
+
+	@Test
+	void atomicBatchWithABadItemIsRejectedWhole() {
+		Batch batch = Batch.of(Map.of("mode", "atomic", "cards", List.of(Map.of("card_type", "Virtual"), Map.of())), "cards");
+		batch.fail(1, "client_id and card_type are required.");
+
+		assertThat(batch.rejected()).isTrue();
+		assertThat(batch.body().get("status")).isEqualTo("error");
+		assertThat(batch.body().get("message")).isEqualTo("Batch rejected: 1 of 2 cards are invalid, so none were applied.");
+		assertThat(statuses(data(batch))).containsExactly("skipped", "error");
+	}
+
+	@Test
+	void requestMustCarryAListAndAKnownMode() {
+		assertThatThrownBy(() -> Batch.of(Map.of("deposits", "none"), "deposits"))
+				.isInstanceOf(Batch.InvalidBatchException.class)
+				.hasMessage("deposits must be a list.");
+		assertThatThrownBy(() -> Batch.of(Map.of("mode", "mostly", "deposits", List.of()), "deposits"))
+				.isInstanceOf(Batch.InvalidBatchException.class)
+				.hasMessage("mode must be best_effort or atomic, not: mostly");
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> data(Batch batch) {
+		return (Map<String, Object>) batch.body().get("data");
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Object> statuses(Map<String, Object> data) {
+		return ((List<Map<String, Object>>) data.get("results")).stream().map(r -> r.get("status")).toList();
+	}
+}
@@ -0,0 +1,123 @@
+package com.turog.mockapi.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkSeederTests {
+
+	@Test
+	void sameSeedGivesTheSameRowsInTheSameOrder() {
+		Domains first = new Domains();
+		Domains second = new Domains();
+
+		first.seeder(4).seed(42, Map.of("clients", 20_000L, "cards", 30_000L));
+		second.seeder(1).seed(42, Map.of("clients", 20_000L, "cards", 30_000L));
+
+		assertThat(first.clients.rows.size()).isEqualTo(20_000);
+		assertThat(first.cards.rows.size()).isEqualTo(30_000);
+		assertThat(first.clients.rows.snapshot()).isEqualTo(second.clients.rows.snapshot());
+		assertThat(first.cards.rows.snapshot()).isEqualTo(second.cards.rows.snapshot());
+	}
+
+	@Test
+	void linkedRowsPointAtClientsOfTheSameRun() {
+		Domains domains = new Domains();
+		domains.clients.rows.add("CL001|seed row");
+
+		domains.seeder(2).seed(7, Map.of("clients", 100L, "cards", 1_000L));
+
+		for (String card : domains.cards.rows.snapshot()) {
+			String client = card.split("\\|")[1];
+			assertThat(domains.clients.rows.contains(client)).isTrue();
+			assertThat(client).isNotEqualTo("CL001");
+		}
+	}
+
+	@Test
+	void finishRunsOnceAfterEveryRangeIsLoaded() {
+		Domains domains = new Domains();
+
+		domains.seeder(4).seed(3, Map.of("clients", 50_000L));
+
+		assertThat(domains.clients.finished).containsExactly(50_000);
+		assertThat(domains.cards.finished).isEmpty();
+	}
+
+	@Test
+	void rejectsUnknownDomainsAndLinkedDomainsWithoutClients() {
+		BulkSeeder seeder = new Domains().seeder(1);
+
+		assertThatThrownBy(() -> seeder.seed(1, Map.of("nope", 10L)))
+				.isInstanceOf(BulkSeeder.InvalidSeedException.class)
+				.hasMessage("Unknown domain: nope.");
+		assertThatThrownBy(() -> seeder.seed(1, Map.of("cards", 10L)))
+				.isInstanceOf(BulkSeeder.InvalidSeedException.class)
+				.hasMessage("cards link to clients, so clients must be seeded in the same run.");
+	}
+
+	// Rows are "id|name" for clients and "id|client" for cards
+	private static final class Domains {
+
+		final IdAllocator ids = new IdAllocator("sequential", 3, 0);
+		final Domain clients = new Domain("clients", ids.sequence("CL", 2), false);
+		final Domain cards = new Domain("cards", ids.sequence("CD", 1), true);
+
+		BulkSeeder seeder(int parallelism) {
+			return new BulkSeeder(List.of(cards, clients), 0, 42, parallelism);
+		}
+	}
+
+	private static final class Domain implements Seedable {
+
+		final EntityStore<String> rows = new EntityStore<>(row -> row.substring(0, row.indexOf('|')));
+		// Rows in the store each time finish() ran
+		final List<Integer> finished = new ArrayList<>();
+		private final String name;
+		private final IdAllocator.Sequence ids;
+		private final boolean linked;
+
+		Domain(String name, IdAllocator.Sequence ids, boolean linked) {
+			this.name = name;
+			this.ids = ids;
+			this.linked = linked;
+		}
+
+		@Override
+		public String domain() {
+			return name;
+		}
+
+		@Override
+		public boolean linksToClients() {
+			return linked;
+		}
+
+		@Override
+		public Loader prepare(SeedRun run, long count) {
+			IdAllocator.Sequence.Block block = ids.reserve(count);
+			EntityStore<String>.Block positions = rows.reserve(count);
+			if (!linked) run.clients(block);
+			return new Loader() {
+				@Override
+				public void load(long from, long to) {
+					for (long i = from; i < to; i++) {
+						SeedRandom random = run.random(name, i);
+						String value = linked ? run.clientId(run.client(random)) : random.name();
+						positions.put(i, block.id(i) + "|" + value);
+					}
+				}
+
+				@Override
+				public void finish() {
+					finished.add(rows.size());
+				}
+			};
+		}
+	}
+}
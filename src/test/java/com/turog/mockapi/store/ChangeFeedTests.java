@@ -0,0 +1,155 @@
+package com.turog.mockapi.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeFeedTests {
+
+	@Test
+	void aBusySubscriberGetsTheLatestStateAndACountOfWhatWasDropped() throws InterruptedException {
+		ChangeFeed feed = new ChangeFeed(3, 2, 60);
+		try {
+			ChangeFeed.Topic accounts = feed.declare("accounts", "account_id");
+			RecordingSink sink = new RecordingSink(false);
+			ChangeFeed.Subscription subscription = accounts.subscribe(Map.of("account_id", "SAV001"), sink);
+
+			// Five balances take one place in line and are read when sent; null data is skipped
+			AtomicInteger balance = new AtomicInteger();
+			for (int i = 1; i <= 5; i++) {
+				balance.set(i * 100);
+				accounts.publish("SAV001", "balance", "balance", balance::get);
+			}
+			accounts.publish("SAV002", "balance", "balance", () -> 1);
+			accounts.publish("SAV001", "transaction", null, () -> "TXN1");
+			accounts.publish("SAV001", "transaction", null, () -> null);
+			balance.set(700);
+
+			sink.ready = true;
+			subscription.signal();
+			assertThat(sink.take(2)).containsExactly("balance=700", "transaction=TXN1");
+			sink.nothingMore();
+
+			// Past three places the oldest go, and the count is sent first
+			sink.ready = false;
+			for (int i = 2; i <= 6; i++) {
+				int n = i;
+				accounts.publish("SAV001", "transaction", null, () -> "TXN" + n);
+			}
+			sink.ready = true;
+			subscription.signal();
+			assertThat(sink.take(4)).containsExactly("dropped={dropped=2}", "transaction=TXN4", "transaction=TXN5", "transaction=TXN6");
+			sink.nothingMore();
+		} finally {
+			feed.close();
+		}
+	}
+
+	@Test
+	void eachSubscriberSeesItsOwnKeyOrEveryKey() throws InterruptedException {
+		ChangeFeed feed = new ChangeFeed(16, 2, 60);
+		try {
+			ChangeFeed.Topic messages = feed.declare("messages", "user");
+			RecordingSink mine = new RecordingSink(true);
+			RecordingSink everyone = new RecordingSink(true);
+			ChangeFeed.Subscription subscription = messages.subscribe(Map.of("user", "user123"), mine);
+			messages.subscribe(Map.of(), everyone);
+			assertThat(mine.take(1)).containsExactly("heartbeat");
+			assertThat(everyone.take(1)).containsExactly("heartbeat");
+
+			messages.publish("user123", "message", null, () -> "MSG1");
+			messages.publish("user5", "message", null, () -> "MSG1");
+			// The same coalesce key under different users never merges
+			messages.publish("user123", "read_state", "MSG1", () -> "read");
+			messages.publish("user5", "read_state", "MSG1", () -> "read");
+
+			assertThat(mine.take(2)).containsExactly("message=MSG1", "read_state=read");
+			assertThat(everyone.take(4)).containsExactly("message=MSG1", "message=MSG1", "read_state=read", "read_state=read");
+			assertThat(feed.topics().get("messages")).containsEntry("subscribers", 2);
+
+			subscription.close();
+			messages.publish("user123", "message", null, () -> "MSG2");
+			assertThat(everyone.take(1)).containsExactly("message=MSG2");
+			mine.nothingMore();
+			assertThat(feed.subscribers()).isEqualTo(1);
+		} finally {
+			feed.close();
+		}
+	}
+
+	@Test
+	void aFailedSendEndsTheSubscription() throws InterruptedException {
+		ChangeFeed feed = new ChangeFeed(16, 1, 60);
+		try {
+			ChangeFeed.Topic messages = feed.declare("messages", "user");
+			RecordingSink sink = new RecordingSink(true) {
+				@Override
+				public void send(ChangeFeed.Event event) throws IOException {
+					throw new IOException("Broken pipe");
+				}
+			};
+			messages.subscribe(Map.of("user", "user123"), sink);
+			assertThat(sink.take(1)).containsExactly("heartbeat");
+			messages.publish("user123", "message", null, () -> "MSG1");
+
+			assertThat(sink.take(1)).containsExactly("complete");
+			assertThat(feed.subscribers()).isZero();
+		} finally {
+			feed.close();
+		}
+	}
+
+	private static class RecordingSink implements ChangeFeed.Sink {
+
+		private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+		volatile boolean ready;
+
+		RecordingSink(boolean ready) {
+			this.ready = ready;
+		}
+
+		// The next n deliveries, or fewer if they are slow to come
+		List<String> take(int n) throws InterruptedException {
+			List<String> taken = new ArrayList<>();
+			for (int i = 0; i < n; i++) {
+				String next = received.poll(5, TimeUnit.SECONDS);
+				if (next == null) break;
+				taken.add(next);
+			}
+			return taken;
+		}
+
+		void nothingMore() throws InterruptedException {
+			assertThat(received.poll(200, TimeUnit.MILLISECONDS)).isNull();
+		}
+
+		@Override
+		public boolean ready() {
+			return ready;
+		}
+
+		@Override
+		public void send(ChangeFeed.Event event) throws IOException {
+			received.add(event.type() + "=" + event.data());
+		}
+
+		@Override
+		public void heartbeat() {
+			received.add("heartbeat");
+		}
+
+		@Override
+		public void complete() {
+			received.add("complete");
+		}
+	}
+}
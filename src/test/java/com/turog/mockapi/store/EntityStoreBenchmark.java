@@ -0,0 +1,77 @@
+package com.turog.mockapi.store;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lookup and insert cost of {@link EntityStore} against the {@code CopyOnWriteArrayList} scan it
+ * replaced. The store numbers should stay flat across sizes; the list numbers grow with it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityStoreBenchmark {
+
+	@Param({"1000", "100000", "1000000"})
+	int size;
+
+	private EntityStore<Map<String, Object>> store;
+	private List<Map<String, Object>> list;
+	private final AtomicLong nextId = new AtomicLong();
+
+	@Setup(Level.Trial)
+	public void seed() {
+		store = EntityStore.keyedBy("client_id");
+		List<Map<String, Object>> rows = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			Map<String, Object> row = row("CL" + i);
+			store.add(row);
+			rows.add(row);
+		}
+		list = new CopyOnWriteArrayList<>(rows);
+		nextId.set(size);
+	}
+
+	@Benchmark
+	public Map<String, Object> storeGet() {
+		return store.get("CL" + ThreadLocalRandom.current().nextInt(size));
+	}
+
+	@Benchmark
+	public boolean storeInsertRemove() {
+		String id = "CL" + nextId.getAndIncrement();
+		store.add(row(id));
+		return store.remove(id);
+	}
+
+	@Benchmark
+	public Map<String, Object> listScanGet() {
+		String id = "CL" + ThreadLocalRandom.current().nextInt(size);
+		return list.stream().filter(c -> c.get("client_id").equals(id)).findFirst().orElse(null);
+	}
+
+	@Benchmark
+	public Map<String, Object> listAppendRemove() {
+		list.add(row("CL" + nextId.getAndIncrement()));
+		return list.remove(list.size() - 1);
+	}
+
+	private static Map<String, Object> row(String id) {
+		Map<String, Object> row = new HashMap<>();
+		row.put("client_id", id);
+		row.put("name", "Client " + id);
+		row.put("status", "Active");
+		return row;
+	}
+}
@@ -0,0 +1,176 @@
+package com.turog.mockapi.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EntityStoreTests {
+
+	private static final int THREADS = 64;
+	private static final int ROWS_PER_THREAD = 2_000;
+
+	@Test
+	void rowsKeepInsertionOrderAndReplacementsKeepTheirPlace() {
+		EntityStore<String> store = new EntityStore<>(row -> row.substring(0, 2));
+		store.add("R3-a");
+		store.add("R1-a");
+		store.add("R2-a");
+
+		store.add("R1-b");
+
+		assertThat(store.snapshot()).containsExactly("R3-a", "R1-b", "R2-a");
+		assertThat(store.get("R1")).isEqualTo("R1-b");
+		assertThat(store.size()).isEqualTo(3);
+	}
+
+	@Test
+	void removedRowsLeaveEveryView() {
+		EntityStore<String> store = new EntityStore<>(id -> id);
+		for (int i = 1; i <= 5; i++) store.add("R" + i);
+
+		assertThat(store.remove("R2")).isTrue();
+		assertThat(store.remove("R2")).isFalse();
+		assertThat(store.remove(null)).isFalse();
+		assertThat(store.removeIf(id -> id.equals("R4") || id.equals("R9"))).isTrue();
+
+		assertThat(store.snapshot()).containsExactly("R1", "R3", "R5");
+		assertThat(store.contains("R2")).isFalse();
+		assertThat(store.find("R4")).isEmpty();
+		assertThat(store.size()).isEqualTo(3);
+
+		// A row added again after removal goes to the end
+		store.add("R2");
+		assertThat(store.snapshot()).containsExactly("R1", "R3", "R5", "R2");
+	}
+
+	@Test
+	void concurrentPutsKeepEveryRowOnceAndEachWritersOrder() throws Exception {
+		EntityStore<String> store = new EntityStore<>(row -> row.substring(0, row.indexOf('#')));
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		try {
+			for (int t = 0; t < THREADS; t++) {
+				int thread = t;
+				futures.add(pool.submit(() -> {
+					start.await();
+					for (int i = 0; i < ROWS_PER_THREAD; i++) {
+						store.add("T" + thread + "-" + i + "#");
+						// Every thread also rewrites the same few shared rows
+						store.add("S" + (i % 16) + "#" + thread);
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) future.get();
+		} finally {
+			pool.shutdownNow();
+		}
+
+		List<String> rows = store.snapshot();
+		assertThat(store.size()).isEqualTo(THREADS * ROWS_PER_THREAD + 16);
+		assertThat(rows).hasSize(store.size()).doesNotHaveDuplicates();
+		int[] next = new int[THREADS];
+		for (String row : rows) {
+			if (!row.startsWith("T")) continue;
+			int thread = Integer.parseInt(row.substring(1, row.indexOf('-')));
+			assertThat(row).isEqualTo("T" + thread + "-" + next[thread]++ + "#");
+		}
+		assertThat(next).containsOnly(ROWS_PER_THREAD);
+	}
+
+	@Test
+	void cursorPagesStayStableWhileRowsChange() {
+		EntityStore<String> store = new EntityStore<>(id -> id);
+		for (int i = 1; i <= 6; i++) store.add("R" + i);
+
+		CursorPage<String> first = store.page("", 2);
+		assertThat(first.items()).containsExactly("R1", "R2");
+
+		// Deleting rows already read and appending new ones must not shift the next page
+		store.remove("R1");
+		store.remove("R2");
+		store.add("R7");
+		CursorPage<String> second = store.page(first.nextCursor(), 2);
+		assertThat(second.items()).containsExactly("R3", "R4");
+
+		List<String> rest = new ArrayList<>();
+		CursorPage<String> page = store.page(second.nextCursor(), 2);
+		rest.addAll(page.items());
+		while (page.hasMore()) {
+			page = store.page(page.nextCursor(), 2);
+			rest.addAll(page.items());
+		}
+		assertThat(rest).containsExactly("R5", "R6", "R7");
+	}
+
+	@Test
+	void filteredCursorPagesSkipNonMatchingRows() {
+		EntityStore<String> store = new EntityStore<>(id -> id);
+		for (int i = 1; i <= 10; i++) store.add("R" + i);
+
+		CursorPage<String> page = store.page("", 2, id -> id.endsWith("0") || id.endsWith("5"));
+
+		assertThat(page.items()).containsExactly("R5", "R10");
+		assertThat(page.hasMore()).isFalse();
+	}
+
+	@Test
+	void updateSwapsTheRowInPlace() {
+		EntityStore<String> store = new EntityStore<>(id -> id.substring(0, 2));
+		store.add("R1-a");
+		store.add("R2-a");
+		store.add("R3-a");
+
+		assertThat(store.update("R2", row -> "R2-b")).isEqualTo("R2-b");
+		assertThat(store.update("R9", row -> "R9-b")).isNull();
+
+		assertThat(store.get("R2")).isEqualTo("R2-b");
+		assertThat(store.snapshot()).containsExactly("R1-a", "R2-b", "R3-a");
+		assertThat(store.contains("R9")).isFalse();
+	}
+
+	@Test
+	void reservedBlockKeepsIndexOrderWhateverTheWriteOrder() {
+		EntityStore<String> store = new EntityStore<>(id -> id.substring(0, 2));
+		store.add("A0-a");
+		EntityStore<String>.Block block = store.reserve(3);
+		store.add("Z0-a");
+		block.put(2, "B2-a");
+		block.put(0, "B0-a");
+		block.put(1, "B1-a");
+
+		assertThat(store.snapshot()).containsExactly("A0-a", "B0-a", "B1-a", "B2-a", "Z0-a");
+	}
+
+	@Test
+	void pageSizesBelowOneAreRejectedAndLargeOnesCapped() {
+		EntityStore<String> store = new EntityStore<>(id -> id);
+		for (int i = 1; i <= Cursor.MAX_PAGE_SIZE + 5; i++) store.add("R" + i);
+
+		// 0 would hand back the same cursor forever, and a negative size the whole table at once
+		assertThatThrownBy(() -> store.page("", 0)).isInstanceOf(Cursor.InvalidPageSizeException.class);
+		assertThatThrownBy(() -> store.page("", -1)).isInstanceOf(Cursor.InvalidPageSizeException.class);
+
+		CursorPage<String> capped = store.page("", Integer.MAX_VALUE);
+		assertThat(capped.items()).hasSize(Cursor.MAX_PAGE_SIZE);
+		assertThat(capped.pageSize()).isEqualTo(Cursor.MAX_PAGE_SIZE);
+		assertThat(store.page(capped.nextCursor(), Integer.MAX_VALUE).items()).hasSize(5);
+	}
+
+	@Test
+	void rejectsForgedCursors() {
+		EntityStore<String> store = new EntityStore<>(id -> id);
+		assertThatThrownBy(() -> store.page("not-a-cursor", 2)).isInstanceOf(Cursor.InvalidCursorException.class);
+		assertThat(Cursor.decode(Cursor.encode(123_456_789L))).isEqualTo(123_456_789L);
+	}
+}
@@ -0,0 +1,76 @@
+package com.turog.mockapi.store;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExporterTests {
+
+	private final JsonMapper mapper = JsonMapper.builder().build();
+
+	@Test
+	void writesOneLinePerRowAndClosesTheRows() {
+		Exporter exporter = new Exporter(List.of(), mapper);
+		AtomicBoolean closed = new AtomicBoolean();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		long written = exporter.write(Stream.of(Map.of("id", "A"), Map.of("id", "B")).onClose(() -> closed.set(true)), out);
+
+		assertThat(written).isEqualTo(2L);
+		assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("{\"id\":\"A\"}\n{\"id\":\"B\"}\n");
+		assertThat(closed.get()).isTrue();
+	}
+
+	@Test
+	void flushesWholeGroupsOfRows() {
+		Exporter exporter = new Exporter(List.of(), mapper);
+		List<String> flushed = new ArrayList<>();
+		ByteArrayOutputStream out = new ByteArrayOutputStream() {
+			@Override
+			public void flush() {
+				flushed.add(toString(StandardCharsets.UTF_8));
+			}
+		};
+
+		exporter.write(IntStream.range(0, Exporter.FLUSH_EVERY * 2 + 1).mapToObj(i -> Map.of("n", i)), out);
+
+		assertThat(flushed.size() >= 2).isTrue();
+		assertThat(flushed.get(0).split("\n").length).isEqualTo(Exporter.FLUSH_EVERY);
+		assertThat(flushed.get(1).split("\n").length).isEqualTo(Exporter.FLUSH_EVERY * 2);
+	}
+
+	@Test
+	void namesCollectionsAndRefusesUnknownOnes() {
+		Exporter exporter = new Exporter(List.of(exportable("clients"), exportable("cards")), mapper);
+		assertThat(exporter.collections()).containsExactly("cards", "clients");
+		assertThat(exporter.rows("clients", Map.of("status", "active")).count()).isEqualTo(1L);
+		assertThatThrownBy(() -> exporter.rows("loans", Map.of())).isInstanceOf(Exporter.UnknownCollectionException.class);
+		assertThatThrownBy(() -> new Exporter(List.of(exportable("clients"), exportable("clients")), mapper))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	private static Exportable exportable(String name) {
+		return new Exportable() {
+			@Override
+			public String collection() {
+				return name;
+			}
+
+			@Override
+			public Stream<?> export(Map<String, String> filters) {
+				return Stream.of("Active", "Inactive").filter(status -> Exportable.matches(filters, "status", status));
+			}
+		};
+	}
+}
@@ -0,0 +1,34 @@
+package com.turog.mockapi.store;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation throughput of {@link IdAllocator} with every thread drawing from one prefix. Run with
+ * {@code -t 1,8,64} to see how the shared sequence scales.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class IdAllocatorBenchmark {
+
+	@Param({"sequential", "time-ordered"})
+	String mode;
+
+	private IdAllocator.Sequence sequence;
+
+	@Setup(Level.Trial)
+	public void create() {
+		sequence = new IdAllocator(mode, 3, 0).sequence("TXN", 500);
+	}
+
+	@Benchmark
+	public String next() {
+		return sequence.next();
+	}
+}
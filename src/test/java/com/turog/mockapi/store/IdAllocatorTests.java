@@ -0,0 +1,104 @@
+package com.turog.mockapi.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdAllocatorTests {
+
+	private static final int THREADS = 8;
+	private static final int IDS_PER_THREAD = 10_000;
+
+	@Test
+	void sequentialIdsNeverRepeatAcrossThreads() throws Exception {
+		IdAllocator ids = new IdAllocator("sequential", 3, 0);
+		Set<String> seen = allocateConcurrently(ids.sequence("TXN", 500));
+
+		assertThat(seen).hasSize(THREADS * IDS_PER_THREAD);
+		assertThat(seen).contains("TXN500", "TXN" + (500 + THREADS * IDS_PER_THREAD - 1));
+	}
+
+	@Test
+	void timeOrderedIdsNeverRepeatAcrossThreads() throws Exception {
+		IdAllocator ids = new IdAllocator("time-ordered", 3, 7);
+		Set<String> seen = allocateConcurrently(ids.sequence("TXN", 500));
+
+		assertThat(seen).hasSize(THREADS * IDS_PER_THREAD);
+	}
+
+	@Test
+	void timeOrderedIdsSortByCreation() {
+		IdAllocator ids = new IdAllocator("time-ordered", 3, 1);
+		IdAllocator.Sequence sequence = ids.sequence("MSG", 1);
+
+		long previous = -1;
+		for (int i = 0; i < 100_000; i++) {
+			long value = Long.parseLong(sequence.next().substring(3));
+			assertThat(value).isGreaterThan(previous);
+			previous = value;
+		}
+	}
+
+	@Test
+	void prefixIsSharedAndPadded() {
+		IdAllocator ids = new IdAllocator("sequential", 3, 0);
+		IdAllocator.Sequence savings = ids.sequence("TXN", 500);
+		IdAllocator.Sequence loans = ids.sequence("TXN", 1);
+
+		assertThat(savings.next()).isEqualTo("TXN500");
+		assertThat(loans.next()).isEqualTo("TXN501");
+		assertThat(ids.sequence("COM", 3).next()).isEqualTo("COM003");
+		assertThat(new IdAllocator("sequential", 6, 0).next("CL")).isEqualTo("CL000001");
+	}
+
+	@Test
+	void reservedBlockSitsBetweenSingleIds() {
+		IdAllocator.Sequence sequential = new IdAllocator("sequential", 3, 0).sequence("TXN", 500);
+		assertThat(sequential.next()).isEqualTo("TXN500");
+		IdAllocator.Sequence.Block block = sequential.reserve(1000);
+		assertThat(block.id(0)).isEqualTo("TXN501");
+		assertThat(block.id(999)).isEqualTo("TXN1500");
+		assertThat(sequential.next()).isEqualTo("TXN1501");
+
+		IdAllocator.Sequence timeOrdered = new IdAllocator("time-ordered", 3, 1).sequence("TXN", 1);
+		long before = Long.parseLong(timeOrdered.next().substring(3));
+		IdAllocator.Sequence.Block stamps = timeOrdered.reserve(10_000);
+		long previous = before;
+		for (int i = 0; i < 10_000; i++) {
+			long value = Long.parseLong(stamps.id(i).substring(3));
+			assertThat(value).isGreaterThan(previous);
+			previous = value;
+		}
+		assertThat(Long.parseLong(timeOrdered.next().substring(3))).isGreaterThan(previous);
+	}
+
+	private static Set<String> allocateConcurrently(IdAllocator.Sequence sequence) throws Exception {
+		Set<String> seen = ConcurrentHashMap.newKeySet();
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		try {
+			for (int t = 0; t < THREADS; t++) {
+				futures.add(pool.submit(() -> {
+					start.await();
+					for (int i = 0; i < IDS_PER_THREAD; i++) seen.add(sequence.next());
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) future.get();
+		} finally {
+			pool.shutdownNow();
+		}
+		return seen;
+	}
+}
@@ -0,0 +1,62 @@
+package com.turog.mockapi.store;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranked word search latency of {@link InvertedIndex} against a scan that tokenizes every row, over
+ * synthetic message subjects and bodies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvertedIndexBenchmark {
+
+	private static final String[] WORDS = {"loan", "repayment", "due", "statement", "ready", "card", "delivered", "security",
+			"alert", "transfer", "received", "welcome", "savings", "interest", "credited", "account", "update", "pin"};
+
+	@Param({"1000", "100000", "1000000"})
+	int size;
+
+	@Param({"loan due", "stat"})
+	String query;
+
+	private InvertedIndex index;
+	private String[] subjects;
+	private String[] bodies;
+
+	@Setup(Level.Trial)
+	public void fill() {
+		Random random = new Random(7);
+		index = new InvertedIndex(3, 1);
+		subjects = new String[size];
+		bodies = new String[size];
+		for (int i = 0; i < size; i++) {
+			subjects[i] = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+			bodies[i] = "Your " + WORDS[random.nextInt(WORDS.length)] + " is " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+			index.put("MSG" + i, subjects[i], bodies[i]);
+		}
+	}
+
+	@Benchmark
+	public InvertedIndex.Matches indexFirstPage() {
+		return index.search(query, 0, 10);
+	}
+
+	@Benchmark
+	public int scanCount() {
+		List<String> terms = InvertedIndex.tokenize(query);
+		int total = 0;
+		for (int i = 0; i < size; i++) {
+			List<String> words = InvertedIndex.tokenize(subjects[i] + " " + bodies[i]);
+			if (terms.stream().allMatch(term -> words.stream().anyMatch(word -> word.startsWith(term)))) total++;
+		}
+		return total;
+	}
+}
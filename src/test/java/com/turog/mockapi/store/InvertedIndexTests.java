@@ -0,0 +1,173 @@
+package com.turog.mockapi.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvertedIndexTests {
+
+	private static final String[] WORDS = {"loan", "repayment", "due", "statement", "ready", "card", "delivered", "security",
+			"alert", "transfer", "received", "welcome", "state", "loans"};
+	private static final int READERS = 4;
+
+	@Test
+	void matchesWordPrefixesAndRanksWeightedFieldsFirst() {
+		InvertedIndex index = new InvertedIndex(3, 2, 1);
+		index.put("MSG1", "Statement ready", "system", "Your monthly statement is ready to download.");
+		index.put("MSG2", "Loan repayment due", "system", "Your next loan repayment is due. See your statement.");
+		index.put("MSG3", "Hello", "statements-bot", "Nothing to see.");
+
+		assertThat(index.search("statement", 0, 10).keys()).containsExactly("MSG1", "MSG2", "MSG3");
+		assertThat(index.search("LOAN du", 0, 10).keys()).containsExactly("MSG2");
+		assertThat(index.search("stat", 0, 10).total()).isEqualTo(3);
+		assertThat(index.search("stat", 1, 1).keys()).containsExactly("MSG3");
+		assertThat(index.search("statement loan", 0, 10, scope(List.of("MSG1", "MSG3"))).total()).isZero();
+		assertThat(index.search("  ", 0, 10).total()).isZero();
+	}
+
+	@Test
+	void agreesWithAScanThroughAddsReplacementsAndDeletes() {
+		Random random = new Random(42);
+		InvertedIndex index = new InvertedIndex(2, 1);
+		Map<String, String[]> rows = new LinkedHashMap<>();
+
+		for (int step = 0; step < 20_000; step++) {
+			String key = "MSG" + random.nextInt(2_000);
+			if (random.nextInt(5) == 0) {
+				rows.remove(key);
+				index.remove(key);
+			} else {
+				String[] fields = {phrase(random), phrase(random)};
+				// A replaced row moves to the end, like a new message
+				rows.remove(key);
+				rows.put(key, fields);
+				index.put(key, fields);
+			}
+		}
+
+		assertThat(index.size()).isEqualTo(rows.size());
+		for (String query : new String[]{"loan", "stat", "card deliv", "s", "welcome alert", "zzz"}) {
+			List<String> expected = new ArrayList<>();
+			rows.forEach((key, fields) -> {
+				if (matchesAll(query, fields)) expected.add(key);
+			});
+			List<String> found = new ArrayList<>(index.search(query, 0, Integer.MAX_VALUE - 1).keys());
+			assertThat(found.size()).isEqualTo(expected.size());
+			found.sort(null);
+			expected.sort(null);
+			assertThat(found).isEqualTo(expected);
+
+			// A scope smaller than the matches is walked key by key, a larger one is asked per match
+			for (int every : new int[]{50, 1}) {
+				List<String> scoped = new ArrayList<>();
+				for (int i = 0; i < 2_000; i += every) scoped.add("MSG" + i);
+				scoped.addAll(scoped);
+				List<String> within = new ArrayList<>(index.search(query, 0, Integer.MAX_VALUE - 1, scope(scoped)).keys());
+				within.sort(null);
+				assertThat(within).isEqualTo(expected.stream().filter(scoped::contains).toList());
+			}
+		}
+	}
+
+	@Test
+	void churnReclaimsTheDocNumbersOfDeletedAndReplacedRows() {
+		InvertedIndex index = new InvertedIndex(1);
+		for (int i = 0; i < 1000; i++) index.put("MSG" + i, "loan statement " + i);
+
+		Random random = new Random(7);
+		for (int round = 0; round < 200_000; round++) {
+			String key = "MSG" + random.nextInt(1000);
+			if (random.nextBoolean()) {
+				index.put(key, "loan statement " + round);
+			} else {
+				index.remove(key);
+				index.put(key, "loan statement " + round);
+			}
+		}
+		index.put("MSG0", "loan statement last");
+
+		assertThat(index.size()).isEqualTo(1000);
+		assertThat(index.docSlots()).isLessThanOrEqualTo(4096);
+		assertThat(index.search("loan", 0, 2000).total()).isEqualTo(1000);
+		// Renumbering keeps the order rows were put in, so the last put still ranks last among equals
+		assertThat(index.search("loan", 0, 2000).keys()).hasSize(1000).doesNotHaveDuplicates().last().isEqualTo("MSG0");
+		assertThat(index.search("last", 0, 10).keys()).containsExactly("MSG0");
+	}
+
+	@Test
+	void searchesWhileTheIndexGrowsNeverSeeAShorterKeyArrayThanTheirCount() throws Exception {
+		InvertedIndex index = new InvertedIndex(2, 1);
+		AtomicBoolean writing = new AtomicBoolean(true);
+		ExecutorService pool = Executors.newFixedThreadPool(READERS);
+		try {
+			List<Future<?>> readers = new ArrayList<>();
+			for (int r = 0; r < READERS; r++) {
+				List<String> scoped = List.of("MSG1", "MSG2", "MSG3");
+				readers.add(pool.submit(() -> {
+					int seen = 0;
+					while (writing.get()) {
+						// Only adds happen, so a later search never finds fewer rows
+						int total = index.search("statement", 0, 10).total();
+						assertThat(total).isGreaterThanOrEqualTo(seen);
+						seen = total;
+						assertThat(index.search("statement ready", 0, 10, scope(scoped)).keys()).allMatch(scoped::contains);
+					}
+					return null;
+				}));
+			}
+			// Every put past a power of two grows the key array under the readers
+			for (int i = 0; i < 100_000; i++) index.put("MSG" + i, "Statement ready", "Your monthly statement is ready.");
+			writing.set(false);
+			for (Future<?> reader : readers) reader.get();
+		} finally {
+			pool.shutdownNow();
+		}
+		assertThat(index.search("statement", 0, 10).total()).isEqualTo(100_000);
+	}
+
+	private static InvertedIndex.Scope scope(List<String> keys) {
+		Set<String> distinct = new HashSet<>(keys);
+		return new InvertedIndex.Scope() {
+			@Override
+			public long size() {
+				return keys.size();
+			}
+
+			@Override
+			public void forEachKey(Consumer<String> action) {
+				keys.forEach(action);
+			}
+
+			@Override
+			public boolean contains(String key) {
+				return distinct.contains(key);
+			}
+		};
+	}
+
+	private static boolean matchesAll(String query, String[] fields) {
+		List<String> words = new ArrayList<>();
+		for (String field : fields) words.addAll(InvertedIndex.tokenize(field));
+		for (String term : InvertedIndex.tokenize(query)) {
+			if (words.stream().noneMatch(word -> word.startsWith(term))) return false;
+		}
+		return true;
+	}
+
+	private static String phrase(Random random) {
+		return WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + ", " + WORDS[random.nextInt(WORDS.length)];
+	}
+}
@@ -0,0 +1,66 @@
+package com.turog.mockapi.store;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building a transaction history of {@code appends} entries with {@link Ledger} versus the
+ * {@code CopyOnWriteArrayList} it replaced. The list copies the whole history on every append, so
+ * expect the 1M list case to take minutes per invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class LedgerBenchmark {
+
+	@Param({"10000", "100000", "1000000"})
+	int appends;
+
+	private final Map<String, Object> txn = Map.of("transaction_id", "TXN500", "account_id", "SAV001", "type", "Deposit", "amount", 10.0);
+
+	@Benchmark
+	public long ledgerAppend() {
+		Ledger<Map<String, Object>> ledger = new Ledger<>();
+		for (int i = 0; i < appends; i++) {
+			ledger.append(txn);
+		}
+		return ledger.size();
+	}
+
+	@Benchmark
+	public int copyOnWriteListAppend() {
+		List<Map<String, Object>> list = new CopyOnWriteArrayList<>();
+		for (int i = 0; i < appends; i++) {
+			list.add(txn);
+		}
+		return list.size();
+	}
+
+	// Eight writers appending to one log; iterations are kept short so the shared log stays small
+	@Benchmark
+	@Threads(8)
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+	@Measurement(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+	public long ledgerAppendContended(SharedLedger shared) {
+		return shared.ledger.append(txn);
+	}
+
+	@State(Scope.Benchmark)
+	public static class SharedLedger {
+		volatile Ledger<Map<String, Object>> ledger;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			ledger = new Ledger<>();
+		}
+	}
+}
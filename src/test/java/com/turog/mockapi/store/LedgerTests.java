@@ -0,0 +1,141 @@
+package com.turog.mockapi.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LedgerTests {
+
+	private static final int THREADS = 4;
+	private static final int APPENDS_PER_THREAD = 250;
+
+	@Test
+	void concurrentAppendsAreCommittedAndHeardOnceInPositionOrder() throws Exception {
+		Ledger<String> ledger = new Ledger<>();
+		long total = (long) THREADS * APPENDS_PER_THREAD;
+		AtomicInteger[] heard = new AtomicInteger[(int) total];
+		for (int i = 0; i < heard.length; i++) heard[i] = new AtomicInteger();
+		AtomicLong nextHeard = new AtomicLong();
+		AtomicInteger outOfOrder = new AtomicInteger();
+		AtomicInteger uncommitted = new AtomicInteger();
+		ledger.listen((position, value) -> {
+			heard[(int) position].incrementAndGet();
+			if (!nextHeard.compareAndSet(position, position + 1)) outOfOrder.incrementAndGet();
+			if (ledger.size() <= position || !ledger.get(position).equals(value)) uncommitted.incrementAndGet();
+		});
+
+		// A reader keeps checking that nothing below the committed size is missing
+		AtomicBoolean writing = new AtomicBoolean(true);
+		AtomicInteger holes = new AtomicInteger();
+		Thread reader = new Thread(() -> {
+			while (writing.get()) {
+				long size = ledger.size();
+				if (size > 0 && ledger.get(size - 1) == null) holes.incrementAndGet();
+			}
+		});
+		reader.start();
+
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		try {
+			for (int t = 0; t < THREADS; t++) {
+				int thread = t;
+				futures.add(pool.submit(() -> {
+					start.await();
+					for (int i = 0; i < APPENDS_PER_THREAD; i++) {
+						if (i % 100 == 0) {
+							ledger.appendAll(List.of(thread + ":" + i, thread + ":" + (i + 1)));
+							i++;
+						} else {
+							ledger.append(thread + ":" + i);
+						}
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) future.get();
+		} finally {
+			pool.shutdownNow();
+			writing.set(false);
+			reader.join();
+		}
+
+		assertThat(ledger.size()).isEqualTo(total);
+		int[] next = new int[THREADS];
+		ledger.forEach(value -> {
+			int thread = Integer.parseInt(value.substring(0, value.indexOf(':')));
+			assertThat(value).isEqualTo(thread + ":" + next[thread]++);
+		});
+		assertThat(next).containsOnly(APPENDS_PER_THREAD);
+		assertThat(heard).allSatisfy(count -> assertThat(count.get()).isEqualTo(1));
+		assertThat(outOfOrder.get()).isZero();
+		assertThat(uncommitted.get()).isZero();
+		assertThat(holes.get()).isZero();
+	}
+
+	@Test
+	void aSlowListenerDoesNotHoldUpOtherWriters() throws Exception {
+		Ledger<String> ledger = new Ledger<>();
+		CountDownLatch reporting = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<String> heard = new ArrayList<>();
+		ledger.listen((position, value) -> {
+			if (position == 0) {
+				reporting.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			heard.add(position + "=" + value);
+		});
+
+		// The first writer reports, and is held there
+		Thread first = new Thread(() -> ledger.append("A"));
+		first.start();
+		assertThat(reporting.await(5, TimeUnit.SECONDS)).isTrue();
+
+		// Later writers hand their positions over and return at once
+		ledger.append("B");
+		ledger.appendAll(List.of("C", "D"));
+		assertThat(ledger.size()).isEqualTo(4);
+		assertThat(heard).isEmpty();
+
+		release.countDown();
+		ledger.awaitAnnounced(3);
+		first.join();
+		assertThat(heard).containsExactly("0=A", "1=B", "2=C", "3=D");
+	}
+
+	@Test
+	void appendAllTakesConsecutivePositionsAcrossSegments() {
+		Ledger<String> ledger = new Ledger<>();
+		List<Long> heard = new ArrayList<>();
+		ledger.listen((position, value) -> heard.add(position));
+		ledger.append("first");
+
+		List<String> batch = new ArrayList<>();
+		for (int i = 0; i < 40; i++) batch.add("b" + i);
+		assertThat(ledger.appendAll(batch)).isEqualTo(1);
+
+		assertThat(ledger.size()).isEqualTo(41);
+		assertThat(ledger.get(1)).isEqualTo("b0");
+		assertThat(ledger.last()).isEqualTo("b39");
+		assertThat(ledger.slice(15, 18)).containsExactly("b14", "b15", "b16");
+		assertThat(heard).hasSize(41).startsWith(0L, 1L).endsWith(40L);
+	}
+}
@@ -0,0 +1,74 @@
+package com.turog.mockapi.store;
+
+import com.turog.mockapi.model.cards.Card;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Startup cost of restoring {@code rows} persisted cards, either from a snapshot or by replaying
+ * them all from the write-ahead log (what a process that crashed before its first snapshot sees).
+ * The data is written once per trial; each invocation restores it into an empty store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PersistenceBenchmark {
+
+	@Param({"1000000"})
+	int rows;
+
+	@Param({"snapshot", "log"})
+	String source;
+
+	private final JsonMapper mapper = JsonMapper.builder().build();
+	private Path dir;
+	private Persistence restoring;
+
+	@Setup(Level.Trial)
+	public void persist() throws IOException {
+		dir = Files.createTempDirectory("mockapi-persistence");
+		Persistence persistence = open();
+		EntityStore<Card> cards = new EntityStore<>(Card::cardId);
+		persistence.attach("cards", cards, Card.class);
+		for (int i = 0; i < rows; i++) {
+			cards.add(new Card(String.format("CD%07d", i), "CL001", "Virtual", "****1234", "2027-08", "Active", "NGN",
+					500000.0 + (i & 1023), "2025-07-01T10:00:00Z"));
+		}
+		if ("snapshot".equals(source)) persistence.snapshot();
+		persistence.close();
+	}
+
+	@Benchmark
+	public EntityStore<Card> restore() throws IOException {
+		restoring = open();
+		EntityStore<Card> cards = new EntityStore<>(Card::cardId);
+		restoring.attach("cards", cards, Card.class);
+		return cards;
+	}
+
+	@TearDown(Level.Invocation)
+	public void closeRestored() throws IOException {
+		restoring.close();
+	}
+
+	@TearDown(Level.Trial)
+	public void delete() throws IOException {
+		try (Stream<Path> files = Files.walk(dir)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(file);
+		}
+	}
+
+	private Persistence open() throws IOException {
+		return new Persistence(true, dir.toString(), 2, false, 300, mapper, new IdAllocator("sequential", 3, 0));
+	}
+}
@@ -0,0 +1,196 @@
+package com.turog.mockapi.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PersistenceTests {
+
+	@TempDir
+	Path dir;
+
+	private final JsonMapper mapper = JsonMapper.builder().build();
+
+	@Test
+	void restartReplaysTheLog() throws IOException {
+		Persistence first = open(new IdAllocator("sequential", 3, 0));
+		EntityStore<Map<String, Object>> rows = seeded();
+		Ledger<Map<String, Object>> log = new Ledger<>();
+		first.attach("rows", rows);
+		first.attach("log", log, "id");
+		rows.add(row("R002", "new"));
+		rows.update("R001", r -> {
+			r.put("name", "renamed");
+			return r;
+		});
+		rows.remove("R002");
+		rows.add(row("R003", "kept"));
+		log.append(row("T001", "first"));
+		log.append(row("T002", "second"));
+		first.close();
+
+		Persistence second = open(new IdAllocator("sequential", 3, 0));
+		EntityStore<Map<String, Object>> restored = seeded();
+		Ledger<Map<String, Object>> restoredLog = new Ledger<>();
+		second.attach("rows", restored);
+		second.attach("log", restoredLog, "id");
+
+		assertThat(restored.snapshot()).containsExactly(row("R001", "renamed"), row("R003", "kept"));
+		assertThat(restoredLog.stream().toList()).containsExactly(row("T001", "first"), row("T002", "second"));
+		second.close();
+	}
+
+	@Test
+	void restartLoadsTheSnapshotThenTheLogAfterIt() throws IOException {
+		Persistence first = open(new IdAllocator("sequential", 3, 0));
+		EntityStore<Map<String, Object>> rows = seeded();
+		Ledger<Map<String, Object>> log = new Ledger<>();
+		first.attach("rows", rows);
+		first.attach("log", log, "id");
+		for (int i = 2; i <= 500; i++) rows.add(row(String.format("R%03d", i), "row " + i));
+		log.append(row("T001", "before"));
+		first.snapshot();
+		rows.remove("R001");
+		rows.add(row("R501", "after"));
+		log.append(row("T002", "after"));
+		first.close();
+
+		Persistence second = open(new IdAllocator("sequential", 3, 0));
+		EntityStore<Map<String, Object>> restored = seeded();
+		Ledger<Map<String, Object>> restoredLog = new Ledger<>();
+		second.attach("rows", restored);
+		second.attach("log", restoredLog, "id");
+
+		assertThat(restored.size()).isEqualTo(500);
+		assertThat(restored.contains("R001")).isFalse();
+		assertThat(restored.get("R501")).isEqualTo(row("R501", "after"));
+		assertThat(restoredLog.stream().toList()).containsExactly(row("T001", "before"), row("T002", "after"));
+		second.close();
+	}
+
+	@Test
+	void ledgerEntriesAppendedDuringSnapshotsAreKeptAtTheirPositions() throws Exception {
+		Persistence first = open(new IdAllocator("sequential", 3, 0));
+		Ledger<Map<String, Object>> log = new Ledger<>();
+		first.attach("log", log, "id");
+		int threads = 32;
+		int appendsPerThread = 2_000;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		try {
+			for (int t = 0; t < threads; t++) {
+				int thread = t;
+				futures.add(pool.submit(() -> {
+					start.await();
+					for (int i = 0; i < appendsPerThread; i++) log.append(row("T" + thread + "-" + i, "entry"));
+					return null;
+				}));
+			}
+			start.countDown();
+			// Rotate and snapshot while appends are in flight, dropping the segments each snapshot covers
+			while (futures.stream().anyMatch(future -> !future.isDone())) first.snapshot();
+			for (Future<?> future : futures) future.get();
+		} finally {
+			pool.shutdownNow();
+		}
+		first.close();
+
+		Persistence second = open(new IdAllocator("sequential", 3, 0));
+		Ledger<Map<String, Object>> restoredLog = new Ledger<>();
+		second.attach("log", restoredLog, "id");
+
+		assertThat(restoredLog.size()).isEqualTo((long) threads * appendsPerThread);
+		assertThat(restoredLog.stream().toList()).isEqualTo(log.stream().toList());
+		second.close();
+	}
+
+	@Test
+	void aGapInTheLedgerLogFailsTheRestore() throws IOException {
+		Persistence first = open(new IdAllocator("sequential", 3, 0));
+		Ledger<Map<String, Object>> log = new Ledger<>();
+		first.attach("log", log, "id");
+		log.append(row("T001", "in the snapshot"));
+		first.snapshot();
+		log.append(row("T002", "in the log"));
+		first.close();
+		// Without the snapshot, the log alone would start at position 1
+		try (var files = Files.list(dir)) {
+			for (Path snapshot : files.filter(f -> f.getFileName().toString().startsWith("snapshot-")).toList()) Files.delete(snapshot);
+		}
+
+		Persistence second = open(new IdAllocator("sequential", 3, 0));
+		assertThatThrownBy(() -> second.attach("log", new Ledger<>(), "id"))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("missing entries 0 to 0");
+		second.close();
+	}
+
+	@Test
+	void tornEndOfTheLogIsIgnored() throws IOException {
+		Persistence first = open(new IdAllocator("sequential", 3, 0));
+		EntityStore<Map<String, Object>> rows = seeded();
+		first.attach("rows", rows);
+		rows.add(row("R002", "intact"));
+		first.close();
+		// A crash half way through a frame: a length that promises more bytes than follow
+		try (var files = Files.list(dir)) {
+			Path segment = files.filter(f -> f.getFileName().toString().startsWith("wal-")).findFirst().orElseThrow();
+			Files.write(segment, new byte[]{0, 0, 1, 0, 42, 42}, StandardOpenOption.APPEND);
+		}
+
+		Persistence second = open(new IdAllocator("sequential", 3, 0));
+		EntityStore<Map<String, Object>> restored = seeded();
+		second.attach("rows", restored);
+
+		assertThat(restored.snapshot()).containsExactly(row("R001", "seed"), row("R002", "intact"));
+		second.close();
+	}
+
+	@Test
+	void generatedIdsCarryOnAfterRestore() throws IOException {
+		IdAllocator ids = new IdAllocator("sequential", 3, 0);
+		IdAllocator.Sequence rowIds = ids.sequence("R", 2);
+		Persistence first = open(ids);
+		EntityStore<Map<String, Object>> rows = seeded();
+		first.attach("rows", rows);
+		for (int i = 0; i < 10; i++) rows.add(row(rowIds.next(), "generated"));
+		first.close();
+
+		IdAllocator restartedIds = new IdAllocator("sequential", 3, 0);
+		IdAllocator.Sequence restartedRowIds = restartedIds.sequence("R", 2);
+		Persistence second = open(restartedIds);
+		second.attach("rows", seeded());
+
+		assertThat(restartedRowIds.next()).isEqualTo("R012");
+		second.close();
+	}
+
+	private Persistence open(IdAllocator ids) throws IOException {
+		return new Persistence(true, dir.toString(), 0, true, 300, mapper, ids);
+	}
+
+	private static EntityStore<Map<String, Object>> seeded() {
+		return EntityStore.keyedBy("id", List.of(row("R001", "seed")));
+	}
+
+	private static Map<String, Object> row(String id, String name) {
+		return new HashMap<>(Map.of("id", id, "name", name));
+	}
+}
@@ -0,0 +1,249 @@
+package com.turog.mockapi.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlBackendTests {
+
+	@TempDir
+	Path dir;
+
+	private final JsonMapper mapper = JsonMapper.builder().build();
+
+	@Test
+	void restartLoadsTheTables() throws SQLException {
+		SqlBackend first = open(new IdAllocator("sequential", 3, 0));
+		EntityStore<Map<String, Object>> rows = seeded();
+		Ledger<Map<String, Object>> log = new Ledger<>();
+		first.attach("rows", rows);
+		first.attach("rows.log", log, "id");
+		rows.add(row("R002", "new"));
+		rows.update("R001", r -> row("R001", "renamed"));
+		rows.add(row("R003", "kept"));
+		rows.remove("R002");
+		log.append(row("T001", "first"));
+		log.append(row("T002", "second"));
+		first.close();
+
+		SqlBackend second = open(new IdAllocator("sequential", 3, 0));
+		EntityStore<Map<String, Object>> restored = seeded();
+		Ledger<Map<String, Object>> restoredLog = new Ledger<>();
+		second.attach("rows", restored);
+		second.attach("rows.log", restoredLog, "id");
+
+		assertThat(restored.snapshot()).containsExactly(row("R001", "renamed"), row("R003", "kept"));
+		assertThat(restoredLog.stream().toList()).containsExactly(row("T001", "first"), row("T002", "second"));
+		second.close();
+	}
+
+	@Test
+	void writesReachTheTableOnlyWhenFlushedAndCoalesce() throws SQLException {
+		SqlBackend backend = open(new IdAllocator("sequential", 3, 0));
+		EntityStore<Map<String, Object>> rows = seeded();
+		backend.attach("rows", rows);
+		backend.flushNow();
+		for (int i = 0; i < 100; i++) {
+			String name = "version " + i;
+			rows.update("R001", r -> row("R001", name));
+		}
+		rows.add(row("R002", "new"));
+
+		assertThat(stored("rows")).containsExactly(row("R001", "seed"));
+		backend.flushNow();
+		assertThat(stored("rows")).containsExactly(row("R001", "version 99"), row("R002", "new"));
+		backend.close();
+	}
+
+	@Test
+	void removedAndAddedBackRowMovesToTheEnd() throws SQLException {
+		SqlBackend first = open(new IdAllocator("sequential", 3, 0));
+		EntityStore<Map<String, Object>> rows = seeded();
+		first.attach("rows", rows);
+		rows.add(row("R002", "second"));
+		first.flushNow();
+		rows.remove("R001");
+		rows.add(row("R001", "back"));
+		first.close();
+
+		SqlBackend second = open(new IdAllocator("sequential", 3, 0));
+		EntityStore<Map<String, Object>> restored = seeded();
+		second.attach("rows", restored);
+
+		assertThat(restored.snapshot()).containsExactly(row("R002", "second"), row("R001", "back"));
+		second.close();
+	}
+
+	@Test
+	void generatedIdsCarryOnAfterRestore() throws SQLException {
+		IdAllocator ids = new IdAllocator("sequential", 3, 0);
+		IdAllocator.Sequence rowIds = ids.sequence("R", 2);
+		SqlBackend first = open(ids);
+		EntityStore<Map<String, Object>> rows = seeded();
+		first.attach("rows", rows);
+		for (int i = 0; i < 10; i++) rows.add(row(rowIds.next(), "generated"));
+		first.close();
+
+		IdAllocator restartedIds = new IdAllocator("sequential", 3, 0);
+		IdAllocator.Sequence restartedRowIds = restartedIds.sequence("R", 2);
+		SqlBackend second = open(restartedIds);
+		second.attach("rows", seeded());
+
+		assertThat(restartedRowIds.next()).isEqualTo("R012");
+		second.close();
+	}
+
+	@Test
+	void aBoundedStoreReadsColdRowsThroughAndEvictsOnceTheyAreStored() throws SQLException {
+		SqlBackend backend = open(new IdAllocator("sequential", 3, 0), 10);
+		EntityStore<Map<String, Object>> rows = seeded();
+		backend.attach("rows", rows);
+		for (int i = 2; i <= 100; i++) rows.add(row(id(i), "row " + i));
+
+		// Nothing is stored yet, so nothing can go
+		assertThat(rows.cachedRows()).isEqualTo(100);
+		backend.flushNow();
+		assertThat(rows.cachedRows()).isLessThanOrEqualTo(10);
+
+		assertThat(rows.get("R050")).isEqualTo(row("R050", "row 50"));
+		assertThat(rows.contains("R001")).isTrue();
+		assertThat(rows.get("R999")).isNull();
+		assertThat(rows.cachedRows()).isLessThanOrEqualTo(10);
+		assertThat(rows.size()).isEqualTo(100);
+
+		// Pages and scans merge the rows in memory with the database's, in insertion order
+		CursorPage<Map<String, Object>> first = rows.page(null, 30);
+		CursorPage<Map<String, Object>> second = rows.page(first.nextCursor(), 30);
+		assertThat(first.items()).extracting(r -> r.get("id")).containsExactlyElementsOf(ids(1, 30));
+		assertThat(second.items()).extracting(r -> r.get("id")).containsExactlyElementsOf(ids(31, 60));
+		assertThat(rows.stream().filter(r -> r.get("name").toString().endsWith("7")).map(r -> r.get("id")).toList())
+				.containsExactly("R007", "R017", "R027", "R037", "R047", "R057", "R067", "R077", "R087", "R097");
+		assertThat(rows.cachedRows()).isLessThanOrEqualTo(10);
+		backend.close();
+	}
+
+	@Test
+	void writesToColdRowsTakeEffectBeforeTheyAreStored() throws SQLException {
+		SqlBackend backend = open(new IdAllocator("sequential", 3, 0), 10);
+		EntityStore<Map<String, Object>> rows = seeded();
+		backend.attach("rows", rows);
+		for (int i = 2; i <= 100; i++) rows.add(row(id(i), "row " + i));
+		backend.flushNow();
+
+		rows.update("R005", r -> row("R005", "updated"));
+		assertThat(rows.remove("R006")).isTrue();
+		assertThat(rows.remove("R006")).isFalse();
+		rows.add(row("R007", "replaced"));
+		rows.remove("R008");
+		rows.add(row("R008", "back"));
+
+		List<Map<String, Object>> expected = new ArrayList<>();
+		for (int i = 1; i <= 100; i++) {
+			if (i == 5) expected.add(row("R005", "updated"));
+			else if (i == 7) expected.add(row("R007", "replaced"));
+			else if (i != 6 && i != 8) expected.add(row(id(i), i == 1 ? "seed" : "row " + i));
+		}
+		expected.add(row("R008", "back"));
+		assertThat(rows.snapshot()).containsExactlyElementsOf(expected);
+		assertThat(rows.get("R006")).isNull();
+		assertThat(rows.size()).isEqualTo(99);
+
+		backend.flushNow();
+		assertThat(stored("rows")).containsExactlyElementsOf(expected);
+		assertThat(rows.snapshot()).containsExactlyElementsOf(expected);
+		backend.close();
+	}
+
+	@Test
+	void scansReadPastRowsRemovedSinceTheLastFlush() throws SQLException {
+		SqlBackend backend = open(new IdAllocator("sequential", 3, 0), 10);
+		EntityStore<Map<String, Object>> rows = seeded();
+		backend.attach("rows", rows);
+		for (int i = 2; i <= 400; i++) rows.add(row(id(i), "row " + i));
+		backend.flushNow();
+
+		// More removed rows in a row than any one scan reads
+		for (int i = 2; i <= 300; i++) rows.remove(id(i));
+		assertThat(rows.page(null, 5).items()).extracting(r -> r.get("id")).containsExactly("R001", "R301", "R302", "R303", "R304");
+		assertThat(rows.snapshot()).extracting(r -> r.get("id")).hasSize(101).endsWith("R400");
+
+		backend.flushNow();
+		assertThat(rows.snapshot()).hasSize(101);
+		backend.close();
+	}
+
+	@Test
+	void aRestartReadsRowsOnlyWhenTheyAreAskedFor() throws SQLException {
+		SqlBackend first = open(new IdAllocator("sequential", 3, 0), 10);
+		EntityStore<Map<String, Object>> rows = seeded();
+		first.attach("rows", rows);
+		for (int i = 2; i <= 100; i++) rows.add(row(id(i), "row " + i));
+		first.close();
+
+		SqlBackend second = open(new IdAllocator("sequential", 3, 0), 10);
+		EntityStore<Map<String, Object>> restored = seeded();
+		second.attach("rows", restored);
+
+		assertThat(restored.cachedRows()).isZero();
+		assertThat(restored.size()).isEqualTo(100);
+		assertThat(restored.get("R042")).isEqualTo(row("R042", "row 42"));
+		assertThat(restored.cachedRows()).isEqualTo(1);
+		restored.add(row("R101", "after the restart"));
+		assertThat(restored.snapshot()).hasSize(101).last().isEqualTo(row("R101", "after the restart"));
+		second.close();
+	}
+
+	// A flush interval long enough that only flushNow() and close() write anything
+	private SqlBackend open(IdAllocator ids) throws SQLException {
+		return open(ids, 10_000);
+	}
+
+	private SqlBackend open(IdAllocator ids, int cacheRows) throws SQLException {
+		return new SqlBackend(url(), "sa", "", 1000, 3_600_000, cacheRows, 2, mapper, ids);
+	}
+
+	private static String id(int i) {
+		return String.format("R%03d", i);
+	}
+
+	private static List<String> ids(int from, int to) {
+		List<String> ids = new ArrayList<>();
+		for (int i = from; i <= to; i++) ids.add(id(i));
+		return ids;
+	}
+
+	private String url() {
+		return "jdbc:h2:file:" + dir.resolve("mockapi");
+	}
+
+	private List<Map<String, Object>> stored(String table) throws SQLException {
+		List<Map<String, Object>> stored = new ArrayList<>();
+		try (Connection connection = DriverManager.getConnection(url(), "sa", "");
+			 Statement select = connection.createStatement();
+			 ResultSet rows = select.executeQuery("SELECT body FROM " + table + " ORDER BY seq")) {
+			while (rows.next()) stored.add(mapper.readerFor(HashMap.class).readValue(rows.getString(1)));
+		}
+		return stored;
+	}
+
+	private static EntityStore<Map<String, Object>> seeded() {
+		return EntityStore.keyedBy("id", List.of(row("R001", "seed")));
+	}
+
+	private static Map<String, Object> row(String id, String name) {
+		return new HashMap<>(Map.of("id", id, "name", name));
+	}
+}
@@ -0,0 +1,156 @@
+package com.turog.mockapi.store;
+
+import com.turog.mockapi.model.client.Client;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Write, read and page throughput of the clients, messages and savings stores on their own
+ * ("memory", the default in-memory stores) and with {@link SqlBackend} keeping them in H2 behind a
+ * cache of {@code cacheRows} rows, so most reads of a random row miss and go to the database. Writes
+ * update a random row (clients, messages) or append a transaction (savings); the SQL numbers include
+ * reading a cold row in and marking it dirty, while the flushing itself runs on the backend's own
+ * thread. A page is 20 rows from a random position. Each iteration ends with everything flushed so
+ * backlogs do not carry over.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StoreBackendBenchmark {
+
+	@Param({"memory", "sql"})
+	String backend;
+
+	@Param({"clients", "messages", "savings"})
+	String domain;
+
+	@Param({"100000"})
+	int rows;
+
+	@Param({"10000"})
+	int cacheRows;
+
+	private final JsonMapper mapper = JsonMapper.builder().build();
+	private final AtomicLong nextTransaction = new AtomicLong();
+	private Path dir;
+	private SqlBackend sql;
+	private EntityStore<Client> clients;
+	private EntityStore<Map<String, Object>> messages;
+	private Ledger<Map<String, Object>> transactions;
+
+	@Setup(Level.Trial)
+	public void seed() throws IOException, SQLException {
+		clients = new EntityStore<>(Client::clientId);
+		messages = EntityStore.keyedBy("messageId");
+		transactions = new Ledger<>();
+		for (int i = 0; i < rows; i++) {
+			clients.add(client(i, "Active"));
+			messages.add(message(i, "unread"));
+			transactions.append(transaction(nextTransaction.getAndIncrement()));
+		}
+		if ("sql".equals(backend)) {
+			dir = Files.createTempDirectory("mockapi-sql");
+			sql = new SqlBackend("jdbc:h2:file:" + dir.resolve("mockapi"), "sa", "", 1000, 100, cacheRows, 4, mapper,
+					new IdAllocator("sequential", 3, 0));
+			switch (domain) {
+				case "clients" -> sql.attach("clients", clients, Client.class);
+				case "messages" -> sql.attach("messages", messages);
+				default -> sql.attach("savings.transactions", transactions, "transaction_id");
+			}
+			sql.flushNow();
+		}
+	}
+
+	@Benchmark
+	public Object write() {
+		int i = ThreadLocalRandom.current().nextInt(rows);
+		return switch (domain) {
+			case "clients" -> clients.put("CL" + i, client(i, (i & 1) == 0 ? "Active" : "Inactive"));
+			case "messages" -> messages.update("MSG" + i, current -> {
+				Map<String, Object> changed = new HashMap<>(current);
+				changed.put("status", "read");
+				return changed;
+			});
+			default -> transactions.append(transaction(nextTransaction.getAndIncrement()));
+		};
+	}
+
+	@Benchmark
+	public Object read() {
+		int i = ThreadLocalRandom.current().nextInt(rows);
+		return switch (domain) {
+			case "clients" -> clients.get("CL" + i);
+			case "messages" -> messages.get("MSG" + i);
+			default -> transactions.get(i);
+		};
+	}
+
+	@Benchmark
+	public Object page() {
+		long from = ThreadLocalRandom.current().nextInt(rows) + 1;
+		return switch (domain) {
+			case "clients" -> clients.page(Cursor.encode(from), 20);
+			case "messages" -> messages.page(Cursor.encode(from), 20);
+			default -> transactions.slice(from - 1, Math.min(from + 19, transactions.size()));
+		};
+	}
+
+	@TearDown(Level.Iteration)
+	public void drain() {
+		if (sql != null) sql.flushNow();
+	}
+
+	@TearDown(Level.Trial)
+	public void close() throws IOException, SQLException {
+		if (sql == null) return;
+		sql.close();
+		try (Stream<Path> files = Files.walk(dir)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(file);
+		}
+	}
+
+	private static Client client(int i, String status) {
+		return new Client("CL" + i, "Client " + i, "Individual", status, "Lagos", "Turog", "Tier 2",
+				"client" + i + "@example.com", "+2348000000000", "2025-07-01T10:00:00Z", "12 Marina Road", "1990-01-01", null);
+	}
+
+	private static Map<String, Object> message(int i, String status) {
+		Map<String, Object> message = new HashMap<>();
+		message.put("messageId", "MSG" + i);
+		message.put("subject", "Statement ready");
+		message.put("body", "Your monthly statement is ready to download.");
+		message.put("sender", "system");
+		message.put("recipients", List.of("user123"));
+		message.put("attachments", List.of());
+		message.put("category", "inbox");
+		message.put("timestamp", "2025-09-03T10:00:00Z");
+		message.put("status", status);
+		return message;
+	}
+
+	private static Map<String, Object> transaction(long n) {
+		Map<String, Object> transaction = new HashMap<>();
+		transaction.put("transaction_id", "TXN" + n);
+		transaction.put("account_id", "SAV" + (n % 100));
+		transaction.put("type", "credit");
+		transaction.put("amount", 2500.0);
+		transaction.put("timestamp", "2025-07-01T10:00:00Z");
+		return transaction;
+	}
+}
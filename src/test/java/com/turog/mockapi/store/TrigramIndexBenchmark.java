@@ -0,0 +1,64 @@
+package com.turog.mockapi.store;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Substring search latency of {@link TrigramIndex} against the old lowercase-and-contains scan,
+ * over synthetic community names and descriptions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrigramIndexBenchmark {
+
+	private static final String[] WORDS = {"tech", "lagos", "startup", "network", "innovators", "hub", "fintech", "abuja",
+			"developers", "crafts", "farmers", "design", "music", "founders", "health", "women", "students", "crypto"};
+
+	@Param({"1000", "100000", "1000000"})
+	int size;
+
+	@Param({"fintech hub", "abuja"})
+	String query;
+
+	private TrigramIndex index;
+	private String[] names;
+	private String[] descriptions;
+
+	@Setup(Level.Trial)
+	public void fill() {
+		Random random = new Random(7);
+		index = new TrigramIndex();
+		names = new String[size];
+		descriptions = new String[size];
+		for (int i = 0; i < size; i++) {
+			names[i] = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+			descriptions[i] = "A community for " + WORDS[random.nextInt(WORDS.length)] + " and " + WORDS[random.nextInt(WORDS.length)];
+			index.put("COM" + i, names[i], descriptions[i]);
+		}
+	}
+
+	@Benchmark
+	public TrigramIndex.Matches indexFirstPage() {
+		return index.search(query, 0, 10);
+	}
+
+	@Benchmark
+	public CursorPage<String> indexCursorPage() {
+		return index.page(query, "", 10);
+	}
+
+	@Benchmark
+	public int scanCount() {
+		int total = 0;
+		for (int i = 0; i < size; i++) {
+			if (names[i].toLowerCase().contains(query) || descriptions[i].toLowerCase().contains(query)) total++;
+		}
+		return total;
+	}
+}
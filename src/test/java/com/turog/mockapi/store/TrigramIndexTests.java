@@ -0,0 +1,89 @@
+package com.turog.mockapi.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTests {
+
+	private static final String[] WORDS = {"tech", "Lagos", "startup", "network", "innovators", "hub", "fintech", "Abuja", "devs", "crafts"};
+
+	@Test
+	void matchesNameOrDescriptionCaseInsensitively() {
+		TrigramIndex index = new TrigramIndex();
+		index.put("COM001", "Tech Innovators", "A hub for software developers.");
+		index.put("COM002", "Lagos Startup Network", "Connecting entrepreneurs across Nigeria.");
+
+		assertThat(index.search("TECH", 0, 10).keys()).containsExactly("COM001");
+		assertThat(index.search("nigeria", 0, 10).keys()).containsExactly("COM002");
+		assertThat(index.search("o", 0, 10).keys()).containsExactly("COM001", "COM002");
+		assertThat(index.search("network connecting", 0, 10).total()).isZero();
+	}
+
+	@Test
+	void agreesWithAScanThroughAddsUpdatesAndDeletes() {
+		Random random = new Random(42);
+		TrigramIndex index = new TrigramIndex();
+		Map<String, String[]> rows = new LinkedHashMap<>();
+
+		for (int step = 0; step < 20_000; step++) {
+			String key = "COM" + random.nextInt(2_000);
+			if (random.nextInt(5) == 0) {
+				rows.remove(key);
+				index.remove(key);
+			} else {
+				String[] fields = {phrase(random), phrase(random)};
+				// Updates keep their original position, like EntityStore
+				rows.put(key, fields);
+				index.put(key, fields);
+			}
+		}
+
+		for (String query : new String[]{"tech", "ago", "startup net", "s", "hub", "zzz", "ech lag"}) {
+			List<String> expected = new ArrayList<>();
+			rows.forEach((key, fields) -> {
+				if (fields[0].toLowerCase().contains(query) || fields[1].toLowerCase().contains(query)) expected.add(key);
+			});
+			List<String> ordered = expected.stream().sorted((a, b) -> Integer.compare(order(index, a), order(index, b))).toList();
+
+			TrigramIndex.Matches matches = index.search(query, 0, Integer.MAX_VALUE);
+			assertThat(matches.total()).isEqualTo(expected.size());
+			assertThat(matches.keys()).containsExactlyElementsOf(ordered);
+
+			List<String> paged = new ArrayList<>();
+			CursorPage<String> page = index.page(query, "", 7);
+			paged.addAll(page.items());
+			while (page.hasMore()) {
+				page = index.page(query, page.nextCursor(), 7);
+				paged.addAll(page.items());
+			}
+			assertThat(paged).containsExactlyElementsOf(ordered);
+		}
+	}
+
+	@Test
+	void pagesCountEveryMatchButKeepOnlyTheWindow() {
+		TrigramIndex index = new TrigramIndex();
+		for (int i = 0; i < 100; i++) index.put("C" + i, "community " + i, "");
+
+		TrigramIndex.Matches matches = index.search("community", 20, 10);
+
+		assertThat(matches.total()).isEqualTo(100);
+		assertThat(matches.keys()).containsExactly("C20", "C21", "C22", "C23", "C24", "C25", "C26", "C27", "C28", "C29");
+	}
+
+	// Position of a key in a full listing, used to express the expected insertion order
+	private static int order(TrigramIndex index, String key) {
+		return index.search("", 0, Integer.MAX_VALUE).keys().indexOf(key);
+	}
+
+	private static String phrase(Random random) {
+		return WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+	}
+}